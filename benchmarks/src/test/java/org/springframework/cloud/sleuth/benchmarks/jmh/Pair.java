@@ -51,6 +51,10 @@ public class Pair {
 		return new Pair("spring.sleuth.reactor.instrumentation-type", SleuthReactorProperties.InstrumentationType.DECORATE_QUEUES.name());
 	}
 
+	public static Pair decorateContext() {
+		return new Pair("spring.sleuth.reactor.instrumentation-type", SleuthReactorProperties.InstrumentationType.DECORATE_CONTEXT.name());
+	}
+
 	public static Pair manual() {
 		return new Pair("spring.sleuth.reactor.instrumentation-type", SleuthReactorProperties.InstrumentationType.MANUAL.name());
 	}
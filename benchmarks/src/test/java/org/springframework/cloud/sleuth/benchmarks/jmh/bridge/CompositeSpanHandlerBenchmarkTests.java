@@ -0,0 +1,99 @@
+/*
+ * Copyright 2013-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.benchmarks.jmh.bridge;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import brave.handler.MutableSpan;
+import brave.handler.SpanHandler;
+import brave.propagation.TraceContext;
+import jmh.mbr.junit5.Microbenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.cloud.sleuth.brave.bridge.CompositeSpanHandler;
+import org.springframework.cloud.sleuth.exporter.FinishedSpan;
+import org.springframework.cloud.sleuth.exporter.SpanFilter;
+import org.springframework.cloud.sleuth.exporter.SpanReporter;
+
+/**
+ * Measures how many spans per second go through the {@link CompositeSpanHandler}.
+ */
+@Measurement(iterations = 5, time = 1)
+@Warmup(iterations = 5, time = 1)
+@Fork(2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Microbenchmark
+public class CompositeSpanHandlerBenchmarkTests {
+
+	@Benchmark
+	public boolean end_span(BenchmarkContext context) {
+		return context.handler.end(context.context, context.span, SpanHandler.Cause.FINISHED);
+	}
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkContext {
+
+		volatile CompositeSpanHandler handler;
+
+		volatile TraceContext context;
+
+		volatile MutableSpan span;
+
+		volatile FinishedSpan lastReported;
+
+		@Param({ "0", "3" })
+		private int filters;
+
+		@Param({ "0", "2" })
+		private int reporters;
+
+		@Setup
+		public void setup() {
+			List<SpanFilter> spanFilters = new ArrayList<>();
+			for (int i = 0; i < this.filters; i++) {
+				spanFilters.add(span -> span.getName() != null);
+			}
+			List<SpanReporter> spanReporters = new ArrayList<>();
+			for (int i = 0; i < this.reporters; i++) {
+				spanReporters.add(span -> this.lastReported = span);
+			}
+			this.handler = new CompositeSpanHandler(spanFilters, spanReporters);
+			this.context = TraceContext.newBuilder().traceId(1L).spanId(2L).sampled(true).build();
+			MutableSpan span = new MutableSpan(this.context, null);
+			span.name("name");
+			span.startTimestamp(1L);
+			span.finishTimestamp(2L);
+			span.tag("foo", "bar");
+			this.span = span;
+		}
+
+	}
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2013-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.benchmarks.jmh.bridge;
+
+import java.util.concurrent.TimeUnit;
+
+import brave.propagation.ThreadLocalCurrentTraceContext;
+import jmh.mbr.junit5.Microbenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.cloud.sleuth.CurrentTraceContext;
+import org.springframework.cloud.sleuth.TraceContext;
+import org.springframework.cloud.sleuth.brave.bridge.BraveCurrentTraceContext;
+import org.springframework.cloud.sleuth.brave.bridge.BraveTraceContext;
+
+/**
+ * Measures scoping of the signals of a reactive pipeline (like in a {@code flatMap}),
+ * where each signal scopes the parent context, which usually is already in scope.
+ */
+@Measurement(iterations = 5, time = 1)
+@Warmup(iterations = 5, time = 1)
+@Fork(2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Microbenchmark
+public class CurrentTraceContextBenchmarkTests {
+
+	@Benchmark
+	public int signalsInScope(BenchmarkContext context) {
+		int signals = 0;
+		try (CurrentTraceContext.Scope scope = context.currentTraceContext.maybeScope(context.parent)) {
+			for (int i = 0; i < context.signals; i++) {
+				try (CurrentTraceContext.Scope signal = context.currentTraceContext.maybeScope(context.parent)) {
+					signals++;
+				}
+			}
+		}
+		return signals;
+	}
+
+	@Benchmark
+	public int signalsOutOfScope(BenchmarkContext context) {
+		int signals = 0;
+		for (int i = 0; i < context.signals; i++) {
+			try (CurrentTraceContext.Scope signal = context.currentTraceContext.maybeScope(context.parent)) {
+				signals++;
+			}
+		}
+		return signals;
+	}
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkContext {
+
+		volatile CurrentTraceContext currentTraceContext;
+
+		volatile TraceContext parent;
+
+		@Param({ "1", "10", "100" })
+		private int signals;
+
+		@Setup
+		public void setup() {
+			this.currentTraceContext = new BraveCurrentTraceContext(ThreadLocalCurrentTraceContext.create());
+			this.parent = BraveTraceContext
+					.fromBrave(brave.propagation.TraceContext.newBuilder().traceId(1L).spanId(2L).build());
+		}
+
+	}
+
+}
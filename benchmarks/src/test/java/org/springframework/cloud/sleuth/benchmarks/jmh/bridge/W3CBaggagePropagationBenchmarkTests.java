@@ -0,0 +1,105 @@
+/*
+ * Copyright 2013-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.benchmarks.jmh.bridge;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import brave.propagation.Propagation;
+import brave.propagation.TraceContext;
+import brave.propagation.TraceContextOrSamplingFlags;
+import jmh.mbr.junit5.Microbenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.cloud.sleuth.brave.bridge.CompositePropagationFactorySupplier;
+import org.springframework.cloud.sleuth.brave.propagation.PropagationType;
+
+/**
+ * Measures extraction and injection of W3C {@code baggage} headers with a growing number
+ * of entries.
+ */
+@Measurement(iterations = 5, time = 1)
+@Warmup(iterations = 5, time = 1)
+@Fork(2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Microbenchmark
+public class W3CBaggagePropagationBenchmarkTests {
+
+	@Benchmark
+	public TraceContextOrSamplingFlags extract(BenchmarkContext context) {
+		return context.extractor.extract(context.incoming);
+	}
+
+	@Benchmark
+	public Map<String, String> inject(BenchmarkContext context) {
+		Map<String, String> outgoing = new HashMap<>();
+		context.injector.inject(context.context, outgoing);
+		return outgoing;
+	}
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkContext {
+
+		volatile TraceContext.Extractor<Map<String, String>> extractor;
+
+		volatile TraceContext.Injector<Map<String, String>> injector;
+
+		volatile Map<String, String> incoming;
+
+		volatile TraceContext context;
+
+		@Param({ "0", "5", "30" })
+		private int entries;
+
+		@Setup
+		public void setup() {
+			Propagation<String> propagation = new CompositePropagationFactorySupplier(new DefaultListableBeanFactory(),
+					Collections.emptyList(), Collections.singletonList(PropagationType.W3C)).get().get();
+			this.extractor = propagation.extractor(Map::get);
+			this.injector = propagation.injector(Map::put);
+			this.incoming = new HashMap<>();
+			this.incoming.put("traceparent", "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01");
+			StringBuilder baggage = new StringBuilder();
+			for (int i = 0; i < this.entries; i++) {
+				if (i > 0) {
+					baggage.append(',');
+				}
+				baggage.append("key").append(i).append(" = value").append(i).append(";metadata");
+			}
+			if (baggage.length() > 0) {
+				this.incoming.put("baggage", baggage.toString());
+			}
+			this.context = this.extractor.extract(this.incoming).context();
+		}
+
+	}
+
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2013-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.benchmarks.jmh.messaging;
+
+import java.util.concurrent.TimeUnit;
+
+import brave.Tracing;
+import jmh.mbr.junit5.Microbenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.cloud.sleuth.brave.bridge.BraveBaggageManager;
+import org.springframework.cloud.sleuth.brave.bridge.BraveCurrentTraceContext;
+import org.springframework.cloud.sleuth.brave.bridge.BravePropagator;
+import org.springframework.cloud.sleuth.brave.bridge.BraveTracer;
+import org.springframework.cloud.sleuth.instrument.messaging.DefaultMessageSpanCustomizer;
+import org.springframework.cloud.sleuth.instrument.messaging.MessageHeaderPropagatorGetter;
+import org.springframework.cloud.sleuth.instrument.messaging.MessageHeaderPropagatorSetter;
+import org.springframework.cloud.sleuth.instrument.messaging.TracingChannelInterceptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+
+/**
+ * Measures sending a message through a flow of subscribable channels, each of them
+ * intercepted by the {@link TracingChannelInterceptor}, with and without copying the
+ * headers on send.
+ */
+@Measurement(iterations = 5, time = 1)
+@Warmup(iterations = 5, time = 1)
+@Fork(2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Microbenchmark
+public class TracingChannelInterceptorBenchmarkTests {
+
+	@Benchmark
+	public Message<?> send(BenchmarkContext context) {
+		context.channels[0].send(context.message);
+		return context.received;
+	}
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkContext {
+
+		volatile Tracing tracing;
+
+		volatile ExecutorSubscribableChannel[] channels;
+
+		volatile Message<String> message;
+
+		volatile Message<?> received;
+
+		@Param({ "1", "10" })
+		private int hops;
+
+		@Param({ "true", "false" })
+		private boolean copyHeaders;
+
+		@Setup
+		public void setup() {
+			this.tracing = Tracing.newBuilder().build();
+			BraveTracer tracer = new BraveTracer(this.tracing.tracer(),
+					new BraveCurrentTraceContext(this.tracing.currentTraceContext()), new BraveBaggageManager());
+			TracingChannelInterceptor interceptor = new TracingChannelInterceptor(tracer,
+					new BravePropagator(this.tracing), new MessageHeaderPropagatorSetter(),
+					new MessageHeaderPropagatorGetter(), name -> null, new DefaultMessageSpanCustomizer());
+			interceptor.setCopyHeaders(this.copyHeaders);
+			this.channels = new ExecutorSubscribableChannel[this.hops];
+			for (int i = 0; i < this.hops; i++) {
+				this.channels[i] = new ExecutorSubscribableChannel();
+				this.channels[i].addInterceptor(interceptor);
+			}
+			for (int i = 0; i < this.hops - 1; i++) {
+				ExecutorSubscribableChannel next = this.channels[i + 1];
+				this.channels[i].subscribe(next::send);
+			}
+			this.channels[this.hops - 1].subscribe(message -> this.received = message);
+			this.message = MessageBuilder.withPayload("foo").setHeader("contentType", "text/plain").build();
+		}
+
+		@TearDown
+		public void clean() {
+			this.tracing.close();
+		}
+
+	}
+
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2013-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.benchmarks.jmh.sampler;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import brave.sampler.CountingSampler;
+import brave.sampler.Sampler;
+import jmh.mbr.junit5.Microbenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.cloud.sleuth.brave.sampler.ProbabilityBasedSampler;
+import org.springframework.cloud.sleuth.brave.sampler.StripedProbabilityBasedSampler;
+
+/**
+ * Compares the throughput of probability based samplers for a growing number of threads
+ * making concurrent sampling decisions.
+ */
+@Measurement(iterations = 5, time = 1)
+@Warmup(iterations = 5, time = 1)
+@Fork(2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Microbenchmark
+public class ProbabilitySamplerBenchmarkTests {
+
+	@Benchmark
+	@Threads(1)
+	public boolean sample_1_thread(BenchmarkContext context) {
+		return context.sampler.isSampled(ThreadLocalRandom.current().nextLong());
+	}
+
+	@Benchmark
+	@Threads(4)
+	public boolean sample_4_threads(BenchmarkContext context) {
+		return context.sampler.isSampled(ThreadLocalRandom.current().nextLong());
+	}
+
+	@Benchmark
+	@Threads(16)
+	public boolean sample_16_threads(BenchmarkContext context) {
+		return context.sampler.isSampled(ThreadLocalRandom.current().nextLong());
+	}
+
+	@Benchmark
+	@Threads(64)
+	public boolean sample_64_threads(BenchmarkContext context) {
+		return context.sampler.isSampled(ThreadLocalRandom.current().nextLong());
+	}
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkContext {
+
+		volatile Sampler sampler;
+
+		@Param
+		private SamplerType samplerType;
+
+		@Setup
+		public void setup() {
+			this.sampler = this.samplerType.sampler(0.1f);
+		}
+
+		public enum SamplerType {
+
+			/**
+			 * {@link ProbabilityBasedSampler} - synchronized counting sampler.
+			 */
+			synchronizedCounting {
+				@Override
+				Sampler sampler(float probability) {
+					return new ProbabilityBasedSampler(() -> probability);
+				}
+			},
+
+			/**
+			 * Brave's {@link CountingSampler}.
+			 */
+			braveCounting {
+				@Override
+				Sampler sampler(float probability) {
+					return CountingSampler.create(probability);
+				}
+			},
+
+			/**
+			 * {@link StripedProbabilityBasedSampler} - lock-free striped sampler.
+			 */
+			striped {
+				@Override
+				Sampler sampler(float probability) {
+					return new StripedProbabilityBasedSampler(() -> probability);
+				}
+			};
+
+			abstract Sampler sampler(float probability);
+
+		}
+
+	}
+
+}
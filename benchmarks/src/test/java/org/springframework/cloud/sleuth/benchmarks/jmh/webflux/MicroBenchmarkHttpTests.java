@@ -130,11 +130,13 @@ public class MicroBenchmarkHttpTests {
 			onManualSimple("/simpleManual", Pair.manual()),
 			onEachSimple("/simple", Pair.onEach()),
 			onLastSimple("/simple", Pair.onLast()),
+			onContextSimple("/simple", Pair.decorateContext()),
 			noSleuthComplex("/complexNoSleuth", Pair.noSleuth()),
 			onQueueComplex("/complex", Pair.onHook()),
 			onManualComplex("/complexManual", Pair.manual()),
 			onEachComplex("/complex", Pair.onEach()),
-			onLastComplex("/complex", Pair.onLast());
+			onLastComplex("/complex", Pair.onLast()),
+			onContextComplex("/complex", Pair.decorateContext());
 			// @formatter:on
 
 			private String url;
@@ -17,20 +17,30 @@
 package org.springframework.cloud.sleuth.exporter;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 import java.util.stream.Collectors;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.springframework.util.ConcurrentLruCache;
 import org.springframework.util.StringUtils;
 
 /**
  * {@link SpanFilter} that ignores spans via names.
  *
+ * All the patterns are compiled once, when the filter is created. Patterns that are plain
+ * span names or span name prefixes (e.g. {@code ^foo.*$}) are matched without using
+ * regular expressions. The remaining ones are merged into a single regular expression,
+ * unless they can't be combined (e.g. because of back references or duplicate named
+ * groups). The verdicts for the most recently seen span names are cached.
+ *
  * @author Marcin Grzejszczak
  * @since 3.0.0
  */
@@ -38,40 +48,131 @@ public class SpanIgnoringSpanFilter implements SpanFilter {
 
 	private static final Log log = LogFactory.getLog(SpanIgnoringSpanFilter.class);
 
-	private final List<String> spanNamePatternsToSkip;
+	private static final int MAX_CACHED_SPAN_NAMES = 1024;
+
+	private static final String REGEX_SPECIAL_CHARACTERS = "\\^$.|?*+()[]{}";
 
-	private final List<String> additionalSpanNamePatternsToIgnore;
+	private static final Pattern BACK_REFERENCE = Pattern.compile("\\\\[1-9k]");
 
 	static final Map<String, Pattern> cache = new ConcurrentHashMap<>();
 
+	private final ConcurrentLruCache<String, Boolean> verdicts = new ConcurrentLruCache<>(MAX_CACHED_SPAN_NAMES,
+			name -> !shouldIgnore(name));
+
+	private final Set<String> spanNames = new HashSet<>();
+
+	private final List<String> spanNamePrefixes = new ArrayList<>();
+
+	private final List<Pattern> spanNamePatterns = new ArrayList<>();
+
 	public SpanIgnoringSpanFilter(List<String> spanNamePatternsToSkip,
 			List<String> additionalSpanNamePatternsToIgnore) {
-		this.spanNamePatternsToSkip = spanNamePatternsToSkip;
-		this.additionalSpanNamePatternsToIgnore = additionalSpanNamePatternsToIgnore;
+		List<String> regexes = new ArrayList<>();
+		addAll(spanNamePatternsToSkip, regexes);
+		addAll(additionalSpanNamePatternsToIgnore, regexes);
+		// merging would break the group numbering used by back references
+		Pattern merged = regexes.size() < 2
+				|| regexes.stream().anyMatch(regex -> BACK_REFERENCE.matcher(regex).find()) ? null : merged(regexes);
+		if (merged != null) {
+			this.spanNamePatterns.add(merged);
+		}
+		else {
+			regexes.forEach(regex -> this.spanNamePatterns.add(cache.get(regex)));
+		}
+	}
+
+	private static Pattern merged(List<String> regexes) {
+		String merged = regexes.stream().map(regex -> "(?:" + regex + ")").collect(Collectors.joining("|"));
+		try {
+			return Pattern.compile(merged);
+		}
+		catch (PatternSyntaxException ex) {
+			// e.g. the same named group declared by two patterns
+			if (log.isDebugEnabled()) {
+				log.debug("Can't merge span name patterns " + regexes + ", will match them one by one", ex);
+			}
+			return null;
+		}
+	}
+
+	private void addAll(List<String> patterns, List<String> regexes) {
+		if (patterns == null) {
+			return;
+		}
+		for (String pattern : patterns) {
+			// fails fast on invalid patterns
+			cache.computeIfAbsent(pattern, Pattern::compile);
+			String body = stripAnchors(pattern);
+			if (isLiteral(body)) {
+				this.spanNames.add(body);
+			}
+			else if (body.endsWith(".*") && isLiteral(body.substring(0, body.length() - 2))) {
+				this.spanNamePrefixes.add(body.substring(0, body.length() - 2));
+			}
+			else {
+				regexes.add(pattern);
+			}
+		}
 	}
 
-	private List<Pattern> spanNamesToIgnore() {
-		return spanNames().stream().map(regex -> cache.computeIfAbsent(regex, Pattern::compile))
-				.collect(Collectors.toList());
+	private static String stripAnchors(String pattern) {
+		int start = pattern.startsWith("^") ? 1 : 0;
+		int end = pattern.length();
+		if (end > start && pattern.endsWith("$") && !pattern.endsWith("\\$")) {
+			end--;
+		}
+		return pattern.substring(start, end);
 	}
 
-	private List<String> spanNames() {
-		List<String> spanNamesToIgnore = new ArrayList<>(this.spanNamePatternsToSkip);
-		spanNamesToIgnore.addAll(this.additionalSpanNamePatternsToIgnore);
-		return spanNamesToIgnore;
+	private static boolean isLiteral(String pattern) {
+		for (int i = 0; i < pattern.length(); i++) {
+			if (REGEX_SPECIAL_CHARACTERS.indexOf(pattern.charAt(i)) >= 0) {
+				return false;
+			}
+		}
+		return true;
 	}
 
 	@Override
 	public boolean isExportable(FinishedSpan span) {
-		List<Pattern> spanNamesToIgnore = spanNamesToIgnore();
 		String name = span.getName();
-		if (StringUtils.hasText(name) && spanNamesToIgnore.stream().anyMatch(p -> p.matcher(name).matches())) {
-			if (log.isDebugEnabled()) {
-				log.debug("Will ignore a span with name [" + name + "]");
+		if (!StringUtils.hasText(name)) {
+			return true;
+		}
+		boolean exportable = this.verdicts.get(name);
+		if (!exportable && log.isDebugEnabled()) {
+			log.debug("Will ignore a span with name [" + name + "]");
+		}
+		return exportable;
+	}
+
+	private boolean shouldIgnore(String name) {
+		if (this.spanNames.contains(name)) {
+			return true;
+		}
+		for (int i = 0; i < this.spanNamePrefixes.size(); i++) {
+			String prefix = this.spanNamePrefixes.get(i);
+			// "." doesn't match line terminators
+			if (name.startsWith(prefix) && !hasLineTerminator(name, prefix.length())) {
+				return true;
 			}
-			return false;
 		}
-		return true;
+		for (int i = 0; i < this.spanNamePatterns.size(); i++) {
+			if (this.spanNamePatterns.get(i).matcher(name).matches()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean hasLineTerminator(String name, int from) {
+		for (int i = from; i < name.length(); i++) {
+			char c = name.charAt(i);
+			if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+				return true;
+			}
+		}
+		return false;
 	}
 
 }
@@ -16,6 +16,8 @@
 
 package org.springframework.cloud.sleuth.exporter;
 
+import java.util.List;
+
 /**
  * An interface that allows to process spans after they got finished.
  *
@@ -30,4 +32,16 @@ public interface SpanReporter {
 	 */
 	void report(FinishedSpan span);
 
+	/**
+	 * Reports a batch of finished spans. Override it to amortise the cost of reporting
+	 * over many spans.
+	 * @param spans spans that were ended and are ready to be reported.
+	 * @since 3.1.11
+	 */
+	default void reportAll(List<FinishedSpan> spans) {
+		for (FinishedSpan span : spans) {
+			report(span);
+		}
+	}
+
 }
@@ -16,6 +16,7 @@
 
 package org.springframework.cloud.sleuth.exporter;
 
+import java.util.Arrays;
 import java.util.Collections;
 
 import org.junit.jupiter.api.Test;
@@ -26,8 +27,12 @@ import static org.assertj.core.api.BDDAssertions.then;
 class SpanIgnoringSpanFilterTests {
 
 	private FinishedSpan namedSpan() {
+		return namedSpan("someName");
+	}
+
+	private FinishedSpan namedSpan(String name) {
 		FinishedSpan span = BDDMockito.mock(FinishedSpan.class);
-		BDDMockito.given(span.getName()).willReturn("someName");
+		BDDMockito.given(span.getName()).willReturn(name);
 		return span;
 	}
 
@@ -63,6 +68,74 @@ class SpanIgnoringSpanFilterTests {
 				.containsKey("c");
 	}
 
+	@Test
+	void should_match_anchored_literal_and_prefix_patterns() {
+		SpanIgnoringSpanFilter handler = new SpanIgnoringSpanFilter(Arrays.asList("^catalogWatchTaskScheduler$"),
+				Arrays.asList("^health.*$", "async.*"));
+
+		then(handler.isExportable(namedSpan("catalogWatchTaskScheduler"))).isFalse();
+		then(handler.isExportable(namedSpan("catalogWatchTaskSchedulerFoo"))).isTrue();
+		then(handler.isExportable(namedSpan("health"))).isFalse();
+		then(handler.isExportable(namedSpan("healthCheck"))).isFalse();
+		then(handler.isExportable(namedSpan("health\ncheck"))).isTrue();
+		then(handler.isExportable(namedSpan("asyncTask"))).isFalse();
+		then(handler.isExportable(namedSpan("someAsyncTask"))).isTrue();
+	}
+
+	@Test
+	void should_match_merged_regular_expressions() {
+		SpanIgnoringSpanFilter handler = new SpanIgnoringSpanFilter(Arrays.asList("get /actuator/[a-z]+"),
+				Arrays.asList("(?i)POST /ignored", "[0-9]+"));
+
+		then(handler.isExportable(namedSpan("get /actuator/health"))).isFalse();
+		then(handler.isExportable(namedSpan("post /ignored"))).isFalse();
+		then(handler.isExportable(namedSpan("123"))).isFalse();
+		then(handler.isExportable(namedSpan("get /actuator/"))).isTrue();
+		then(handler.isExportable(namedSpan("123a"))).isTrue();
+	}
+
+	@Test
+	void should_match_regular_expressions_with_back_references() {
+		SpanIgnoringSpanFilter handler = new SpanIgnoringSpanFilter(Arrays.asList("(a+)b\\1"),
+				Arrays.asList("(c+)d\\1"));
+
+		then(handler.isExportable(namedSpan("aabaa"))).isFalse();
+		then(handler.isExportable(namedSpan("ccdcc"))).isFalse();
+		then(handler.isExportable(namedSpan("ccdc"))).isTrue();
+	}
+
+	@Test
+	void should_match_regular_expressions_declaring_the_same_named_group() {
+		SpanIgnoringSpanFilter handler = new SpanIgnoringSpanFilter(Arrays.asList("get /(?<id>[0-9]+)"),
+				Arrays.asList("post /(?<id>[a-z]+)"));
+
+		then(handler.isExportable(namedSpan("get /123"))).isFalse();
+		then(handler.isExportable(namedSpan("post /abc"))).isFalse();
+		then(handler.isExportable(namedSpan("get /abc"))).isTrue();
+	}
+
+	@Test
+	void should_keep_matching_when_more_span_names_than_cached_are_seen() {
+		SpanIgnoringSpanFilter handler = handler("some.*");
+
+		for (int i = 0; i < 2_000; i++) {
+			then(handler.isExportable(namedSpan("other" + i))).isTrue();
+		}
+
+		then(handler.isExportable(namedSpan("someName"))).isFalse();
+		then(handler.isExportable(namedSpan("otherName"))).isTrue();
+	}
+
+	@Test
+	void should_return_the_same_verdict_for_a_cached_span_name() {
+		SpanIgnoringSpanFilter handler = handler("some.*");
+
+		then(handler.isExportable(namedSpan("someName"))).isFalse();
+		then(handler.isExportable(namedSpan("someName"))).isFalse();
+		then(handler.isExportable(namedSpan("otherName"))).isTrue();
+		then(handler.isExportable(namedSpan("otherName"))).isTrue();
+	}
+
 	private void export(SpanIgnoringSpanFilter handler) {
 		handler.isExportable(namedSpan());
 	}
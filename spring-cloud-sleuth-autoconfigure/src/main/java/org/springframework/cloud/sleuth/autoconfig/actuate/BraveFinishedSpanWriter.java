@@ -17,7 +17,6 @@
 package org.springframework.cloud.sleuth.autoconfig.actuate;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 import brave.Tags;
 import brave.handler.MutableSpanBytesEncoder;
@@ -25,20 +24,42 @@ import brave.handler.MutableSpanBytesEncoder;
 import org.springframework.cloud.sleuth.brave.bridge.BraveFinishedSpan;
 import org.springframework.cloud.sleuth.exporter.FinishedSpan;
 import org.springframework.cloud.sleuth.exporter.SpanReporter;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
 
 /**
- * A {@link SpanReporter} that buffers finished spans.
+ * A {@link SpanReporter} that buffers finished spans. The spans are encoded lazily while
+ * the response is being written, so the whole payload is never held in memory.
  *
  * @author Marcin Grzejszczak
  * @since 3.1.0
  */
-class BraveFinishedSpanWriter implements FinishedSpanWriter<String> {
+class BraveFinishedSpanWriter implements FinishedSpanWriter<Resource> {
+
+	private static final byte[] NONE = new byte[0];
+
+	private static final byte[] JSON_LIST_START = { '[' };
+
+	private static final byte[] JSON_LIST_SEPARATOR = { ',' };
+
+	private static final byte[] JSON_LIST_END = { ']' };
+
+	private final MutableSpanBytesEncoder zipkinJsonV2 = MutableSpanBytesEncoder.zipkinJsonV2(Tags.ERROR);
+
+	private final BraveOtlpProtobufEncoder otlpProtobuf = new BraveOtlpProtobufEncoder();
 
 	@Override
-	public String write(TextOutputFormat format, List<FinishedSpan> spans) {
+	public Resource write(TextOutputFormat format, List<FinishedSpan> spans) {
 		if (format == TextOutputFormat.CONTENT_TYPE_OPENZIPKIN_JSON_V2) {
-			return new String(MutableSpanBytesEncoder.zipkinJsonV2(Tags.ERROR)
-					.encodeList(spans.stream().map(BraveFinishedSpan::toBrave).collect(Collectors.toList())));
+			return new InputStreamResource(new FinishedSpansInputStream(spans,
+					span -> this.zipkinJsonV2.encode(BraveFinishedSpan.toBrave(span)), JSON_LIST_START,
+					JSON_LIST_SEPARATOR, JSON_LIST_END));
+		}
+		else if (format == TextOutputFormat.CONTENT_TYPE_OTLP_PROTOBUF) {
+			// repeated resource_spans entries of an ExportTraceServiceRequest can simply be
+			// concatenated
+			return new InputStreamResource(new FinishedSpansInputStream(spans,
+					span -> this.otlpProtobuf.encode(BraveFinishedSpan.toBrave(span)), NONE, NONE, NONE));
 		}
 		return null;
 	}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2013-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.autoconfig.actuate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import brave.Span;
+import brave.handler.MutableSpan;
+
+/**
+ * Encodes a {@link MutableSpan} into the OTLP protobuf format. Each span is encoded as a
+ * separate {@code resource_spans} entry of an {@code ExportTraceServiceRequest}, so
+ * entries for consecutive spans can be concatenated into a valid request without knowing
+ * the size of the whole request upfront.
+ *
+ * @author Marcin Grzejszczak
+ * @since 3.1.11
+ */
+final class BraveOtlpProtobufEncoder {
+
+	private static final String INSTRUMENTATION_SCOPE = "org.springframework.cloud.sleuth";
+
+	private static final int WIRE_TYPE_VARINT = 0;
+
+	private static final int WIRE_TYPE_FIXED64 = 1;
+
+	private static final int WIRE_TYPE_LENGTH_DELIMITED = 2;
+
+	private static final int STATUS_CODE_ERROR = 2;
+
+	/**
+	 * @param span span to encode
+	 * @return {@code resource_spans} entry of an {@code ExportTraceServiceRequest}
+	 */
+	byte[] encode(MutableSpan span) {
+		ByteArrayOutputStream resourceSpans = new ByteArrayOutputStream(256);
+		if (span.localServiceName() != null) {
+			ByteArrayOutputStream resource = new ByteArrayOutputStream(64);
+			writeMessage(resource, 1, stringAttribute("service.name", span.localServiceName()));
+			writeMessage(resourceSpans, 1, resource);
+		}
+		ByteArrayOutputStream scopeSpans = new ByteArrayOutputStream(256);
+		ByteArrayOutputStream scope = new ByteArrayOutputStream(48);
+		writeString(scope, 1, INSTRUMENTATION_SCOPE);
+		writeMessage(scopeSpans, 1, scope);
+		writeMessage(scopeSpans, 2, span(span));
+		writeMessage(resourceSpans, 2, scopeSpans);
+		ByteArrayOutputStream request = new ByteArrayOutputStream(resourceSpans.size() + 8);
+		writeMessage(request, 1, resourceSpans);
+		return request.toByteArray();
+	}
+
+	private ByteArrayOutputStream span(MutableSpan span) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+		writeBytes(out, 1, id(span.traceId(), 16));
+		writeBytes(out, 2, id(span.id(), 8));
+		if (span.parentId() != null) {
+			writeBytes(out, 4, id(span.parentId(), 8));
+		}
+		if (span.name() != null) {
+			writeString(out, 5, span.name());
+		}
+		writeTag(out, 6, WIRE_TYPE_VARINT);
+		writeVarint(out, kind(span.kind()));
+		writeTag(out, 7, WIRE_TYPE_FIXED64);
+		writeFixed64(out, span.startTimestamp() * 1000L);
+		writeTag(out, 8, WIRE_TYPE_FIXED64);
+		writeFixed64(out, span.finishTimestamp() * 1000L);
+		for (int i = 0; i < span.tagCount(); i++) {
+			writeMessage(out, 9, stringAttribute(span.tagKeyAt(i), span.tagValueAt(i)));
+		}
+		if (span.remoteServiceName() != null) {
+			writeMessage(out, 9, stringAttribute("peer.service", span.remoteServiceName()));
+		}
+		if (span.remoteIp() != null) {
+			writeMessage(out, 9, stringAttribute("net.peer.ip", span.remoteIp()));
+		}
+		if (span.remotePort() != 0) {
+			writeMessage(out, 9, intAttribute("net.peer.port", span.remotePort()));
+		}
+		for (int i = 0; i < span.annotationCount(); i++) {
+			ByteArrayOutputStream event = new ByteArrayOutputStream(32);
+			writeTag(event, 1, WIRE_TYPE_FIXED64);
+			writeFixed64(event, span.annotationTimestampAt(i) * 1000L);
+			writeString(event, 2, span.annotationValueAt(i));
+			writeMessage(out, 11, event);
+		}
+		if (span.error() != null || span.tag("error") != null) {
+			ByteArrayOutputStream status = new ByteArrayOutputStream(32);
+			String message = span.error() != null ? span.error().getMessage() : span.tag("error");
+			if (message != null) {
+				writeString(status, 2, message);
+			}
+			writeTag(status, 3, WIRE_TYPE_VARINT);
+			writeVarint(status, STATUS_CODE_ERROR);
+			writeMessage(out, 15, status);
+		}
+		return out;
+	}
+
+	private static int kind(Span.Kind kind) {
+		if (kind == null) {
+			return 1;
+		}
+		switch (kind) {
+		case SERVER:
+			return 2;
+		case CLIENT:
+			return 3;
+		case PRODUCER:
+			return 4;
+		case CONSUMER:
+			return 5;
+		default:
+			return 1;
+		}
+	}
+
+	private static ByteArrayOutputStream stringAttribute(String key, String value) {
+		ByteArrayOutputStream anyValue = new ByteArrayOutputStream(value.length() + 2);
+		writeString(anyValue, 1, value);
+		return attribute(key, anyValue);
+	}
+
+	private static ByteArrayOutputStream intAttribute(String key, long value) {
+		ByteArrayOutputStream anyValue = new ByteArrayOutputStream(11);
+		writeTag(anyValue, 3, WIRE_TYPE_VARINT);
+		writeVarint(anyValue, value);
+		return attribute(key, anyValue);
+	}
+
+	private static ByteArrayOutputStream attribute(String key, ByteArrayOutputStream anyValue) {
+		ByteArrayOutputStream keyValue = new ByteArrayOutputStream(key.length() + anyValue.size() + 4);
+		writeString(keyValue, 1, key);
+		writeMessage(keyValue, 2, anyValue);
+		return keyValue;
+	}
+
+	/**
+	 * Converts a lower-hex identifier to bytes, left padding it with zeros to the given
+	 * length (64-bit trace ids are encoded as 128-bit ones).
+	 */
+	static byte[] id(String hex, int length) {
+		byte[] result = new byte[length];
+		int offset = length - hex.length() / 2;
+		for (int i = 0; i < hex.length() / 2; i++) {
+			result[offset + i] = (byte) ((Character.digit(hex.charAt(2 * i), 16) << 4)
+					| Character.digit(hex.charAt(2 * i + 1), 16));
+		}
+		return result;
+	}
+
+	private static void writeTag(ByteArrayOutputStream out, int field, int wireType) {
+		writeVarint(out, (field << 3) | wireType);
+	}
+
+	private static void writeVarint(ByteArrayOutputStream out, long value) {
+		while ((value & ~0x7FL) != 0) {
+			out.write((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		out.write((int) value);
+	}
+
+	private static void writeFixed64(ByteArrayOutputStream out, long value) {
+		for (int i = 0; i < 8; i++) {
+			out.write((int) (value >>> (8 * i)) & 0xFF);
+		}
+	}
+
+	private static void writeBytes(ByteArrayOutputStream out, int field, byte[] bytes) {
+		writeTag(out, field, WIRE_TYPE_LENGTH_DELIMITED);
+		writeVarint(out, bytes.length);
+		out.write(bytes, 0, bytes.length);
+	}
+
+	private static void writeString(ByteArrayOutputStream out, int field, String value) {
+		writeBytes(out, field, value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static void writeMessage(ByteArrayOutputStream out, int field, ByteArrayOutputStream message) {
+		writeTag(out, field, WIRE_TYPE_LENGTH_DELIMITED);
+		writeVarint(out, message.size());
+		try {
+			message.writeTo(out);
+		}
+		catch (IOException ex) {
+			// can't happen for in-memory streams
+			throw new IllegalStateException(ex);
+		}
+	}
+
+}
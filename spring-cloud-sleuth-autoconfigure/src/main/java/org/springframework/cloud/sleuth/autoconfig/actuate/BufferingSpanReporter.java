@@ -17,10 +17,11 @@
 package org.springframework.cloud.sleuth.autoconfig.actuate;
 
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.springframework.boot.context.metrics.buffering.StartupTimeline;
 import org.springframework.cloud.sleuth.exporter.FinishedSpan;
@@ -28,20 +29,61 @@ import org.springframework.cloud.sleuth.exporter.SpanReporter;
 
 /**
  * A {@link SpanReporter} that buffers finished spans.
+ * <p>
+ * Spans are stored in a fixed size ring buffer. Reporting threads claim consecutive
+ * sequences and write spans to the corresponding slots without taking a lock. When the
+ * buffer is full the newest span overwrites the oldest one, so the buffer never holds
+ * more than {@code capacity} spans. Reading the buffer returns the spans in the order in
+ * which their sequences were claimed.
+ * <p>
+ * A writer marks its slot as being written before storing the span and publishes the
+ * sequence afterwards. Readers check the published sequence before and after reading a
+ * slot, so a span is returned only if the slot wasn't rewritten in the meantime.
  *
  * @author Marcin Grzejszczak
  * @since 3.1.0
  */
 public class BufferingSpanReporter implements SpanReporter {
 
+	/**
+	 * Published sequence of a slot whose span is being written.
+	 */
+	private static final long WRITING = Long.MIN_VALUE;
+
 	private final int capacity;
 
-	private final AtomicInteger estimatedSize = new AtomicInteger();
+	private final AtomicReferenceArray<FinishedSpan> slots;
+
+	/**
+	 * Sequence of the span published in each slot.
+	 */
+	private final AtomicLongArray published;
+
+	/**
+	 * Next sequence to be claimed by a reporting thread.
+	 */
+	private final AtomicLong tail = new AtomicLong();
+
+	/**
+	 * First sequence that hasn't been drained yet.
+	 */
+	private volatile long head;
+
+	/**
+	 * Spans that were overwritten before a drain could read them.
+	 */
+	private final LongAdder overwrittenSpans = new LongAdder();
 
-	final ConcurrentLinkedQueue<FinishedSpan> spans = new ConcurrentLinkedQueue<>();
+	private final LongAdder droppedSpans = new LongAdder();
 
 	public BufferingSpanReporter(int capacity) {
-		this.capacity = capacity;
+		this.capacity = Math.max(capacity, 0);
+		this.slots = new AtomicReferenceArray<>(this.capacity);
+		this.published = new AtomicLongArray(this.capacity);
+		for (int i = 0; i < this.capacity; i++) {
+			// as if the previous lap had already been published
+			this.published.set(i, i - (long) this.capacity);
+		}
 	}
 
 	/**
@@ -51,8 +93,8 @@ public class BufferingSpanReporter implements SpanReporter {
 	 * for its counterpart.
 	 * @return a snapshot of currently buffered spans.
 	 */
-	public List<FinishedSpan> getFinishedSpans() {
-		return new ArrayList<>(this.spans);
+	public synchronized List<FinishedSpan> getFinishedSpans() {
+		return read(false);
 	}
 
 	/**
@@ -62,28 +104,114 @@ public class BufferingSpanReporter implements SpanReporter {
 	 * read-only counterpart.
 	 * @return buffered steps drained from the buffer.
 	 */
-	public List<FinishedSpan> drainFinishedSpans() {
-		List<FinishedSpan> events = new ArrayList<>();
-		Iterator<FinishedSpan> iterator = this.spans.iterator();
-		while (iterator.hasNext()) {
-			events.add(iterator.next());
-			iterator.remove();
+	public synchronized List<FinishedSpan> drainFinishedSpans() {
+		return read(true);
+	}
+
+	/**
+	 * Reads the spans between the last drained sequence and the last claimed one. Slots
+	 * overwritten while reading are skipped, so the result never contains a span twice
+	 * nor a span that was reported after the read started.
+	 */
+	private List<FinishedSpan> read(boolean drain) {
+		long end = this.tail.get();
+		long start = Math.max(this.head, end - this.capacity);
+		List<FinishedSpan> spans = new ArrayList<>((int) (end - start));
+		long overwritten = start - this.head;
+		for (long sequence = start; sequence < end; sequence++) {
+			int index = index(sequence);
+			long publishedSequence = awaitPublished(index, sequence);
+			if (publishedSequence != sequence) {
+				overwritten++;
+				continue;
+			}
+			FinishedSpan span = this.slots.get(index);
+			if (this.published.get(index) != sequence) {
+				// overwritten while we were reading it
+				overwritten++;
+				continue;
+			}
+			if (span == null) {
+				// already drained
+				continue;
+			}
+			spans.add(span);
+			if (drain) {
+				// a newer span in the slot wins over clearing it
+				this.slots.compareAndSet(index, span, null);
+			}
 		}
-		this.estimatedSize.set(0);
-		return events;
+		if (drain) {
+			this.overwrittenSpans.add(overwritten);
+			this.head = end;
+		}
+		return spans;
 	}
 
 	@Override
 	public void report(FinishedSpan span) {
-		if (this.estimatedSize.get() < this.capacity) {
-			this.estimatedSize.incrementAndGet();
-			this.spans.add(span);
+		if (this.capacity == 0) {
+			this.droppedSpans.increment();
+			return;
 		}
-		else {
-			this.spans.poll();
-			this.estimatedSize.decrementAndGet();
-			report(span);
+		write(this.tail.getAndIncrement(), span);
+	}
+
+	/**
+	 * Claims the sequences of the whole batch at once.
+	 */
+	@Override
+	public void reportAll(List<FinishedSpan> spans) {
+		int size = spans.size();
+		if (this.capacity == 0) {
+			this.droppedSpans.add(size);
+			return;
+		}
+		if (size == 0) {
+			return;
+		}
+		long first = this.tail.getAndAdd(size);
+		for (int i = 0; i < size; i++) {
+			write(first + i, spans.get(i));
+		}
+	}
+
+	private void write(long sequence, FinishedSpan span) {
+		int index = index(sequence);
+		// a writer of the previous lap may not have published its span yet
+		awaitPublished(index, sequence - this.capacity);
+		// readers must not match the previous sequence against the new span
+		this.published.set(index, WRITING);
+		this.slots.set(index, span);
+		this.published.set(index, sequence);
+	}
+
+	private long awaitPublished(int index, long sequence) {
+		long publishedSequence;
+		while ((publishedSequence = this.published.get(index)) < sequence) {
+			Thread.yield();
 		}
+		return publishedSequence;
+	}
+
+	private int index(long sequence) {
+		return (int) (sequence % this.capacity);
+	}
+
+	/**
+	 * @return number of spans that were overwritten by newer ones before being drained
+	 */
+	public long getOverwrittenSpans() {
+		long notYetDrained = this.tail.get() - this.capacity - this.head;
+		return this.overwrittenSpans.sum() + Math.max(notYetDrained, 0);
+	}
+
+	/**
+	 * @return number of spans that were not buffered at all because the buffer has no
+	 * capacity
+	 */
+	public long getDroppedSpans() {
+		return this.droppedSpans.sum();
 	}
 
 }
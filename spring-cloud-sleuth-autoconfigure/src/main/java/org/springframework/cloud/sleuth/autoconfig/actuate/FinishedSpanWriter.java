@@ -29,11 +29,13 @@ import org.springframework.cloud.sleuth.exporter.FinishedSpan;
 public interface FinishedSpanWriter<T> {
 
 	/**
-	 * Writes the spans in a given format to String.
+	 * Writes the spans in a given format. The result becomes the body of the endpoint
+	 * response, so it can be e.g. a {@code String} or a streamed
+	 * {@link org.springframework.core.io.Resource}.
 	 * @param format format in which spans should be stored
 	 * @param spans spans to store
-	 * @return string representation of spans or {@code null} if {@link TextOutputFormat}
-	 * is not supported.
+	 * @return representation of spans or {@code null} if {@link TextOutputFormat} is not
+	 * supported.
 	 */
 	T write(TextOutputFormat format, List<FinishedSpan> spans);
 
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2013-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.autoconfig.actuate;
+
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+
+import org.springframework.cloud.sleuth.exporter.FinishedSpan;
+
+/**
+ * {@link InputStream} that encodes finished spans lazily, one span at a time, as the
+ * stream is being read. Only the encoded form of the current span is kept in memory, so
+ * the size of the whole payload doesn't have to be known or allocated upfront.
+ *
+ * @author Marcin Grzejszczak
+ * @since 3.1.11
+ */
+class FinishedSpansInputStream extends InputStream {
+
+	private final Iterator<FinishedSpan> spans;
+
+	private final Function<FinishedSpan, byte[]> encoder;
+
+	private final byte[] separator;
+
+	private byte[] suffix;
+
+	private byte[] chunk;
+
+	private int position;
+
+	private boolean first = true;
+
+	private byte[] pending;
+
+	/**
+	 * @param spans spans to encode
+	 * @param encoder encodes a single span
+	 * @param prefix bytes written before the first span
+	 * @param separator bytes written between two spans
+	 * @param suffix bytes written after the last span
+	 */
+	FinishedSpansInputStream(List<FinishedSpan> spans, Function<FinishedSpan, byte[]> encoder, byte[] prefix,
+			byte[] separator, byte[] suffix) {
+		this.spans = spans.iterator();
+		this.encoder = encoder;
+		this.separator = separator;
+		this.suffix = suffix;
+		this.chunk = prefix;
+	}
+
+	@Override
+	public int read() {
+		if (!ensureChunk()) {
+			return -1;
+		}
+		return this.chunk[this.position++] & 0xFF;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) {
+		if (len == 0) {
+			return 0;
+		}
+		int read = 0;
+		while (read < len && ensureChunk()) {
+			int count = Math.min(len - read, this.chunk.length - this.position);
+			System.arraycopy(this.chunk, this.position, b, off + read, count);
+			this.position += count;
+			read += count;
+		}
+		return read == 0 ? -1 : read;
+	}
+
+	@Override
+	public int available() {
+		return this.chunk != null ? this.chunk.length - this.position : 0;
+	}
+
+	@Override
+	public void close() {
+		this.chunk = null;
+		this.pending = null;
+		this.suffix = null;
+	}
+
+	private boolean ensureChunk() {
+		while (this.chunk != null && this.position == this.chunk.length) {
+			this.position = 0;
+			this.chunk = nextChunk();
+		}
+		return this.chunk != null;
+	}
+
+	private byte[] nextChunk() {
+		if (this.pending != null) {
+			byte[] next = this.pending;
+			this.pending = null;
+			return next;
+		}
+		if (this.spans.hasNext()) {
+			byte[] span = this.encoder.apply(this.spans.next());
+			if (this.first || this.separator.length == 0) {
+				this.first = false;
+				return span;
+			}
+			this.pending = span;
+			return this.separator;
+		}
+		if (this.suffix != null) {
+			byte[] next = this.suffix;
+			this.suffix = null;
+			return next;
+		}
+		return null;
+	}
+
+}
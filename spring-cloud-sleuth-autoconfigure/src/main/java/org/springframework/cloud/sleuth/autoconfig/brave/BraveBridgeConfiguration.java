@@ -91,9 +91,12 @@ class BraveBridgeConfiguration {
 	// Name is important for sampling conditions
 	@Bean(name = "traceCompositeSpanHandler")
 	SpanHandler compositeSpanHandler(ObjectProvider<List<SpanFilter>> exporters,
-			ObjectProvider<List<SpanReporter>> reporters) {
+			ObjectProvider<List<SpanReporter>> reporters, ObjectProvider<SamplerProperties> samplerProperties) {
+		SamplerProperties properties = samplerProperties.getIfAvailable();
+		// tail based sampling records unsampled spans too, only Zipkin gets the kept ones
+		boolean tailSampling = properties != null && properties.getTail().isEnabled();
 		return new CompositeSpanHandler(exporters.getIfAvailable(ArrayList::new),
-				reporters.getIfAvailable(ArrayList::new));
+				reporters.getIfAvailable(ArrayList::new), tailSampling);
 	}
 
 	@Bean
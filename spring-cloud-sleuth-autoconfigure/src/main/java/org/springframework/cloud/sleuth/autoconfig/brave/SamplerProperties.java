@@ -16,6 +16,9 @@
 
 package org.springframework.cloud.sleuth.autoconfig.brave;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 /**
@@ -47,6 +50,16 @@ public class SamplerProperties {
 	 */
 	private Integer rate = 10;
 
+	/**
+	 * Type of the sampler used when the probability is set. The striped sampler keeps the
+	 * same precision, but doesn't take a lock when making the sampling decision.
+	 */
+	private ProbabilityType probabilityType = ProbabilityType.COUNTING;
+
+	private Tail tail = new Tail();
+
+	private Adaptive adaptive = new Adaptive();
+
 	public Float getProbability() {
 		return this.probability;
 	}
@@ -63,4 +76,188 @@ public class SamplerProperties {
 		this.rate = rate;
 	}
 
+	public ProbabilityType getProbabilityType() {
+		return this.probabilityType;
+	}
+
+	public void setProbabilityType(ProbabilityType probabilityType) {
+		this.probabilityType = probabilityType;
+	}
+
+	public Tail getTail() {
+		return this.tail;
+	}
+
+	public void setTail(Tail tail) {
+		this.tail = tail;
+	}
+
+	public Adaptive getAdaptive() {
+		return this.adaptive;
+	}
+
+	public void setAdaptive(Adaptive adaptive) {
+		this.adaptive = adaptive;
+	}
+
+	public enum ProbabilityType {
+
+		/**
+		 * Counts how many out of 100 traces should be retained using a single counter.
+		 */
+		COUNTING,
+
+		/**
+		 * Counts how many out of 100 traces should be retained using a counter per group
+		 * of threads. Appropriate for servers with many cores that start a lot of
+		 * traces concurrently.
+		 */
+		STRIPED
+
+	}
+
+	/**
+	 * Tail based sampling settings. When enabled, spans are buffered until the local root
+	 * span finishes and only then the decision is made whether the spans should be
+	 * reported. Traces sampled upfront are always reported. {@code SpanReporter}s (e.g.
+	 * the traces actuator endpoint) get the spans of kept traces that were not sampled
+	 * upfront in a batch per trace, after they were reported to Zipkin.
+	 */
+	public static class Tail {
+
+		/**
+		 * Enables tail based sampling of spans reported to Zipkin.
+		 */
+		private boolean enabled;
+
+		/**
+		 * Keeps traces in which at least one span has an error.
+		 */
+		private boolean errors = true;
+
+		/**
+		 * Keeps traces in which at least one span took longer than this amount of
+		 * milliseconds. Non positive values disable this check.
+		 */
+		private long latencyThreshold = 1_000;
+
+		/**
+		 * Keeps traces in which at least one span has a tag with the given key and a
+		 * value matching the given regular expression.
+		 */
+		private Map<String, String> tags = new HashMap<>();
+
+		/**
+		 * Maximum number of spans buffered in memory. Each decision retained for spans
+		 * finishing late counts as a span. When exceeded, the oldest decisions are
+		 * forgotten and the decision is made before the trace has finished.
+		 */
+		private int maxBufferedSpans = 10_000;
+
+		/**
+		 * Maximum time in milliseconds a trace is buffered for.
+		 */
+		private long timeout = 30_000;
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public boolean isErrors() {
+			return this.errors;
+		}
+
+		public void setErrors(boolean errors) {
+			this.errors = errors;
+		}
+
+		public long getLatencyThreshold() {
+			return this.latencyThreshold;
+		}
+
+		public void setLatencyThreshold(long latencyThreshold) {
+			this.latencyThreshold = latencyThreshold;
+		}
+
+		public Map<String, String> getTags() {
+			return this.tags;
+		}
+
+		public void setTags(Map<String, String> tags) {
+			this.tags = tags;
+		}
+
+		public int getMaxBufferedSpans() {
+			return this.maxBufferedSpans;
+		}
+
+		public void setMaxBufferedSpans(int maxBufferedSpans) {
+			this.maxBufferedSpans = maxBufferedSpans;
+		}
+
+		public long getTimeout() {
+			return this.timeout;
+		}
+
+		public void setTimeout(long timeout) {
+			this.timeout = timeout;
+		}
+
+	}
+
+	/**
+	 * Adaptive sampling settings. When enabled, HTTP server requests and consumed
+	 * messages that start a new trace are sampled with a separate budget per route or
+	 * channel, so that low-traffic endpoints still get traced while the busy ones are
+	 * throttled.
+	 */
+	public static class Adaptive {
+
+		/**
+		 * Enables the adaptive HTTP server and messaging samplers.
+		 */
+		private boolean enabled;
+
+		/**
+		 * Number of traces sampled per second for each HTTP route or messaging channel.
+		 */
+		private int rate = 10;
+
+		/**
+		 * Maximum number of HTTP routes or messaging channels with a separate budget.
+		 * Budgets of idle ones are evicted when the limit is reached, otherwise requests
+		 * of the remaining ones share a single budget.
+		 */
+		private int maxKeys = 1_000;
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public int getRate() {
+			return this.rate;
+		}
+
+		public void setRate(int rate) {
+			this.rate = rate;
+		}
+
+		public int getMaxKeys() {
+			return this.maxKeys;
+		}
+
+		public void setMaxKeys(int maxKeys) {
+			this.maxKeys = maxKeys;
+		}
+
+	}
+
 }
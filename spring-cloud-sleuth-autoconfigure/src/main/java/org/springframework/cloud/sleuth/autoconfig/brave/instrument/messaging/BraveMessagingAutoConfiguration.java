@@ -36,7 +36,9 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.sleuth.autoconfig.brave.SamplerProperties;
 import org.springframework.cloud.sleuth.autoconfig.instrument.messaging.SleuthMessagingProperties;
+import org.springframework.cloud.sleuth.brave.instrument.messaging.AdaptiveMessagingSampler;
 import org.springframework.cloud.sleuth.brave.instrument.messaging.ConditionalOnMessagingEnabled;
 import org.springframework.cloud.sleuth.brave.instrument.messaging.ConsumerSampler;
 import org.springframework.cloud.sleuth.brave.instrument.messaging.KafkaFactoryBeanPostProcessor;
@@ -90,6 +92,27 @@ public class BraveMessagingAutoConfiguration {
 		return builder.build();
 	}
 
+	@Configuration(proxyBeanMethods = false)
+	@ConditionalOnProperty(value = "spring.sleuth.sampler.adaptive.enabled", havingValue = "true")
+	@EnableConfigurationProperties(SamplerProperties.class)
+	static class AdaptiveMessagingSamplerConfiguration {
+
+		@Bean(ProducerSampler.NAME)
+		@ConditionalOnMissingBean(name = ProducerSampler.NAME)
+		SamplerFunction<MessagingRequest> sleuthAdaptiveProducerSampler(SamplerProperties samplerProperties) {
+			SamplerProperties.Adaptive adaptive = samplerProperties.getAdaptive();
+			return new AdaptiveMessagingSampler(adaptive.getRate(), adaptive.getMaxKeys());
+		}
+
+		@Bean(ConsumerSampler.NAME)
+		@ConditionalOnMissingBean(name = ConsumerSampler.NAME)
+		SamplerFunction<MessagingRequest> sleuthAdaptiveConsumerSampler(SamplerProperties samplerProperties) {
+			SamplerProperties.Adaptive adaptive = samplerProperties.getAdaptive();
+			return new AdaptiveMessagingSampler(adaptive.getRate(), adaptive.getMaxKeys());
+		}
+
+	}
+
 	@Configuration(proxyBeanMethods = false)
 	@ConditionalOnProperty(value = "spring.sleuth.messaging.rabbit.enabled", matchIfMissing = true)
 	@ConditionalOnClass(RabbitTemplate.class)
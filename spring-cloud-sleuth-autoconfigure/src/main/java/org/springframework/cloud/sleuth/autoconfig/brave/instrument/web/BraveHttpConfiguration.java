@@ -34,13 +34,16 @@ import reactor.util.context.Context;
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.sleuth.autoconfig.brave.SamplerProperties;
 import org.springframework.cloud.sleuth.autoconfig.instrument.web.ConditionalOnSleuthHttp;
 import org.springframework.cloud.sleuth.autoconfig.instrument.web.SleuthHttpProperties;
 import org.springframework.cloud.sleuth.autoconfig.instrument.web.SleuthWebProperties;
 import org.springframework.cloud.sleuth.brave.bridge.BraveHttpRequestParser;
 import org.springframework.cloud.sleuth.brave.bridge.BraveHttpResponseParser;
 import org.springframework.cloud.sleuth.brave.bridge.BraveSamplerFunction;
+import org.springframework.cloud.sleuth.brave.instrument.web.AdaptiveHttpSampler;
 import org.springframework.cloud.sleuth.brave.instrument.web.BraveSpanFromContextRetriever;
 import org.springframework.cloud.sleuth.brave.instrument.web.CompositeHttpSampler;
 import org.springframework.cloud.sleuth.brave.instrument.web.SkipPatternHttpClientSampler;
@@ -70,7 +73,7 @@ import org.springframework.lang.Nullable;
 @Configuration(proxyBeanMethods = false)
 @ConditionalOnSleuthHttp
 @ConditionalOnClass(HttpTracing.class)
-@EnableConfigurationProperties({ SleuthWebProperties.class, SleuthHttpProperties.class })
+@EnableConfigurationProperties({ SleuthWebProperties.class, SleuthHttpProperties.class, SamplerProperties.class })
 @Import(BraveHttpBridgeConfiguration.class)
 public class BraveHttpConfiguration {
 
@@ -203,6 +206,14 @@ public class BraveHttpConfiguration {
 		return new SkipPatternHttpClientSampler(Pattern.compile(skipPattern));
 	}
 
+	@Bean(HttpServerSampler.NAME)
+	@ConditionalOnMissingBean(name = HttpServerSampler.NAME)
+	@ConditionalOnProperty(value = "spring.sleuth.sampler.adaptive.enabled", havingValue = "true")
+	SamplerFunction<brave.http.HttpRequest> sleuthAdaptiveHttpServerSampler(SamplerProperties samplerProperties) {
+		SamplerProperties.Adaptive adaptive = samplerProperties.getAdaptive();
+		return new AdaptiveHttpSampler(adaptive.getRate(), adaptive.getMaxKeys());
+	}
+
 	@Configuration(proxyBeanMethods = false)
 	@ConditionalOnClass(Context.class)
 	static class BraveWebFilterConfiguration {
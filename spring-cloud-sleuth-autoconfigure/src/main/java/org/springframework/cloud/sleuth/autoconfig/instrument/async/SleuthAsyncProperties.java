@@ -57,4 +57,19 @@ public class SleuthAsyncProperties {
 		this.ignoredBeans = ignoredBeans;
 	}
 
+	/**
+	 * Whether executors that start a new thread for each task (e.g.
+	 * Executors.newVirtualThreadPerTaskExecutor()) should create a span for each task.
+	 * When disabled, only the tracing context is passed to the tasks.
+	 */
+	private boolean threadPerTaskSpans;
+
+	public boolean isThreadPerTaskSpans() {
+		return this.threadPerTaskSpans;
+	}
+
+	public void setThreadPerTaskSpans(boolean threadPerTaskSpans) {
+		this.threadPerTaskSpans = threadPerTaskSpans;
+	}
+
 }
@@ -103,8 +103,11 @@ class DataSourceProxyConfiguration {
 	TraceQueryExecutionListener traceQueryExecutionListener(BeanFactory beanFactory,
 			TraceJdbcProperties dataSourceDecoratorProperties,
 			ObjectProvider<List<TraceListenerStrategySpanCustomizer<? super CommonDataSource>>> customizers) {
-		return new TraceQueryExecutionListener(beanFactory, dataSourceDecoratorProperties.getIncludes(),
-				customizers.getIfAvailable(ArrayList::new));
+		TraceQueryExecutionListener listener = new TraceQueryExecutionListener(beanFactory,
+				dataSourceDecoratorProperties.getIncludes(), customizers.getIfAvailable(ArrayList::new));
+		listener.setAggregateQueries(dataSourceDecoratorProperties.isAggregateQueries());
+		listener.setQuerySpanRatio(dataSourceDecoratorProperties.getQuerySpanRatio());
+		return listener;
 	}
 
 	@Bean
@@ -72,9 +72,13 @@ class P6SpyConfiguration {
 	TraceJdbcEventListener tracingJdbcEventListener(BeanFactory beanFactory,
 			DataSourceNameResolver dataSourceNameResolver, TraceJdbcProperties traceJdbcProperties,
 			ObjectProvider<List<TraceListenerStrategySpanCustomizer<? super CommonDataSource>>> customizers) {
-		return new TraceJdbcEventListener(beanFactory, dataSourceNameResolver, traceJdbcProperties.getIncludes(),
+		TraceJdbcEventListener listener = new TraceJdbcEventListener(beanFactory, dataSourceNameResolver,
+				traceJdbcProperties.getIncludes(),
 				traceJdbcProperties.getP6spy().getTracing().isIncludeParameterValues(),
 				customizers.getIfAvailable(ArrayList::new));
+		listener.setAggregateQueries(traceJdbcProperties.isAggregateQueries());
+		listener.setQuerySpanRatio(traceJdbcProperties.getQuerySpanRatio());
+		return listener;
 	}
 
 }
@@ -51,6 +51,20 @@ public class TraceJdbcProperties {
 	 */
 	private List<TraceType> includes = Arrays.asList(TraceType.CONNECTION, TraceType.QUERY, TraceType.FETCH);
 
+	/**
+	 * Represent the repeated executions of the same query within the same parent span by a
+	 * single span with the number of executions, their shortest, longest and total time
+	 * and the number of rows. The first execution gets a regular span. Useful when an ORM
+	 * executes the same query many times (e.g. N+1 selects).
+	 */
+	private boolean aggregateQueries;
+
+	/**
+	 * Ratio of the query executions for which a span is created when queries are not
+	 * aggregated. Result set spans are created only for the queries that got a span.
+	 */
+	private float querySpanRatio = 1.0f;
+
 	private DataSourceProxyProperties datasourceProxy = new DataSourceProxyProperties();
 
 	private P6SpyProperties p6spy = new P6SpyProperties();
@@ -71,6 +85,22 @@ public class TraceJdbcProperties {
 		this.includes = includes;
 	}
 
+	public boolean isAggregateQueries() {
+		return this.aggregateQueries;
+	}
+
+	public void setAggregateQueries(boolean aggregateQueries) {
+		this.aggregateQueries = aggregateQueries;
+	}
+
+	public float getQuerySpanRatio() {
+		return this.querySpanRatio;
+	}
+
+	public void setQuerySpanRatio(float querySpanRatio) {
+		this.querySpanRatio = querySpanRatio;
+	}
+
 	public DataSourceProxyProperties getDatasourceProxy() {
 		return datasourceProxy;
 	}
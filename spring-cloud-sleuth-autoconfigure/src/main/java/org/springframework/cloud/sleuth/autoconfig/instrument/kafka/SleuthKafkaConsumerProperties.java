@@ -0,0 +1,59 @@
+/*
+ * Copyright 2013-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.autoconfig.instrument.kafka;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings for the tracing of Kafka consumers.
+ *
+ * @author Marcin Grzejszczak
+ * @since 3.1.11
+ */
+@ConfigurationProperties("spring.sleuth.kafka.consumer")
+public class SleuthKafkaConsumerProperties {
+
+	/**
+	 * Create a single span for each poll that returned records instead of a span for
+	 * each record. The tracing context of a record is then extracted only when the record
+	 * gets processed.
+	 */
+	private boolean pollSpan;
+
+	/**
+	 * Ratio of the polled records for which a span is still created when a span is
+	 * created for each poll.
+	 */
+	private float recordSpanRatio;
+
+	public boolean isPollSpan() {
+		return this.pollSpan;
+	}
+
+	public void setPollSpan(boolean pollSpan) {
+		this.pollSpan = pollSpan;
+	}
+
+	public float getRecordSpanRatio() {
+		return this.recordSpanRatio;
+	}
+
+	public void setRecordSpanRatio(float recordSpanRatio) {
+		this.recordSpanRatio = recordSpanRatio;
+	}
+
+}
@@ -19,7 +19,6 @@ package org.springframework.cloud.sleuth.autoconfig.instrument.kafka;
 import org.apache.kafka.clients.consumer.Consumer;
 
 import org.springframework.beans.factory.BeanFactory;
-import org.springframework.cloud.sleuth.instrument.kafka.TracingKafkaConsumer;
 import org.springframework.kafka.core.ConsumerPostProcessor;
 
 class SpringKafkaConsumerPostProcessor<K, V> implements ConsumerPostProcessor<K, V> {
@@ -32,7 +31,7 @@ class SpringKafkaConsumerPostProcessor<K, V> implements ConsumerPostProcessor<K,
 
 	@Override
 	public Consumer<K, V> apply(Consumer<K, V> kvConsumer) {
-		return new TracingKafkaConsumer<>(kvConsumer, beanFactory);
+		return TracingKafkaConsumerBeanPostProcessor.tracingKafkaConsumer(kvConsumer, this.beanFactory);
 	}
 
 }
@@ -41,9 +41,16 @@ public class TracingKafkaConsumerBeanPostProcessor implements BeanPostProcessor
 	@Override
 	public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
 		if (bean instanceof Consumer && !(bean instanceof TracingKafkaConsumer)) {
-			return new TracingKafkaConsumer<>((Consumer) bean, beanFactory);
+			return tracingKafkaConsumer((Consumer) bean, this.beanFactory);
 		}
 		return bean;
 	}
 
+	static <K, V> TracingKafkaConsumer<K, V> tracingKafkaConsumer(Consumer<K, V> consumer, BeanFactory beanFactory) {
+		SleuthKafkaConsumerProperties properties = beanFactory.getBeanProvider(SleuthKafkaConsumerProperties.class)
+				.getIfAvailable(SleuthKafkaConsumerProperties::new);
+		return new TracingKafkaConsumer<>(consumer, beanFactory, properties.isPollSpan(),
+				properties.getRecordSpanRatio());
+	}
+
 }
@@ -40,6 +40,13 @@ public class SleuthIntegrationMessagingProperties {
 	 */
 	private boolean enabled;
 
+	/**
+	 * Whether the headers of a sent message are copied into a new message after the
+	 * trace headers were injected. When disabled, the accessor that holds the injected
+	 * trace headers is reused, which avoids copying the headers at each channel.
+	 */
+	private boolean copyHeaders = true;
+
 	public String[] getPatterns() {
 		return this.patterns;
 	}
@@ -56,4 +63,12 @@ public class SleuthIntegrationMessagingProperties {
 		this.enabled = enabled;
 	}
 
+	public boolean isCopyHeaders() {
+		return this.copyHeaders;
+	}
+
+	public void setCopyHeaders(boolean copyHeaders) {
+		this.copyHeaders = copyHeaders;
+	}
+
 }
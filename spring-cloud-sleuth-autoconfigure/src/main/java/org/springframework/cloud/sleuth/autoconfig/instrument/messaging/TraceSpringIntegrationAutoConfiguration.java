@@ -83,9 +83,13 @@ public class TraceSpringIntegrationAutoConfiguration {
 	TracingChannelInterceptor traceChannelInterceptor(Tracer tracer, Propagator propagator,
 			Propagator.Setter<MessageHeaderAccessor> traceMessagePropagationSetter,
 			Propagator.Getter<MessageHeaderAccessor> traceMessagePropagationGetter,
-			SleuthMessagingProperties properties, MessageSpanCustomizer messageSpanCustomizer) {
-		return new TracingChannelInterceptor(tracer, propagator, traceMessagePropagationSetter,
-				traceMessagePropagationGetter, remoteServiceNameMapper(properties), messageSpanCustomizer);
+			SleuthMessagingProperties properties, SleuthIntegrationMessagingProperties integrationProperties,
+			MessageSpanCustomizer messageSpanCustomizer) {
+		TracingChannelInterceptor interceptor = new TracingChannelInterceptor(tracer, propagator,
+				traceMessagePropagationSetter, traceMessagePropagationGetter, remoteServiceNameMapper(properties),
+				messageSpanCustomizer);
+		interceptor.setCopyHeaders(integrationProperties.isCopyHeaders());
+		return interceptor;
 	}
 
 	@Bean
@@ -110,6 +110,15 @@ public class SleuthReactorProperties {
 		@Deprecated
 		DECORATE_ON_LAST,
 
+		/**
+		 * Only puts the trace context into the Reactor context and restores it in the
+		 * thread local context when Reactor schedules work on another thread. No operator
+		 * is wrapped, so there's no overhead per signal, but logging within operators
+		 * running on threads that emit signals without a Reactor scheduler (e.g. event
+		 * loops of HTTP clients) might not contain the tracing entries.
+		 */
+		DECORATE_CONTEXT,
+
 		/**
 		 * Does not automatically wrap any operators.
 		 */
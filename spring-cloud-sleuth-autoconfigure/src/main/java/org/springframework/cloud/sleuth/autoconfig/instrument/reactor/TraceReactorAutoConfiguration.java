@@ -167,6 +167,14 @@ class HooksRefresher implements ApplicationListener<RefreshScopeRefreshedEvent>
 			}
 			Hooks.onLastOperator(SLEUTH_TRACE_REACTOR_KEY, ReactorSleuth.scopePassingSpanOperator(this.context));
 			break;
+		case DECORATE_CONTEXT:
+			if (log.isTraceEnabled()) {
+				log.trace("Decorating Reactor context instrumentation");
+			}
+			Hooks.onLastOperator(SLEUTH_TRACE_REACTOR_KEY, ReactorSleuth.traceContextOperator(this.context));
+			Schedulers.onScheduleHook(TraceReactorAutoConfiguration.SLEUTH_REACTOR_EXECUTOR_SERVICE_KEY,
+					ReactorSleuth.traceContextOnScheduleHook(this.context));
+			break;
 		case MANUAL:
 			Hooks.onLastOperator(SLEUTH_TRACE_REACTOR_KEY, ReactorSleuth.springContextSpanOperator(this.context));
 			break;
@@ -220,6 +228,11 @@ class HookRegisteringBeanFactoryPostProcessor implements BeanFactoryPostProcesso
 				decorateOnLast(ReactorSleuth.scopePassingSpanOperator(springContext));
 				decorateScheduler(springContext);
 			}
+			else if (property == SleuthReactorProperties.InstrumentationType.DECORATE_CONTEXT) {
+				decorateOnLast(ReactorSleuth.traceContextOperator(springContext));
+				Schedulers.onScheduleHook(TraceReactorAutoConfiguration.SLEUTH_REACTOR_EXECUTOR_SERVICE_KEY,
+						ReactorSleuth.traceContextOnScheduleHook(springContext));
+			}
 			else if (property == SleuthReactorProperties.InstrumentationType.MANUAL) {
 				decorateOnLast(ReactorSleuth.springContextSpanOperator(springContext));
 			}
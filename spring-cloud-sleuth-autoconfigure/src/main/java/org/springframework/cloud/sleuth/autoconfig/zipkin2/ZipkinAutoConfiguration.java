@@ -16,13 +16,19 @@
 
 package org.springframework.cloud.sleuth.autoconfig.zipkin2;
 
+import java.io.Closeable;
+import java.io.Flushable;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import zipkin2.CheckResult;
@@ -50,15 +56,18 @@ import org.springframework.boot.context.properties.EnableConfigurationProperties
 import org.springframework.cloud.client.serviceregistry.Registration;
 import org.springframework.cloud.commons.util.InetUtils;
 import org.springframework.cloud.sleuth.autoconfig.brave.BraveAutoConfiguration;
+import org.springframework.cloud.sleuth.zipkin2.AdaptiveAsyncReporter;
 import org.springframework.cloud.sleuth.zipkin2.DefaultEndpointLocator;
 import org.springframework.cloud.sleuth.zipkin2.DefaultZipkinRestTemplateCustomizer;
 import org.springframework.cloud.sleuth.zipkin2.EndpointLocator;
+import org.springframework.cloud.sleuth.zipkin2.SpoolingSender;
 import org.springframework.cloud.sleuth.zipkin2.ZipkinProperties;
 import org.springframework.cloud.sleuth.zipkin2.ZipkinRestTemplateCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 import org.springframework.core.env.Environment;
+import org.springframework.util.StringUtils;
 import org.springframework.web.client.RestTemplate;
 
 /**
@@ -100,6 +109,12 @@ public class ZipkinAutoConfiguration {
 	 */
 	public static final String SENDER_BEAN_NAME = "zipkinSender";
 
+	/**
+	 * Zipkin spooling sender bean name. The reporter sends spans through this bean,
+	 * when present, instead of the Zipkin sender.
+	 */
+	public static final String SPOOLING_SENDER_BEAN_NAME = "zipkinSpoolingSender";
+
 	private static final Log log = LogFactory.getLog(ZipkinAutoConfiguration.class);
 
 	/** Limits {@link Sender#check()} to {@code deadlineMillis}. */
@@ -126,23 +141,37 @@ public class ZipkinAutoConfiguration {
 	@Bean(REPORTER_BEAN_NAME)
 	@ConditionalOnMissingBean(name = REPORTER_BEAN_NAME)
 	Reporter<Span> reporter(ReporterMetrics reporterMetrics, ZipkinProperties zipkin,
-			@Qualifier(SENDER_BEAN_NAME) Sender sender) {
+			@Qualifier(SENDER_BEAN_NAME) Sender sender,
+			@Qualifier(SPOOLING_SENDER_BEAN_NAME) ObjectProvider<SpoolingSender> spoolingSender) {
 		checkResult(zipkinExecutor, sender, zipkin.getCheckTimeout());
 
+		Sender reporterSender = spoolingSender.getIfAvailable(() -> sender);
+		if (zipkin.getAdaptive().isEnabled()) {
+			AdaptiveAsyncReporter adaptiveReporter = new AdaptiveAsyncReporter(reporterSender, zipkin.getEncoder(),
+					reporterMetrics, zipkin.getQueuedMaxSpans(), zipkin.getAdaptive().getMinMessageTimeout(),
+					TimeUnit.SECONDS.toMillis(zipkin.getMessageTimeout()), zipkin.getAdaptive().getTargetSendLatency());
+			addFlushOnShutdownHook(adaptiveReporter, zipkin);
+			return adaptiveReporter;
+		}
+
 		// Note: AsyncReporter supports memory bounds
-		AsyncReporter<Span> asyncReporter = AsyncReporter.builder(sender).queuedMaxSpans(zipkin.getQueuedMaxSpans())
-				.messageTimeout(zipkin.getMessageTimeout(), TimeUnit.SECONDS).metrics(reporterMetrics)
-				.build(zipkin.getEncoder());
+		AsyncReporter<Span> asyncReporter = AsyncReporter.builder(reporterSender)
+				.queuedMaxSpans(zipkin.getQueuedMaxSpans()).messageTimeout(zipkin.getMessageTimeout(), TimeUnit.SECONDS)
+				.metrics(reporterMetrics).build(zipkin.getEncoder());
+		addFlushOnShutdownHook(asyncReporter, zipkin);
+		return asyncReporter;
+	}
 
+	private static <T extends Flushable & Closeable> void addFlushOnShutdownHook(T reporter, ZipkinProperties zipkin) {
 		Runtime.getRuntime().addShutdownHook(new Thread() {
 			@Override
 			public void run() {
 				log.info("Flushing remaining spans on shutdown");
-				asyncReporter.flush();
 				try {
+					reporter.flush();
 					Thread.sleep(TimeUnit.SECONDS.toMillis(zipkin.getMessageTimeout()) + 500);
 					log.debug("Flushing done - closing the reporter");
-					asyncReporter.close();
+					reporter.close();
 				}
 				catch (ClosedSenderException ex) {
 					log.debug("Sender already closed", ex);
@@ -152,8 +181,28 @@ public class ZipkinAutoConfiguration {
 				}
 			}
 		});
+	}
 
-		return asyncReporter;
+	@Bean(SPOOLING_SENDER_BEAN_NAME)
+	@ConditionalOnMissingBean(name = SPOOLING_SENDER_BEAN_NAME)
+	@ConditionalOnProperty(value = "spring.zipkin.spool.enabled", havingValue = "true")
+	SpoolingSender zipkinSpoolingSender(ZipkinProperties zipkin, @Qualifier(SENDER_BEAN_NAME) Sender sender,
+			Environment environment) {
+		ZipkinProperties.Spool spool = zipkin.getSpool();
+		Path directory = StringUtils.hasText(spool.getDirectory()) ? Paths.get(spool.getDirectory())
+				: defaultSpoolDirectory(environment);
+		return new SpoolingSender(sender, directory, spool.getSegmentSize(), spool.getMaxSize(),
+				spool.getReplayRate());
+	}
+
+	/**
+	 * Spool directory per application, so that applications running on the same host
+	 * don't read each other's spans.
+	 */
+	static Path defaultSpoolDirectory(Environment environment) {
+		String applicationName = environment.getProperty("spring.application.name", "application");
+		return Paths.get(System.getProperty("java.io.tmpdir"), "zipkin-spool",
+				applicationName.replaceAll("[^A-Za-z0-9._-]", "_"));
 	}
 
 	private static void logCheckResult(Sender sender, CheckResult checkResult) {
@@ -168,7 +217,8 @@ public class ZipkinAutoConfiguration {
 	@Bean
 	@ConditionalOnMissingBean
 	ZipkinRestTemplateCustomizer zipkinRestTemplateCustomizer(ZipkinProperties zipkinProperties) {
-		return new DefaultZipkinRestTemplateCustomizer(zipkinProperties);
+		// RestTemplateSender gzips the spans itself
+		return new DefaultZipkinRestTemplateCustomizer(zipkinProperties, true);
 	}
 
 	@Bean
@@ -248,6 +298,29 @@ public class ZipkinAutoConfiguration {
 	@ConditionalOnClass(MeterRegistry.class)
 	static class TraceMetricsMicrometerConfiguration {
 
+		@Bean
+		@ConditionalOnProperty(value = "spring.zipkin.adaptive.enabled", havingValue = "true")
+		MeterBinder adaptiveAsyncReporterMeterBinder(
+				@Qualifier(REPORTER_BEAN_NAME) ObjectProvider<Reporter<Span>> reporter) {
+			return registry -> {
+				Reporter<Span> spanReporter = reporter.getIfAvailable();
+				if (!(spanReporter instanceof AdaptiveAsyncReporter)) {
+					return;
+				}
+				AdaptiveAsyncReporter adaptiveReporter = (AdaptiveAsyncReporter) spanReporter;
+				Gauge.builder("zipkin.reporter.batch.size", adaptiveReporter, AdaptiveAsyncReporter::getBatchSize)
+						.description("Number of queued spans after which they are sent").register(registry);
+				Gauge.builder("zipkin.reporter.flush.interval", adaptiveReporter,
+						AdaptiveAsyncReporter::getFlushIntervalMillis).baseUnit("milliseconds")
+						.description("Time after which queued spans are sent").register(registry);
+				Gauge.builder("zipkin.reporter.arrival.rate", adaptiveReporter, AdaptiveAsyncReporter::getArrivalRate)
+						.description("Number of spans reported per second").register(registry);
+				Gauge.builder("zipkin.reporter.send.latency", adaptiveReporter,
+						AdaptiveAsyncReporter::getSendLatencyMillis).baseUnit("milliseconds")
+						.description("Time it takes to send spans").register(registry);
+			};
+		}
+
 		@Configuration(proxyBeanMethods = false)
 		@ConditionalOnMissingBean(ReporterMetrics.class)
 		static class NoReporterMetricsBeanConfiguration {
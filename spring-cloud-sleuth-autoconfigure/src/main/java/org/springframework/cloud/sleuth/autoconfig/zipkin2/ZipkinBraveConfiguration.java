@@ -21,19 +21,30 @@ import java.util.Arrays;
 import java.util.Comparator;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
 
 import brave.Tag;
 import brave.Tracer;
 import brave.TracingCustomizer;
+import brave.handler.MutableSpan;
 import brave.handler.SpanHandler;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import zipkin2.Span;
 import zipkin2.reporter.Reporter;
 import zipkin2.reporter.brave.ZipkinSpanHandler;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.sleuth.autoconfig.brave.SamplerProperties;
+import org.springframework.cloud.sleuth.brave.sampler.TailSamplingSpanHandler;
+import org.springframework.cloud.sleuth.exporter.SpanReporter;
 import org.springframework.cloud.sleuth.zipkin2.DefaultZipkinRestTemplateCustomizer;
 import org.springframework.cloud.sleuth.zipkin2.EndpointLocator;
 import org.springframework.cloud.sleuth.zipkin2.ZipkinRestTemplateCustomizer;
@@ -66,13 +77,13 @@ class ZipkinBraveConfiguration {
 	 * Sort Zipkin Handlers last, so that redactions etc happen prior.
 	 */
 	static final Comparator<SpanHandler> SPAN_HANDLER_COMPARATOR = (o1, o2) -> {
-		if (o1 instanceof ZipkinSpanHandler) {
-			if (o2 instanceof ZipkinSpanHandler) {
+		if (isZipkinHandler(o1)) {
+			if (isZipkinHandler(o2)) {
 				return 0;
 			}
 			return 1;
 		}
-		else if (o2 instanceof ZipkinSpanHandler) {
+		else if (isZipkinHandler(o2)) {
 			return -1;
 		}
 		return 0;
@@ -80,9 +91,15 @@ class ZipkinBraveConfiguration {
 
 	private static final Log log = LogFactory.getLog(ZipkinBraveConfiguration.class);
 
+	private static boolean isZipkinHandler(SpanHandler handler) {
+		return handler instanceof ZipkinSpanHandler || handler instanceof TailSamplingSpanHandler;
+	}
+
 	/** Returns one handler for as many reporters as exist. */
 	@Bean
-	SpanHandler zipkinSpanHandler(@Nullable List<Reporter<Span>> spanReporters, @Nullable Tag<Throwable> errorTag) {
+	SpanHandler zipkinSpanHandler(@Nullable List<Reporter<Span>> spanReporters, @Nullable Tag<Throwable> errorTag,
+			ObjectProvider<SamplerProperties> samplerProperties,
+			ObjectProvider<List<SpanReporter>> finishedSpanReporters) {
 		if (spanReporters == null) {
 			return SpanHandler.NOOP;
 		}
@@ -100,9 +117,31 @@ class ZipkinBraveConfiguration {
 		if (errorTag != null) {
 			builder.errorTag(errorTag);
 		}
+		SamplerProperties properties = samplerProperties.getIfAvailable();
+		if (properties != null && properties.getTail().isEnabled()) {
+			// the tail sampling handler decides which spans get reported
+			return tailSamplingSpanHandler(builder.alwaysReportSpans().build(),
+					finishedSpanReporters.getIfAvailable(ArrayList::new), properties.getTail());
+		}
 		return builder.build();
 	}
 
+	static SpanHandler tailSamplingSpanHandler(SpanHandler delegate, List<SpanReporter> reporters,
+			SamplerProperties.Tail tail) {
+		Predicate<MutableSpan> predicate = span -> false;
+		if (tail.isErrors()) {
+			predicate = predicate.or(TailSamplingSpanHandler.hasError());
+		}
+		if (tail.getLatencyThreshold() > 0) {
+			predicate = predicate.or(TailSamplingSpanHandler.latencyAbove(tail.getLatencyThreshold()));
+		}
+		for (Map.Entry<String, String> entry : tail.getTags().entrySet()) {
+			predicate = predicate.or(TailSamplingSpanHandler.hasTag(entry.getKey(), entry.getValue()));
+		}
+		return new TailSamplingSpanHandler(delegate, reporters, predicate, tail.getMaxBufferedSpans(),
+				tail.getTimeout());
+	}
+
 	/** This ensures Zipkin reporters end up after redaction, etc. */
 	@Bean
 	TracingCustomizer reorderZipkinHandlersLast() {
@@ -116,6 +155,37 @@ class ZipkinBraveConfiguration {
 		};
 	}
 
+	@Configuration(proxyBeanMethods = false)
+	@ConditionalOnClass(MeterBinder.class)
+	@ConditionalOnProperty("spring.sleuth.sampler.tail.enabled")
+	static class TailSamplingMetricsConfiguration {
+
+		@Bean
+		MeterBinder sleuthTailSamplingMeterBinder(@Qualifier("zipkinSpanHandler") SpanHandler zipkinSpanHandler) {
+			return registry -> {
+				if (!(zipkinSpanHandler instanceof TailSamplingSpanHandler)) {
+					return;
+				}
+				TailSamplingSpanHandler handler = (TailSamplingSpanHandler) zipkinSpanHandler;
+				FunctionCounter.builder("sleuth.sampler.tail.traces", handler, TailSamplingSpanHandler::getKeptTraces)
+						.description("Number of traces kept by the tail sampler").tag("decision", "kept")
+						.register(registry);
+				FunctionCounter
+						.builder("sleuth.sampler.tail.traces", handler, TailSamplingSpanHandler::getDroppedTraces)
+						.description("Number of traces dropped by the tail sampler").tag("decision", "dropped")
+						.register(registry);
+				FunctionCounter
+						.builder("sleuth.sampler.tail.evicted", handler, TailSamplingSpanHandler::getEvictedTraces)
+						.description("Number of traces decided before they finished due to memory budget or timeout")
+						.register(registry);
+				Gauge.builder("sleuth.sampler.tail.buffered", handler, TailSamplingSpanHandler::getBufferedSpans)
+						.description("Number of spans buffered by the tail sampler").baseUnit("spans")
+						.register(registry);
+			};
+		}
+
+	}
+
 	// Zipkin conversion only happens once per mutable span
 	static final class CompositeSpanReporter implements Reporter<Span> {
 
@@ -16,8 +16,15 @@
 
 package org.springframework.cloud.sleuth.autoconfig.zipkin2;
 
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import zipkin2.reporter.ReporterMetrics;
 import zipkin2.reporter.Sender;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.AnyNestedCondition;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
@@ -27,9 +34,12 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnNotWebAppli
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
 import org.springframework.cloud.client.loadbalancer.LoadBalancerClient;
 import org.springframework.cloud.client.loadbalancer.reactive.LoadBalancedExchangeFilterFunction;
 import org.springframework.cloud.sleuth.zipkin2.CachingZipkinUrlExtractor;
+import org.springframework.cloud.sleuth.zipkin2.HealthAwareZipkinLoadBalancer;
 import org.springframework.cloud.sleuth.zipkin2.LoadBalancerClientZipkinLoadBalancer;
 import org.springframework.cloud.sleuth.zipkin2.RestTemplateSender;
 import org.springframework.cloud.sleuth.zipkin2.StaticInstanceZipkinLoadBalancer;
@@ -40,6 +50,7 @@ import org.springframework.cloud.sleuth.zipkin2.ZipkinRestTemplateCustomizer;
 import org.springframework.cloud.sleuth.zipkin2.ZipkinRestTemplateProvider;
 import org.springframework.cloud.sleuth.zipkin2.ZipkinRestTemplateWrapper;
 import org.springframework.cloud.sleuth.zipkin2.ZipkinUrlExtractor;
+import org.springframework.cloud.sleuth.zipkin2.ZipkinUrlExtractorExchangeFilterFunction;
 import org.springframework.cloud.sleuth.zipkin2.ZipkinWebClientBuilderProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Conditional;
@@ -63,7 +74,8 @@ class ZipkinHttpSenderConfiguration {
 				ZipkinRestTemplateProvider zipkinRestTemplateProvider) {
 			RestTemplate restTemplate = zipkinRestTemplateProvider.zipkinRestTemplate();
 			restTemplate = zipkinRestTemplateCustomizer.customizeTemplate(restTemplate);
-			return new RestTemplateSender(restTemplate, zipkin.getBaseUrl(), zipkin.getApiPath(), zipkin.getEncoder());
+			return new RestTemplateSender(restTemplate, zipkin.getBaseUrl(), zipkin.getApiPath(), zipkin.getEncoder(),
+					zipkin.getCompression().isEnabled());
 		}
 
 		@Bean
@@ -84,16 +96,27 @@ class ZipkinHttpSenderConfiguration {
 	static class ZipkinReactiveConfiguration {
 
 		@Bean(ZipkinAutoConfiguration.SENDER_BEAN_NAME)
-		Sender webClientSender(ZipkinProperties zipkin, ZipkinWebClientBuilderProvider zipkinWebClientBuilderProvider) {
+		Sender webClientSender(ZipkinProperties zipkin, ZipkinWebClientBuilderProvider zipkinWebClientBuilderProvider,
+				ObjectProvider<ReporterMetrics> reporterMetrics) {
 			WebClient.Builder webClientBuilder = zipkinWebClientBuilderProvider.zipkinWebClientBuilder();
-			return new WebClientSender(webClientBuilder.build(), zipkin.getBaseUrl(), zipkin.getApiPath(),
-					zipkin.getEncoder(), zipkin.getCheckTimeout());
+			WebClientSender sender = new WebClientSender(null, webClientBuilder.build(), zipkin.getBaseUrl(),
+					zipkin.getApiPath(), zipkin.getEncoder(), zipkin.getCheckTimeout(),
+					zipkin.getWebClient().getMaxInFlightRequests());
+			reporterMetrics.ifAvailable(sender::setReporterMetrics);
+			return sender;
 		}
 
 		@Bean
 		@ConditionalOnMissingBean
 		ZipkinWebClientBuilderProvider defaultZipkinWebClientProvider(
-				final @Nullable LoadBalancedExchangeFilterFunction filterFunction) {
+				final @Nullable LoadBalancedExchangeFilterFunction filterFunction, ZipkinProperties zipkin,
+				ZipkinUrlExtractor extractor) {
+			if (extractor.isHealthAware()) {
+				// the pool of Zipkin instances picks the instance and tracks its health
+				ZipkinUrlExtractorExchangeFilterFunction healthAware = new ZipkinUrlExtractorExchangeFilterFunction(
+						zipkin, extractor);
+				return () -> WebClient.builder().filter(healthAware);
+			}
 			if (filterFunction != null) {
 				return () -> WebClient.builder().filter(filterFunction);
 			}
@@ -136,10 +159,32 @@ class ZipkinHttpSenderConfiguration {
 
 			@Bean
 			@ConditionalOnMissingBean
+			@ConditionalOnProperty(value = "spring.zipkin.pool.enabled", havingValue = "false", matchIfMissing = true)
 			ZipkinLoadBalancer loadBalancerClientZipkinLoadBalancer(ZipkinProperties zipkinProperties) {
 				return new LoadBalancerClientZipkinLoadBalancer(this.client, zipkinProperties);
 			}
 
+			@Bean
+			@ConditionalOnMissingBean
+			@ConditionalOnProperty("spring.zipkin.pool.enabled")
+			ZipkinLoadBalancer healthAwareZipkinLoadBalancer(ZipkinProperties zipkinProperties,
+					ObjectProvider<DiscoveryClient> discoveryClient) {
+				return new HealthAwareZipkinLoadBalancer(() -> zipkinInstances(zipkinProperties, discoveryClient),
+						URI.create(zipkinProperties.getBaseUrl()), zipkinProperties.getPool().getRefreshInterval(),
+						zipkinProperties.getPool().getFailureBackoff());
+			}
+
+			private static List<URI> zipkinInstances(ZipkinProperties zipkinProperties,
+					ObjectProvider<DiscoveryClient> discoveryClient) {
+				DiscoveryClient client = discoveryClient.getIfAvailable();
+				if (client == null) {
+					return Collections.emptyList();
+				}
+				String serviceId = URI.create(zipkinProperties.getBaseUrl()).getHost();
+				return client.getInstances(serviceId).stream().map(ServiceInstance::getUri)
+						.collect(Collectors.toList());
+			}
+
 		}
 
 		@Configuration(proxyBeanMethods = false)
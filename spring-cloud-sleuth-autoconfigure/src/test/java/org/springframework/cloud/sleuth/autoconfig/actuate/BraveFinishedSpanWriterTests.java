@@ -16,39 +16,126 @@
 
 package org.springframework.cloud.sleuth.autoconfig.actuate;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
+import brave.Span;
+import brave.Tags;
 import brave.handler.MutableSpan;
+import brave.handler.MutableSpanBytesEncoder;
 import brave.propagation.TraceContext;
 import org.junit.jupiter.api.Test;
 
 import org.springframework.cloud.sleuth.brave.bridge.BraveFinishedSpan;
 import org.springframework.cloud.sleuth.exporter.FinishedSpan;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.util.StreamUtils;
 
 import static org.assertj.core.api.BDDAssertions.then;
 
 class BraveFinishedSpanWriterTests {
 
 	@Test
-	void should_convert_finished_spans_to_zipkin_json() {
+	void should_convert_finished_spans_to_zipkin_json() throws IOException {
 		FinishedSpan finishedSpan = new BraveFinishedSpan(
 				new MutableSpan(TraceContext.newBuilder().spanId(1L).traceId(2L).build(), null));
 
-		String json = new BraveFinishedSpanWriter().write(TextOutputFormat.CONTENT_TYPE_OPENZIPKIN_JSON_V2,
+		Resource json = new BraveFinishedSpanWriter().write(TextOutputFormat.CONTENT_TYPE_OPENZIPKIN_JSON_V2,
 				Collections.singletonList(finishedSpan));
 
-		then(json).isEqualTo("[{\"traceId\":\"0000000000000002\",\"id\":\"0000000000000001\"}]");
+		then(json).isInstanceOf(InputStreamResource.class);
+		then(asString(json)).isEqualTo("[{\"traceId\":\"0000000000000002\",\"id\":\"0000000000000001\"}]");
 	}
 
 	@Test
-	void should_not_support_any_other_format_than_openzipkin() {
-		FinishedSpan finishedSpan = new BraveFinishedSpan(
-				new MutableSpan(TraceContext.newBuilder().spanId(1L).traceId(2L).build(), null));
+	void should_stream_the_same_zipkin_json_as_the_list_encoder() throws IOException {
+		List<MutableSpan> spans = Arrays.asList(span(1L, "first"), span(2L, "second"), span(3L, "third"));
 
-		String json = new BraveFinishedSpanWriter().write(TextOutputFormat.CONTENT_TYPE_OTLP_PROTOBUF,
-				Collections.singletonList(finishedSpan));
+		Resource json = new BraveFinishedSpanWriter().write(TextOutputFormat.CONTENT_TYPE_OPENZIPKIN_JSON_V2,
+				finishedSpans(spans));
+
+		then(asString(json)).isEqualTo(new String(MutableSpanBytesEncoder.zipkinJsonV2(Tags.ERROR).encodeList(spans),
+				StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void should_convert_no_spans_to_an_empty_zipkin_json_list() throws IOException {
+		Resource json = new BraveFinishedSpanWriter().write(TextOutputFormat.CONTENT_TYPE_OPENZIPKIN_JSON_V2,
+				Collections.emptyList());
+
+		then(asString(json)).isEqualTo("[]");
+	}
+
+	@Test
+	void should_convert_finished_spans_to_otlp_protobuf() throws IOException {
+		MutableSpan span = span(1L, "first");
+		span.kind(Span.Kind.SERVER);
+		span.localServiceName("foo");
+		span.tag("http.method", "GET");
+
+		Resource protobuf = new BraveFinishedSpanWriter().write(TextOutputFormat.CONTENT_TYPE_OTLP_PROTOBUF,
+				finishedSpans(Arrays.asList(span, span(2L, "second"))));
+
+		byte[] bytes = StreamUtils.copyToByteArray(protobuf.getInputStream());
+		// two resource_spans entries (field 1, length delimited) of an
+		// ExportTraceServiceRequest
+		int entries = 0;
+		int position = 0;
+		while (position < bytes.length) {
+			then(bytes[position++]).isEqualTo((byte) 0x0A);
+			int length = 0;
+			for (int shift = 0;; shift += 7) {
+				byte b = bytes[position++];
+				length |= (b & 0x7F) << shift;
+				if (b >= 0) {
+					break;
+				}
+			}
+			position += length;
+			entries++;
+		}
+		then(position).isEqualTo(bytes.length);
+		then(entries).isEqualTo(2);
+		String text = new String(bytes, StandardCharsets.ISO_8859_1);
+		then(text).contains("service.name", "foo", "first", "second", "http.method", "GET");
+		then(text).contains(new String(BraveOtlpProtobufEncoder.id("0000000000000002", 16),
+				StandardCharsets.ISO_8859_1));
+	}
+
+	@Test
+	void should_pad_otlp_identifiers() {
+		then(BraveOtlpProtobufEncoder.id("0000000000000002", 16))
+				.containsExactly(new byte[] { 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 2 });
+		then(BraveOtlpProtobufEncoder.id("ff000000000000a1", 8))
+				.containsExactly(new byte[] { (byte) 0xFF, 0, 0, 0, 0, 0, 0, (byte) 0xA1 });
+	}
+
+	@Test
+	void should_encode_spans_lazily_while_reading() throws IOException {
+		int[] encoded = new int[1];
+		InputStream stream = new FinishedSpansInputStream(
+				finishedSpans(Arrays.asList(span(1L, "a"), span(2L, "b"))), span -> {
+					encoded[0]++;
+					return span.getName().getBytes(StandardCharsets.UTF_8);
+				}, "[".getBytes(StandardCharsets.UTF_8), ",".getBytes(StandardCharsets.UTF_8),
+				"]".getBytes(StandardCharsets.UTF_8));
+
+		then(stream.read()).isEqualTo('[');
+		then(encoded[0]).isZero();
+		then(stream.read()).isEqualTo('a');
+		then(encoded[0]).isEqualTo(1);
 
-		then(json).isNull();
+		byte[] rest = new byte[16];
+		then(stream.read(rest, 0, rest.length)).isEqualTo(3);
+		then(new String(rest, 0, 3, StandardCharsets.UTF_8)).isEqualTo(",b]");
+		then(encoded[0]).isEqualTo(2);
+		then(stream.read()).isEqualTo(-1);
+		then(stream.read(rest, 0, rest.length)).isEqualTo(-1);
 	}
 
 	@Test
@@ -56,4 +143,20 @@ class BraveFinishedSpanWriterTests {
 		then(new BraveFinishedSpanWriter().write(null, Collections.emptyList())).isNull();
 	}
 
+	private static MutableSpan span(long id, String name) {
+		MutableSpan span = new MutableSpan(TraceContext.newBuilder().spanId(id).traceId(2L).build(), null);
+		span.name(name);
+		span.startTimestamp(1000L * id);
+		span.finishTimestamp(1000L * id + 500L);
+		return span;
+	}
+
+	private static List<FinishedSpan> finishedSpans(List<MutableSpan> spans) {
+		return Arrays.asList(spans.stream().map(BraveFinishedSpan::new).toArray(FinishedSpan[]::new));
+	}
+
+	private static String asString(Resource resource) throws IOException {
+		return StreamUtils.copyToString(resource.getInputStream(), StandardCharsets.UTF_8);
+	}
+
 }
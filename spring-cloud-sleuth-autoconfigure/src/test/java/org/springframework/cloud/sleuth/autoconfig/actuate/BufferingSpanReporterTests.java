@@ -16,6 +16,18 @@
 
 package org.springframework.cloud.sleuth.autoconfig.actuate;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
 import org.assertj.core.api.BDDAssertions;
 import org.junit.jupiter.api.Test;
 
@@ -36,7 +48,127 @@ class BufferingSpanReporterTests {
 		reporter.report(second);
 		reporter.report(youngest);
 
-		BDDAssertions.then(reporter.spans).containsExactly(second, youngest);
+		BDDAssertions.then(reporter.getFinishedSpans()).containsExactly(second, youngest);
+		BDDAssertions.then(reporter.getOverwrittenSpans()).isEqualTo(1L);
+	}
+
+	@Test
+	void should_keep_the_newest_spans_of_a_batch() {
+		BufferingSpanReporter reporter = new BufferingSpanReporter(2);
+		FinishedSpan first = mock(FinishedSpan.class, "first");
+		FinishedSpan second = mock(FinishedSpan.class, "second");
+		FinishedSpan third = mock(FinishedSpan.class, "third");
+
+		reporter.reportAll(Arrays.asList(first, second, third));
+
+		BDDAssertions.then(reporter.getFinishedSpans()).containsExactly(second, third);
+		BDDAssertions.then(reporter.getOverwrittenSpans()).isEqualTo(1L);
+	}
+
+	@Test
+	void should_drain_spans_only_once() {
+		BufferingSpanReporter reporter = new BufferingSpanReporter(3);
+		FinishedSpan first = mock(FinishedSpan.class, "first");
+		FinishedSpan second = mock(FinishedSpan.class, "second");
+		FinishedSpan third = mock(FinishedSpan.class, "third");
+
+		reporter.report(first);
+		reporter.report(second);
+
+		BDDAssertions.then(reporter.drainFinishedSpans()).containsExactly(first, second);
+		BDDAssertions.then(reporter.getFinishedSpans()).isEmpty();
+
+		reporter.report(third);
+
+		BDDAssertions.then(reporter.drainFinishedSpans()).containsExactly(third);
+		BDDAssertions.then(reporter.drainFinishedSpans()).isEmpty();
+		BDDAssertions.then(reporter.getOverwrittenSpans()).isZero();
+	}
+
+	@Test
+	void should_not_count_drained_spans_as_overwritten() {
+		BufferingSpanReporter reporter = new BufferingSpanReporter(1);
+
+		reporter.report(mock(FinishedSpan.class));
+		reporter.drainFinishedSpans();
+		reporter.report(mock(FinishedSpan.class));
+
+		BDDAssertions.then(reporter.getOverwrittenSpans()).isZero();
+	}
+
+	@Test
+	void should_drop_spans_when_there_is_no_capacity() {
+		BufferingSpanReporter reporter = new BufferingSpanReporter(0);
+
+		reporter.report(mock(FinishedSpan.class));
+
+		BDDAssertions.then(reporter.getFinishedSpans()).isEmpty();
+		BDDAssertions.then(reporter.getDroppedSpans()).isEqualTo(1L);
+	}
+
+	@Test
+	void should_never_exceed_capacity_nor_return_a_span_twice_under_contention() throws Exception {
+		int capacity = 100;
+		int threads = 8;
+		int spansPerThread = 2_000;
+		BufferingSpanReporter reporter = new BufferingSpanReporter(capacity);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch done = new CountDownLatch(threads);
+		List<FinishedSpan> drained = new ArrayList<>();
+		try {
+			for (int i = 0; i < threads; i++) {
+				executor.execute(() -> {
+					for (int j = 0; j < spansPerThread; j++) {
+						reporter.report(mock(FinishedSpan.class));
+					}
+					done.countDown();
+				});
+			}
+			while (done.getCount() > 0) {
+				List<FinishedSpan> spans = reporter.drainFinishedSpans();
+				BDDAssertions.then(spans.size()).isLessThanOrEqualTo(capacity);
+				drained.addAll(spans);
+			}
+			BDDAssertions.then(done.await(10, TimeUnit.SECONDS)).isTrue();
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		drained.addAll(reporter.drainFinishedSpans());
+
+		BDDAssertions.then(drained).doesNotContainNull();
+		Set<FinishedSpan> unique = new HashSet<>(drained);
+		BDDAssertions.then(unique).hasSameSizeAs(drained);
+		BDDAssertions.then(drained.size() + reporter.getOverwrittenSpans())
+				.isEqualTo((long) threads * spansPerThread);
+	}
+
+	@Test
+	void should_not_return_a_span_of_a_newer_lap_for_an_older_sequence() throws Exception {
+		int capacity = 4;
+		int spans = 20_000;
+		BufferingSpanReporter reporter = new BufferingSpanReporter(capacity);
+		Map<FinishedSpan, Integer> order = new IdentityHashMap<>();
+		List<FinishedSpan> toReport = new ArrayList<>();
+		for (int i = 0; i < spans; i++) {
+			FinishedSpan span = mock(FinishedSpan.class);
+			order.put(span, i);
+			toReport.add(span);
+		}
+		Thread writer = new Thread(() -> toReport.forEach(reporter::report));
+		writer.start();
+		try {
+			while (writer.isAlive()) {
+				List<FinishedSpan> snapshot = reporter.getFinishedSpans();
+				BDDAssertions.then(snapshot).doesNotContainNull();
+				for (int i = 1; i < snapshot.size(); i++) {
+					BDDAssertions.then(order.get(snapshot.get(i))).isGreaterThan(order.get(snapshot.get(i - 1)));
+				}
+			}
+		}
+		finally {
+			writer.join(TimeUnit.SECONDS.toMillis(10));
+		}
 	}
 
 }
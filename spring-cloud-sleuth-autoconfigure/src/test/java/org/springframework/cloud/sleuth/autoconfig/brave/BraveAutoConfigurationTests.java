@@ -16,6 +16,8 @@
 
 package org.springframework.cloud.sleuth.autoconfig.brave;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import brave.Tracing;
@@ -40,6 +42,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.AutoConfigurations;
 import org.springframework.boot.test.context.runner.ApplicationContextRunner;
 import org.springframework.context.annotation.Bean;
+import org.springframework.cloud.sleuth.exporter.FinishedSpan;
+import org.springframework.cloud.sleuth.exporter.SpanReporter;
 import org.springframework.context.annotation.Configuration;
 
 public class BraveAutoConfigurationTests {
@@ -126,6 +130,31 @@ public class BraveAutoConfigurationTests {
 						.isSameAs(B3SinglePropagation.FACTORY)));
 	}
 
+	@Test
+	void should_pass_unsampled_spans_to_span_reporters() {
+		this.contextRunner.withUserConfiguration(WithSpanReporter.class).run((context -> {
+			endUnsampledSpan(context.getBean("traceCompositeSpanHandler", SpanHandler.class));
+
+			BDDAssertions.then(context.getBean(WithSpanReporter.class).reported).hasSize(1);
+		}));
+	}
+
+	@Test
+	void should_not_pass_unsampled_spans_to_span_reporters_when_tail_sampling_is_enabled() {
+		this.contextRunner.withPropertyValues("spring.sleuth.sampler.tail.enabled=true")
+				.withUserConfiguration(WithSpanReporter.class).run((context -> {
+					endUnsampledSpan(context.getBean("traceCompositeSpanHandler", SpanHandler.class));
+
+					BDDAssertions.then(context.getBean(WithSpanReporter.class).reported).isEmpty();
+				}));
+	}
+
+	private void endUnsampledSpan(SpanHandler handler) {
+		TraceContext context = TraceContext.newBuilder().traceId(1L).spanId(2L).sampled(false).sampledLocal(true)
+				.build();
+		handler.end(context, new MutableSpan(), SpanHandler.Cause.FINISHED);
+	}
+
 	@Configuration(proxyBeanMethods = false)
 	static class Baggage {
 
@@ -172,6 +201,18 @@ public class BraveAutoConfigurationTests {
 
 	}
 
+	@Configuration(proxyBeanMethods = false)
+	static class WithSpanReporter {
+
+		final List<FinishedSpan> reported = new ArrayList<>();
+
+		@Bean
+		SpanReporter testSpanReporter() {
+			return this.reported::add;
+		}
+
+	}
+
 	@Configuration(proxyBeanMethods = false)
 	static class WithSampler {
 
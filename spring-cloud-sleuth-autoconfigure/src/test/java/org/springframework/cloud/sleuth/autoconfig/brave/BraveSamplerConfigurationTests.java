@@ -29,6 +29,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.boot.autoconfigure.AutoConfigurations;
 import org.springframework.boot.test.context.runner.ApplicationContextRunner;
 import org.springframework.cloud.context.scope.refresh.RefreshScope;
+import org.springframework.cloud.sleuth.brave.sampler.StripedProbabilityBasedSampler;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -97,6 +98,17 @@ public class BraveSamplerConfigurationTests {
 		BDDAssertions.then(sampler).isInstanceOf(brave.sampler.CountingSampler.class);
 	}
 
+	@Test
+	void samplerFromProps_stripedProbability() {
+		SamplerProperties properties = new SamplerProperties();
+		properties.setProbability(0.01f);
+		properties.setProbabilityType(SamplerProperties.ProbabilityType.STRIPED);
+
+		Sampler sampler = BraveSamplerConfiguration.samplerFromProps(properties);
+
+		BDDAssertions.then(sampler).isInstanceOf(StripedProbabilityBasedSampler.class);
+	}
+
 	@Test
 	void samplerFromProps_rateLimit() {
 		SamplerProperties properties = new SamplerProperties();
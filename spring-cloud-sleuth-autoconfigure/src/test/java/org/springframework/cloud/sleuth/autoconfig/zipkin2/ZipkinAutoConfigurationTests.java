@@ -16,6 +16,7 @@
 
 package org.springframework.cloud.sleuth.autoconfig.zipkin2;
 
+import java.nio.file.Path;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -33,6 +34,9 @@ import zipkin2.reporter.Sender;
 
 import org.springframework.boot.test.system.CapturedOutput;
 import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.cloud.sleuth.zipkin2.ZipkinProperties;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.client.RestTemplate;
 
 import static org.assertj.core.api.BDDAssertions.then;
 import static org.awaitility.Awaitility.await;
@@ -82,6 +86,26 @@ class ZipkinAutoConfigurationTests {
 				"CheckResult{ok=false, error=java.util.concurrent.CompletionException: java.lang.RuntimeException: boom}"));
 	}
 
+	@Test
+	void shouldSpoolToADirectoryNamedAfterTheApplication() {
+		Path directory = ZipkinAutoConfiguration
+				.defaultSpoolDirectory(new MockEnvironment().withProperty("spring.application.name", "my app"));
+
+		then(directory.getFileName().toString()).isEqualTo("my_app");
+		then(directory.getParent().getFileName().toString()).isEqualTo("zipkin-spool");
+	}
+
+	@Test
+	void shouldNotBufferRequestsToGzipThemSinceTheSenderCompressesSpans() {
+		ZipkinProperties zipkin = new ZipkinProperties();
+		zipkin.getCompression().setEnabled(true);
+
+		RestTemplate restTemplate = new ZipkinAutoConfiguration().zipkinRestTemplateCustomizer(zipkin)
+				.customizeTemplate(new RestTemplate());
+
+		then(restTemplate.getInterceptors()).isEmpty();
+	}
+
 	private static final class ExceptionThrowingSender extends Sender {
 
 		@Override
@@ -20,9 +20,14 @@ import org.assertj.core.api.BDDAssertions;
 import org.junit.jupiter.api.Test;
 
 import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.cloud.sleuth.zipkin2.HealthAwareZipkinLoadBalancer;
+import org.springframework.cloud.sleuth.zipkin2.LoadBalancerClientZipkinLoadBalancer;
+import org.springframework.cloud.sleuth.zipkin2.StaticInstanceZipkinLoadBalancer;
+import org.springframework.cloud.sleuth.zipkin2.ZipkinLoadBalancer;
 import org.springframework.cloud.sleuth.zipkin2.ZipkinProperties;
 import org.springframework.cloud.sleuth.zipkin2.ZipkinRestTemplateCustomizer;
 import org.springframework.cloud.sleuth.zipkin2.ZipkinRestTemplateProvider;
+import org.springframework.cloud.sleuth.zipkin2.ZipkinUrlExtractor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestTemplate;
@@ -42,6 +47,40 @@ class ZipkinHttpSenderConfigurationTests {
 		});
 	}
 
+	@Test
+	void should_use_the_load_balancer_client_by_default() {
+		ApplicationContextRunner runner = new ApplicationContextRunner()
+				.withUserConfiguration(ZipkinHttpSenderConfiguration.class, ZipkinProperties.class);
+
+		runner.run(context -> {
+			assertThat(context.getBean(ZipkinLoadBalancer.class))
+					.isInstanceOf(LoadBalancerClientZipkinLoadBalancer.class);
+			assertThat(context.getBean(ZipkinUrlExtractor.class).isHealthAware()).isFalse();
+		});
+	}
+
+	@Test
+	void should_use_the_health_aware_load_balancer_when_pool_is_enabled() {
+		ApplicationContextRunner runner = new ApplicationContextRunner()
+				.withUserConfiguration(ZipkinHttpSenderConfiguration.class, ZipkinProperties.class)
+				.withPropertyValues("spring.zipkin.pool.enabled=true");
+
+		runner.run(context -> {
+			assertThat(context.getBean(ZipkinLoadBalancer.class)).isInstanceOf(HealthAwareZipkinLoadBalancer.class);
+			assertThat(context.getBean(ZipkinUrlExtractor.class).isHealthAware()).isTrue();
+		});
+	}
+
+	@Test
+	void should_use_the_static_instance_when_discovery_client_is_disabled() {
+		ApplicationContextRunner runner = new ApplicationContextRunner()
+				.withUserConfiguration(ZipkinHttpSenderConfiguration.class, ZipkinProperties.class)
+				.withPropertyValues("spring.zipkin.discovery-client-enabled=false", "spring.zipkin.pool.enabled=true");
+
+		runner.run(context -> assertThat(context.getBean(ZipkinLoadBalancer.class))
+				.isInstanceOf(StaticInstanceZipkinLoadBalancer.class));
+	}
+
 	@Configuration(proxyBeanMethods = false)
 	static class Config {
 
@@ -0,0 +1,355 @@
+/*
+ * Copyright 2013-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.brave.bridge;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import brave.baggage.BaggageField;
+import brave.baggage.BaggagePropagation;
+import brave.baggage.BaggagePropagationConfig;
+import brave.internal.baggage.BaggageFields;
+import brave.propagation.Propagation;
+import brave.propagation.TraceContext;
+import brave.propagation.TraceContextOrSamplingFlags;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import static java.util.Collections.singletonList;
+
+/**
+ * Compact propagation for internal service to service calls. The trace context and the
+ * baggage are packed into a single binary header instead of hex encoded identifiers and
+ * separate baggage headers. The layout of the header is:
+ *
+ * <pre>
+ * version       1 byte
+ * flags         1 byte (sampled set, sampled, debug, 128 bit trace id, parent id)
+ * trace id high 8 bytes, if the trace id has 128 bits
+ * trace id      8 bytes
+ * span id       8 bytes
+ * parent id     8 bytes, if present
+ * baggage count varint
+ * entries       varint length + UTF-8 name, varint length + UTF-8 value
+ * </pre>
+ *
+ * Since getters and setters of the carriers (HTTP headers, RSocket metadata, Kafka
+ * headers) take {@link String} values, the header is encoded with URL safe Base64
+ * without padding.
+ *
+ * @author Marcin Grzejszczak
+ * @since 3.1.11
+ */
+class BinaryPropagation extends Propagation.Factory implements Propagation<String> {
+
+	private static final Log log = LogFactory.getLog(BinaryPropagation.class);
+
+	static final String CONTEXT = "sleuth-ctx";
+
+	private static final List<String> FIELDS = singletonList(CONTEXT);
+
+	private static final byte VERSION = 0;
+
+	private static final int SAMPLED_SET = 1;
+
+	private static final int SAMPLED = 1 << 1;
+
+	private static final int DEBUG = 1 << 2;
+
+	private static final int TRACE_ID_128 = 1 << 3;
+
+	private static final int PARENT_ID = 1 << 4;
+
+	private static final int MAX_ID_BYTES = 2 + 4 * 8;
+
+	private final BraveBaggageManager braveBaggageManager;
+
+	private final Set<String> localFields;
+
+	BinaryPropagation(BraveBaggageManager braveBaggageManager, List<String> localFields) {
+		this.braveBaggageManager = braveBaggageManager;
+		this.localFields = new HashSet<>(localFields);
+	}
+
+	@Override
+	public Propagation<String> get() {
+		return this;
+	}
+
+	@Override
+	public List<String> keys() {
+		return FIELDS;
+	}
+
+	@Override
+	public <R> TraceContext.Injector<R> injector(Setter<R, String> setter) {
+		return (context, carrier) -> setter.put(carrier, CONTEXT, encode(context));
+	}
+
+	@Override
+	public <R> TraceContext.Extractor<R> extractor(Getter<R, String> getter) {
+		return carrier -> {
+			String header = getter.get(carrier, CONTEXT);
+			if (header == null || header.isEmpty()) {
+				return TraceContextOrSamplingFlags.EMPTY;
+			}
+			try {
+				return decode(Base64.getUrlDecoder().decode(header));
+			}
+			catch (IllegalArgumentException ex) {
+				if (log.isDebugEnabled()) {
+					log.debug("Failed to parse the [" + CONTEXT + "] header [" + header + "]", ex);
+				}
+				return TraceContextOrSamplingFlags.EMPTY;
+			}
+		};
+	}
+
+	String encode(TraceContext context) {
+		List<byte[]> baggage = baggage(context);
+		int size = MAX_ID_BYTES + varIntSize(baggage.size() / 2);
+		for (byte[] bytes : baggage) {
+			size += varIntSize(bytes.length) + bytes.length;
+		}
+		Writer writer = new Writer(size);
+		int flags = 0;
+		if (context.sampled() != null) {
+			flags |= SAMPLED_SET;
+			flags |= context.sampled() ? SAMPLED : 0;
+		}
+		flags |= context.debug() ? DEBUG : 0;
+		flags |= context.traceIdHigh() != 0L ? TRACE_ID_128 : 0;
+		flags |= context.parentIdAsLong() != 0L ? PARENT_ID : 0;
+		writer.writeByte(VERSION);
+		writer.writeByte(flags);
+		if ((flags & TRACE_ID_128) != 0) {
+			writer.writeLong(context.traceIdHigh());
+		}
+		writer.writeLong(context.traceId());
+		writer.writeLong(context.spanId());
+		if ((flags & PARENT_ID) != 0) {
+			writer.writeLong(context.parentIdAsLong());
+		}
+		writer.writeVarInt(baggage.size() / 2);
+		for (byte[] bytes : baggage) {
+			writer.writeVarInt(bytes.length);
+			writer.writeBytes(bytes);
+		}
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(writer.toByteArray());
+	}
+
+	/**
+	 * @return names and values of the propagated baggage, one after the other
+	 */
+	private List<byte[]> baggage(TraceContext context) {
+		BaggageFields extra = context.findExtra(BaggageFields.class);
+		if (extra == null) {
+			return Collections.emptyList();
+		}
+		List<BaggageField> fields = extra.getAllFields();
+		List<byte[]> baggage = new ArrayList<>(fields.size() * 2);
+		for (int i = 0; i < fields.size(); i++) {
+			BaggageField field = fields.get(i);
+			// We ignore local keys - they won't get propagated
+			if (this.localFields.contains(field.name())) {
+				continue;
+			}
+			String value = extra.getValue(field);
+			if (value == null) {
+				continue;
+			}
+			baggage.add(field.name().getBytes(StandardCharsets.UTF_8));
+			baggage.add(value.getBytes(StandardCharsets.UTF_8));
+		}
+		return baggage;
+	}
+
+	TraceContextOrSamplingFlags decode(byte[] bytes) {
+		Reader reader = new Reader(bytes);
+		if (reader.readByte() != VERSION) {
+			throw new IllegalArgumentException("Unsupported version");
+		}
+		int flags = reader.readByte();
+		TraceContext.Builder builder = TraceContext.newBuilder();
+		if ((flags & TRACE_ID_128) != 0) {
+			builder.traceIdHigh(reader.readLong());
+		}
+		builder.traceId(reader.readLong()).spanId(reader.readLong());
+		if ((flags & PARENT_ID) != 0) {
+			builder.parentId(reader.readLong());
+		}
+		if ((flags & SAMPLED_SET) != 0) {
+			builder.sampled((flags & SAMPLED) != 0);
+		}
+		if ((flags & DEBUG) != 0) {
+			builder.debug(true);
+		}
+		int entries = reader.readVarInt();
+		if (entries == 0) {
+			return TraceContextOrSamplingFlags.create(builder.build());
+		}
+		// each entry takes at least the lengths of its name and value, don't let a
+		// malformed header make us allocate more than that
+		if (entries > reader.remaining() / 2) {
+			throw new IllegalArgumentException("Malformed number of baggage entries");
+		}
+		List<BaggageField> fields = new ArrayList<>(entries);
+		List<String> values = new ArrayList<>(entries);
+		BaggagePropagation.FactoryBuilder factoryBuilder = BaggagePropagation
+				.newFactoryBuilder(NoOpPropagationFactory.INSTANCE);
+		for (int i = 0; i < entries; i++) {
+			String name = reader.readString();
+			String value = reader.readString();
+			BaggageField field = ((BraveBaggageInScope) this.braveBaggageManager.createBaggage(name)).unwrap();
+			if (!fields.contains(field)) {
+				factoryBuilder.add(BaggagePropagationConfig.SingleBaggageField.remote(field));
+			}
+			fields.add(field);
+			values.add(value);
+		}
+		TraceContext context = factoryBuilder.build().decorate(builder.build());
+		for (int i = 0; i < fields.size(); i++) {
+			fields.get(i).updateValue(context, values.get(i));
+		}
+		return TraceContextOrSamplingFlags.create(context);
+	}
+
+	private static int varIntSize(int value) {
+		int size = 1;
+		while ((value & ~0x7F) != 0) {
+			value >>>= 7;
+			size++;
+		}
+		return size;
+	}
+
+	private static final class Writer {
+
+		private final byte[] bytes;
+
+		private int position;
+
+		private Writer(int size) {
+			this.bytes = new byte[size];
+		}
+
+		void writeByte(int value) {
+			this.bytes[this.position++] = (byte) value;
+		}
+
+		void writeLong(long value) {
+			for (int shift = 56; shift >= 0; shift -= 8) {
+				writeByte((int) (value >>> shift));
+			}
+		}
+
+		void writeVarInt(int value) {
+			while ((value & ~0x7F) != 0) {
+				writeByte((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			writeByte(value);
+		}
+
+		void writeBytes(byte[] value) {
+			System.arraycopy(value, 0, this.bytes, this.position, value.length);
+			this.position += value.length;
+		}
+
+		byte[] toByteArray() {
+			return this.position == this.bytes.length ? this.bytes : Arrays.copyOf(this.bytes, this.position);
+		}
+
+	}
+
+	private static final class Reader {
+
+		private final byte[] bytes;
+
+		private int position;
+
+		private Reader(byte[] bytes) {
+			this.bytes = bytes;
+		}
+
+		int readByte() {
+			require(1);
+			return this.bytes[this.position++] & 0xFF;
+		}
+
+		long readLong() {
+			require(8);
+			long value = 0L;
+			for (int i = 0; i < 8; i++) {
+				value = (value << 8) | (this.bytes[this.position++] & 0xFF);
+			}
+			return value;
+		}
+
+		int readVarInt() {
+			int value = 0;
+			for (int shift = 0; shift < 32; shift += 7) {
+				int b = readByte();
+				value |= (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) {
+					if (value < 0) {
+						break;
+					}
+					return value;
+				}
+			}
+			throw new IllegalArgumentException("Malformed length");
+		}
+
+		String readString() {
+			int length = readVarInt();
+			require(length);
+			String value = new String(this.bytes, this.position, length, StandardCharsets.UTF_8);
+			this.position += length;
+			return value;
+		}
+
+		int remaining() {
+			return this.bytes.length - this.position;
+		}
+
+		private void require(int length) {
+			if (this.bytes.length - this.position < length) {
+				throw new IllegalArgumentException("Header is truncated");
+			}
+		}
+
+	}
+
+	private static final class NoOpPropagationFactory extends Propagation.Factory {
+
+		static final NoOpPropagationFactory INSTANCE = new NoOpPropagationFactory();
+
+		@Override
+		public Propagation<String> get() {
+			return null;
+		}
+
+	}
+
+}
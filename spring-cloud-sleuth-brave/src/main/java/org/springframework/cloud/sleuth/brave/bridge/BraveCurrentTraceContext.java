@@ -53,10 +53,18 @@ public class BraveCurrentTraceContext implements CurrentTraceContext {
 	@Override
 	public CurrentTraceContext.Scope maybeScope(TraceContext context) {
 		if (context == null) {
-			clearScopes();
+			if (this.scopes.get() != null || this.delegate.get() != null) {
+				clearScopes();
+			}
+			return Scope.NOOP;
+		}
+		brave.propagation.TraceContext braveContext = BraveTraceContext.toBrave(context);
+		if (this.delegate.get() == braveContext) {
+			// already in scope (e.g. every signal of a reactive pipeline), nothing to
+			// revert
 			return Scope.NOOP;
 		}
-		return new RevertingScope(this, new BraveScope(this.delegate.maybeScope(BraveTraceContext.toBrave(context))));
+		return new RevertingScope(this, new BraveScope(this.delegate.maybeScope(braveContext)));
 	}
 
 	private void clearScopes() {
@@ -29,30 +29,27 @@ class BraveTraceContextBuilder implements TraceContext.Builder {
 
 	brave.propagation.TraceContext.Builder delegate = brave.propagation.TraceContext.newBuilder();
 
+	private final long[] ids = new long[2];
+
 	@Override
 	public TraceContext.Builder traceId(String traceId) {
-		long[] fromString = EncodingUtils.fromString(traceId);
-		if (fromString.length == 2) {
-			this.delegate.traceIdHigh(fromString[0]);
-			this.delegate.traceId(fromString[1]);
-		}
-		else {
-			this.delegate.traceId(fromString[0]);
-		}
+		EncodingUtils.idFromBase16String(traceId, this.ids);
+		this.delegate.traceIdHigh(this.ids[0]);
+		this.delegate.traceId(this.ids[1]);
 		return this;
 	}
 
 	@Override
 	public TraceContext.Builder parentId(String traceId) {
-		long[] fromString = EncodingUtils.fromString(traceId);
-		this.delegate.parentId(fromString[fromString.length == 2 ? 1 : 0]);
+		EncodingUtils.idFromBase16String(traceId, this.ids);
+		this.delegate.parentId(this.ids[1]);
 		return this;
 	}
 
 	@Override
 	public TraceContext.Builder spanId(String spanId) {
-		long[] fromString = EncodingUtils.fromString(spanId);
-		this.delegate.spanId(fromString[fromString.length == 2 ? 1 : 0]);
+		EncodingUtils.idFromBase16String(spanId, this.ids);
+		this.delegate.spanId(this.ids[1]);
 		return this;
 	}
 
@@ -82,6 +82,9 @@ class CompositePropagationFactory extends Propagation.Factory implements Propaga
 		this.mapping.put(PropagationType.B3, new AbstractMap.SimpleEntry<>(b3Factory, b3Factory.get()));
 		W3CPropagation w3CPropagation = new W3CPropagation(braveBaggageManager, localFields);
 		this.mapping.put(PropagationType.W3C, new AbstractMap.SimpleEntry<>(w3CPropagation, w3CPropagation.get()));
+		BinaryPropagation binaryPropagation = new BinaryPropagation(braveBaggageManager, localFields);
+		this.mapping.put(PropagationType.BINARY,
+				new AbstractMap.SimpleEntry<>(binaryPropagation, binaryPropagation.get()));
 		LazyPropagationFactory lazyPropagationFactory = new LazyPropagationFactory(
 				beanFactory.getBeanProvider(PropagationFactorySupplier.class));
 		this.mapping.put(PropagationType.CUSTOM,
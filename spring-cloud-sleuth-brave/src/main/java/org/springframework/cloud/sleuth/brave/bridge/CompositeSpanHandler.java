@@ -16,13 +16,13 @@
 
 package org.springframework.cloud.sleuth.brave.bridge;
 
-import java.util.Collections;
 import java.util.List;
 
 import brave.handler.MutableSpan;
 import brave.handler.SpanHandler;
 import brave.propagation.TraceContext;
 
+import org.springframework.cloud.sleuth.exporter.FinishedSpan;
 import org.springframework.cloud.sleuth.exporter.SpanFilter;
 import org.springframework.cloud.sleuth.exporter.SpanReporter;
 
@@ -34,13 +34,28 @@ import org.springframework.cloud.sleuth.exporter.SpanReporter;
  */
 public class CompositeSpanHandler extends SpanHandler {
 
-	private final List<SpanFilter> filters;
+	private final SpanFilter[] filters;
 
-	private final List<SpanReporter> reporters;
+	private final SpanReporter[] reporters;
+
+	private final boolean reportSampledOnly;
 
 	public CompositeSpanHandler(List<SpanFilter> filters, List<SpanReporter> reporters) {
-		this.filters = filters == null ? Collections.emptyList() : filters;
-		this.reporters = reporters == null ? Collections.emptyList() : reporters;
+		this(filters, reporters, false);
+	}
+
+	/**
+	 * @param filters span filters
+	 * @param reporters span reporters
+	 * @param reportSampledOnly whether spans explicitly marked as not sampled should not be
+	 * passed to the reporters (e.g. when they are recorded only for tail based sampling).
+	 * Filters are still applied to them.
+	 * @since 3.1.11
+	 */
+	public CompositeSpanHandler(List<SpanFilter> filters, List<SpanReporter> reporters, boolean reportSampledOnly) {
+		this.filters = filters == null ? new SpanFilter[0] : filters.toArray(new SpanFilter[0]);
+		this.reporters = reporters == null ? new SpanReporter[0] : reporters.toArray(new SpanReporter[0]);
+		this.reportSampledOnly = reportSampledOnly;
 	}
 
 	@Override
@@ -48,21 +63,27 @@ public class CompositeSpanHandler extends SpanHandler {
 		if (cause != Cause.FINISHED) {
 			return true;
 		}
-		boolean shouldProcess = shouldProcess(span);
+		boolean report = this.reporters.length > 0
+				&& !(this.reportSampledOnly && Boolean.FALSE.equals(context.sampled()));
+		// a single view over the mutable span is shared by all filters and reporters
+		FinishedSpan finishedSpan = this.filters.length == 0 && !report ? null : BraveFinishedSpan.fromBrave(span);
+		boolean shouldProcess = shouldProcess(finishedSpan);
 		if (!shouldProcess) {
 			return false;
 		}
 		shouldProcess = super.end(context, span, cause);
-		if (!shouldProcess) {
-			return false;
+		if (!shouldProcess || !report) {
+			return shouldProcess;
+		}
+		for (SpanReporter reporter : this.reporters) {
+			reporter.report(finishedSpan);
 		}
-		this.reporters.forEach(r -> r.report(BraveFinishedSpan.fromBrave(span)));
 		return true;
 	}
 
-	private boolean shouldProcess(MutableSpan span) {
-		for (SpanFilter exporter : this.filters) {
-			if (!exporter.isExportable(BraveFinishedSpan.fromBrave(span))) {
+	private boolean shouldProcess(FinishedSpan span) {
+		for (SpanFilter filter : this.filters) {
+			if (!filter.isExportable(span)) {
 				return false;
 			}
 		}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2013-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.brave.bridge;
+
+/**
+ * Single pass tokenizer of the W3C {@code baggage} header. Works on offsets of the header
+ * instead of splitting it, so entries that get skipped (e.g. malformed ones) don't
+ * allocate anything, and the caller decides which keys and values become strings.
+ *
+ * @author Marcin Grzejszczak
+ * @since 3.1.11
+ */
+final class W3CBaggageCodec {
+
+	private static final int MAX_RETAINED_CAPACITY = 8 * 1024;
+
+	private static final ThreadLocal<StringBuilder> HEADER = new ThreadLocal<>();
+
+	private W3CBaggageCodec() {
+	}
+
+	/**
+	 * Calls the consumer for each {@code key=value} list member of the header. Whitespace
+	 * around keys and values is trimmed and properties (everything after {@code ;}) are
+	 * ignored. Members without a key or a value are skipped.
+	 * @param header baggage header
+	 * @param consumer consumer of the entries
+	 */
+	static void parse(CharSequence header, EntryConsumer consumer) {
+		int length = header.length();
+		int memberStart = 0;
+		while (memberStart < length) {
+			int memberEnd = indexOf(header, ',', memberStart, length);
+			int valueEnd = indexOf(header, ';', memberStart, memberEnd);
+			int equals = indexOf(header, '=', memberStart, valueEnd);
+			if (equals < valueEnd) {
+				int keyStart = trimLeading(header, memberStart, equals);
+				int keyEnd = trimTrailing(header, keyStart, equals);
+				int valueStart = trimLeading(header, equals + 1, valueEnd);
+				valueEnd = trimTrailing(header, valueStart, valueEnd);
+				if (keyStart < keyEnd && valueStart < valueEnd) {
+					consumer.accept(header, keyStart, keyEnd, valueStart, valueEnd);
+				}
+			}
+			memberStart = memberEnd + 1;
+		}
+	}
+
+	/**
+	 * @param header header
+	 * @param start start of the region, inclusive
+	 * @param end end of the region, exclusive
+	 * @param value value to compare with
+	 * @return {@code true} if the region of the header equals the value
+	 */
+	static boolean regionEquals(CharSequence header, int start, int end, String value) {
+		if (end - start != value.length()) {
+			return false;
+		}
+		for (int i = start; i < end; i++) {
+			if (header.charAt(i) != value.charAt(i - start)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * A {@link ThreadLocal} {@link StringBuilder} for encoding the header. It's emptied
+	 * on every call, so the header has to be converted to a {@link String} before the
+	 * builder is requested again.
+	 * @return empty builder
+	 */
+	static StringBuilder headerBuilder() {
+		StringBuilder builder = HEADER.get();
+		if (builder == null || builder.capacity() > MAX_RETAINED_CAPACITY) {
+			builder = new StringBuilder(128);
+			HEADER.set(builder);
+		}
+		builder.setLength(0);
+		return builder;
+	}
+
+	private static int indexOf(CharSequence header, char c, int start, int end) {
+		for (int i = start; i < end; i++) {
+			if (header.charAt(i) == c) {
+				return i;
+			}
+		}
+		return end;
+	}
+
+	private static int trimLeading(CharSequence header, int start, int end) {
+		while (start < end && header.charAt(start) <= ' ') {
+			start++;
+		}
+		return start;
+	}
+
+	private static int trimTrailing(CharSequence header, int start, int end) {
+		while (end > start && header.charAt(end - 1) <= ' ') {
+			end--;
+		}
+		return end;
+	}
+
+	/**
+	 * Consumer of the entries of a baggage header, given as offsets of the header.
+	 */
+	interface EntryConsumer {
+
+		void accept(CharSequence header, int keyStart, int keyEnd, int valueStart, int valueEnd);
+
+	}
+
+}
@@ -16,16 +16,13 @@
 
 package org.springframework.cloud.sleuth.brave.bridge;
 
-import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 import brave.baggage.BaggageField;
 import brave.baggage.BaggagePropagation;
@@ -95,10 +92,6 @@ class W3CPropagation extends Propagation.Factory implements Propagation<String>
 
 	private static final int TRACEPARENT_HEADER_SIZE = TRACE_OPTION_OFFSET + TRACE_OPTION_HEX_SIZE;
 
-	private static final String INVALID_TRACE_ID = "00000000000000000000000000000000";
-
-	private static final String INVALID_SPAN_ID = "0000000000000000";
-
 	// private static final char TRACESTATE_ENTRY_DELIMITER = ',';
 
 	private static final Set<String> VALID_VERSIONS;
@@ -146,15 +139,11 @@ class W3CPropagation extends Propagation.Factory implements Propagation<String>
 			chars[0] = VERSION.charAt(0);
 			chars[1] = VERSION.charAt(1);
 			chars[2] = TRACEPARENT_DELIMITER;
-			String traceId = padLeftWithZeros(context.traceIdString(), TRACE_ID_HEX_SIZE);
-			for (int i = 0; i < traceId.length(); i++) {
-				chars[TRACE_ID_OFFSET + i] = traceId.charAt(i);
-			}
+			// ids are encoded straight into the buffer, the high bits are zero padded
+			EncodingUtils.longToBase16String(context.traceIdHigh(), chars, TRACE_ID_OFFSET);
+			EncodingUtils.longToBase16String(context.traceId(), chars, TRACE_ID_OFFSET + LONG_BASE16);
 			chars[SPAN_ID_OFFSET - 1] = TRACEPARENT_DELIMITER;
-			String spanId = context.spanIdString();
-			for (int i = 0; i < spanId.length(); i++) {
-				chars[SPAN_ID_OFFSET + i] = spanId.charAt(i);
-			}
+			EncodingUtils.longToBase16String(context.spanId(), chars, SPAN_ID_OFFSET);
 			chars[TRACE_OPTION_OFFSET - 1] = TRACEPARENT_DELIMITER;
 			copyTraceFlagsHexTo(chars, TRACE_OPTION_OFFSET, context);
 			setter.put(carrier, TRACE_PARENT, new String(chars, 0, TRACEPARENT_HEADER_SIZE));
@@ -177,20 +166,6 @@ class W3CPropagation extends Propagation.Factory implements Propagation<String>
 		}
 	}
 
-	private String padLeftWithZeros(String string, int length) {
-		if (string.length() >= length) {
-			return string;
-		}
-		else {
-			StringBuilder sb = new StringBuilder(length);
-			for (int i = string.length(); i < length; i++) {
-				sb.append('0');
-			}
-
-			return sb.append(string).toString();
-		}
-	}
-
 	void copyTraceFlagsHexTo(char[] dest, int destOffset, TraceContext context) {
 		dest[destOffset] = '0';
 		dest[destOffset + 1] = Boolean.TRUE.equals(context.sampled()) ? '1' : '0';
@@ -238,16 +213,6 @@ class W3CPropagation extends Propagation.Factory implements Propagation<String>
 		}
 	}
 
-	private static boolean isTraceIdValid(CharSequence traceId) {
-		return (traceId.length() == TRACE_ID_HEX_SIZE) && !INVALID_TRACE_ID.contentEquals(traceId)
-				&& EncodingUtils.isValidBase16String(traceId);
-	}
-
-	private static boolean isSpanIdValid(String spanId) {
-		return (spanId.length() == SPAN_ID_HEX_SIZE) && !INVALID_SPAN_ID.equals(spanId)
-				&& EncodingUtils.isValidBase16String(spanId);
-	}
-
 	private static TraceContext extractContextFromTraceParent(String traceparent) {
 		// TODO(bdrutu): Do we need to verify that version is hex and that
 		// for the version the length is the expected one?
@@ -271,17 +236,15 @@ class W3CPropagation extends Propagation.Factory implements Propagation<String>
 				return null;
 			}
 
-			String traceId = traceparent.substring(TRACE_ID_OFFSET, TRACE_ID_OFFSET + TRACE_ID_HEX_SIZE);
-			String spanId = traceparent.substring(SPAN_ID_OFFSET, SPAN_ID_OFFSET + SPAN_ID_HEX_SIZE);
-			if (isTraceIdValid(traceId) && isSpanIdValid(spanId)) {
-				String traceIdHigh = traceId.substring(0, traceId.length() / 2);
-				String traceIdLow = traceId.substring(traceId.length() / 2);
+			// decoded straight from the header, without substrings
+			long[] ids = TemporaryBuffers.longs(3);
+			boolean validHex = EncodingUtils.longFromBase16String(traceparent, TRACE_ID_OFFSET, ids, 0)
+					& EncodingUtils.longFromBase16String(traceparent, TRACE_ID_OFFSET + LONG_BASE16, ids, 1)
+					& EncodingUtils.longFromBase16String(traceparent, SPAN_ID_OFFSET, ids, 2);
+			if (validHex && (ids[0] != 0L || ids[1] != 0L) && ids[2] != 0L) {
 				byte isSampled = TraceFlags.byteFromHex(traceparent, TRACE_OPTION_OFFSET);
-				return TraceContext.newBuilder().shared(true)
-						.traceIdHigh(EncodingUtils.longFromBase16String(traceIdHigh))
-						.traceId(EncodingUtils.longFromBase16String(traceIdLow))
-						.spanId(EncodingUtils.longFromBase16String(spanId)).sampled(isSampled == TraceFlags.IS_SAMPLED)
-						.build();
+				return TraceContext.newBuilder().shared(true).traceIdHigh(ids[0]).traceId(ids[1]).spanId(ids[2])
+						.sampled(isSampled == TraceFlags.IS_SAMPLED).build();
 			}
 			return null;
 		}
@@ -308,13 +271,21 @@ class W3CBaggagePropagator {
 
 	private static final List<String> FIELDS = singletonList(FIELD);
 
+	/**
+	 * Upper bound of the fields remembered by {@link #field(CharSequence, int, int)}, so
+	 * arbitrary keys sent by clients don't grow it.
+	 */
+	private static final int MAX_KNOWN_FIELDS = 64;
+
 	private final BraveBaggageManager braveBaggageManager;
 
-	private final List<String> localFields;
+	private final Set<String> localFields;
+
+	private volatile BaggageField[] knownFields = new BaggageField[0];
 
 	W3CBaggagePropagator(BraveBaggageManager braveBaggageManager, List<String> localFields) {
 		this.braveBaggageManager = braveBaggageManager;
-		this.localFields = localFields;
+		this.localFields = new HashSet<>(localFields);
 	}
 
 	private BaggagePropagation.FactoryBuilder factory() {
@@ -333,27 +304,31 @@ class W3CBaggagePropagator {
 	public <R> TraceContext.Injector<R> injector(Propagation.Setter<R, String> setter) {
 		return (context, carrier) -> {
 			BaggageFields extra = context.findExtra(BaggageFields.class);
-			if (extra == null || extra.getAllFields().isEmpty()) {
+			if (extra == null) {
+				return;
+			}
+			List<BaggageField> fields = extra.getAllFields();
+			if (fields.isEmpty()) {
 				return;
 			}
-			StringBuilder headerContent = new StringBuilder();
-			// We ignore local keys - they won't get propagated
-			String[] strings = this.localFields.toArray(new String[0]);
-			Map<String, String> filtered = extra.toMapFilteringFieldNames(strings);
-			for (Map.Entry<String, String> entry : filtered.entrySet()) {
-				if (TRACE_STATE.equalsIgnoreCase(entry.getKey())) {
+			StringBuilder headerContent = W3CBaggageCodec.headerBuilder();
+			for (int i = 0; i < fields.size(); i++) {
+				BaggageField field = fields.get(i);
+				// We ignore local keys - they won't get propagated
+				if (this.localFields.contains(field.name()) || TRACE_STATE.equalsIgnoreCase(field.name())) {
+					continue;
+				}
+				String value = extra.getValue(field);
+				if (value == null) {
 					continue;
 				}
-				headerContent.append(entry.getKey()).append("=").append(entry.getValue());
+				if (headerContent.length() > 0) {
+					headerContent.append(',');
+				}
+				headerContent.append(field.name()).append('=').append(value);
 				// TODO: [OTEL] No metadata support
-				// String metadataValue = entry.getEntryMetadata().getValue();
-				// if (metadataValue != null && !metadataValue.isEmpty()) {
-				// headerContent.append(";").append(metadataValue);
-				// }
-				headerContent.append(",");
 			}
 			if (headerContent.length() > 0) {
-				headerContent.setLength(headerContent.length() - 1);
 				setter.put(carrier, FIELD, headerContent.toString());
 			}
 		};
@@ -361,58 +336,106 @@ class W3CBaggagePropagator {
 
 	<R> TraceContextOrSamplingFlags contextWithBaggage(R carrier, TraceContextOrSamplingFlags flags,
 			Propagation.Getter<R, String> getter) {
-		BaggagePropagation.FactoryBuilder factoryBuilder = factory();
 		String traceState = getter.get(carrier, TRACE_STATE);
 		boolean hasTraceState = StringUtils.hasText(traceState);
+		String baggageHeader = getter.get(carrier, FIELD);
+		BaggageEntries entries = baggageHeader == null || baggageHeader.isEmpty() ? null
+				: addBaggageToContext(baggageHeader);
+		if (!hasTraceState && entries == null) {
+			return flags;
+		}
+		BaggagePropagation.FactoryBuilder factoryBuilder = factory();
 		if (hasTraceState) {
+			// the trace state is carried over as is, so it's not tokenized
 			factoryBuilder = factoryBuilder
 					.add(BaggagePropagationConfig.SingleBaggageField.remote(TRACE_STATE_BAGGAGE));
 		}
-		String baggageHeader = getter.get(carrier, FIELD);
-		List<AbstractMap.SimpleEntry<BaggageInScope, String>> pairs = baggageHeader == null || baggageHeader.isEmpty()
-				? Collections.emptyList() : addBaggageToContext(baggageHeader);
-		Set<String> names = pairs.stream().map(e -> e.getKey().name()).collect(Collectors.toSet());
-		for (String name : names) {
-			factoryBuilder = factoryBuilder.add(BaggagePropagationConfig.SingleBaggageField
-					.remote(((BraveBaggageInScope) this.braveBaggageManager.createBaggage(name)).unwrap()));
+		if (entries != null) {
+			for (int i = 0; i < entries.distinctFields.size(); i++) {
+				factoryBuilder = factoryBuilder
+						.add(BaggagePropagationConfig.SingleBaggageField.remote(entries.distinctFields.get(i)));
+			}
 		}
 		TraceContext decoratedContext = factoryBuilder.build().decorate(flags.context());
 		if (hasTraceState) {
 			BaggageInScope baggageInScope = this.braveBaggageManager.createBaggage(TRACE_STATE);
 			baggageInScope.set(new BraveTraceContext(decoratedContext), traceState);
 		}
-		pairs.forEach(e -> {
-			BaggageField baggage = ((BraveBaggageInScope) e.getKey()).unwrap();
-			baggage.updateValue(decoratedContext, e.getValue());
-		});
+		if (entries != null) {
+			// applied in order, so the last of duplicated keys wins
+			for (int i = 0; i < entries.fields.size(); i++) {
+				entries.fields.get(i).updateValue(decoratedContext, entries.values.get(i));
+			}
+		}
 		return TraceContextOrSamplingFlags.create(decoratedContext);
 	}
 
-	List<AbstractMap.SimpleEntry<BaggageInScope, String>> addBaggageToContext(String baggageHeader) {
-		List<AbstractMap.SimpleEntry<BaggageInScope, String>> pairs = new ArrayList<>();
-		String[] entries = baggageHeader.split(",");
-		for (String entry : entries) {
-			int beginningOfMetadata = entry.indexOf(";");
-			if (beginningOfMetadata > 0) {
-				entry = entry.substring(0, beginningOfMetadata);
+	/**
+	 * @param baggageHeader baggage header
+	 * @return parsed entries of the header or {@code null} if it has none
+	 */
+	BaggageEntries addBaggageToContext(String baggageHeader) {
+		BaggageEntries entries = new BaggageEntries();
+		W3CBaggageCodec.parse(baggageHeader, entries);
+		return entries.fields.isEmpty() ? null : entries;
+	}
+
+	/**
+	 * Looks up the field for the key without creating a {@link String} out of it, unless
+	 * it's seen for the first time.
+	 */
+	private BaggageField field(CharSequence header, int keyStart, int keyEnd) {
+		BaggageField[] knownFields = this.knownFields;
+		for (BaggageField field : knownFields) {
+			if (W3CBaggageCodec.regionEquals(header, keyStart, keyEnd, field.name())) {
+				return field;
 			}
-			String[] keyAndValue = entry.split("=");
-			for (int i = 0; i < keyAndValue.length; i += 2) {
-				try {
-					String key = keyAndValue[i].trim();
-					String value = keyAndValue[i + 1].trim();
-					BaggageInScope baggage = this.braveBaggageManager.createBaggage(key);
-					pairs.add(new AbstractMap.SimpleEntry<>(baggage, value));
-				}
-				catch (Exception e) {
-					if (log.isDebugEnabled()) {
-						log.debug("Exception occurred while trying to parse baggage with key value ["
-								+ Arrays.toString(keyAndValue) + "]. Will ignore that entry.", e);
-					}
-				}
+		}
+		String key = header.subSequence(keyStart, keyEnd).toString();
+		BaggageField field;
+		try {
+			field = ((BraveBaggageInScope) this.braveBaggageManager.createBaggage(key)).unwrap();
+		}
+		catch (Exception e) {
+			if (log.isDebugEnabled()) {
+				log.debug("Exception occurred while trying to parse baggage with key [" + key
+						+ "]. Will ignore that entry.", e);
+			}
+			return null;
+		}
+		if (knownFields.length < MAX_KNOWN_FIELDS) {
+			// racing threads may lose an update, the field is then looked up again
+			BaggageField[] updated = Arrays.copyOf(knownFields, knownFields.length + 1);
+			updated[knownFields.length] = field;
+			this.knownFields = updated;
+		}
+		return field;
+	}
+
+	/**
+	 * Entries of a baggage header, in the order of the header.
+	 */
+	final class BaggageEntries implements W3CBaggageCodec.EntryConsumer {
+
+		final List<BaggageField> fields = new ArrayList<>();
+
+		final List<String> values = new ArrayList<>();
+
+		final List<BaggageField> distinctFields = new ArrayList<>();
+
+		@Override
+		public void accept(CharSequence header, int keyStart, int keyEnd, int valueStart, int valueEnd) {
+			BaggageField field = field(header, keyStart, keyEnd);
+			if (field == null) {
+				return;
+			}
+			if (!this.distinctFields.contains(field)) {
+				this.distinctFields.add(field);
 			}
+			this.fields.add(field);
+			this.values.add(header.subSequence(valueStart, valueEnd).toString());
 		}
-		return pairs;
+
 	}
 
 }
@@ -431,6 +454,8 @@ final class TemporaryBuffers {
 
 	private static final ThreadLocal<char[]> CHAR_ARRAY = new ThreadLocal<>();
 
+	private static final ThreadLocal<long[]> LONG_ARRAY = new ThreadLocal<>();
+
 	/**
 	 * A {@link ThreadLocal} {@code char[]} of size {@code len}. Take care when using a
 	 * large value of {@code len} as this buffer will remain for the lifetime of the
@@ -451,6 +476,19 @@ final class TemporaryBuffers {
 		return buffer;
 	}
 
+	/**
+	 * A {@link ThreadLocal} {@code long[]} of size {@code len}, with the same caveats as
+	 * {@link #chars(int)}.
+	 */
+	static long[] longs(int len) {
+		long[] buffer = LONG_ARRAY.get();
+		if (buffer == null || buffer.length < len) {
+			buffer = new long[len];
+			LONG_ARRAY.set(buffer);
+		}
+		return buffer;
+	}
+
 	// Visible for testing
 	static void clearChars() {
 		CHAR_ARRAY.set(null);
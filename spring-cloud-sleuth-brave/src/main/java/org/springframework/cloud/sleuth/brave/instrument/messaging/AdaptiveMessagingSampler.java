@@ -0,0 +1,45 @@
+/*
+ * Copyright 2013-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.brave.instrument.messaging;
+
+import brave.messaging.MessagingRequest;
+
+import org.springframework.cloud.sleuth.brave.sampler.AdaptiveSamplerFunction;
+
+/**
+ * Messaging Sampler that keeps a separate budget of sampled traces per second for each
+ * channel (e.g. a Kafka topic or a RabbitMQ queue).
+ *
+ * @author Marcin Grzejszczak
+ * @since 3.1.11
+ */
+public class AdaptiveMessagingSampler extends AdaptiveSamplerFunction<MessagingRequest> {
+
+	/**
+	 * @param tracesPerSecond number of traces sampled per second for each channel
+	 * @param maxKeys maximum number of tracked channels
+	 */
+	public AdaptiveMessagingSampler(int tracesPerSecond, int maxKeys) {
+		super(tracesPerSecond, maxKeys);
+	}
+
+	@Override
+	protected String key(MessagingRequest request) {
+		return request.channelKind() + ":" + request.channelName();
+	}
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2013-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.brave.instrument.web;
+
+import brave.http.HttpRequest;
+
+import org.springframework.cloud.sleuth.brave.sampler.AdaptiveSamplerFunction;
+
+/**
+ * Http Sampler that keeps a separate budget of sampled traces per second for each HTTP
+ * method and route. Server requests are sampled before they're routed, so then the path
+ * is used instead, with segments that look like identifiers (numbers, UUIDs, hashes)
+ * replaced by a placeholder so that e.g. {@code /users/1} and {@code /users/2} share a
+ * budget.
+ *
+ * @author Marcin Grzejszczak
+ * @since 3.1.11
+ */
+public class AdaptiveHttpSampler extends AdaptiveSamplerFunction<HttpRequest> {
+
+	/**
+	 * @param tracesPerSecond number of traces sampled per second for each route
+	 * @param maxKeys maximum number of tracked routes
+	 */
+	public AdaptiveHttpSampler(int tracesPerSecond, int maxKeys) {
+		super(tracesPerSecond, maxKeys);
+	}
+
+	private static final String ID_PLACEHOLDER = "{id}";
+
+	@Override
+	protected String key(HttpRequest request) {
+		String route = request.route();
+		if (route != null && !route.isEmpty()) {
+			return request.method() + " " + route;
+		}
+		String path = request.path();
+		return path != null ? request.method() + " " + pathTemplate(path) : request.method();
+	}
+
+	static String pathTemplate(String path) {
+		StringBuilder template = new StringBuilder(path.length());
+		int start = 0;
+		while (start <= path.length()) {
+			int end = path.indexOf('/', start);
+			if (end < 0) {
+				end = path.length();
+			}
+			if (start > 0) {
+				template.append('/');
+			}
+			template.append(isIdentifier(path, start, end) ? ID_PLACEHOLDER : path.substring(start, end));
+			start = end + 1;
+		}
+		return template.toString();
+	}
+
+	/**
+	 * @return {@code true} if the segment has a digit and only consists of hexadecimal
+	 * digits and dashes
+	 */
+	private static boolean isIdentifier(String path, int start, int end) {
+		boolean digit = false;
+		for (int i = start; i < end; i++) {
+			char c = path.charAt(i);
+			if (c >= '0' && c <= '9') {
+				digit = true;
+			}
+			else if (!(c >= 'a' && c <= 'f') && !(c >= 'A' && c <= 'F') && c != '-') {
+				return false;
+			}
+		}
+		return digit;
+	}
+
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright 2013-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.brave.instrument.web;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.regex.Pattern;
+
+/**
+ * Matches paths against a skip {@link Pattern}. The top level alternatives of the
+ * pattern are split into exact paths, path prefixes (e.g. {@code /swagger.*}) and path
+ * suffixes (e.g. {@code .*\.png}) that are matched without a regular expression. The
+ * alternatives that are left are merged into a residual regular expression whose
+ * verdicts are cached for recently seen paths.
+ *
+ * Patterns with flags, inline flags, quotations or back references are matched as they
+ * are.
+ *
+ * @author Marcin Grzejszczak
+ * @since 3.1.11
+ */
+final class SkipPatternMatcher {
+
+	private static final String REGEX_SPECIAL_CHARACTERS = "\\^$.|?*+()[]{}";
+
+	private static final Pattern UNSUPPORTED = Pattern.compile("\\(\\?[a-zA-Z-]|\\\\Q|\\\\[1-9k]");
+
+	private static final int CACHE_SIZE = 256;
+
+	private final Set<String> paths = new HashSet<>();
+
+	private final Trie prefixes = new Trie();
+
+	private final Trie suffixes = new Trie();
+
+	private final Pattern residual;
+
+	private final AtomicReferenceArray<Verdict> verdicts;
+
+	SkipPatternMatcher(Pattern pattern) {
+		List<String> alternatives = pattern.flags() == 0 && !UNSUPPORTED.matcher(pattern.pattern()).find()
+				? splitAlternatives(pattern.pattern()) : null;
+		if (alternatives == null) {
+			this.residual = pattern;
+		}
+		else {
+			List<String> residuals = new ArrayList<>();
+			for (String alternative : alternatives) {
+				if (!add(alternative)) {
+					residuals.add(alternative);
+				}
+			}
+			this.residual = residuals.isEmpty() ? null : Pattern.compile(String.join("|", residuals));
+		}
+		this.verdicts = this.residual != null ? new AtomicReferenceArray<>(CACHE_SIZE) : null;
+	}
+
+	boolean matches(String path) {
+		if (this.paths.contains(path)) {
+			return true;
+		}
+		int prefix = this.prefixes.shortestMatch(path, false);
+		if (prefix >= 0 && !hasLineTerminator(path, prefix, path.length())) {
+			return true;
+		}
+		int suffix = this.suffixes.shortestMatch(path, true);
+		if (suffix >= 0 && !hasLineTerminator(path, 0, path.length() - suffix)) {
+			return true;
+		}
+		if (this.residual == null) {
+			return false;
+		}
+		int index = path.hashCode() & (CACHE_SIZE - 1);
+		Verdict verdict = this.verdicts.get(index);
+		if (verdict != null && verdict.path.equals(path)) {
+			return verdict.matches;
+		}
+		boolean matches = this.residual.matcher(path).matches();
+		this.verdicts.set(index, new Verdict(path, matches));
+		return matches;
+	}
+
+	private boolean add(String alternative) {
+		String body = stripAnchors(alternative);
+		String literal = toLiteral(body);
+		if (literal != null) {
+			this.paths.add(literal);
+			return true;
+		}
+		if (body.endsWith(".*")) {
+			literal = toLiteral(body.substring(0, body.length() - 2));
+			if (literal != null) {
+				this.prefixes.add(literal, false);
+				return true;
+			}
+		}
+		if (body.startsWith(".*")) {
+			literal = toLiteral(body.substring(2));
+			if (literal != null) {
+				this.suffixes.add(literal, true);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @param regex regular expression
+	 * @return alternatives at the top level of the expression or {@code null} if the
+	 * expression can't be parsed
+	 */
+	static List<String> splitAlternatives(String regex) {
+		List<String> alternatives = new ArrayList<>();
+		int depth = 0;
+		boolean inClass = false;
+		int start = 0;
+		for (int i = 0; i < regex.length(); i++) {
+			char c = regex.charAt(i);
+			if (c == '\\') {
+				i++;
+			}
+			else if (inClass) {
+				inClass = c != ']';
+			}
+			else if (c == '[') {
+				inClass = true;
+			}
+			else if (c == '(') {
+				depth++;
+			}
+			else if (c == ')') {
+				depth--;
+			}
+			else if (c == '|' && depth == 0) {
+				alternatives.add(regex.substring(start, i));
+				start = i + 1;
+			}
+		}
+		if (depth != 0 || inClass) {
+			return null;
+		}
+		alternatives.add(regex.substring(start));
+		return alternatives;
+	}
+
+	private static String stripAnchors(String alternative) {
+		int start = alternative.startsWith("^") ? 1 : 0;
+		int end = alternative.length();
+		if (end > start && alternative.endsWith("$") && !alternative.endsWith("\\$")) {
+			end--;
+		}
+		return alternative.substring(start, end);
+	}
+
+	/**
+	 * @param regex regular expression
+	 * @return text matched by the expression if it's a literal or {@code null} otherwise
+	 */
+	static String toLiteral(String regex) {
+		StringBuilder literal = new StringBuilder(regex.length());
+		for (int i = 0; i < regex.length(); i++) {
+			char c = regex.charAt(i);
+			if (c == '\\') {
+				if (i + 1 >= regex.length() || Character.isLetterOrDigit(regex.charAt(i + 1))) {
+					return null;
+				}
+				literal.append(regex.charAt(++i));
+			}
+			else if (REGEX_SPECIAL_CHARACTERS.indexOf(c) >= 0) {
+				return null;
+			}
+			else {
+				literal.append(c);
+			}
+		}
+		return literal.toString();
+	}
+
+	// "." doesn't match line terminators
+	private static boolean hasLineTerminator(String path, int from, int to) {
+		for (int i = from; i < to; i++) {
+			char c = path.charAt(i);
+			if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static final class Verdict {
+
+		final String path;
+
+		final boolean matches;
+
+		Verdict(String path, boolean matches) {
+			this.path = path;
+			this.matches = matches;
+		}
+
+	}
+
+	/**
+	 * Character trie. Reversed tries store and look up the text from its end.
+	 */
+	private static final class Trie {
+
+		private char[] keys = new char[0];
+
+		private Trie[] children = new Trie[0];
+
+		private boolean terminal;
+
+		void add(String text, boolean reversed) {
+			Trie node = this;
+			for (int i = 0; i < text.length(); i++) {
+				node = node.childOrCreate(text.charAt(reversed ? text.length() - 1 - i : i));
+			}
+			node.terminal = true;
+		}
+
+		/**
+		 * @return length of the shortest stored text that the given text starts (or
+		 * ends) with, or {@code -1} when there's none
+		 */
+		int shortestMatch(String text, boolean reversed) {
+			Trie node = this;
+			for (int i = 0; node != null; i++) {
+				if (node.terminal) {
+					return i;
+				}
+				if (i == text.length()) {
+					return -1;
+				}
+				node = node.child(text.charAt(reversed ? text.length() - 1 - i : i));
+			}
+			return -1;
+		}
+
+		private Trie child(char key) {
+			for (int i = 0; i < this.keys.length; i++) {
+				if (this.keys[i] == key) {
+					return this.children[i];
+				}
+			}
+			return null;
+		}
+
+		private Trie childOrCreate(char key) {
+			Trie child = child(key);
+			if (child == null) {
+				child = new Trie();
+				this.keys = Arrays.copyOf(this.keys, this.keys.length + 1);
+				this.children = Arrays.copyOf(this.children, this.children.length + 1);
+				this.keys[this.keys.length - 1] = key;
+				this.children[this.children.length - 1] = child;
+			}
+			return child;
+		}
+
+	}
+
+}
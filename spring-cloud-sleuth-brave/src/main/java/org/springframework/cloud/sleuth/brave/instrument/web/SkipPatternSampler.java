@@ -22,14 +22,15 @@ import brave.http.HttpRequest;
 import brave.sampler.SamplerFunction;
 
 /**
- * Doesn't sample a span if skip pattern is matched.
+ * Doesn't sample a span if skip pattern is matched. The pattern is decomposed by the
+ * {@link SkipPatternMatcher} so that most paths are matched without a regular expression.
  *
  * @author Marcin Grzejszczak
  * @since 2.0.0
  */
 abstract class SkipPatternSampler implements SamplerFunction<HttpRequest> {
 
-	private Pattern pattern;
+	private volatile SkipPatternMatcher matcher;
 
 	@Override
 	public final Boolean trySample(HttpRequest request) {
@@ -38,7 +39,7 @@ abstract class SkipPatternSampler implements SamplerFunction<HttpRequest> {
 			return null;
 		}
 
-		boolean shouldSkip = pattern().matcher(url).matches();
+		boolean shouldSkip = matcher().matches(url);
 		if (shouldSkip) {
 			return false;
 		}
@@ -47,11 +48,11 @@ abstract class SkipPatternSampler implements SamplerFunction<HttpRequest> {
 
 	abstract Pattern getPattern();
 
-	private Pattern pattern() {
-		if (this.pattern == null) {
-			this.pattern = getPattern();
+	private SkipPatternMatcher matcher() {
+		if (this.matcher == null) {
+			this.matcher = new SkipPatternMatcher(getPattern());
 		}
-		return this.pattern;
+		return this.matcher;
 	}
 
 }
@@ -39,6 +39,12 @@ public enum PropagationType {
 	 */
 	W3C,
 
+	/**
+	 * Compact propagation type that packs the trace context and baggage into a single
+	 * binary header. Meant for calls between services that all use Sleuth.
+	 */
+	BINARY,
+
 	/**
 	 * Custom propagation type. If picked, requires bean registration overriding the
 	 * default propagation mechanisms.
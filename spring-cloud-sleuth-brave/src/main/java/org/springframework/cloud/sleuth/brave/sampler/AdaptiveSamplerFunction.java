@@ -0,0 +1,190 @@
+/*
+ * Copyright 2013-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.brave.sampler;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import brave.sampler.SamplerFunction;
+
+import org.springframework.util.Assert;
+
+/**
+ * {@link SamplerFunction} that keeps a separate budget of sampled traces per second for
+ * each key of a request (e.g. per HTTP route or per messaging channel). For each key the
+ * rate of requests is measured and the sampling probability is continuously adjusted so
+ * that the number of sampled traces matches the budget. Keys with less traffic than the
+ * budget are always sampled, while the busy ones are throttled.
+ *
+ * The decision doesn't take a lock: requests are counted with a {@link LongAdder} and
+ * the probability is recalculated by the single thread that moves the measurement
+ * window forward. Once the maximum number of keys is reached, budgets of keys that
+ * didn't see requests for a while are evicted to make room for new keys.
+ *
+ * @param <T> type of the request
+ * @author Marcin Grzejszczak
+ * @since 3.1.11
+ */
+public abstract class AdaptiveSamplerFunction<T> implements SamplerFunction<T> {
+
+	/**
+	 * Key of the requests whose keys didn't fit into the maximum number of keys.
+	 */
+	static final String OTHER_KEY = "";
+
+	private static final long WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+	/**
+	 * Time without requests after which the budget of a key can be evicted.
+	 */
+	static final long IDLE_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+	/**
+	 * Weight of the latest window in the moving average of the request rate.
+	 */
+	private static final double ALPHA = 0.5;
+
+	private final ConcurrentHashMap<String, Budget> budgets = new ConcurrentHashMap<>();
+
+	private final double tracesPerSecond;
+
+	private final int maxKeys;
+
+	private final LongSupplier nanoClock;
+
+	private final AtomicLong lastEviction;
+
+	/**
+	 * @param tracesPerSecond number of traces sampled per second for each key
+	 * @param maxKeys maximum number of tracked keys, requests of other keys share a
+	 * single budget
+	 */
+	protected AdaptiveSamplerFunction(int tracesPerSecond, int maxKeys) {
+		this(tracesPerSecond, maxKeys, System::nanoTime);
+	}
+
+	AdaptiveSamplerFunction(int tracesPerSecond, int maxKeys, LongSupplier nanoClock) {
+		Assert.isTrue(tracesPerSecond >= 0, "traces per second must not be negative");
+		Assert.isTrue(maxKeys > 0, "maximum number of keys must be greater than 0");
+		this.tracesPerSecond = tracesPerSecond;
+		this.maxKeys = maxKeys;
+		this.nanoClock = nanoClock;
+		this.lastEviction = new AtomicLong(nanoClock.getAsLong());
+	}
+
+	/**
+	 * @param request request to sample
+	 * @return key of the request for which a separate budget is kept or {@code null} if
+	 * this sampler shouldn't decide
+	 */
+	protected abstract String key(T request);
+
+	@Override
+	public Boolean trySample(T request) {
+		if (request == null) {
+			return null;
+		}
+		String key = key(request);
+		if (key == null) {
+			return null;
+		}
+		Budget budget = budget(key);
+		long now = this.nanoClock.getAsLong();
+		long windowStart = budget.windowStart.get();
+		if (now - windowStart >= WINDOW_NANOS && budget.windowStart.compareAndSet(windowStart, now)) {
+			budget.adjust(now - windowStart, this.tracesPerSecond);
+		}
+		budget.requests.increment();
+		double probability = budget.probability;
+		return probability >= 1.0 || (probability > 0.0 && ThreadLocalRandom.current().nextDouble() < probability);
+	}
+
+	private Budget budget(String key) {
+		Budget budget = this.budgets.get(key);
+		if (budget != null) {
+			return budget;
+		}
+		if (this.budgets.size() >= this.maxKeys && !evictIdleBudgets()) {
+			key = OTHER_KEY;
+		}
+		return this.budgets.computeIfAbsent(key, k -> new Budget(this.nanoClock.getAsLong(), this.tracesPerSecond));
+	}
+
+	/**
+	 * Removes the budgets of keys without requests for {@link #IDLE_NANOS}. The budgets
+	 * are scanned at most once per window, by a single thread.
+	 * @return {@code true} if there's room for a new key
+	 */
+	private boolean evictIdleBudgets() {
+		long now = this.nanoClock.getAsLong();
+		long lastEviction = this.lastEviction.get();
+		if (now - lastEviction < WINDOW_NANOS || !this.lastEviction.compareAndSet(lastEviction, now)) {
+			return false;
+		}
+		// the window of a budget is moved forward by its requests only
+		this.budgets.values().removeIf(budget -> now - budget.windowStart.get() >= IDLE_NANOS);
+		return this.budgets.size() < this.maxKeys;
+	}
+
+	/**
+	 * @param key key of the requests
+	 * @return current sampling probability for the key
+	 */
+	double probability(String key) {
+		Budget budget = this.budgets.get(key);
+		return budget != null ? budget.probability : 1.0;
+	}
+
+	private static final class Budget {
+
+		final LongAdder requests = new LongAdder();
+
+		final AtomicLong windowStart;
+
+		/**
+		 * Only updated by the thread that moved the window forward.
+		 */
+		volatile long countedRequests;
+
+		volatile double requestsPerSecond;
+
+		volatile double probability;
+
+		Budget(long now, double tracesPerSecond) {
+			this.windowStart = new AtomicLong(now);
+			this.probability = tracesPerSecond > 0 ? 1.0 : 0.0;
+		}
+
+		void adjust(long elapsedNanos, double tracesPerSecond) {
+			long requests = this.requests.sum();
+			double rate = (requests - this.countedRequests) * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+			this.countedRequests = requests;
+			double average = this.requestsPerSecond;
+			average = average == 0.0 ? rate : average + ALPHA * (rate - average);
+			this.requestsPerSecond = average;
+			if (tracesPerSecond > 0) {
+				this.probability = average <= tracesPerSecond ? 1.0 : tracesPerSecond / average;
+			}
+		}
+
+	}
+
+}
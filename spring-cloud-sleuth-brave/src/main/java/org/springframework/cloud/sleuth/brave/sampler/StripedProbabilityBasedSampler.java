@@ -0,0 +1,108 @@
+/*
+ * Copyright 2013-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.brave.sampler;
+
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+import brave.sampler.Sampler;
+
+import org.springframework.util.Assert;
+
+/**
+ * Lock-free variant of the {@link ProbabilityBasedSampler}. Instead of a single counter
+ * guarded by a monitor, decisions are taken from a number of independent stripes. Each
+ * stripe has its own counter and its own random set of decisions, so every stripe keeps
+ * the guarantee of sampling exactly N out of 100 traces. Threads are mapped to stripes
+ * by their id, which means that a thread always moves through the same window and
+ * concurrent root spans do not contend on a shared lock.
+ *
+ * As with the {@link ProbabilityBasedSampler} the decision is not consistent based on
+ * trace id.
+ *
+ * @author Marcin Grzejszczak
+ * @since 3.1.11
+ */
+public class StripedProbabilityBasedSampler extends Sampler {
+
+	private static final int WINDOW = 100;
+
+	/**
+	 * Distance in longs between two stripe counters. Keeps each counter on its own cache
+	 * line to avoid false sharing.
+	 */
+	private static final int PADDING = 16;
+
+	private static final int MAX_STRIPES = 64;
+
+	private final AtomicLongArray counters;
+
+	private final BitSet[] sampleDecisions;
+
+	private final int mask;
+
+	private final Supplier<Float> probability;
+
+	public StripedProbabilityBasedSampler(Supplier<Float> probability) {
+		this(probability, Runtime.getRuntime().availableProcessors());
+	}
+
+	public StripedProbabilityBasedSampler(Supplier<Float> probability, int stripes) {
+		Assert.notNull(probability, "probability property is required for StripedProbabilityBasedSampler");
+		Assert.isTrue(stripes > 0, "number of stripes must be greater than 0");
+		this.probability = probability;
+		int size = stripes(stripes);
+		this.mask = size - 1;
+		this.counters = new AtomicLongArray(size * PADDING);
+		this.sampleDecisions = new BitSet[size];
+		int outOf100 = (int) (probability.get() * 100.0f);
+		Random random = new Random();
+		for (int i = 0; i < size; i++) {
+			this.sampleDecisions[i] = ProbabilityBasedSampler.randomBitSet(WINDOW, outOf100, random);
+		}
+	}
+
+	/**
+	 * @param requested requested number of stripes
+	 * @return closest power of two not lower than the requested number of stripes and
+	 * not greater than {@link #MAX_STRIPES}
+	 */
+	static int stripes(int requested) {
+		int size = 1;
+		while (size < requested && size < MAX_STRIPES) {
+			size <<= 1;
+		}
+		return size;
+	}
+
+	@Override
+	public boolean isSampled(long traceId) {
+		float probability = this.probability.get();
+		if (probability == 0) {
+			return false;
+		}
+		else if (probability == 1.0f) {
+			return true;
+		}
+		int stripe = (int) (Thread.currentThread().getId() & this.mask);
+		long i = this.counters.getAndIncrement(stripe * PADDING);
+		return this.sampleDecisions[stripe].get((int) Long.remainderUnsigned(i, WINDOW));
+	}
+
+}
@@ -0,0 +1,606 @@
+/*
+ * Copyright 2013-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.brave.sampler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import brave.handler.MutableSpan;
+import brave.handler.SpanHandler;
+import brave.propagation.TraceContext;
+
+import org.springframework.cloud.sleuth.brave.bridge.BraveFinishedSpan;
+import org.springframework.cloud.sleuth.brave.bridge.CompositeSpanHandler;
+import org.springframework.cloud.sleuth.exporter.FinishedSpan;
+import org.springframework.cloud.sleuth.exporter.SpanReporter;
+import org.springframework.util.Assert;
+
+/**
+ * {@link SpanHandler} that takes the sampling decision after a local root trace fragment
+ * has finished. Finished spans are buffered per trace fragment until the local root span
+ * ends. Then the whole fragment is passed to the delegate if it was sampled upfront or
+ * if any of its spans matches the given predicate (e.g. has an error or took too long).
+ * Otherwise all the spans of the fragment are dropped. Spans that finish after the
+ * decision has been taken (e.g. asynchronous children of the local root) follow that
+ * decision for as long as it is retained.
+ *
+ * Fragments are split into stripes by their trace id, each guarded by its own lock, so
+ * that threads finishing spans of different traces rarely contend.
+ *
+ * The memory budget is shared by the buffered spans and the retained decisions, each
+ * decision counting as one span. When the budget is exceeded, the oldest decisions of
+ * the stripe are forgotten first. Then the decision is taken eagerly for the oldest
+ * fragments of the stripe, on the spans gathered so far. Other stripes follow when the
+ * stripe has nothing left to free. Fragments kept for longer than the given timeout
+ * are decided and decisions older than the timeout are forgotten the same way.
+ *
+ * Since unsampled traces need to be recorded for this handler to see them, this handler
+ * {@link #alwaysSampleLocal() always samples locally}. The delegate should report all
+ * spans it receives, regardless of the upfront sampling decision. Other handlers see
+ * the unsampled spans too and should check {@link TraceContext#sampled()} before
+ * reporting them. Kept spans that were not sampled upfront can be passed to
+ * {@link SpanReporter}s as well, one batch per trace fragment, when the
+ * {@link CompositeSpanHandler} reports sampled spans only.
+ *
+ * @author Marcin Grzejszczak
+ * @since 3.1.11
+ */
+public class TailSamplingSpanHandler extends SpanHandler {
+
+	private final Stripe[] stripes;
+
+	private final int mask;
+
+	/**
+	 * Buffered spans and retained decisions of all the stripes.
+	 */
+	private final AtomicInteger usage = new AtomicInteger();
+
+	private final AtomicInteger evictionCursor = new AtomicInteger();
+
+	/**
+	 * Time of the last expiry of all the stripes. Stripes are otherwise only expired by
+	 * threads finishing spans in them.
+	 */
+	private final AtomicLong lastSweep;
+
+	private final LongAdder keptTraces = new LongAdder();
+
+	private final LongAdder droppedTraces = new LongAdder();
+
+	private final LongAdder evictedTraces = new LongAdder();
+
+	private final SpanHandler delegate;
+
+	private final SpanReporter[] reporters;
+
+	private final Predicate<MutableSpan> keepPredicate;
+
+	private final int maxBufferedSpans;
+
+	private final long timeoutMillis;
+
+	private final LongSupplier clock;
+
+	/**
+	 * @param delegate handler to which spans of kept trace fragments are passed
+	 * @param keepPredicate a trace fragment is kept if any of its spans matches
+	 * @param maxBufferedSpans maximum number of spans and decisions kept in memory
+	 * @param timeoutMillis maximum time a trace fragment or a decision is kept for
+	 */
+	public TailSamplingSpanHandler(SpanHandler delegate, Predicate<MutableSpan> keepPredicate, int maxBufferedSpans,
+			long timeoutMillis) {
+		this(delegate, Collections.emptyList(), keepPredicate, maxBufferedSpans, timeoutMillis);
+	}
+
+	/**
+	 * @param delegate handler to which spans of kept trace fragments are passed
+	 * @param reporters reporters to which spans of kept trace fragments that were not
+	 * sampled upfront are passed
+	 * @param keepPredicate a trace fragment is kept if any of its spans matches
+	 * @param maxBufferedSpans maximum number of spans and decisions kept in memory
+	 * @param timeoutMillis maximum time a trace fragment or a decision is kept for
+	 */
+	public TailSamplingSpanHandler(SpanHandler delegate, List<SpanReporter> reporters,
+			Predicate<MutableSpan> keepPredicate, int maxBufferedSpans, long timeoutMillis) {
+		this(delegate, reporters, keepPredicate, maxBufferedSpans, timeoutMillis, System::currentTimeMillis,
+				Runtime.getRuntime().availableProcessors());
+	}
+
+	TailSamplingSpanHandler(SpanHandler delegate, List<SpanReporter> reporters, Predicate<MutableSpan> keepPredicate,
+			int maxBufferedSpans, long timeoutMillis, LongSupplier clock, int stripes) {
+		Assert.notNull(delegate, "delegate must not be null");
+		Assert.notNull(reporters, "reporters must not be null");
+		Assert.notNull(keepPredicate, "keepPredicate must not be null");
+		Assert.isTrue(maxBufferedSpans > 0, "maxBufferedSpans must be greater than 0");
+		Assert.isTrue(timeoutMillis > 0, "timeoutMillis must be greater than 0");
+		Assert.isTrue(stripes > 0, "number of stripes must be greater than 0");
+		this.delegate = delegate;
+		this.reporters = reporters.toArray(new SpanReporter[0]);
+		this.keepPredicate = keepPredicate;
+		this.maxBufferedSpans = maxBufferedSpans;
+		this.timeoutMillis = timeoutMillis;
+		this.clock = clock;
+		int size = StripedProbabilityBasedSampler.stripes(stripes);
+		this.stripes = new Stripe[size];
+		for (int i = 0; i < size; i++) {
+			this.stripes[i] = new Stripe();
+		}
+		this.mask = size - 1;
+		this.lastSweep = new AtomicLong(clock.getAsLong());
+	}
+
+	/**
+	 * @return predicate matching spans with an error
+	 */
+	public static Predicate<MutableSpan> hasError() {
+		return span -> span.error() != null || span.tag("error") != null;
+	}
+
+	/**
+	 * @param thresholdMillis latency threshold in milliseconds
+	 * @return predicate matching spans that took longer than the threshold
+	 */
+	public static Predicate<MutableSpan> latencyAbove(long thresholdMillis) {
+		long thresholdMicros = thresholdMillis * 1000L;
+		return span -> span.startTimestamp() != 0L && span.finishTimestamp() != 0L
+				&& span.finishTimestamp() - span.startTimestamp() > thresholdMicros;
+	}
+
+	/**
+	 * @param key tag key
+	 * @param valuePattern regular expression the tag value has to match
+	 * @return predicate matching spans that have a tag with a matching value
+	 */
+	public static Predicate<MutableSpan> hasTag(String key, String valuePattern) {
+		Pattern pattern = Pattern.compile(valuePattern);
+		return span -> {
+			String value = span.tag(key);
+			return value != null && pattern.matcher(value).matches();
+		};
+	}
+
+	@Override
+	public boolean alwaysSampleLocal() {
+		return true;
+	}
+
+	@Override
+	public boolean end(TraceContext context, MutableSpan span, Cause cause) {
+		if (cause != Cause.FINISHED) {
+			return this.delegate.end(context, span, cause);
+		}
+		long now = this.clock.getAsLong();
+		Stripe stripe = this.stripes[stripe(context.traceId())];
+		List<Fragment> toFlush = null;
+		boolean forward = false;
+		synchronized (stripe) {
+			Fragment fragment = stripe.get(context.traceIdHigh(), context.traceId(), context.localRootId());
+			if (fragment == null) {
+				fragment = new Fragment(context.traceIdHigh(), context.traceId(), context.localRootId(), now);
+				stripe.put(fragment);
+				stripe.undecided.add(fragment);
+			}
+			if (fragment.kept != null) {
+				forward = fragment.kept;
+			}
+			else {
+				fragment.add(context, span);
+				stripe.bufferedSpans++;
+				this.usage.incrementAndGet();
+				if (context.spanId() == context.localRootId()) {
+					toFlush = decide(stripe, fragment, now, null);
+				}
+			}
+			toFlush = expire(stripe, now, toFlush);
+			toFlush = evict(stripe, now, toFlush);
+		}
+		toFlush = evictOtherStripes(now, toFlush);
+		toFlush = sweep(now, toFlush);
+		if (forward) {
+			this.delegate.end(context, span, cause);
+			if (isReportedHere(context)) {
+				report(Collections.singletonList(BraveFinishedSpan.fromBrave(span)));
+			}
+		}
+		if (toFlush != null) {
+			for (int i = 0; i < toFlush.size(); i++) {
+				flush(toFlush.get(i));
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Uses the high bits of the mixed trace id, the buckets of a stripe are picked with
+	 * the low bits of {@link Fragment#hash}.
+	 */
+	private int stripe(long traceId) {
+		return (int) ((traceId * 0x9E3779B97F4A7C15L) >>> 40) & this.mask;
+	}
+
+	/**
+	 * Decides fragments of the stripe that timed out and forgets decisions older than
+	 * the timeout. Has to be called while holding the lock of the stripe.
+	 */
+	private List<Fragment> expire(Stripe stripe, long now, List<Fragment> toFlush) {
+		Fragment fragment;
+		while ((fragment = stripe.undecided.head) != null && now - fragment.createdMillis >= this.timeoutMillis) {
+			this.evictedTraces.increment();
+			toFlush = decide(stripe, fragment, now, toFlush);
+		}
+		while ((fragment = stripe.decided.head) != null && now - fragment.decidedMillis >= this.timeoutMillis) {
+			forget(stripe, fragment);
+		}
+		return toFlush;
+	}
+
+	/**
+	 * Frees the memory held by the stripe until the budget fits or the stripe has
+	 * nothing left to free. Has to be called while holding the lock of the stripe.
+	 */
+	private List<Fragment> evict(Stripe stripe, long now, List<Fragment> toFlush) {
+		while (this.usage.get() > this.maxBufferedSpans) {
+			Fragment fragment = stripe.decided.head;
+			if (fragment != null) {
+				forget(stripe, fragment);
+				continue;
+			}
+			fragment = stripe.undecided.head;
+			if (fragment == null) {
+				break;
+			}
+			this.evictedTraces.increment();
+			toFlush = decide(stripe, fragment, now, toFlush);
+		}
+		return toFlush;
+	}
+
+	/**
+	 * Frees the memory held by the other stripes, one at a time, when the stripe of the
+	 * finished span had not enough to free.
+	 */
+	private List<Fragment> evictOtherStripes(long now, List<Fragment> toFlush) {
+		for (int i = 0; i < this.stripes.length && this.usage.get() > this.maxBufferedSpans; i++) {
+			Stripe stripe = this.stripes[this.evictionCursor.getAndIncrement() & this.mask];
+			synchronized (stripe) {
+				toFlush = evict(stripe, now, toFlush);
+			}
+		}
+		return toFlush;
+	}
+
+	/**
+	 * Expires all the stripes at most once per timeout, so that fragments of stripes no
+	 * span finishes in anymore get decided too.
+	 */
+	private List<Fragment> sweep(long now, List<Fragment> toFlush) {
+		long lastSweep = this.lastSweep.get();
+		if (now - lastSweep < this.timeoutMillis || !this.lastSweep.compareAndSet(lastSweep, now)) {
+			return toFlush;
+		}
+		for (Stripe stripe : this.stripes) {
+			synchronized (stripe) {
+				toFlush = expire(stripe, now, toFlush);
+			}
+		}
+		return toFlush;
+	}
+
+	private List<Fragment> decide(Stripe stripe, Fragment fragment, long now, List<Fragment> toFlush) {
+		boolean kept = fragment.sampled;
+		for (int i = 0; !kept && i < fragment.spans.size(); i++) {
+			kept = this.keepPredicate.test(fragment.spans.get(i));
+		}
+		fragment.kept = kept;
+		fragment.decidedMillis = now;
+		stripe.undecided.remove(fragment);
+		stripe.decided.add(fragment);
+		int spans = fragment.spans.size();
+		stripe.bufferedSpans -= spans;
+		// the retained decision takes the place of the buffered spans
+		this.usage.addAndGet(1 - spans);
+		if (!kept) {
+			this.droppedTraces.increment();
+			fragment.clear();
+			return toFlush;
+		}
+		this.keptTraces.increment();
+		if (toFlush == null) {
+			toFlush = new ArrayList<>(2);
+		}
+		toFlush.add(fragment);
+		return toFlush;
+	}
+
+	/**
+	 * Drops the decision of a fragment. Spans of the fragment finishing later are
+	 * buffered as a new fragment.
+	 */
+	private void forget(Stripe stripe, Fragment fragment) {
+		stripe.decided.remove(fragment);
+		stripe.remove(fragment);
+		this.usage.decrementAndGet();
+	}
+
+	/**
+	 * Passes the spans of a kept fragment to the delegate. Once decided, the buffered
+	 * spans of a fragment are only accessed by the thread that took the decision.
+	 */
+	private void flush(Fragment fragment) {
+		List<TraceContext> contexts = fragment.contexts;
+		List<MutableSpan> spans = fragment.spans;
+		fragment.clear();
+		List<FinishedSpan> toReport = null;
+		for (int i = 0; i < spans.size(); i++) {
+			TraceContext context = contexts.get(i);
+			this.delegate.end(context, spans.get(i), Cause.FINISHED);
+			if (isReportedHere(context)) {
+				if (toReport == null) {
+					toReport = new ArrayList<>(spans.size() - i);
+				}
+				toReport.add(BraveFinishedSpan.fromBrave(spans.get(i)));
+			}
+		}
+		if (toReport != null) {
+			report(toReport);
+		}
+	}
+
+	/**
+	 * Spans sampled upfront were already passed to the reporters by the
+	 * {@link CompositeSpanHandler}.
+	 */
+	private boolean isReportedHere(TraceContext context) {
+		return this.reporters.length > 0 && Boolean.FALSE.equals(context.sampled());
+	}
+
+	private void report(List<FinishedSpan> spans) {
+		for (SpanReporter reporter : this.reporters) {
+			reporter.reportAll(spans);
+		}
+	}
+
+	private static int hash(long traceIdHigh, long traceId, long localRootId) {
+		long h = traceIdHigh ^ traceId * 31 ^ localRootId;
+		int hash = (int) (h ^ (h >>> 32));
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * @return number of trace fragments that were passed to the delegate
+	 */
+	public long getKeptTraces() {
+		return this.keptTraces.sum();
+	}
+
+	/**
+	 * @return number of trace fragments that were dropped
+	 */
+	public long getDroppedTraces() {
+		return this.droppedTraces.sum();
+	}
+
+	/**
+	 * @return number of trace fragments decided before their local root finished,
+	 * because of the memory budget or the timeout
+	 */
+	public long getEvictedTraces() {
+		return this.evictedTraces.sum();
+	}
+
+	/**
+	 * @return number of spans currently buffered
+	 */
+	public int getBufferedSpans() {
+		int bufferedSpans = 0;
+		for (Stripe stripe : this.stripes) {
+			bufferedSpans += stripe.bufferedSpans;
+		}
+		return bufferedSpans;
+	}
+
+	@Override
+	public String toString() {
+		return "TailSamplingSpanHandler{" + this.delegate + "}";
+	}
+
+	/**
+	 * Fragments of the traces mapped to a stripe. Guarded by the monitor of the stripe.
+	 */
+	private static final class Stripe {
+
+		/**
+		 * Fragments by their trace id and local root id, chained by
+		 * {@link Fragment#nextInBucket}.
+		 */
+		Fragment[] table = new Fragment[16];
+
+		int size;
+
+		/**
+		 * Fragments awaiting the decision, oldest first.
+		 */
+		final FragmentList undecided = new FragmentList();
+
+		/**
+		 * Decided fragments kept for spans finishing late, in the order of the decision.
+		 */
+		final FragmentList decided = new FragmentList();
+
+		/**
+		 * Only updated while holding the monitor of the stripe.
+		 */
+		volatile int bufferedSpans;
+
+		Fragment get(long traceIdHigh, long traceId, long localRootId) {
+			Fragment[] table = this.table;
+			Fragment fragment = table[hash(traceIdHigh, traceId, localRootId) & (table.length - 1)];
+			while (fragment != null && !fragment.matches(traceIdHigh, traceId, localRootId)) {
+				fragment = fragment.nextInBucket;
+			}
+			return fragment;
+		}
+
+		void put(Fragment fragment) {
+			if (++this.size > this.table.length - (this.table.length >>> 2)) {
+				resize();
+			}
+			int index = fragment.hash & (this.table.length - 1);
+			fragment.nextInBucket = this.table[index];
+			this.table[index] = fragment;
+		}
+
+		void remove(Fragment fragment) {
+			int index = fragment.hash & (this.table.length - 1);
+			Fragment previous = null;
+			for (Fragment current = this.table[index]; current != null; current = current.nextInBucket) {
+				if (current == fragment) {
+					if (previous == null) {
+						this.table[index] = current.nextInBucket;
+					}
+					else {
+						previous.nextInBucket = current.nextInBucket;
+					}
+					current.nextInBucket = null;
+					this.size--;
+					return;
+				}
+				previous = current;
+			}
+		}
+
+		void resize() {
+			Fragment[] old = this.table;
+			Fragment[] table = new Fragment[old.length << 1];
+			for (Fragment bucket : old) {
+				Fragment fragment = bucket;
+				while (fragment != null) {
+					Fragment next = fragment.nextInBucket;
+					int index = fragment.hash & (table.length - 1);
+					fragment.nextInBucket = table[index];
+					table[index] = fragment;
+					fragment = next;
+				}
+			}
+			this.table = table;
+		}
+
+	}
+
+	private static final class Fragment {
+
+		final long traceIdHigh;
+
+		final long traceId;
+
+		final long localRootId;
+
+		final int hash;
+
+		final long createdMillis;
+
+		long decidedMillis;
+
+		Fragment nextInBucket;
+
+		Fragment previous;
+
+		Fragment next;
+
+		List<TraceContext> contexts = new ArrayList<>();
+
+		List<MutableSpan> spans = new ArrayList<>();
+
+		boolean sampled;
+
+		Boolean kept;
+
+		Fragment(long traceIdHigh, long traceId, long localRootId, long createdMillis) {
+			this.traceIdHigh = traceIdHigh;
+			this.traceId = traceId;
+			this.localRootId = localRootId;
+			this.hash = hash(traceIdHigh, traceId, localRootId);
+			this.createdMillis = createdMillis;
+		}
+
+		boolean matches(long traceIdHigh, long traceId, long localRootId) {
+			return this.localRootId == localRootId && this.traceId == traceId && this.traceIdHigh == traceIdHigh;
+		}
+
+		void add(TraceContext context, MutableSpan span) {
+			this.sampled |= Boolean.TRUE.equals(context.sampled()) || context.debug();
+			this.contexts.add(context);
+			this.spans.add(span);
+		}
+
+		void clear() {
+			this.contexts = new ArrayList<>(0);
+			this.spans = new ArrayList<>(0);
+		}
+
+	}
+
+	/**
+	 * Doubly linked list of fragments, linked by {@link Fragment#previous} and
+	 * {@link Fragment#next}.
+	 */
+	private static final class FragmentList {
+
+		Fragment head;
+
+		Fragment tail;
+
+		void add(Fragment fragment) {
+			fragment.previous = this.tail;
+			fragment.next = null;
+			if (this.tail == null) {
+				this.head = fragment;
+			}
+			else {
+				this.tail.next = fragment;
+			}
+			this.tail = fragment;
+		}
+
+		void remove(Fragment fragment) {
+			if (fragment.previous == null) {
+				this.head = fragment.next;
+			}
+			else {
+				fragment.previous.next = fragment.next;
+			}
+			if (fragment.next == null) {
+				this.tail = fragment.previous;
+			}
+			else {
+				fragment.next.previous = fragment.previous;
+			}
+			fragment.previous = null;
+			fragment.next = null;
+		}
+
+	}
+
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2013-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.brave.bridge;
+
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import brave.baggage.BaggageField;
+import brave.internal.baggage.BaggageFields;
+import brave.propagation.TraceContext;
+import brave.propagation.TraceContextOrSamplingFlags;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BinaryPropagationTests {
+
+	BinaryPropagation propagation = new BinaryPropagation(new BraveBaggageManager(),
+			Collections.singletonList("local"));
+
+	@Test
+	void should_propagate_the_trace_context_in_a_single_header() {
+		TraceContext context = TraceContext.newBuilder().traceIdHigh(1L).traceId(2L).spanId(3L).parentId(4L)
+				.sampled(true).build();
+
+		Map<String, String> carrier = inject(context);
+		TraceContext extracted = extract(carrier).context();
+
+		assertThat(carrier).containsOnlyKeys(BinaryPropagation.CONTEXT);
+		assertThat(extracted.traceIdHigh()).isEqualTo(1L);
+		assertThat(extracted.traceId()).isEqualTo(2L);
+		assertThat(extracted.spanId()).isEqualTo(3L);
+		assertThat(extracted.parentIdAsLong()).isEqualTo(4L);
+		assertThat(extracted.sampled()).isTrue();
+		assertThat(extracted.debug()).isFalse();
+	}
+
+	@Test
+	void should_keep_the_sampling_decision_undecided() {
+		TraceContext context = TraceContext.newBuilder().traceId(2L).spanId(3L).build();
+
+		TraceContext extracted = extract(inject(context)).context();
+
+		assertThat(extracted.sampled()).isNull();
+		assertThat(extracted.traceIdHigh()).isZero();
+		assertThat(extracted.parentIdAsLong()).isZero();
+	}
+
+	@Test
+	void should_propagate_remote_baggage_only() {
+		BaggageField remote = BaggageField.create("remote");
+		BaggageField local = BaggageField.create("local");
+		BaggageField unicode = BaggageField.create("unicode");
+		TraceContext context = TraceContext.newBuilder().traceId(2L).spanId(3L).sampled(true)
+				.addExtra(BaggageFields.newFactory(Arrays.asList(remote, local, unicode), 3).create()).build();
+		remote.updateValue(context, "remote-value");
+		local.updateValue(context, "local-value");
+		unicode.updateValue(context, "zażółć");
+
+		TraceContextOrSamplingFlags extracted = extract(inject(context));
+
+		assertThat(BaggageField.getAllValues(extracted)).hasSize(2).containsEntry("remote", "remote-value")
+				.containsEntry("unicode", "zażółć");
+	}
+
+	@Test
+	void should_return_empty_result_for_a_missing_or_malformed_header() {
+		Map<String, String> carrier = new HashMap<>();
+
+		assertThat(extract(carrier)).isSameAs(TraceContextOrSamplingFlags.EMPTY);
+
+		carrier.put(BinaryPropagation.CONTEXT, "not base64!");
+		assertThat(extract(carrier)).isSameAs(TraceContextOrSamplingFlags.EMPTY);
+
+		String header = inject(TraceContext.newBuilder().traceId(2L).spanId(3L).build()).get(BinaryPropagation.CONTEXT);
+		carrier.put(BinaryPropagation.CONTEXT, header.substring(0, header.length() / 2));
+		assertThat(extract(carrier)).isSameAs(TraceContextOrSamplingFlags.EMPTY);
+	}
+
+	@Test
+	void should_reject_a_header_with_more_baggage_entries_than_it_can_hold() {
+		String header = inject(TraceContext.newBuilder().traceId(2L).spanId(3L).build()).get(BinaryPropagation.CONTEXT);
+		byte[] bytes = Base64.getUrlDecoder().decode(header);
+		// replace the number of baggage entries (the last byte) with Integer.MAX_VALUE
+		byte[] malformed = Arrays.copyOf(bytes, bytes.length + 4);
+		System.arraycopy(new byte[] { (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07 }, 0, malformed,
+				bytes.length - 1, 5);
+
+		assertThatThrownBy(() -> this.propagation.decode(malformed)).isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("baggage entries");
+		Map<String, String> carrier = new HashMap<>();
+		carrier.put(BinaryPropagation.CONTEXT, Base64.getUrlEncoder().withoutPadding().encodeToString(malformed));
+		assertThat(extract(carrier)).isSameAs(TraceContextOrSamplingFlags.EMPTY);
+	}
+
+	private Map<String, String> inject(TraceContext context) {
+		Map<String, String> carrier = new HashMap<>();
+		this.propagation.injector(Map<String, String>::put).inject(context, carrier);
+		return carrier;
+	}
+
+	private TraceContextOrSamplingFlags extract(Map<String, String> carrier) {
+		return this.propagation.extractor(Map<String, String>::get).extract(carrier);
+	}
+
+}
@@ -119,6 +119,30 @@ class BraveCurrentTraceContextTests {
 		then(MDC.getCopyOfContextMap()).isEmpty();
 	}
 
+	@Test
+	void should_return_noop_scope_when_context_is_already_in_scope() {
+		BraveCurrentTraceContext braveCurrentTraceContext = new BraveCurrentTraceContext(currentTraceContext);
+		CurrentTraceContext.Scope nullScope = braveCurrentTraceContext.maybeScope(null);
+		then(nullScope).isSameAs(CurrentTraceContext.Scope.NOOP);
+		org.springframework.cloud.sleuth.TraceContext context = BraveTraceContext
+				.fromBrave(TraceContext.newBuilder().traceId(12345678).spanId(12345670).build());
+
+		try (CurrentTraceContext.Scope scope1 = braveCurrentTraceContext.maybeScope(context)) {
+			then(scope1).isNotSameAs(CurrentTraceContext.Scope.NOOP);
+			Object revertingScope = braveCurrentTraceContext.scopes.get();
+
+			try (CurrentTraceContext.Scope scope2 = braveCurrentTraceContext.maybeScope(context)) {
+				then(scope2).isSameAs(CurrentTraceContext.Scope.NOOP);
+				then(braveCurrentTraceContext.scopes.get()).isSameAs(revertingScope);
+			}
+			then(currentTraceContext.get()).isSameAs(BraveTraceContext.toBrave(context));
+			thenMdcEntriesArePresent();
+		}
+
+		then(currentTraceContext.get()).isNull();
+		then(braveCurrentTraceContext.scopes.get()).isNull();
+	}
+
 	private static void thenMdcEntriesArePresent() {
 		then(MDC.get("traceId")).isEqualTo("0000000000bc614e");
 		then(MDC.get("spanId")).isNotEmpty();
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2013-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.brave.bridge;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import brave.handler.MutableSpan;
+import brave.handler.SpanHandler;
+import brave.propagation.TraceContext;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cloud.sleuth.exporter.FinishedSpan;
+import org.springframework.cloud.sleuth.exporter.SpanFilter;
+import org.springframework.cloud.sleuth.exporter.SpanReporter;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+class CompositeSpanHandlerTests {
+
+	TraceContext context = TraceContext.newBuilder().traceId(1L).spanId(2L).build();
+
+	List<FinishedSpan> seen = new ArrayList<>();
+
+	@Test
+	void should_share_a_single_finished_span_between_filters_and_reporters() {
+		SpanFilter filter = span -> this.seen.add(span);
+		SpanReporter reporter = span -> this.seen.add(span);
+		CompositeSpanHandler handler = new CompositeSpanHandler(Arrays.asList(filter, filter),
+				Arrays.asList(reporter, reporter));
+
+		boolean result = handler.end(this.context, new MutableSpan(), SpanHandler.Cause.FINISHED);
+
+		then(result).isTrue();
+		then(this.seen).hasSize(4);
+		then(this.seen).allMatch(span -> span == this.seen.get(0));
+	}
+
+	@Test
+	void should_not_report_span_rejected_by_a_filter() {
+		SpanFilter filter = span -> false;
+		SpanReporter reporter = span -> this.seen.add(span);
+		CompositeSpanHandler handler = new CompositeSpanHandler(Arrays.asList(filter), Arrays.asList(reporter));
+
+		boolean result = handler.end(this.context, new MutableSpan(), SpanHandler.Cause.FINISHED);
+
+		then(result).isFalse();
+		then(this.seen).isEmpty();
+	}
+
+	@Test
+	void should_report_span_recorded_only_locally() {
+		TraceContext unsampled = this.context.toBuilder().sampled(false).sampledLocal(true).build();
+		SpanReporter reporter = span -> this.seen.add(span);
+		CompositeSpanHandler handler = new CompositeSpanHandler(null, Arrays.asList(reporter));
+
+		boolean result = handler.end(unsampled, new MutableSpan(), SpanHandler.Cause.FINISHED);
+
+		then(result).isTrue();
+		then(this.seen).hasSize(1);
+	}
+
+	@Test
+	void should_only_filter_span_recorded_only_locally_when_reporting_sampled_spans_only() {
+		TraceContext unsampled = this.context.toBuilder().sampled(false).sampledLocal(true).build();
+		SpanFilter filter = span -> this.seen.add(span);
+		SpanReporter reporter = span -> this.seen.add(span);
+		CompositeSpanHandler handler = new CompositeSpanHandler(Arrays.asList(filter), Arrays.asList(reporter),
+				true);
+
+		boolean result = handler.end(unsampled, new MutableSpan(), SpanHandler.Cause.FINISHED);
+
+		then(result).isTrue();
+		then(this.seen).hasSize(1);
+	}
+
+	@Test
+	void should_ignore_spans_that_were_not_finished() {
+		SpanReporter reporter = span -> this.seen.add(span);
+		CompositeSpanHandler handler = new CompositeSpanHandler(null, Arrays.asList(reporter));
+
+		boolean result = handler.end(this.context, new MutableSpan(), SpanHandler.Cause.ABANDONED);
+
+		then(result).isTrue();
+		then(this.seen).isEmpty();
+	}
+
+}
@@ -109,6 +109,19 @@ class W3CBaggagePropagatorTest {
 		assertThat(baggageEntries).hasSize(1).containsEntry("key", "value2");
 	}
 
+	@Test
+	void extract_skipsMalformedEntries() {
+		TraceContextOrSamplingFlags context = context();
+		Map<String, String> carrier = new HashMap<>();
+		carrier.put("baggage", "=value, novalue, empty= ;meta,,key=value=with=equals, valid = value ");
+
+		TraceContextOrSamplingFlags contextWithBaggage = propagator.contextWithBaggage(carrier, context, Map::get);
+
+		Map<String, String> baggageEntries = BaggageField.getAllValues(contextWithBaggage);
+		assertThat(baggageEntries).hasSize(2).containsEntry("key", "value=with=equals").containsEntry("valid",
+				"value");
+	}
+
 	/**
 	 * We need to use {@link HttpServletRequestWrapper} for the carrier for this test,
 	 * since it is what combines the multiple baggage headers into one.
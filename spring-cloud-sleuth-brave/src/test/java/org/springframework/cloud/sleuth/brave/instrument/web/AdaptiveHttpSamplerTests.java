@@ -0,0 +1,66 @@
+/*
+ * Copyright 2013-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.brave.instrument.web;
+
+import brave.http.HttpRequest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+public class AdaptiveHttpSamplerTests {
+
+	@Mock
+	HttpRequest request;
+
+	AdaptiveHttpSampler sampler = new AdaptiveHttpSampler(10, 100);
+
+	@Test
+	public void should_key_requests_by_route() {
+		given(this.request.method()).willReturn("GET");
+		given(this.request.route()).willReturn("/users/{user}");
+
+		then(this.sampler.key(this.request)).isEqualTo("GET /users/{user}");
+	}
+
+	@Test
+	public void should_key_unrouted_requests_by_path_template() {
+		given(this.request.method()).willReturn("GET");
+		given(this.request.path()).willReturn("/users/42/orders/3f2504e0-4f89-11d3-9a0c-0305e82c3301/v2");
+
+		then(this.sampler.key(this.request)).isEqualTo("GET /users/{id}/orders/{id}/v2");
+	}
+
+	@Test
+	public void should_key_requests_without_path_by_method() {
+		given(this.request.method()).willReturn("GET");
+
+		then(this.sampler.key(this.request)).isEqualTo("GET");
+	}
+
+	@Test
+	public void should_keep_segments_that_are_not_identifiers() {
+		then(AdaptiveHttpSampler.pathTemplate("/")).isEqualTo("/");
+		then(AdaptiveHttpSampler.pathTemplate("/api/v2/spans/")).isEqualTo("/api/v2/spans/");
+		then(AdaptiveHttpSampler.pathTemplate("/cafe/123abc")).isEqualTo("/cafe/{id}");
+	}
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2013-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.brave.instrument.web;
+
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+class SkipPatternMatcherTests {
+
+	static final String DEFAULT_SKIP_PATTERN = "/api-docs.*|/swagger.*|"
+			+ ".*\\.png|.*\\.css|.*\\.js|.*\\.html|/favicon.ico|/hystrix.stream";
+
+	static final String ACTUATOR_SKIP_PATTERN = "/actuator(/|/(health|health/.*|info|info/.*))?";
+
+	@Test
+	void should_match_the_same_paths_as_the_regular_expression() {
+		Pattern pattern = Pattern.compile(ACTUATOR_SKIP_PATTERN + "|" + DEFAULT_SKIP_PATTERN + "|/exact|^/anchored$");
+		SkipPatternMatcher matcher = new SkipPatternMatcher(pattern);
+
+		for (String path : Arrays.asList("/api-docs", "/api-docs/v1", "/swagger-ui.html", "/img/logo.png",
+				"/style.css", "/app.js", "/index.html", "/favicon.ico", "/faviconXico", "/hystrix.stream",
+				"/actuator", "/actuator/", "/actuator/health", "/actuator/health/db", "/actuator/env", "/exact",
+				"/exact/", "/anchored", "/foo", "/foo.png.bak", "/api-docs\n", "\n.png", "", "/")) {
+			// twice to hit the cached verdicts
+			then(matcher.matches(path)).as(path).isEqualTo(pattern.matcher(path).matches());
+			then(matcher.matches(path)).as(path).isEqualTo(pattern.matcher(path).matches());
+		}
+	}
+
+	@Test
+	void should_match_patterns_with_flags_as_they_are() {
+		Pattern pattern = Pattern.compile("(?i)/foo|/bar");
+		SkipPatternMatcher matcher = new SkipPatternMatcher(pattern);
+
+		then(matcher.matches("/FOO")).isTrue();
+		then(matcher.matches("/BAR")).isTrue();
+		then(matcher.matches("/baz")).isFalse();
+	}
+
+	@Test
+	void should_split_top_level_alternatives() {
+		then(SkipPatternMatcher.splitAlternatives("/a|/b(c|d)|[|]|\\|")).containsExactly("/a", "/b(c|d)", "[|]",
+				"\\|");
+		then(SkipPatternMatcher.splitAlternatives("/a(b")).isNull();
+	}
+
+	@Test
+	void should_convert_literal_expressions() {
+		then(SkipPatternMatcher.toLiteral("/foo\\.png")).isEqualTo("/foo.png");
+		then(SkipPatternMatcher.toLiteral("/foo.png")).isNull();
+		then(SkipPatternMatcher.toLiteral("/foo\\d")).isNull();
+	}
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2013-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.brave.sampler;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+public class AdaptiveSamplerFunctionTests {
+
+	AtomicLong clock = new AtomicLong();
+
+	@Test
+	public void should_throttle_keys_with_more_traffic_than_the_budget() {
+		KeySampler sampler = new KeySampler(10, 100, this.clock::get);
+
+		int sampled = send(sampler, "hot", 1_000, 20);
+
+		then(sampler.probability("hot")).isLessThan(0.01);
+		// 10 traces per second for 2 seconds, plus the first windows before adjusting
+		then(sampled).isLessThan(1_200);
+	}
+
+	@Test
+	public void should_sample_all_requests_of_keys_with_less_traffic_than_the_budget() {
+		KeySampler sampler = new KeySampler(10, 100, this.clock::get);
+		send(sampler, "hot", 1_000, 20);
+
+		int sampled = send(sampler, "cold", 1, 20);
+
+		then(sampled).isEqualTo(20);
+		then(sampler.probability("cold")).isEqualTo(1.0);
+	}
+
+	@Test
+	public void should_share_a_budget_between_keys_over_the_limit() {
+		KeySampler sampler = new KeySampler(10, 1, this.clock::get);
+		send(sampler, "first", 1, 1);
+
+		send(sampler, "second", 1_000, 20);
+
+		then(sampler.probability("second")).isEqualTo(1.0);
+		then(sampler.probability(AdaptiveSamplerFunction.OTHER_KEY)).isLessThan(0.01);
+	}
+
+	@Test
+	public void should_evict_budgets_of_idle_keys_to_make_room_for_new_ones() {
+		KeySampler sampler = new KeySampler(10, 1, this.clock::get);
+		send(sampler, "first", 1, 1);
+		this.clock.addAndGet(AdaptiveSamplerFunction.IDLE_NANOS);
+
+		send(sampler, "second", 1_000, 20);
+
+		then(sampler.probability("second")).isLessThan(0.01);
+		then(sampler.probability("first")).isEqualTo(1.0);
+		then(sampler.probability(AdaptiveSamplerFunction.OTHER_KEY)).isEqualTo(1.0);
+	}
+
+	@Test
+	public void should_never_sample_when_budget_is_zero() {
+		KeySampler sampler = new KeySampler(0, 100, this.clock::get);
+
+		then(send(sampler, "key", 10, 10)).isZero();
+	}
+
+	@Test
+	public void should_defer_decision_when_there_is_no_key() {
+		KeySampler sampler = new KeySampler(10, 100, this.clock::get);
+
+		then(sampler.trySample(null)).isNull();
+	}
+
+	private int send(KeySampler sampler, String key, int requestsPerWindow, int windows) {
+		int sampled = 0;
+		for (int window = 0; window < windows; window++) {
+			for (int i = 0; i < requestsPerWindow; i++) {
+				if (Boolean.TRUE.equals(sampler.trySample(key))) {
+					sampled++;
+				}
+			}
+			this.clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+		}
+		return sampled;
+	}
+
+	static class KeySampler extends AdaptiveSamplerFunction<String> {
+
+		KeySampler(int tracesPerSecond, int maxKeys, LongSupplier nanoClock) {
+			super(tracesPerSecond, maxKeys, nanoClock);
+		}
+
+		@Override
+		protected String key(String request) {
+			return request;
+		}
+
+	}
+
+}
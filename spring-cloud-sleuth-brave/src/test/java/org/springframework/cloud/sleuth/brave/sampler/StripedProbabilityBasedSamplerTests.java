@@ -0,0 +1,107 @@
+/*
+ * Copyright 2013-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.brave.sampler;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import brave.sampler.Sampler;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.BDDAssertions.then;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+public class StripedProbabilityBasedSamplerTests {
+
+	private static Random RANDOM = new Random();
+
+	@Test
+	public void should_pass_all_samples_when_config_has_1_probability() throws Exception {
+		for (int i = 0; i < 10; i++) {
+			then(new StripedProbabilityBasedSampler(() -> 1f).isSampled(RANDOM.nextLong())).isTrue();
+		}
+	}
+
+	@Test
+	public void should_reject_all_samples_when_config_has_0_probability() throws Exception {
+		for (int i = 0; i < 10; i++) {
+			then(new StripedProbabilityBasedSampler(() -> 0f).isSampled(RANDOM.nextLong())).isFalse();
+		}
+	}
+
+	@Test
+	public void should_pass_given_percent_of_samples_with_fractional_element() throws Exception {
+		Sampler sampler = new StripedProbabilityBasedSampler(() -> 0.35f);
+		int passedCounter = 0;
+		for (int i = 0; i < 1000; i++) {
+			passedCounter = passedCounter + (sampler.isSampled(RANDOM.nextLong()) ? 1 : 0);
+		}
+
+		then(passedCounter).isEqualTo(350);
+	}
+
+	@Test
+	public void should_pass_given_percent_of_samples_per_thread() throws Exception {
+		int threads = 8;
+		Sampler sampler = new StripedProbabilityBasedSampler(() -> 0.2f, threads);
+		AtomicInteger passedCounter = new AtomicInteger();
+		ExecutorService executorService = Executors.newFixedThreadPool(threads);
+		try {
+			Future<?>[] futures = new Future[threads];
+			for (int i = 0; i < threads; i++) {
+				futures[i] = executorService.submit(() -> {
+					for (int j = 0; j < 1000; j++) {
+						if (sampler.isSampled(RANDOM.nextLong())) {
+							passedCounter.incrementAndGet();
+						}
+					}
+				});
+			}
+			for (Future<?> future : futures) {
+				future.get(5, TimeUnit.SECONDS);
+			}
+		}
+		finally {
+			executorService.shutdownNow();
+		}
+
+		then(passedCounter.get()).isEqualTo(threads * 200);
+	}
+
+	@Test
+	public void should_round_stripes_to_power_of_two() {
+		then(StripedProbabilityBasedSampler.stripes(1)).isEqualTo(1);
+		then(StripedProbabilityBasedSampler.stripes(3)).isEqualTo(4);
+		then(StripedProbabilityBasedSampler.stripes(64)).isEqualTo(64);
+		then(StripedProbabilityBasedSampler.stripes(1000)).isEqualTo(64);
+	}
+
+	@Test
+	public void should_fail_given_no_probability() {
+		assertThatThrownBy(() -> new StripedProbabilityBasedSampler(null))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessage("probability property is required for StripedProbabilityBasedSampler");
+	}
+
+}
@@ -0,0 +1,271 @@
+/*
+ * Copyright 2013-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.brave.sampler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import brave.Span;
+import brave.Tracer;
+import brave.Tracing;
+import brave.handler.MutableSpan;
+import brave.handler.SpanHandler;
+import brave.propagation.SamplingFlags;
+import brave.propagation.TraceContext;
+import brave.propagation.TraceContextOrSamplingFlags;
+import brave.sampler.Sampler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cloud.sleuth.exporter.FinishedSpan;
+import org.springframework.cloud.sleuth.exporter.SpanReporter;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+class TailSamplingSpanHandlerTests {
+
+	List<MutableSpan> reported = new ArrayList<>();
+
+	SpanHandler delegate = new SpanHandler() {
+		@Override
+		public boolean end(TraceContext context, MutableSpan span, Cause cause) {
+			reported.add(span);
+			return true;
+		}
+	};
+
+	List<List<FinishedSpan>> reportedBatches = new ArrayList<>();
+
+	SpanReporter reporter = new SpanReporter() {
+		@Override
+		public void report(FinishedSpan span) {
+			reportAll(Collections.singletonList(span));
+		}
+
+		@Override
+		public void reportAll(List<FinishedSpan> spans) {
+			reportedBatches.add(spans);
+		}
+	};
+
+	AtomicLong clock = new AtomicLong(1_000L);
+
+	Tracing tracing;
+
+	@AfterEach
+	void close() {
+		if (this.tracing != null) {
+			this.tracing.close();
+		}
+	}
+
+	@Test
+	void should_report_whole_trace_fragment_when_a_span_has_an_error() {
+		TailSamplingSpanHandler handler = handler(100);
+		Span root = tracer(handler).newTrace().name("root").start();
+		Span child = this.tracing.tracer().newChild(root.context()).name("child").start();
+
+		child.error(new RuntimeException()).finish();
+
+		then(this.reported).isEmpty();
+		then(handler.getBufferedSpans()).isEqualTo(1);
+
+		root.finish();
+
+		then(this.reported).extracting(MutableSpan::name).containsExactly("child", "root");
+		then(handler.getKeptTraces()).isEqualTo(1L);
+		then(handler.getBufferedSpans()).isZero();
+	}
+
+	@Test
+	void should_pass_kept_trace_fragment_to_reporters_in_a_single_batch() {
+		TailSamplingSpanHandler handler = handler(100);
+		Span root = tracer(handler).newTrace().name("root").start();
+		Span lateChild = this.tracing.tracer().newChild(root.context()).name("late-child").start();
+		this.tracing.tracer().newChild(root.context()).name("child").start().finish();
+
+		root.error(new RuntimeException()).finish();
+		lateChild.finish();
+
+		then(this.reportedBatches).hasSize(2);
+		then(this.reportedBatches.get(0)).extracting(FinishedSpan::getName).containsExactly("child", "root");
+		then(this.reportedBatches.get(1)).extracting(FinishedSpan::getName).containsExactly("late-child");
+	}
+
+	@Test
+	void should_not_pass_trace_fragment_sampled_upfront_to_reporters() {
+		TailSamplingSpanHandler handler = handler(100);
+
+		tracer(handler).nextSpan(TraceContextOrSamplingFlags.create(SamplingFlags.SAMPLED)).name("root").start()
+				.finish();
+
+		then(this.reported).extracting(MutableSpan::name).containsExactly("root");
+		then(this.reportedBatches).isEmpty();
+	}
+
+	@Test
+	void should_drop_whole_trace_fragment_when_no_span_matches() {
+		TailSamplingSpanHandler handler = handler(100);
+		Span root = tracer(handler).newTrace().name("root").start();
+
+		this.tracing.tracer().newChild(root.context()).name("child").start().finish();
+		root.finish();
+
+		then(this.reported).isEmpty();
+		then(handler.getDroppedTraces()).isEqualTo(1L);
+		then(handler.getBufferedSpans()).isZero();
+	}
+
+	@Test
+	void should_report_trace_fragment_sampled_upfront() {
+		TailSamplingSpanHandler handler = handler(100);
+
+		tracer(handler).nextSpan(TraceContextOrSamplingFlags.create(SamplingFlags.SAMPLED)).name("root").start()
+				.finish();
+
+		then(this.reported).extracting(MutableSpan::name).containsExactly("root");
+	}
+
+	@Test
+	void should_follow_decision_for_spans_finished_after_local_root() {
+		TailSamplingSpanHandler handler = handler(100);
+		Span root = tracer(handler).newTrace().name("root").start();
+		Span child = this.tracing.tracer().newChild(root.context()).name("child").start();
+
+		root.error(new RuntimeException()).finish();
+		child.finish();
+
+		then(this.reported).extracting(MutableSpan::name).containsExactly("root", "child");
+	}
+
+	@Test
+	void should_decide_oldest_trace_fragment_eagerly_when_memory_budget_is_exceeded() {
+		TailSamplingSpanHandler handler = handler(3, 1);
+		Tracer tracer = tracer(handler);
+		Span root = tracer.newTrace().name("root").start();
+		Span otherRoot = tracer.newTrace().name("other-root").start();
+
+		tracer.newChild(root.context()).name("child").start().error(new RuntimeException()).finish();
+		tracer.newChild(root.context()).name("child-2").start().finish();
+		tracer.newChild(otherRoot.context()).name("other-child").start().error(new RuntimeException()).finish();
+		tracer.newChild(otherRoot.context()).name("other-child-2").start().finish();
+
+		then(this.reported).extracting(MutableSpan::name).containsExactly("child", "child-2");
+		then(handler.getEvictedTraces()).isEqualTo(1L);
+		then(handler.getBufferedSpans()).isEqualTo(2);
+
+		otherRoot.finish();
+		root.finish();
+
+		then(this.reported).extracting(MutableSpan::name).containsExactly("child", "child-2", "other-child",
+				"other-child-2", "other-root", "root");
+	}
+
+	@Test
+	void should_forget_oldest_decisions_when_memory_budget_is_exceeded() {
+		TailSamplingSpanHandler handler = handler(1, 1);
+		Tracer tracer = tracer(handler);
+		Span root = tracer.newTrace().name("root").start();
+		Span lateChild = tracer.newChild(root.context()).name("late-child").start();
+
+		root.error(new RuntimeException()).finish();
+		tracer.newTrace().name("other").start().finish();
+		lateChild.finish();
+
+		then(this.reported).extracting(MutableSpan::name).containsExactly("root");
+		then(handler.getBufferedSpans()).isEqualTo(1);
+	}
+
+	@Test
+	void should_keep_fragments_of_many_traces_apart() {
+		TailSamplingSpanHandler handler = handler(1_000);
+		Tracer tracer = tracer(handler);
+		List<Span> roots = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			Span root = tracer.newTrace().name("root-" + i).start();
+			tracer.newChild(root.context()).name("child-" + i).start().finish();
+			roots.add(root);
+		}
+
+		for (int i = 0; i < roots.size(); i++) {
+			Span root = roots.get(i);
+			if (i % 10 == 0) {
+				root.error(new RuntimeException());
+			}
+			root.finish();
+		}
+
+		then(this.reported).hasSize(20);
+		then(handler.getKeptTraces()).isEqualTo(10L);
+		then(handler.getDroppedTraces()).isEqualTo(90L);
+		then(handler.getBufferedSpans()).isZero();
+	}
+
+	@Test
+	void should_decide_trace_fragments_that_timed_out() {
+		TailSamplingSpanHandler handler = handler(100);
+		Tracer tracer = tracer(handler);
+		Span root = tracer.newTrace().name("root").start();
+		tracer.newChild(root.context()).name("child").start().error(new RuntimeException()).finish();
+
+		this.clock.addAndGet(2_000L);
+		tracer.newTrace().name("other").start().finish();
+
+		then(this.reported).extracting(MutableSpan::name).containsExactly("child");
+		then(handler.getEvictedTraces()).isEqualTo(1L);
+	}
+
+	@Test
+	void should_match_latency_above_threshold() {
+		MutableSpan span = new MutableSpan();
+		span.startTimestamp(1_000L);
+		span.finishTimestamp(3_000L);
+
+		then(TailSamplingSpanHandler.latencyAbove(1L).test(span)).isTrue();
+		then(TailSamplingSpanHandler.latencyAbove(2L).test(span)).isFalse();
+	}
+
+	@Test
+	void should_match_tag_value() {
+		MutableSpan span = new MutableSpan();
+		span.tag("http.status_code", "503");
+
+		then(TailSamplingSpanHandler.hasTag("http.status_code", "5..").test(span)).isTrue();
+		then(TailSamplingSpanHandler.hasTag("http.status_code", "4..").test(span)).isFalse();
+		then(TailSamplingSpanHandler.hasTag("missing", ".*").test(span)).isFalse();
+	}
+
+	private TailSamplingSpanHandler handler(int maxBufferedSpans) {
+		return handler(maxBufferedSpans, 16);
+	}
+
+	private TailSamplingSpanHandler handler(int maxBufferedSpans, int stripes) {
+		return new TailSamplingSpanHandler(this.delegate, Collections.singletonList(this.reporter),
+				TailSamplingSpanHandler.hasError(), maxBufferedSpans, 1_000L, this.clock::get, stripes);
+	}
+
+	private Tracer tracer(SpanHandler handler) {
+		this.tracing = Tracing.newBuilder().sampler(Sampler.NEVER_SAMPLE).addSpanHandler(handler).build();
+		return this.tracing.tracer();
+	}
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2013-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.instrument.async;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.cloud.sleuth.CurrentTraceContext;
+
+/**
+ * {@link TraceableExecutorService} that doesn't create a span per task, but only passes
+ * the tracing context of the submitting thread to the task. Meant for executors that
+ * start a new (e.g. virtual) thread for each task, where there can be many short tasks
+ * and a span for each of them would cost more than the task itself.
+ *
+ * @author Marcin Grzejszczak
+ * @since 3.1.11
+ */
+// public as most types in this package were documented for use
+public class ContextPropagatingExecutorService extends TraceableExecutorService {
+
+	private CurrentTraceContext currentTraceContext;
+
+	public ContextPropagatingExecutorService(BeanFactory beanFactory, ExecutorService delegate) {
+		super(beanFactory, delegate);
+	}
+
+	@Override
+	Runnable wrap(Runnable task) {
+		return currentTraceContext().wrap(task);
+	}
+
+	@Override
+	<T> Callable<T> wrap(Callable<T> task) {
+		return currentTraceContext().wrap(task);
+	}
+
+	CurrentTraceContext currentTraceContext() {
+		if (this.currentTraceContext == null && this.beanFactory != null) {
+			this.currentTraceContext = this.beanFactory.getBean(CurrentTraceContext.class);
+		}
+		return this.currentTraceContext;
+	}
+
+}
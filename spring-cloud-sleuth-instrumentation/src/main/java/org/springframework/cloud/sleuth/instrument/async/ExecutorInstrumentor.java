@@ -26,6 +26,7 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.function.BooleanSupplier;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -53,13 +54,34 @@ public class ExecutorInstrumentor {
 
 	private static final Log log = LogFactory.getLog(ExecutorInstrumentor.class);
 
+	/**
+	 * Executor returned by e.g. {@code Executors.newVirtualThreadPerTaskExecutor()} on JDK
+	 * 21 or newer.
+	 */
+	private static final String THREAD_PER_TASK_EXECUTOR = "java.util.concurrent.ThreadPerTaskExecutor";
+
 	private final Supplier<List<String>> ignoredBeans;
 
 	private final BeanFactory beanFactory;
 
+	private final BooleanSupplier threadPerTaskSpans;
+
 	public ExecutorInstrumentor(Supplier<List<String>> ignoredBeans, BeanFactory beanFactory) {
+		this(ignoredBeans, beanFactory, () -> true);
+	}
+
+	/**
+	 * @param ignoredBeans names of beans that shouldn't be instrumented
+	 * @param beanFactory bean factory
+	 * @param threadPerTaskSpans whether executors that start a new thread for each task
+	 * should create a span for each task, otherwise only the tracing context is passed to
+	 * the tasks
+	 */
+	public ExecutorInstrumentor(Supplier<List<String>> ignoredBeans, BeanFactory beanFactory,
+			BooleanSupplier threadPerTaskSpans) {
 		this.ignoredBeans = ignoredBeans;
 		this.beanFactory = beanFactory;
+		this.threadPerTaskSpans = threadPerTaskSpans;
 	}
 
 	/**
@@ -101,6 +123,11 @@ public class ExecutorInstrumentor {
 		}
 		else if (bean instanceof ExecutorService) {
 			if (isProxyNeeded(beanName)) {
+				if (isThreadPerTaskExecutor(bean) && !this.threadPerTaskSpans.getAsBoolean()) {
+					// the JDK implementation is final and not exported, no proxy can be
+					// created anyway
+					return new ContextPropagatingExecutorService(this.beanFactory, (ExecutorService) bean);
+				}
 				return wrapExecutorService(bean, beanName);
 			}
 			else {
@@ -172,6 +199,10 @@ public class ExecutorInstrumentor {
 		return createAsyncTaskExecutorProxy(bean, cglibProxy, executor, beanName);
 	}
 
+	static boolean isThreadPerTaskExecutor(Object bean) {
+		return THREAD_PER_TASK_EXECUTOR.equals(bean.getClass().getName());
+	}
+
 	boolean isProxyNeeded(String beanName) {
 		return !this.ignoredBeans.get().contains(beanName);
 	}
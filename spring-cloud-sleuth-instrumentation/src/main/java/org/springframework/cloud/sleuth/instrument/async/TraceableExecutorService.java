@@ -87,8 +87,7 @@ public class TraceableExecutorService implements ExecutorService {
 
 	@Override
 	public void execute(Runnable command) {
-		this.delegate.execute(ContextUtil.isContextUnusable(this.beanFactory) ? command
-				: new TraceRunnable(tracer(), spanNamer(), command, this.spanName));
+		this.delegate.execute(ContextUtil.isContextUnusable(this.beanFactory) ? command : wrap(command));
 	}
 
 	@Override
@@ -128,20 +127,17 @@ public class TraceableExecutorService implements ExecutorService {
 
 	@Override
 	public <T> Future<T> submit(Callable<T> task) {
-		return this.delegate.submit(ContextUtil.isContextUnusable(this.beanFactory) ? task
-				: new TraceCallable<>(tracer(), spanNamer(), task, this.spanName));
+		return this.delegate.submit(ContextUtil.isContextUnusable(this.beanFactory) ? task : wrap(task));
 	}
 
 	@Override
 	public <T> Future<T> submit(Runnable task, T result) {
-		return this.delegate.submit(ContextUtil.isContextUnusable(this.beanFactory) ? task
-				: new TraceRunnable(tracer(), spanNamer(), task, this.spanName), result);
+		return this.delegate.submit(ContextUtil.isContextUnusable(this.beanFactory) ? task : wrap(task), result);
 	}
 
 	@Override
 	public Future<?> submit(Runnable task) {
-		return this.delegate.submit(ContextUtil.isContextUnusable(this.beanFactory) ? task
-				: new TraceRunnable(tracer(), spanNamer(), task, this.spanName));
+		return this.delegate.submit(ContextUtil.isContextUnusable(this.beanFactory) ? task : wrap(task));
 	}
 
 	@Override
@@ -174,12 +170,29 @@ public class TraceableExecutorService implements ExecutorService {
 		List<Callable<T>> ts = new ArrayList<>();
 		for (Callable<T> task : tasks) {
 			if (!(task instanceof TraceCallable)) {
-				ts.add(new TraceCallable<>(tracer(), spanNamer(), task, this.spanName));
+				ts.add(wrap(task));
 			}
 		}
 		return ts;
 	}
 
+	/**
+	 * @param task task to wrap
+	 * @return task that continues the current span in a new one
+	 */
+	Runnable wrap(Runnable task) {
+		return new TraceRunnable(tracer(), spanNamer(), task, this.spanName);
+	}
+
+	/**
+	 * @param task task to wrap
+	 * @param <T> type of the result
+	 * @return task that continues the current span in a new one
+	 */
+	<T> Callable<T> wrap(Callable<T> task) {
+		return new TraceCallable<>(tracer(), spanNamer(), task, this.spanName);
+	}
+
 	Tracer tracer() {
 		if (this.tracer == null && this.beanFactory != null) {
 			this.tracer = this.beanFactory.getBean(Tracer.class);
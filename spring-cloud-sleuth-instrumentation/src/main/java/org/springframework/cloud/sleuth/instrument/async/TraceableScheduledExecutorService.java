@@ -75,32 +75,26 @@ public class TraceableScheduledExecutorService extends TraceableExecutorService
 
 	@Override
 	public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
-		return getScheduledExecutorService().schedule(ContextUtil.isContextUnusable(this.beanFactory) ? command
-				: new TraceRunnable(tracer(), spanNamer(), command, this.spanName), delay, unit);
+		return getScheduledExecutorService()
+				.schedule(ContextUtil.isContextUnusable(this.beanFactory) ? command : wrap(command), delay, unit);
 	}
 
 	@Override
 	public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
-		return getScheduledExecutorService().schedule(ContextUtil.isContextUnusable(this.beanFactory) ? callable
-				: new TraceCallable<>(tracer(), spanNamer(), callable, this.spanName), delay, unit);
+		return getScheduledExecutorService()
+				.schedule(ContextUtil.isContextUnusable(this.beanFactory) ? callable : wrap(callable), delay, unit);
 	}
 
 	@Override
 	public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
-		return getScheduledExecutorService()
-				.scheduleAtFixedRate(
-						ContextUtil.isContextUnusable(this.beanFactory) ? command
-								: new TraceRunnable(tracer(), spanNamer(), command, this.spanName),
-						initialDelay, period, unit);
+		return getScheduledExecutorService().scheduleAtFixedRate(
+				ContextUtil.isContextUnusable(this.beanFactory) ? command : wrap(command), initialDelay, period, unit);
 	}
 
 	@Override
 	public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
-		return getScheduledExecutorService()
-				.scheduleWithFixedDelay(
-						ContextUtil.isContextUnusable(this.beanFactory) ? command
-								: new TraceRunnable(tracer(), spanNamer(), command, this.spanName),
-						initialDelay, delay, unit);
+		return getScheduledExecutorService().scheduleWithFixedDelay(
+				ContextUtil.isContextUnusable(this.beanFactory) ? command : wrap(command), initialDelay, delay, unit);
 	}
 
 }
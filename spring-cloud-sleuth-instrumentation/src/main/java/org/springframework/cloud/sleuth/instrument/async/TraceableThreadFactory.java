@@ -0,0 +1,60 @@
+/*
+ * Copyright 2013-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.instrument.async;
+
+import java.util.concurrent.ThreadFactory;
+
+import org.springframework.cloud.sleuth.CurrentTraceContext;
+
+/**
+ * {@link ThreadFactory} that passes the tracing context of the thread creating a new
+ * thread to that thread. Useful for executors that create a thread for each task, e.g.
+ * with the virtual thread factory on JDK 21 or newer:
+ *
+ * <pre>
+ * Executors.newThreadPerTaskExecutor(
+ *         new TraceableThreadFactory(currentTraceContext, Thread.ofVirtual().factory()));
+ * </pre>
+ *
+ * No span is created for the thread, the task continues the current span.
+ *
+ * The tracing context is captured when the thread is created, not when a task is
+ * submitted. Don't use this factory with thread pools: a pooled thread would keep the
+ * context of whichever thread created it for its whole lifetime and attach it to every
+ * task it runs. Wrap such executors in a {@link TraceableExecutorService} or a
+ * {@link ContextPropagatingExecutorService} instead.
+ *
+ * @author Marcin Grzejszczak
+ * @since 3.1.11
+ */
+public class TraceableThreadFactory implements ThreadFactory {
+
+	private final CurrentTraceContext currentTraceContext;
+
+	private final ThreadFactory delegate;
+
+	public TraceableThreadFactory(CurrentTraceContext currentTraceContext, ThreadFactory delegate) {
+		this.currentTraceContext = currentTraceContext;
+		this.delegate = delegate;
+	}
+
+	@Override
+	public Thread newThread(Runnable runnable) {
+		return this.delegate.newThread(this.currentTraceContext.wrap(runnable));
+	}
+
+}
@@ -47,6 +47,27 @@ enum SleuthJdbcSpan implements DocumentedSpan {
 		}
 	},
 
+	/**
+	 * Span created for the repeated executions of the same JDBC query within the same
+	 * parent span when queries are aggregated.
+	 */
+	JDBC_AGGREGATED_QUERY_SPAN {
+		@Override
+		public String getName() {
+			return "%s";
+		}
+
+		@Override
+		public TagKey[] getTagKeys() {
+			return TagKey.merge(QueryTags.values(), AggregatedQueryTags.values());
+		}
+
+		@Override
+		public String prefix() {
+			return "jdbc.";
+		}
+	},
+
 	/**
 	 * Span created when working with JDBC result set.
 	 */
@@ -140,6 +161,50 @@ enum SleuthJdbcSpan implements DocumentedSpan {
 
 	}
 
+	enum AggregatedQueryTags implements TagKey {
+
+		/**
+		 * Number of repeated executions of the query.
+		 */
+		QUERY_COUNT {
+			@Override
+			public String getKey() {
+				return "jdbc.query.count";
+			}
+		},
+
+		/**
+		 * Shortest execution time of the query in microseconds.
+		 */
+		MIN_TIME {
+			@Override
+			public String getKey() {
+				return "jdbc.query.min-time";
+			}
+		},
+
+		/**
+		 * Longest execution time of the query in microseconds.
+		 */
+		MAX_TIME {
+			@Override
+			public String getKey() {
+				return "jdbc.query.max-time";
+			}
+		},
+
+		/**
+		 * Total execution time of the query in microseconds.
+		 */
+		TOTAL_TIME {
+			@Override
+			public String getKey() {
+				return "jdbc.query.total-time";
+			}
+		}
+
+	}
+
 	enum QueryEvents implements EventValue {
 
 		/**
@@ -67,6 +67,22 @@ public class TraceJdbcEventListener extends SimpleJdbcEventListener implements O
 		this.strategy = new TraceListenerStrategy<>(beanFactory, traceTypes, customizers);
 	}
 
+	/**
+	 * @param aggregateQueries whether the executions of the same query within the same
+	 * parent span should be represented by a single span
+	 */
+	public void setAggregateQueries(boolean aggregateQueries) {
+		this.strategy.setAggregateQueries(aggregateQueries);
+	}
+
+	/**
+	 * @param querySpanRatio ratio of the query executions for which a span is created
+	 * when queries are not aggregated
+	 */
+	public void setQuerySpanRatio(float querySpanRatio) {
+		this.strategy.setQuerySpanRatio(querySpanRatio);
+	}
+
 	@Override
 	public void onBeforeGetConnection(ConnectionInformation connectionInformation) {
 		CommonDataSource dataSource = connectionInformation.getDataSource();
@@ -84,7 +100,8 @@ public class TraceJdbcEventListener extends SimpleJdbcEventListener implements O
 
 	@Override
 	public void onBeforeAnyExecute(StatementInformation statementInformation) {
-		this.strategy.beforeQuery(statementInformation.getConnectionInformation(), statementInformation);
+		this.strategy.beforeQuery(statementInformation.getConnectionInformation(), statementInformation,
+				statementInformation.getSql());
 	}
 
 	@Override
@@ -20,9 +20,13 @@ import java.net.URI;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -37,6 +41,7 @@ import org.springframework.cloud.sleuth.SpanAndScope;
 import org.springframework.cloud.sleuth.Tracer;
 import org.springframework.cloud.sleuth.docs.AssertingSpan;
 import org.springframework.cloud.sleuth.docs.AssertingSpanBuilder;
+import org.springframework.cloud.sleuth.docs.DocumentedSpan;
 import org.springframework.lang.Nullable;
 import org.springframework.util.StringUtils;
 
@@ -55,6 +60,13 @@ import org.springframework.util.StringUtils;
  * Tracking covers such cases as long as resources are closed in the same thread they were
  * opened.
  *
+ * When queries are aggregated, the first execution of an SQL within a parent span on a
+ * connection gets a regular query span. Its repeated executions within the same parent
+ * span are represented by a single span that ends when the connection is closed or when
+ * a query gets executed on the connection within another parent span. The span is tagged
+ * with the number of repeated executions, their shortest, longest and total time and the
+ * number of rows.
+ *
  * Partially taken from
  * https://github.com/openzipkin/brave/blob/v5.6.4/instrumentation/p6spy/src/main/java/brave/p6spy/TracingJdbcEventListener.java
  * and
@@ -87,6 +99,10 @@ class TraceListenerStrategy<CON, STMT, RS> {
 
 	private Tracer tracer;
 
+	private boolean aggregateQueries;
+
+	private float querySpanRatio = 1.0f;
+
 	TraceListenerStrategy(Tracer tracer, List<TraceType> traceTypes,
 			List<TraceListenerStrategySpanCustomizer<? super CommonDataSource>> customizers) {
 		this.traceTypes = traceTypes;
@@ -101,6 +117,14 @@ class TraceListenerStrategy<CON, STMT, RS> {
 		this.beanFactory = beanFactory;
 	}
 
+	void setAggregateQueries(boolean aggregateQueries) {
+		this.aggregateQueries = aggregateQueries;
+	}
+
+	void setQuerySpanRatio(float querySpanRatio) {
+		this.querySpanRatio = querySpanRatio;
+	}
+
 	void beforeGetConnection(CON connectionKey, @Nullable CommonDataSource dataSource, String dataSourceName) {
 		if (log.isTraceEnabled()) {
 			log.trace("Before get connection key [" + connectionKey + "] - current span is ["
@@ -175,7 +199,13 @@ class TraceListenerStrategy<CON, STMT, RS> {
 		return this.currentConnection.get() == connectionInfo;
 	}
 
-	void beforeQuery(CON connectionKey, STMT statementKey) {
+	/**
+	 * @param connectionKey key of the connection
+	 * @param statementKey key of the statement
+	 * @param sql SQL without parameter values, used to aggregate the executions of the
+	 * same query
+	 */
+	void beforeQuery(CON connectionKey, STMT statementKey, @Nullable String sql) {
 		if (log.isTraceEnabled()) {
 			log.trace("Before query - connection [" + connectionKey + "] and current span [" + getTracer().currentSpan()
 					+ "]");
@@ -187,17 +217,18 @@ class TraceListenerStrategy<CON, STMT, RS> {
 			}
 			return;
 		}
+		if (traceTypes.contains(TraceType.QUERY) && this.aggregateQueries && sql != null) {
+			StatementInfo statementInfo = beforeAggregatedQuery(connectionInfo, sql);
+			if (statementInfo != null) {
+				connectionInfo.nestedStatements.put(statementKey, statementInfo);
+				return;
+			}
+		}
 		SpanAndScope spanAndScope = null;
-		if (traceTypes.contains(TraceType.QUERY)) {
-			Span.Builder statementSpanBuilder = AssertingSpanBuilder
-					.of(SleuthJdbcSpan.JDBC_QUERY_SPAN, getTracer().spanBuilder())
-					.name(String.format(SleuthJdbcSpan.JDBC_QUERY_SPAN.getName(), "query"));
-			statementSpanBuilder.remoteServiceName(connectionInfo.remoteServiceName);
-			if (connectionInfo.url != null) {
-				statementSpanBuilder.remoteIpAndPort(connectionInfo.url.getHost(), connectionInfo.url.getPort());
-			}
-			statementSpanBuilder.kind(Span.Kind.CLIENT);
-			Span statementSpan = statementSpanBuilder.start();
+		boolean skipped = traceTypes.contains(TraceType.QUERY) && !isQuerySampled();
+		if (traceTypes.contains(TraceType.QUERY) && !skipped) {
+			Span statementSpan = querySpanBuilder(SleuthJdbcSpan.JDBC_QUERY_SPAN, connectionInfo)
+					.name(String.format(SleuthJdbcSpan.JDBC_QUERY_SPAN.getName(), "query")).start();
 			Tracer.SpanInScope scope = isCurrent(connectionInfo) ? getTracer().withSpan(statementSpan) : null;
 			spanAndScope = new SpanAndScope(statementSpan, scope);
 			if (log.isTraceEnabled()) {
@@ -206,9 +237,62 @@ class TraceListenerStrategy<CON, STMT, RS> {
 			}
 		}
 		StatementInfo statementInfo = new StatementInfo(spanAndScope);
+		statementInfo.skipped = skipped;
 		connectionInfo.nestedStatements.put(statementKey, statementInfo);
 	}
 
+	private boolean isQuerySampled() {
+		float ratio = this.querySpanRatio;
+		return ratio >= 1.0f || (ratio > 0.0f && ThreadLocalRandom.current().nextFloat() < ratio);
+	}
+
+	private Span.Builder querySpanBuilder(DocumentedSpan documentedSpan, ConnectionInfo connectionInfo) {
+		Span.Builder spanBuilder = AssertingSpanBuilder.of(documentedSpan, getTracer().spanBuilder());
+		spanBuilder.remoteServiceName(connectionInfo.remoteServiceName);
+		if (connectionInfo.url != null) {
+			spanBuilder.remoteIpAndPort(connectionInfo.url.getHost(), connectionInfo.url.getPort());
+		}
+		return spanBuilder.kind(Span.Kind.CLIENT);
+	}
+
+	/**
+	 * @return info of a repeated execution of the query or {@code null} if it's the first
+	 * execution within the current parent span, which gets a regular span
+	 */
+	@Nullable
+	private StatementInfo beforeAggregatedQuery(ConnectionInfo connectionInfo, String sql) {
+		Span currentSpan = getTracer().currentSpan();
+		String parentSpanId = currentSpan != null ? currentSpan.context().spanId() : null;
+		if (!Objects.equals(connectionInfo.aggregatesParentSpanId, parentSpanId)) {
+			if (log.isTraceEnabled()) {
+				log.trace("Query is executed within another parent span, will finish the aggregated query spans");
+			}
+			connectionInfo.aggregatedQueries.values().forEach(QueryAggregate::end);
+			connectionInfo.aggregatedQueries.clear();
+			connectionInfo.aggregatesParentSpanId = parentSpanId;
+		}
+		QueryAggregate aggregate = connectionInfo.aggregatedQueries.get(sql);
+		if (aggregate == null) {
+			connectionInfo.aggregatedQueries.put(sql, new QueryAggregate());
+			return null;
+		}
+		if (aggregate.span == null) {
+			Span span = querySpanBuilder(SleuthJdbcSpan.JDBC_AGGREGATED_QUERY_SPAN, connectionInfo)
+					.name(SPAN_NAME_PROVIDER.getSpanNameFor(sql)).start();
+			AssertingSpan.of(SleuthJdbcSpan.JDBC_AGGREGATED_QUERY_SPAN, span).tag(SleuthJdbcSpan.QueryTags.QUERY,
+					sql);
+			aggregate.span = span;
+			if (log.isTraceEnabled()) {
+				log.trace("Started aggregated client span before repeated query [" + span + "]");
+			}
+		}
+		StatementInfo statementInfo = new StatementInfo(null);
+		statementInfo.aggregate = aggregate;
+		statementInfo.aggregateScope = isCurrent(connectionInfo) ? getTracer().withSpan(aggregate.span) : null;
+		statementInfo.startNanos = System.nanoTime();
+		return statementInfo;
+	}
+
 	void addQueryRowCount(CON connectionKey, STMT statementKey, int rowCount) {
 		if (log.isTraceEnabled()) {
 			log.trace("Add query row count for connection key [" + connectionKey + "]");
@@ -221,6 +305,10 @@ class TraceListenerStrategy<CON, STMT, RS> {
 			return;
 		}
 		StatementInfo statementInfo = connectionInfo.nestedStatements.get(statementKey);
+		if (statementInfo.aggregate != null) {
+			statementInfo.aggregate.addRows(rowCount);
+			return;
+		}
 		SpanAndScope statementSpan = statementInfo.span;
 		if (statementSpan != null) {
 			AssertingSpan.of(SleuthJdbcSpan.JDBC_QUERY_SPAN, statementSpan.getSpan())
@@ -242,6 +330,10 @@ class TraceListenerStrategy<CON, STMT, RS> {
 			return;
 		}
 		StatementInfo statementInfo = connectionInfo.nestedStatements.get(statementKey);
+		if (statementInfo.aggregate != null) {
+			afterAggregatedQuery(statementInfo, t);
+			return;
+		}
 		SpanAndScope statementSpan = statementInfo.span;
 		if (statementSpan != null) {
 			AssertingSpan.of(SleuthJdbcSpan.JDBC_QUERY_SPAN, statementSpan.getSpan())
@@ -260,6 +352,18 @@ class TraceListenerStrategy<CON, STMT, RS> {
 		}
 	}
 
+	private void afterAggregatedQuery(StatementInfo statementInfo, @Nullable Throwable t) {
+		QueryAggregate aggregate = statementInfo.aggregate;
+		aggregate.addExecution(System.nanoTime() - statementInfo.startNanos);
+		if (t != null) {
+			aggregate.span.error(t);
+		}
+		if (statementInfo.aggregateScope != null) {
+			statementInfo.aggregateScope.close();
+			statementInfo.aggregateScope = null;
+		}
+	}
+
 	void beforeResultSetNext(CON connectionKey, STMT statementKey, RS resultSetKey) {
 		if (log.isTraceEnabled()) {
 			log.trace("Before result set next");
@@ -281,6 +385,20 @@ class TraceListenerStrategy<CON, STMT, RS> {
 			}
 			return;
 		}
+		StatementInfo statementInfo = connectionInfo.nestedStatements.get(statementKey);
+		if (statementInfo != null && statementInfo.skipped) {
+			if (log.isTraceEnabled()) {
+				log.trace("No span was created for the query, skipping");
+			}
+			return;
+		}
+		if (statementInfo != null && statementInfo.aggregate != null) {
+			// rows are added to the aggregated query span when the result set gets closed
+			if (connectionInfo.aggregatedResultSets.putIfAbsent(resultSetKey, statementInfo.aggregate) == null) {
+				statementInfo.aggregatedResultSets.add(resultSetKey);
+			}
+			return;
+		}
 		AssertingSpanBuilder resultSetSpanBuilder = AssertingSpanBuilder
 				.of(SleuthJdbcSpan.JDBC_RESULT_SET_SPAN, getTracer().spanBuilder())
 				.name(SleuthJdbcSpan.JDBC_RESULT_SET_SPAN.getName());
@@ -297,7 +415,6 @@ class TraceListenerStrategy<CON, STMT, RS> {
 					+ getTracer().currentSpan() + "]");
 		}
 		connectionInfo.nestedResultSetSpans.put(resultSetKey, spanAndScope);
-		StatementInfo statementInfo = connectionInfo.nestedStatements.get(statementKey);
 		// StatementInfo may be null when Statement is proxied and instance returned from
 		// ResultSet is different from instance returned in query method
 		// in this case if Statement is closed before ResultSet span won't be finished
@@ -330,6 +447,7 @@ class TraceListenerStrategy<CON, STMT, RS> {
 				}
 			});
 			statementInfo.nestedResultSetSpans.clear();
+			statementInfo.aggregatedResultSets.forEach(connectionInfo.aggregatedResultSets::remove);
 		}
 	}
 
@@ -345,6 +463,10 @@ class TraceListenerStrategy<CON, STMT, RS> {
 		SpanAndScope resultSetSpan = connectionInfo.nestedResultSetSpans.remove(resultSetKey);
 		// ResultSet span may be null if Statement or ResultSet were already closed
 		if (resultSetSpan == null) {
+			QueryAggregate aggregate = connectionInfo.aggregatedResultSets.remove(resultSetKey);
+			if (aggregate != null && rowCount != -1) {
+				aggregate.addRows(rowCount);
+			}
 			return;
 		}
 		if (rowCount != -1) {
@@ -423,7 +545,11 @@ class TraceListenerStrategy<CON, STMT, RS> {
 			if (statementSpan != null) {
 				statementSpan.close();
 			}
+			if (statementInfo.aggregateScope != null) {
+				statementInfo.aggregateScope.close();
+			}
 		});
+		connectionInfo.aggregatedQueries.values().forEach(QueryAggregate::end);
 		if (log.isTraceEnabled()) {
 			log.trace("Current span after closing statements [" + getTracer().currentSpan() + "]");
 		}
@@ -501,6 +627,16 @@ class TraceListenerStrategy<CON, STMT, RS> {
 
 		final Map<RS, SpanAndScope> nestedResultSetSpans = new ConcurrentHashMap<>();
 
+		/**
+		 * Queries executed within {@link #aggregatesParentSpanId}.
+		 */
+		final Map<String, QueryAggregate> aggregatedQueries = new ConcurrentHashMap<>();
+
+		final Map<RS, QueryAggregate> aggregatedResultSets = new ConcurrentHashMap<>();
+
+		@Nullable
+		String aggregatesParentSpanId;
+
 		@Nullable
 		URI url;
 
@@ -519,12 +655,80 @@ class TraceListenerStrategy<CON, STMT, RS> {
 
 		final Map<RS, SpanAndScope> nestedResultSetSpans = new ConcurrentHashMap<>();
 
+		final List<RS> aggregatedResultSets = new ArrayList<>();
+
+		/**
+		 * No span was created for the statement because it wasn't sampled.
+		 */
+		boolean skipped;
+
+		@Nullable
+		QueryAggregate aggregate;
+
+		@Nullable
+		Tracer.SpanInScope aggregateScope;
+
+		long startNanos;
+
 		StatementInfo(SpanAndScope span) {
 			this.span = span;
 		}
 
 	}
 
+	/**
+	 * Repeated executions of the same query represented by a single span, which is
+	 * started on the first repetition.
+	 */
+	private static final class QueryAggregate {
+
+		@Nullable
+		Span span;
+
+		int count;
+
+		long minNanos = Long.MAX_VALUE;
+
+		long maxNanos;
+
+		long totalNanos;
+
+		long rowCount = -1;
+
+		void addExecution(long nanos) {
+			this.count++;
+			this.minNanos = Math.min(this.minNanos, nanos);
+			this.maxNanos = Math.max(this.maxNanos, nanos);
+			this.totalNanos += nanos;
+		}
+
+		void addRows(int rows) {
+			this.rowCount = this.rowCount == -1 ? rows : this.rowCount + rows;
+		}
+
+		void end() {
+			if (this.span == null) {
+				return;
+			}
+			AssertingSpan aggregatedSpan = AssertingSpan.of(SleuthJdbcSpan.JDBC_AGGREGATED_QUERY_SPAN, this.span)
+					.tag(SleuthJdbcSpan.AggregatedQueryTags.QUERY_COUNT, String.valueOf(this.count));
+			if (this.count > 0) {
+				aggregatedSpan.tag(SleuthJdbcSpan.AggregatedQueryTags.MIN_TIME, micros(this.minNanos))
+						.tag(SleuthJdbcSpan.AggregatedQueryTags.MAX_TIME, micros(this.maxNanos))
+						.tag(SleuthJdbcSpan.AggregatedQueryTags.TOTAL_TIME, micros(this.totalNanos));
+			}
+			if (this.rowCount != -1) {
+				aggregatedSpan.tag(SleuthJdbcSpan.QueryTags.ROW_COUNT, String.valueOf(this.rowCount));
+			}
+			aggregatedSpan.end();
+		}
+
+		private static String micros(long nanos) {
+			return String.valueOf(TimeUnit.NANOSECONDS.toMicros(nanos));
+		}
+
+	}
+
 	private static final class JdbcException extends RuntimeException {
 
 		JdbcException(String message) {
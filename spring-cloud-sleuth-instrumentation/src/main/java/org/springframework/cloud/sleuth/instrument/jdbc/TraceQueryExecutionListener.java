@@ -54,9 +54,25 @@ public class TraceQueryExecutionListener implements QueryExecutionListener, Meth
 		this.strategy = new TraceListenerStrategy<>(beanFactory, traceTypes, customizers);
 	}
 
+	/**
+	 * @param aggregateQueries whether the executions of the same query within the same
+	 * parent span should be represented by a single span
+	 */
+	public void setAggregateQueries(boolean aggregateQueries) {
+		this.strategy.setAggregateQueries(aggregateQueries);
+	}
+
+	/**
+	 * @param querySpanRatio ratio of the query executions for which a span is created
+	 * when queries are not aggregated
+	 */
+	public void setQuerySpanRatio(float querySpanRatio) {
+		this.strategy.setQuerySpanRatio(querySpanRatio);
+	}
+
 	@Override
 	public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
-		this.strategy.beforeQuery(execInfo.getConnectionId(), execInfo.getStatement());
+		this.strategy.beforeQuery(execInfo.getConnectionId(), execInfo.getStatement(), sql(queryInfoList));
 	}
 
 	@Override
@@ -65,8 +81,15 @@ public class TraceQueryExecutionListener implements QueryExecutionListener, Meth
 			this.strategy.addQueryRowCount(execInfo.getConnectionId(), execInfo.getStatement(),
 					(int) execInfo.getResult());
 		}
-		String sql = queryInfoList.stream().map(QueryInfo::getQuery).collect(Collectors.joining("\n"));
-		this.strategy.afterQuery(execInfo.getConnectionId(), execInfo.getStatement(), sql, execInfo.getThrowable());
+		this.strategy.afterQuery(execInfo.getConnectionId(), execInfo.getStatement(), sql(queryInfoList),
+				execInfo.getThrowable());
+	}
+
+	private static String sql(List<QueryInfo> queryInfoList) {
+		if (queryInfoList.size() == 1) {
+			return queryInfoList.get(0).getQuery();
+		}
+		return queryInfoList.stream().map(QueryInfo::getQuery).collect(Collectors.joining("\n"));
 	}
 
 	@Override
@@ -21,6 +21,7 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 
 import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.Tracer;
 import org.springframework.cloud.sleuth.docs.AssertingSpanBuilder;
 import org.springframework.cloud.sleuth.propagation.Propagator;
 
@@ -40,6 +41,16 @@ final class KafkaTracingUtils {
 		span.end();
 	}
 
+	static void buildAndFinishPollSpan(Tracer tracer, int records) {
+		Span span = AssertingSpanBuilder.of(SleuthKafkaSpan.KAFKA_POLL_SPAN, tracer.spanBuilder())
+				.kind(Span.Kind.CONSUMER).name(SleuthKafkaSpan.KAFKA_POLL_SPAN.getName())
+				.tag(SleuthKafkaSpan.PollTags.RECORDS, Integer.toString(records)).start();
+		if (log.isDebugEnabled()) {
+			log.debug("Created span for the poll " + span);
+		}
+		span.end();
+	}
+
 	static <K, V> Span buildSpan(SleuthKafkaSpan sleuthKafkaSpan, ConsumerRecord<K, V> consumerRecord,
 			Propagator propagator, Propagator.Getter<ConsumerRecord<?, ?>> extractor) {
 		// @formatter:off
@@ -61,6 +61,26 @@ enum SleuthKafkaSpan implements DocumentedSpan {
 		}
 	},
 
+	/**
+	 * Span created on the Kafka consumer side for a poll that returned records.
+	 */
+	KAFKA_POLL_SPAN {
+		@Override
+		public String getName() {
+			return "kafka.poll";
+		}
+
+		@Override
+		public TagKey[] getTagKeys() {
+			return PollTags.values();
+		}
+
+		@Override
+		public String prefix() {
+			return "kafka.";
+		}
+	},
+
 	/**
 	 * Span created on the Kafka consumer side.
 	 */
@@ -115,6 +135,20 @@ enum SleuthKafkaSpan implements DocumentedSpan {
 
 	}
 
+	enum PollTags implements TagKey {
+
+		/**
+		 * Number of records returned by the poll.
+		 */
+		RECORDS {
+			@Override
+			public String getKey() {
+				return "kafka.records";
+			}
+		}
+
+	}
+
 	enum ProducerTags implements TagKey {
 
 		/**
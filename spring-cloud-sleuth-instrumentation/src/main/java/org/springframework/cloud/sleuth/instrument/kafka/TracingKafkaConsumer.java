@@ -39,6 +39,7 @@ import org.apache.kafka.common.TopicPartition;
 
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.Tracer;
 import org.springframework.cloud.sleuth.propagation.Propagator;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.core.ResolvableType;
@@ -48,6 +49,12 @@ import org.springframework.core.ResolvableType;
  * {@link Span.Kind#CONSUMER} span for each record received. This span will be a child
  * span of the one extracted from the record headers.
  *
+ * Alternatively a single span is created for each poll that returned records. It's
+ * created once the poll returned, since a span can't be backdated, so empty polls don't
+ * touch the tracer. Then the headers of the records aren't read on the polling thread,
+ * the tracing context of a record is only extracted when it gets processed (e.g. by a
+ * listener). Spans for a ratio of the records can still be created.
+ *
  * @author Anders Clausen
  * @author Flaviu Muresan
  * @since 3.1.0
@@ -58,13 +65,49 @@ public class TracingKafkaConsumer<K, V> implements Consumer<K, V> {
 
 	private final Consumer<K, V> delegate;
 
+	private final boolean pollSpan;
+
+	private final int recordSpanStride;
+
+	private Tracer tracer;
+
 	private Propagator propagator;
 
 	private Propagator.Getter<ConsumerRecord<?, ?>> extractor;
 
 	public TracingKafkaConsumer(Consumer<K, V> consumer, BeanFactory beanFactory) {
+		this(consumer, beanFactory, false, 0.0f);
+	}
+
+	/**
+	 * @param consumer consumer to decorate
+	 * @param beanFactory bean factory
+	 * @param pollSpan whether a single span should be created for each poll instead of a
+	 * span for each record
+	 * @param recordSpanRatio ratio of the records for which a span is still created when
+	 * a span is created for each poll
+	 */
+	public TracingKafkaConsumer(Consumer<K, V> consumer, BeanFactory beanFactory, boolean pollSpan,
+			float recordSpanRatio) {
 		this.delegate = consumer;
 		this.beanFactory = beanFactory;
+		this.pollSpan = pollSpan;
+		this.recordSpanStride = recordSpanStride(pollSpan, recordSpanRatio);
+	}
+
+	private static int recordSpanStride(boolean pollSpan, float recordSpanRatio) {
+		if (!pollSpan) {
+			return 1;
+		}
+		// e.g. with a ratio of 0.1 a span is created for every tenth record
+		return recordSpanRatio <= 0.0f ? 0 : Math.round(1.0f / Math.min(recordSpanRatio, 1.0f));
+	}
+
+	private Tracer tracer() {
+		if (this.tracer == null) {
+			this.tracer = this.beanFactory.getBean(Tracer.class);
+		}
+		return this.tracer;
 	}
 
 	private Propagator propagator() {
@@ -128,20 +171,30 @@ public class TracingKafkaConsumer<K, V> implements Consumer<K, V> {
 	@Deprecated
 	@Override
 	public ConsumerRecords<K, V> poll(long l) {
-		ConsumerRecords<K, V> consumerRecords = this.delegate.poll(l);
-		for (ConsumerRecord<K, V> consumerRecord : consumerRecords) {
-			KafkaTracingUtils.buildAndFinishSpan(SleuthKafkaSpan.KAFKA_CONSUMER_SPAN, consumerRecord, propagator(),
-					extractor());
-		}
-		return consumerRecords;
+		return trace(this.delegate.poll(l));
 	}
 
 	@Override
 	public ConsumerRecords<K, V> poll(Duration duration) {
-		ConsumerRecords<K, V> consumerRecords = this.delegate.poll(duration);
+		return trace(this.delegate.poll(duration));
+	}
+
+	private ConsumerRecords<K, V> trace(ConsumerRecords<K, V> consumerRecords) {
+		if (consumerRecords.isEmpty()) {
+			return consumerRecords;
+		}
+		if (this.pollSpan) {
+			KafkaTracingUtils.buildAndFinishPollSpan(tracer(), consumerRecords.count());
+			if (this.recordSpanStride == 0) {
+				return consumerRecords;
+			}
+		}
+		int index = 0;
 		for (ConsumerRecord<K, V> consumerRecord : consumerRecords) {
-			KafkaTracingUtils.buildAndFinishSpan(SleuthKafkaSpan.KAFKA_CONSUMER_SPAN, consumerRecord, propagator(),
-					extractor());
+			if (index++ % this.recordSpanStride == 0) {
+				KafkaTracingUtils.buildAndFinishSpan(SleuthKafkaSpan.KAFKA_CONSUMER_SPAN, consumerRecord, propagator(),
+						extractor());
+			}
 		}
 		return consumerRecords;
 	}
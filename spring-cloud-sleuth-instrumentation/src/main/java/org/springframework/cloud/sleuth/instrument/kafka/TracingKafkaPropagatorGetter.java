@@ -16,11 +16,12 @@
 
 package org.springframework.cloud.sleuth.instrument.kafka;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Iterator;
-import java.util.Optional;
 
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
 
 import org.springframework.cloud.sleuth.propagation.Propagator;
 
@@ -36,9 +37,17 @@ public class TracingKafkaPropagatorGetter implements Propagator.Getter<ConsumerR
 
 	@Override
 	public String get(ConsumerRecord<?, ?> carrier, String key) {
-		return Optional.ofNullable(carrier).map(ConsumerRecord::headers).map(headers -> headers.headers(key))
-				.map(Iterable::iterator).filter(Iterator::hasNext).map(Iterator::next).map(Header::value)
-				.map(String::new).orElse(null);
+		Headers headers = carrier != null ? carrier.headers() : null;
+		if (headers == null) {
+			return null;
+		}
+		// only the first header with the given key is decoded
+		Iterator<Header> iterator = headers.headers(key).iterator();
+		if (!iterator.hasNext()) {
+			return null;
+		}
+		byte[] value = iterator.next().value();
+		return value != null ? new String(value, StandardCharsets.UTF_8) : null;
 	}
 
 }
@@ -59,48 +59,51 @@ public class MessageHeaderPropagatorGetter implements Propagator.Getter<MessageH
 	}
 
 	private String doGet(MessageHeaderAccessor accessor, String key) {
-		if (accessor instanceof NativeMessageHeaderAccessor) {
-			NativeMessageHeaderAccessor nativeAccessor = (NativeMessageHeaderAccessor) accessor;
-			Map<String, List<String>> nativeHeadersMap = nativeAccessor.toNativeHeaderMap();
+		// same map as NativeMessageHeaderAccessor#toNativeHeaderMap, without the copy
+		Object nativeHeaders = accessor.getHeader(NativeMessageHeaderAccessor.NATIVE_HEADERS);
+		if (nativeHeaders instanceof Map) {
+			Map nativeHeadersMap = (Map) nativeHeaders;
 			if (!nativeHeadersMap.isEmpty()) {
 				return getFromNativeHeaders(nativeHeadersMap, key);
 			}
 		}
-		else {
-			Object nativeHeaders = accessor.getHeader(NativeMessageHeaderAccessor.NATIVE_HEADERS);
-			if (nativeHeaders instanceof Map) {
-				Map nativeHeadersMap = (Map) nativeHeaders;
-				if (!nativeHeadersMap.isEmpty()) {
-					return getFromNativeHeaders(nativeHeadersMap, key);
-				}
-			}
-		}
-		Set<Map.Entry<String, Object>> headerEntries = accessor.getMessageHeaders().entrySet();
-		return getFromHeaders(headerEntries, key);
+		return getFromHeaders(accessor, key);
 	}
 
-	private String getFromHeaders(Set<Map.Entry<String, Object>> headerEntries, String key) {
-		for (Map.Entry<String, Object> entry : headerEntries) {
+	private String getFromHeaders(MessageHeaderAccessor accessor, String key) {
+		Object result = accessor.getHeader(key);
+		if (result != null) {
+			return headerValue(result);
+		}
+		for (Map.Entry<String, Object> entry : accessor.getMessageHeaders().entrySet()) {
 			if (entry.getKey().equalsIgnoreCase(key)) {
-				Object result = entry.getValue();
+				result = entry.getValue();
 				if (result != null) {
-					if (result instanceof byte[]) {
-						return new String((byte[]) result, StandardCharsets.UTF_8);
-					}
-					return result.toString();
+					return headerValue(result);
 				}
 			}
 		}
 		return null;
 	}
 
+	private static String headerValue(Object value) {
+		if (value instanceof byte[]) {
+			return new String((byte[]) value, StandardCharsets.UTF_8);
+		}
+		return value.toString();
+	}
+
 	private String getFromNativeHeaders(Map nativeHeaders, String key) {
+		Object result = nativeHeaders.get(key);
+		if (result instanceof List && !((List) result).isEmpty()) {
+			return String.valueOf(((List) result).get(0));
+		}
 		Set<Map.Entry> entrySet = nativeHeaders.entrySet();
 		for (Map.Entry entries : entrySet) {
 			if (entries.getKey() instanceof String) {
 				String headersKey = (String) entries.getKey();
 				if (headersKey.equalsIgnoreCase(key)) {
-					Object result = entries.getValue();
+					result = entries.getValue();
 					if (result instanceof List && !((List) result).isEmpty()) {
 						return String.valueOf(((List) result).get(0));
 					}
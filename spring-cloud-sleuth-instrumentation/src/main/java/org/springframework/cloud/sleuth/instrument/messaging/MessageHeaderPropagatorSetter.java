@@ -52,23 +52,38 @@ public class MessageHeaderPropagatorSetter implements Propagator.Setter<MessageH
 		return headersToCopy;
 	}
 
-	static void removeAnyTraceHeaders(MessageHeaderAccessor accessor, List<String> keysToRemove) {
+	/**
+	 * Removes the given headers, both the message and the native ones.
+	 * @param accessor accessor of the headers
+	 * @param keysToRemove names of the headers to remove
+	 * @return {@code true} if any header was removed
+	 */
+	static boolean removeAnyTraceHeaders(MessageHeaderAccessor accessor, List<String> keysToRemove) {
+		boolean removed = false;
 		for (String keyToRemove : keysToRemove) {
-			accessor.removeHeader(keyToRemove);
+			if (accessor.getHeader(keyToRemove) != null) {
+				accessor.removeHeader(keyToRemove);
+				removed = true;
+			}
+			Object nativeHeaders = accessor.getHeader(NativeMessageHeaderAccessor.NATIVE_HEADERS);
+			if (!(nativeHeaders instanceof Map) || !((Map) nativeHeaders).containsKey(keyToRemove)) {
+				// don't copy the native headers when there's nothing to remove
+				continue;
+			}
 			if (accessor instanceof NativeMessageHeaderAccessor) {
 				NativeMessageHeaderAccessor nativeAccessor = (NativeMessageHeaderAccessor) accessor;
 				if (accessor.isMutable()) {
 					// 1184 native headers can be an immutable map
 					ensureNativeHeadersAreMutable(nativeAccessor).removeNativeHeader(keyToRemove);
+					removed = true;
 				}
 			}
 			else {
-				Object nativeHeaders = accessor.getHeader(NativeMessageHeaderAccessor.NATIVE_HEADERS);
-				if (nativeHeaders instanceof Map) {
-					((Map) nativeHeaders).remove(keyToRemove);
-				}
+				((Map) nativeHeaders).remove(keyToRemove);
+				removed = true;
 			}
 		}
+		return removed;
 	}
 
 	/**
@@ -25,8 +25,14 @@ import java.util.concurrent.ConcurrentHashMap;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscription;
+import reactor.core.CoreSubscriber;
+import reactor.core.Scannable;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxOperator;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Operators;
+import reactor.util.context.Context;
 
 import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
 import org.springframework.cloud.function.context.catalog.FunctionAroundWrapper;
@@ -193,19 +199,7 @@ public class TraceFunctionAroundWrapper extends FunctionAroundWrapper
 		if (log.isDebugEnabled()) {
 			log.debug("Will instrument a stream Flux function");
 		}
-		Flux<Message> flux = Flux.from(messagePublisher)
-				// ensure there are no previous spans
-				.doOnNext(m -> tracer.withSpan(null))
-				.map(msg -> this.traceMessageHandler.wrapInputMessage(msg,
-						inputDestination(targetFunction.getFunctionDefinition())))
-				.flatMap(msg -> Flux.deferContextual(ctx -> {
-					MessageAndSpansAndScope messageAndSpansAndScope = ctx.get(MessageAndSpansAndScope.class);
-					messageAndSpansAndScope.messageAndSpans = msg;
-					messageAndSpansAndScope.span = msg.childSpan;
-					setNameAndTag(targetFunction, msg.childSpan);
-					messageAndSpansAndScope.scope = tracer.withSpan(msg.childSpan);
-					return Mono.just(msg.msg);
-				}));
+		Flux<Message> flux = new FluxInputMessage(Flux.from(messagePublisher), this, targetFunction);
 		if (targetFunction.isConsumer()) {
 			return targetFunction.apply(reactorStreamConsumer(flux));
 		}
@@ -216,6 +210,27 @@ public class TraceFunctionAroundWrapper extends FunctionAroundWrapper
 		return messageFlux(targetFunction, (Flux<Message>) function);
 	}
 
+	/**
+	 * Wraps the input message and places its span in scope until the function emits the
+	 * output message.
+	 * @param message input message
+	 * @param messageAndSpansAndScope holder of the spans of the processed message
+	 * @param targetFunction function that processes the message
+	 * @return message that will be passed to the function
+	 */
+	private Message scopeInputMessage(Message message, MessageAndSpansAndScope messageAndSpansAndScope,
+			SimpleFunctionRegistry.FunctionInvocationWrapper targetFunction) {
+		// ensure there are no previous spans
+		this.tracer.withSpan(null);
+		MessageAndSpans msg = this.traceMessageHandler.wrapInputMessage(message,
+				inputDestination(targetFunction.getFunctionDefinition()));
+		messageAndSpansAndScope.messageAndSpans = msg;
+		messageAndSpansAndScope.span = msg.childSpan;
+		setNameAndTag(targetFunction, msg.childSpan);
+		messageAndSpansAndScope.scope = this.tracer.withSpan(msg.childSpan);
+		return msg.msg;
+	}
+
 	private Flux<Message> messageFlux(SimpleFunctionRegistry.FunctionInvocationWrapper targetFunction,
 			Flux<Message> function) {
 		return Flux.deferContextual(contextView -> {
@@ -412,6 +427,133 @@ public class TraceFunctionAroundWrapper extends FunctionAroundWrapper
 		this.functionToDestinationCache.clear();
 	}
 
+	/**
+	 * Scopes the span of each input message inline, instead of a {@code flatMap} with an
+	 * inner publisher per message. Requests are passed through as they are, so the
+	 * prefetch and ordering of the function are kept.
+	 */
+	private static final class FluxInputMessage extends FluxOperator<Message, Message> {
+
+		final TraceFunctionAroundWrapper wrapper;
+
+		final SimpleFunctionRegistry.FunctionInvocationWrapper targetFunction;
+
+		FluxInputMessage(Flux<Message> source, TraceFunctionAroundWrapper wrapper,
+				SimpleFunctionRegistry.FunctionInvocationWrapper targetFunction) {
+			super(source);
+			this.wrapper = wrapper;
+			this.targetFunction = targetFunction;
+		}
+
+		@Override
+		public void subscribe(CoreSubscriber<? super Message> actual) {
+			this.source.subscribe(new InputMessageSubscriber(actual, this.wrapper, this.targetFunction,
+					actual.currentContext().get(MessageAndSpansAndScope.class)));
+		}
+
+	}
+
+	private static final class InputMessageSubscriber implements CoreSubscriber<Message>, Subscription, Scannable {
+
+		final CoreSubscriber<? super Message> actual;
+
+		final TraceFunctionAroundWrapper wrapper;
+
+		final SimpleFunctionRegistry.FunctionInvocationWrapper targetFunction;
+
+		final MessageAndSpansAndScope messageAndSpansAndScope;
+
+		Subscription parent;
+
+		boolean done;
+
+		InputMessageSubscriber(CoreSubscriber<? super Message> actual, TraceFunctionAroundWrapper wrapper,
+				SimpleFunctionRegistry.FunctionInvocationWrapper targetFunction,
+				MessageAndSpansAndScope messageAndSpansAndScope) {
+			this.actual = actual;
+			this.wrapper = wrapper;
+			this.targetFunction = targetFunction;
+			this.messageAndSpansAndScope = messageAndSpansAndScope;
+		}
+
+		@Override
+		public void onSubscribe(Subscription subscription) {
+			if (Operators.validate(this.parent, subscription)) {
+				this.parent = subscription;
+				this.actual.onSubscribe(this);
+			}
+		}
+
+		@Override
+		public void onNext(Message message) {
+			if (this.done) {
+				Operators.onNextDropped(message, this.actual.currentContext());
+				return;
+			}
+			Message msg;
+			try {
+				msg = this.wrapper.scopeInputMessage(message, this.messageAndSpansAndScope, this.targetFunction);
+			}
+			catch (Throwable ex) {
+				onError(Operators.onOperatorError(this.parent, ex, message, this.actual.currentContext()));
+				return;
+			}
+			this.actual.onNext(msg);
+		}
+
+		@Override
+		public void onError(Throwable error) {
+			if (this.done) {
+				Operators.onErrorDropped(error, this.actual.currentContext());
+				return;
+			}
+			this.done = true;
+			this.actual.onError(error);
+		}
+
+		@Override
+		public void onComplete() {
+			if (this.done) {
+				return;
+			}
+			this.done = true;
+			this.actual.onComplete();
+		}
+
+		@Override
+		public void request(long n) {
+			this.parent.request(n);
+		}
+
+		@Override
+		public void cancel() {
+			this.parent.cancel();
+		}
+
+		@Override
+		public Context currentContext() {
+			return this.actual.currentContext();
+		}
+
+		@Override
+		public Object scanUnsafe(Attr key) {
+			if (key == Attr.ACTUAL) {
+				return this.actual;
+			}
+			if (key == Attr.PARENT) {
+				return this.parent;
+			}
+			if (key == Attr.TERMINATED) {
+				return this.done;
+			}
+			if (key == Attr.RUN_STYLE) {
+				return Attr.RunStyle.SYNC;
+			}
+			return null;
+		}
+
+	}
+
 	static class MessageAndSpansAndScope {
 
 		MessageAndSpans messageAndSpans;
@@ -106,6 +106,8 @@ public final class TracingChannelInterceptor implements ExecutorChannelIntercept
 
 	private ApplicationContext applicationContext;
 
+	private boolean copyHeaders = true;
+
 	public TracingChannelInterceptor(Tracer tracer, Propagator propagator,
 			Propagator.Setter<MessageHeaderAccessor> setter, Propagator.Getter<MessageHeaderAccessor> getter,
 			Function<String, String> remoteServiceNameMapper, MessageSpanCustomizer messageSpanCustomizer) {
@@ -123,6 +125,17 @@ public final class TracingChannelInterceptor implements ExecutorChannelIntercept
 		this.applicationContext = applicationContext;
 	}
 
+	/**
+	 * When disabled, the header accessor to which the trace headers were injected on send
+	 * becomes the headers of the output message, instead of copying the headers into a
+	 * new accessor and then into new {@link MessageHeaders}. Trace headers of the
+	 * original message that the propagator didn't inject again are not retained.
+	 * @param copyHeaders whether the headers should be copied on send
+	 */
+	public void setCopyHeaders(boolean copyHeaders) {
+		this.copyHeaders = copyHeaders;
+	}
+
 	/**
 	 * Starts and propagates {@link Span.Kind#PRODUCER} span for each message sent.
 	 */
@@ -179,6 +192,16 @@ public final class TracingChannelInterceptor implements ExecutorChannelIntercept
 
 	private Message<?> outputMessage(Message<?> originalMessage, Message<?> retrievedMessage,
 			MessageHeaderAccessor additionalHeaders) {
+		if (!this.copyHeaders && originalMessage == retrievedMessage && !(originalMessage instanceof ErrorMessage)) {
+			// the accessor already holds all the headers of the message
+			if (!isWebSockets(additionalHeaders)) {
+				// the accessor dropped the id and the timestamp of the message, sealing it
+				// adds new ones like creating new MessageHeaders on the default path does
+				additionalHeaders.setEnableTimestamp(true);
+				additionalHeaders.setImmutable();
+			}
+			return new GenericMessage<>(originalMessage.getPayload(), additionalHeaders.getMessageHeaders());
+		}
 		MessageHeaderAccessor headers = mutableHeaderAccessor(originalMessage);
 		if (originalMessage instanceof ErrorMessage) {
 			ErrorMessage errorMessage = (ErrorMessage) originalMessage;
@@ -272,10 +295,14 @@ public final class TracingChannelInterceptor implements ExecutorChannelIntercept
 		// remove any trace headers, but don't re-inject as we are synchronously
 		// processing the
 		// message and can rely on scoping to access this span later.
-		MessageHeaderPropagatorSetter.removeAnyTraceHeaders(headers, this.propagator.fields());
+		boolean removed = MessageHeaderPropagatorSetter.removeAnyTraceHeaders(headers, this.propagator.fields());
 		if (log.isDebugEnabled()) {
 			log.debug("Created a new span in before handle " + handle);
 		}
+		if (!removed) {
+			// no trace headers, no need to copy the message
+			return message;
+		}
 		if (message instanceof ErrorMessage) {
 			return new ErrorMessage((Throwable) message.getPayload(), headers.getMessageHeaders());
 		}
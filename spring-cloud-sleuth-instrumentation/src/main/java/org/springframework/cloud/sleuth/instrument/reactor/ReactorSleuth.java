@@ -16,8 +16,6 @@
 
 package org.springframework.cloud.sleuth.instrument.reactor;
 
-import java.util.AbstractQueue;
-import java.util.Iterator;
 import java.util.Queue;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
@@ -241,6 +239,47 @@ public abstract class ReactorSleuth {
 		});
 	}
 
+	/**
+	 * Creates an operator that puts the current trace context into the Reactor context
+	 * of the subscriber, but doesn't wrap the signals in a scope. Used by
+	 * {@code InstrumentationType#DECORATE_CONTEXT} together with
+	 * {@link #traceContextOnScheduleHook(ConfigurableApplicationContext)}, so the thread
+	 * local trace context is only restored when work is moved to another thread.
+	 * @param springContext the Spring context.
+	 * @param <T> an arbitrary type that is left unchanged by the span operator.
+	 * @return operator to apply to {@link Hooks#onLastOperator(Function)}
+	 */
+	public static <T> Function<? super Publisher<T>, ? extends Publisher<T>> traceContextOperator(
+			ConfigurableApplicationContext springContext) {
+		if (log.isTraceEnabled()) {
+			log.trace("Trace context passing operator [" + springContext + "]");
+		}
+
+		LazyBean<Tracer> lazyTracer = LazyBean.create(springContext, Tracer.class);
+		LazyBean<CurrentTraceContext> lazyCurrentTraceContext = LazyBean.create(springContext,
+				CurrentTraceContext.class);
+
+		return Operators.liftPublisher(p -> !(p instanceof Fuseable.ScalarCallable) && springContext.isActive(),
+				(p, sub) -> {
+					CurrentTraceContext currentTraceContext = lazyCurrentTraceContext.get();
+					if (currentTraceContext == null) {
+						return sub;
+					}
+					Context ctxBefore = context(sub);
+					Context context = contextWithBeans(ctxBefore, lazyTracer, lazyCurrentTraceContext);
+					if (!context.hasKey(TraceContext.class)) {
+						TraceContext traceContext = currentTraceContext.context();
+						if (traceContext != null) {
+							context = context.put(TraceContext.class, traceContext);
+						}
+					}
+					if (context == ctxBefore) {
+						return sub;
+					}
+					return new SleuthContextOperator<>(context, sub);
+				});
+	}
+
 	/**
 	 * Creates tracing context capturing reactor operator. Used by
 	 * {@code InstrumentationType#DECORATE_ON_EACH}.
@@ -338,6 +377,41 @@ public abstract class ReactorSleuth {
 		};
 	}
 
+	/**
+	 * Creates a schedule hook that puts the trace context of the scheduled work in scope
+	 * while it runs. Used by {@code InstrumentationType#DECORATE_CONTEXT}, where signals
+	 * aren't wrapped in a scope, so the thread scheduling the work (e.g. an event loop)
+	 * doesn't necessarily have the right trace context. Operators such as
+	 * {@code publishOn} and {@code subscribeOn} schedule their subscriber, so the trace
+	 * context is taken from its Reactor context. For other work the trace context of the
+	 * scheduling thread is used.
+	 * @param springContext the Spring context.
+	 * @return hook to apply to {@link reactor.core.scheduler.Schedulers#onScheduleHook}
+	 * @since 3.1.11
+	 */
+	public static Function<Runnable, Runnable> traceContextOnScheduleHook(
+			ConfigurableApplicationContext springContext) {
+		LazyBean<CurrentTraceContext> lazyCurrentTraceContext = LazyBean.create(springContext,
+				CurrentTraceContext.class);
+		return delegate -> {
+			if (!springContext.isActive()) {
+				return delegate;
+			}
+			final CurrentTraceContext currentTraceContext = lazyCurrentTraceContext.get();
+			if (currentTraceContext == null) {
+				return delegate;
+			}
+			final TraceContext traceContext = delegate instanceof CoreSubscriber
+					? traceContext(context((CoreSubscriber<?>) delegate), currentTraceContext)
+					: currentTraceContext.context();
+			return () -> {
+				try (CurrentTraceContext.Scope scope = currentTraceContext.maybeScope(traceContext)) {
+					delegate.run();
+				}
+			};
+		};
+	}
+
 	/**
 	 * Wraps the given Mono in a trace representation. Retrieves the span from context,
 	 * creates a child span with the given name.
@@ -687,118 +761,7 @@ public abstract class ReactorSleuth {
 			return queue;
 		}
 		CurrentTraceContext currentTraceContext = springContext.getBean(CurrentTraceContext.class);
-		@SuppressWarnings("unchecked")
-		Queue envelopeQueue = queue;
-		return new AbstractQueue<Object>() {
-
-			boolean cleanOnNull;
-
-			boolean hasPrevious = false;
-
-			Thread lastReader;
-
-			@Override
-			public int size() {
-				return envelopeQueue.size();
-			}
-
-			@Override
-			public boolean offer(Object o) {
-				TraceContext traceContext = currentTraceContext.context();
-				return envelopeQueue.offer(new Envelope(o, traceContext));
-			}
-
-			@Override
-			public Object poll() {
-				Object object = envelopeQueue.poll();
-				if (object == null) {
-					if (cleanOnNull) {
-						// to clear thread-local if was just restored
-						currentTraceContext.maybeScope(null);
-					}
-					cleanOnNull = true;
-					lastReader = Thread.currentThread();
-					hasPrevious = false;
-					return null;
-				}
-				else if (object instanceof Envelope) {
-					Envelope envelope = (Envelope) object;
-					restoreTheContext(envelope);
-					hasPrevious = true;
-					return envelope.body;
-				}
-				hasPrevious = true;
-				return object;
-			}
-
-			private void restoreTheContext(Envelope envelope) {
-				TraceContext traceContext = envelope.traceContext;
-				if (traceContext != null) {
-					if (!traceContext.equals(currentTraceContext.context())) {
-						if (!hasPrevious || !Thread.currentThread().equals(this.lastReader)) {
-							// means context was restored form the envelope, thus it has
-							// to be cleared
-							cleanOnNull = true;
-							lastReader = Thread.currentThread();
-						}
-						currentTraceContext.maybeScope(traceContext);
-					}
-					else if (!hasPrevious || !Thread.currentThread().equals(this.lastReader)) {
-						// means same context was already available, no need to clean
-						// anything
-						cleanOnNull = false;
-						lastReader = Thread.currentThread();
-					}
-				}
-			}
-
-			@Override
-			public Object peek() {
-				Object peek = queue.peek();
-				if (peek instanceof Envelope) {
-					Envelope envelope = (Envelope) peek;
-					restoreTheContext(envelope);
-					return (envelope).body;
-				}
-				return peek;
-			}
-
-			@Override
-			@SuppressWarnings("unchecked")
-			public Iterator<Object> iterator() {
-				Iterator<?> iterator = queue.iterator();
-				return new Iterator<Object>() {
-					@Override
-					public boolean hasNext() {
-						return iterator.hasNext();
-					}
-
-					@Override
-					public Object next() {
-						Object next = iterator.next();
-						if (next instanceof Envelope) {
-							Envelope envelope = (Envelope) next;
-							restoreTheContext(envelope);
-							return (envelope).body;
-						}
-						return next;
-					}
-				};
-			}
-		};
-	}
-
-	static class Envelope {
-
-		final Object body;
-
-		final TraceContext traceContext;
-
-		Envelope(Object body, TraceContext traceContext) {
-			this.body = body;
-			this.traceContext = traceContext;
-		}
-
+		return new TraceContextQueue(currentTraceContext, queue);
 	}
 
 }
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2013-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.instrument.reactor;
+
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.cloud.sleuth.CurrentTraceContext;
+import org.springframework.cloud.sleuth.TraceContext;
+
+/**
+ * Queue that passes the trace context of the producer to the consumer of the elements.
+ * Instead of wrapping each element, the trace context is stored only when it changes: an
+ * element offered with a different trace context than the previous one is wrapped in an
+ * {@link Envelope} that starts a run, and the following elements with the same trace
+ * context are queued as they are. The consumer restores the trace context of the current
+ * run. While the same reader polls elements of a run, the trace context that was restored
+ * for the run is still in scope, so it isn't looked up again.
+ *
+ * Reactor queues have a single consumer, but some of them have multiple producers. The
+ * producer that decides whether an element continues the run has to queue it before
+ * another producer starts a new run, so that decision is only taken by the producer that
+ * holds {@link #producer}. Concurrent producers wrap their elements in envelopes that
+ * apply only to the element itself.
+ *
+ * @author Marcin Grzejszczak
+ * @since 3.1.11
+ */
+final class TraceContextQueue extends AbstractQueue<Object> {
+
+	private final CurrentTraceContext currentTraceContext;
+
+	private final Queue<Object> queue;
+
+	private final AtomicReference<Thread> producer = new AtomicReference<>();
+
+	/**
+	 * Trace context of the current run on the producer side, guarded by
+	 * {@link #producer}.
+	 */
+	private TraceContext offeredContext;
+
+	private boolean offered;
+
+	/**
+	 * Trace context of the current run on the consumer side.
+	 */
+	private TraceContext polledContext;
+
+	/**
+	 * Trace context that is in scope on {@link #lastReader} since the previous poll.
+	 */
+	private TraceContext restoredContext;
+
+	private boolean cleanOnNull;
+
+	private boolean hasPrevious;
+
+	private Thread lastReader;
+
+	@SuppressWarnings("unchecked")
+	TraceContextQueue(CurrentTraceContext currentTraceContext, Queue<?> queue) {
+		this.currentTraceContext = currentTraceContext;
+		this.queue = (Queue<Object>) queue;
+	}
+
+	@Override
+	public int size() {
+		return this.queue.size();
+	}
+
+	@Override
+	public boolean offer(Object o) {
+		TraceContext traceContext = this.currentTraceContext.context();
+		if (!this.producer.compareAndSet(null, Thread.currentThread())) {
+			return this.queue.offer(new Envelope(o, traceContext, false));
+		}
+		try {
+			if (this.offered && sameContext(traceContext, this.offeredContext)) {
+				return this.queue.offer(o);
+			}
+			boolean offered = this.queue.offer(new Envelope(o, traceContext, true));
+			if (offered) {
+				this.offeredContext = traceContext;
+				this.offered = true;
+			}
+			return offered;
+		}
+		finally {
+			this.producer.set(null);
+		}
+	}
+
+	@Override
+	public Object poll() {
+		Object object = this.queue.poll();
+		if (object == null) {
+			if (this.cleanOnNull) {
+				// to clear thread-local if was just restored
+				this.currentTraceContext.maybeScope(null);
+			}
+			this.cleanOnNull = true;
+			this.lastReader = Thread.currentThread();
+			this.hasPrevious = false;
+			return null;
+		}
+		Object body = object;
+		TraceContext traceContext = this.polledContext;
+		if (object instanceof Envelope) {
+			Envelope envelope = (Envelope) object;
+			if (envelope.startsRun) {
+				this.polledContext = envelope.traceContext;
+			}
+			traceContext = envelope.traceContext;
+			body = envelope.body;
+		}
+		restoreTheContext(traceContext);
+		this.hasPrevious = true;
+		return body;
+	}
+
+	private void restoreTheContext(TraceContext traceContext) {
+		if (traceContext == null) {
+			this.restoredContext = null;
+			return;
+		}
+		boolean sameReader = this.hasPrevious && Thread.currentThread().equals(this.lastReader);
+		if (sameReader && traceContext == this.restoredContext) {
+			return;
+		}
+		this.restoredContext = traceContext;
+		if (!sameContext(traceContext, this.currentTraceContext.context())) {
+			if (!sameReader) {
+				// means context was restored form the envelope, thus it has
+				// to be cleared
+				this.cleanOnNull = true;
+				this.lastReader = Thread.currentThread();
+			}
+			this.currentTraceContext.maybeScope(traceContext);
+		}
+		else if (!sameReader) {
+			// means same context was already available, no need to clean
+			// anything
+			this.cleanOnNull = false;
+			this.lastReader = Thread.currentThread();
+		}
+	}
+
+	private static boolean sameContext(TraceContext traceContext, TraceContext other) {
+		return traceContext == other || (traceContext != null && traceContext.equals(other));
+	}
+
+	@Override
+	public Object peek() {
+		Object peek = this.queue.peek();
+		if (peek == null) {
+			return null;
+		}
+		if (peek instanceof Envelope) {
+			Envelope envelope = (Envelope) peek;
+			restoreTheContext(envelope.traceContext);
+			return envelope.body;
+		}
+		restoreTheContext(this.polledContext);
+		return peek;
+	}
+
+	@Override
+	public Iterator<Object> iterator() {
+		Iterator<Object> iterator = this.queue.iterator();
+		return new Iterator<Object>() {
+			@Override
+			public boolean hasNext() {
+				return iterator.hasNext();
+			}
+
+			@Override
+			public Object next() {
+				Object next = iterator.next();
+				if (next instanceof Envelope) {
+					Envelope envelope = (Envelope) next;
+					restoreTheContext(envelope.traceContext);
+					return envelope.body;
+				}
+				return next;
+			}
+		};
+	}
+
+	static final class Envelope {
+
+		final Object body;
+
+		final TraceContext traceContext;
+
+		/**
+		 * Whether the following elements queued without an envelope belong to the
+		 * trace context of this one.
+		 */
+		final boolean startsRun;
+
+		Envelope(Object body, TraceContext traceContext, boolean startsRun) {
+			this.body = body;
+			this.traceContext = traceContext;
+			this.startsRun = startsRun;
+		}
+
+	}
+
+}
@@ -119,23 +119,25 @@ public class TracingRequesterRSocketProxy extends RSocketProxy {
 	void injectDefaultZipkinRSocketHeaders(CompositeByteBuf metadata, TraceContext traceContext) {
 		TracingMetadataCodec.Flags flags = traceContext.sampled() == null ? TracingMetadataCodec.Flags.UNDECIDED
 				: traceContext.sampled() ? TracingMetadataCodec.Flags.SAMPLE : TracingMetadataCodec.Flags.NOT_SAMPLE;
+		long[] ids = new long[2];
+		EncodingUtils.idFromBase16String(traceContext.spanId(), ids);
+		long spanId = ids[1];
+		EncodingUtils.idFromBase16String(traceContext.parentId(), ids);
+		long parentSpanId = ids[1];
 		String traceId = traceContext.traceId();
-		long[] traceIds = EncodingUtils.fromString(traceId);
-		long[] spanId = EncodingUtils.fromString(traceContext.spanId());
-		long[] parentSpanId = EncodingUtils.fromString(traceContext.parentId());
-		boolean isTraceId128Bit = traceIds.length == 2;
+		EncodingUtils.idFromBase16String(traceId, ids);
+		boolean isTraceId128Bit = traceId.length() == 32;
 
 		final ByteBufAllocator allocator = metadata.alloc();
 		if (isTraceId128Bit) {
 			CompositeMetadataCodec.encodeAndAddMetadata(metadata, allocator,
 					WellKnownMimeType.MESSAGE_RSOCKET_TRACING_ZIPKIN,
-					TracingMetadataCodec.encode128(allocator, traceIds[0], traceIds[1], spanId[0],
-							EncodingUtils.fromString(traceContext.parentId())[0], flags));
+					TracingMetadataCodec.encode128(allocator, ids[0], ids[1], spanId, parentSpanId, flags));
 		}
 		else {
 			CompositeMetadataCodec.encodeAndAddMetadata(metadata, allocator,
 					WellKnownMimeType.MESSAGE_RSOCKET_TRACING_ZIPKIN,
-					TracingMetadataCodec.encode64(allocator, traceIds[0], spanId[0], parentSpanId[0], flags));
+					TracingMetadataCodec.encode64(allocator, ids[1], spanId, parentSpanId, flags));
 		}
 	}
 
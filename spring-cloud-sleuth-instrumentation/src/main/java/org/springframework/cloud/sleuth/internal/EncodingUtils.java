@@ -74,12 +74,50 @@ public final class EncodingUtils {
 		if (chars == null || chars.length() == 0) {
 			return new long[] { 0 };
 		}
+		long[] ids = new long[2];
+		idFromBase16String(chars, ids);
+		return chars.length() == 32 ? ids : new long[] { ids[1] };
+	}
+
+	/**
+	 * Decodes a 16 or 32 character lower-hex id into the given array, without
+	 * allocating. The high bits of the id are stored at index {@code 0} ({@code 0} for 16
+	 * character ids) and the low bits at index {@code 1}. Invalid ids are stored as
+	 * {@code 0}.
+	 * @param chars the base16 representation of the id
+	 * @param dest array of at least 2 elements to store the id in
+	 * @return {@code true} if the id is a valid base16 string
+	 */
+	public static boolean idFromBase16String(CharSequence chars, long[] dest) {
+		dest[0] = 0L;
+		dest[1] = 0L;
+		if (chars == null || chars.length() == 0) {
+			return false;
+		}
 		if (chars.length() == 32) {
-			long high = HexCodec.lenientLowerHexToUnsignedLong(chars, 0, 16);
-			long low = HexCodec.lenientLowerHexToUnsignedLong(chars, 16, 32);
-			return new long[] { high, low };
+			boolean high = decodeBase16(chars, 0, LONG_BASE16, dest, 0);
+			return decodeBase16(chars, LONG_BASE16, 32, dest, 1) && high;
 		}
-		return new long[] { HexCodec.lenientLowerHexToUnsignedLong(chars, 0, 16) };
+		return decodeBase16(chars, 0, Math.min(chars.length(), LONG_BASE16), dest, 1);
+	}
+
+	/**
+	 * Decodes the {@code long} value whose base16 representation is stored in the 16
+	 * chars of {@code chars} starting from the {@code offset} into the given array,
+	 * without allocating.
+	 * @param chars the base16 representation of the {@code long}
+	 * @param offset the starting offset in the {@code CharSequence}
+	 * @param dest array to store the value in
+	 * @param destIndex index in the array to store the value at
+	 * @return {@code false} if the chars are too short or aren't a valid base16 string, in
+	 * which case {@code 0} is stored
+	 */
+	public static boolean longFromBase16String(CharSequence chars, int offset, long[] dest, int destIndex) {
+		if (chars.length() < offset + LONG_BASE16) {
+			dest[destIndex] = 0L;
+			return false;
+		}
+		return decodeBase16(chars, offset, offset + LONG_BASE16, dest, destIndex);
 	}
 
 	/**
@@ -99,14 +137,18 @@ public final class EncodingUtils {
 	 */
 	static long longFromBase16String(CharSequence chars, int offset) {
 		Assert.isTrue(chars.length() >= offset + LONG_BASE16, "chars too small");
-		return (decodeByte(chars.charAt(offset), chars.charAt(offset + 1)) & 0xFFL) << 56
-				| (decodeByte(chars.charAt(offset + 2), chars.charAt(offset + 3)) & 0xFFL) << 48
-				| (decodeByte(chars.charAt(offset + 4), chars.charAt(offset + 5)) & 0xFFL) << 40
-				| (decodeByte(chars.charAt(offset + 6), chars.charAt(offset + 7)) & 0xFFL) << 32
-				| (decodeByte(chars.charAt(offset + 8), chars.charAt(offset + 9)) & 0xFFL) << 24
-				| (decodeByte(chars.charAt(offset + 10), chars.charAt(offset + 11)) & 0xFFL) << 16
-				| (decodeByte(chars.charAt(offset + 12), chars.charAt(offset + 13)) & 0xFFL) << 8
-				| (decodeByte(chars.charAt(offset + 14), chars.charAt(offset + 15)) & 0xFFL);
+		long result = 0L;
+		int invalid = 0;
+		for (int i = offset; i < offset + LONG_BASE16; i++) {
+			int digit = digit(chars.charAt(i));
+			invalid |= digit;
+			result = result << 4 | digit;
+		}
+		if (invalid < 0) {
+			throw new IllegalArgumentException(
+					"invalid character in [" + chars.subSequence(offset, offset + LONG_BASE16) + "]");
+		}
+		return result;
 	}
 
 	/**
@@ -124,10 +166,33 @@ public final class EncodingUtils {
 	}
 
 	private static byte decodeByte(char hi, char lo) {
-		Assert.isTrue(lo < ASCII_CHARACTERS && DECODING[lo] != -1, "invalid character " + lo);
-		Assert.isTrue(hi < ASCII_CHARACTERS && DECODING[hi] != -1, "invalid character " + hi);
-		int decoded = DECODING[hi] << 4 | DECODING[lo];
-		return (byte) decoded;
+		int high = digit(hi);
+		int low = digit(lo);
+		if ((high | low) < 0) {
+			throw new IllegalArgumentException("invalid character " + (low < 0 ? lo : hi));
+		}
+		return (byte) (high << 4 | low);
+	}
+
+	private static boolean decodeBase16(CharSequence chars, int begin, int end, long[] dest, int destIndex) {
+		long result = 0L;
+		int invalid = 0;
+		for (int i = begin; i < end; i++) {
+			int digit = digit(chars.charAt(i));
+			invalid |= digit;
+			result = result << 4 | digit;
+		}
+		// a single check for all the characters instead of a branch per character
+		dest[destIndex] = invalid < 0 ? 0L : result;
+		return invalid >= 0;
+	}
+
+	/**
+	 * @return value of the base16 digit or {@code -1} if it's not a valid one
+	 */
+	private static int digit(char c) {
+		// the second part is -1 for chars outside of the decoding table
+		return DECODING[c & (ASCII_CHARACTERS - 1)] | ((ASCII_CHARACTERS - 1 - c) >> 31);
 	}
 
 	/**
@@ -167,21 +232,63 @@ public final class EncodingUtils {
 		}
 		else {
 			char[] chars = getTemporaryBuffer();
-			longToBase16String(idHigh, chars, 0);
-			longToBase16String(idLow, chars, 16);
+			idToBase16(idHigh, idLow, chars, 0);
 			return new String(chars);
 		}
 	}
 
+	/**
+	 * Encodes an id into the given array, so that the array can be reused for multiple
+	 * ids. The id takes 32 characters if the high bits are set and 16 otherwise.
+	 * @param idHigh - high bits of the id
+	 * @param idLow - low bits of the id
+	 * @param dest array to encode the id into
+	 * @param destOffset offset in the array
+	 * @return number of written characters
+	 */
+	public static int idToBase16(long idHigh, long idLow, char[] dest, int destOffset) {
+		if (idHigh == 0L) {
+			longToBase16String(idLow, dest, destOffset);
+			return LONG_BASE16;
+		}
+		longToBase16String(idHigh, dest, destOffset);
+		longToBase16String(idLow, dest, destOffset + LONG_BASE16);
+		return 2 * LONG_BASE16;
+	}
+
+	/**
+	 * Encodes an id as ASCII bytes into the given array, e.g. to write it directly to a
+	 * header buffer. The id takes 32 bytes if the high bits are set and 16 otherwise.
+	 * @param idHigh - high bits of the id
+	 * @param idLow - low bits of the id
+	 * @param dest array to encode the id into
+	 * @param destOffset offset in the array
+	 * @return number of written bytes
+	 */
+	public static int idToBase16(long idHigh, long idLow, byte[] dest, int destOffset) {
+		if (idHigh == 0L) {
+			longToBase16Bytes(idLow, dest, destOffset);
+			return LONG_BASE16;
+		}
+		longToBase16Bytes(idHigh, dest, destOffset);
+		longToBase16Bytes(idLow, dest, destOffset + LONG_BASE16);
+		return 2 * LONG_BASE16;
+	}
+
 	public static void longToBase16String(long value, char[] dest, int destOffset) {
-		byteToBase16((byte) ((int) (value >> 56 & 255L)), dest, destOffset);
-		byteToBase16((byte) ((int) (value >> 48 & 255L)), dest, destOffset + 2);
-		byteToBase16((byte) ((int) (value >> 40 & 255L)), dest, destOffset + 4);
-		byteToBase16((byte) ((int) (value >> 32 & 255L)), dest, destOffset + 6);
-		byteToBase16((byte) ((int) (value >> 24 & 255L)), dest, destOffset + 8);
-		byteToBase16((byte) ((int) (value >> 16 & 255L)), dest, destOffset + 10);
-		byteToBase16((byte) ((int) (value >> 8 & 255L)), dest, destOffset + 12);
-		byteToBase16((byte) ((int) (value & 255L)), dest, destOffset + 14);
+		for (int i = 0; i < LONG_BYTES; i++) {
+			int b = (int) (value >>> (56 - 8 * i)) & 0xFF;
+			dest[destOffset + 2 * i] = ENCODING[b];
+			dest[destOffset + 2 * i + 1] = ENCODING[b | 0x100];
+		}
+	}
+
+	public static void longToBase16Bytes(long value, byte[] dest, int destOffset) {
+		for (int i = 0; i < LONG_BYTES; i++) {
+			int b = (int) (value >>> (56 - 8 * i)) & 0xFF;
+			dest[destOffset + 2 * i] = (byte) ENCODING[b];
+			dest[destOffset + 2 * i + 1] = (byte) ENCODING[b | 0x100];
+		}
 	}
 
 	public static void byteToBase16(byte value, char[] dest, int destOffset) {
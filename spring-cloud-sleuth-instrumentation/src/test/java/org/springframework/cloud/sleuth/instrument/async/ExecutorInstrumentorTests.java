@@ -47,6 +47,8 @@ import org.springframework.aop.framework.AopConfigException;
 import org.springframework.aop.framework.ProxyFactoryBean;
 import org.springframework.aop.support.AopUtils;
 import org.springframework.beans.factory.BeanFactory;
+import org.springframework.cloud.sleuth.CurrentTraceContext;
+import org.springframework.cloud.sleuth.Tracer;
 import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
@@ -155,6 +157,42 @@ public class ExecutorInstrumentorTests {
 		service.shutdown();
 	}
 
+	@Test
+	public void should_not_pass_only_context_for_executors_that_reuse_threads() throws Exception {
+		ExecutorService service = Executors.newSingleThreadExecutor();
+
+		Object o = new ExecutorInstrumentor(Collections::emptyList, beanFactory, () -> false).instrument(service,
+				"foo");
+
+		BDDAssertions.then(o).isInstanceOf(TraceableExecutorService.class)
+				.isNotInstanceOf(ContextPropagatingExecutorService.class);
+		service.shutdown();
+	}
+
+	@Test
+	public void should_pass_only_context_to_tasks_of_context_propagating_executor() throws Exception {
+		CurrentTraceContext currentTraceContext = BDDMockito.mock(CurrentTraceContext.class);
+		BDDMockito.given(beanFactory.getBean(CurrentTraceContext.class)).willReturn(currentTraceContext);
+		AtomicBoolean wrapped = new AtomicBoolean();
+		BDDMockito.given(currentTraceContext.wrap(BDDMockito.any(Runnable.class))).willAnswer(invocation -> {
+			Runnable runnable = invocation.getArgument(0);
+			return (Runnable) () -> {
+				wrapped.set(true);
+				runnable.run();
+			};
+		});
+		ExecutorService service = Executors.newSingleThreadExecutor();
+		ContextPropagatingExecutorService executor = new ContextPropagatingExecutorService(beanFactory, service);
+		AtomicBoolean wasCalled = new AtomicBoolean();
+
+		executor.submit(() -> wasCalled.set(true)).get();
+
+		BDDAssertions.then(wasCalled).isTrue();
+		BDDAssertions.then(wrapped).isTrue();
+		BDDMockito.then(beanFactory).should(BDDMockito.never()).getBean(Tracer.class);
+		service.shutdown();
+	}
+
 	@Test
 	public void should_create_a_cglib_proxy_by_default_for_ThreadPoolTaskExecutor() throws Exception {
 		Object o = new ExecutorInstrumentor(Collections::emptyList, beanFactory)
@@ -18,6 +18,7 @@ package org.springframework.cloud.sleuth.instrument.kafka;
 
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -37,8 +38,10 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.sleuth.Tracer;
 import org.springframework.cloud.sleuth.propagation.Propagator;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 
 @ExtendWith(MockitoExtension.class)
@@ -53,6 +56,9 @@ public class TracingKafkaConsumerTest {
 	@Mock
 	Propagator.Getter<ConsumerRecord<?, ?>> extractor;
 
+	@Mock(answer = Answers.RETURNS_DEEP_STUBS)
+	Tracer tracer;
+
 	@Test
 	void should_delegate_poll_calls() {
 		Duration pollTimeout = Duration.of(5, ChronoUnit.SECONDS);
@@ -69,8 +75,40 @@ public class TracingKafkaConsumerTest {
 		Mockito.verify(kafkaConsumer).poll(eq(pollTimeout));
 	}
 
+	@Test
+	void should_create_a_single_span_for_a_poll_when_poll_span_enabled() {
+		Duration pollTimeout = Duration.of(5, ChronoUnit.SECONDS);
+		List<ConsumerRecord<String, String>> polled = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			polled.add(new ConsumerRecord<>("topic", 0, i, "test-key", "test-value"));
+		}
+		ConsumerRecords<String, String> records = new ConsumerRecords<>(
+				Collections.singletonMap(new TopicPartition("topic", 0), polled));
+		BDDMockito.given(kafkaConsumer.poll(pollTimeout)).willReturn(records);
+		TracingKafkaConsumer<String, String> tracingKafkaConsumer = new TracingKafkaConsumer<>(kafkaConsumer,
+				beanFactory(), true, 0.5f);
+
+		tracingKafkaConsumer.poll(pollTimeout);
+
+		Mockito.verify(tracer).spanBuilder();
+		Mockito.verify(propagator, Mockito.times(2)).extract(any(ConsumerRecord.class), eq(extractor));
+	}
+
+	@Test
+	void should_not_create_spans_for_an_empty_poll() {
+		Duration pollTimeout = Duration.of(5, ChronoUnit.SECONDS);
+		BDDMockito.given(kafkaConsumer.poll(pollTimeout)).willReturn(ConsumerRecords.empty());
+		TracingKafkaConsumer<String, String> tracingKafkaConsumer = new TracingKafkaConsumer<>(kafkaConsumer,
+				beanFactory(), true, 0.0f);
+
+		tracingKafkaConsumer.poll(pollTimeout);
+
+		Mockito.verifyNoInteractions(tracer, propagator);
+	}
+
 	private BeanFactory beanFactory() {
 		StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+		beanFactory.addBean("tracer", this.tracer);
 		beanFactory.addBean("propagator", this.propagator);
 		beanFactory.addBean("extractor", this.extractor);
 		return beanFactory;
@@ -17,6 +17,7 @@
 package org.springframework.cloud.sleuth.instrument.messaging;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.function.Consumer;
@@ -31,6 +32,7 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
 
 import org.springframework.cloud.function.context.FunctionRegistration;
 import org.springframework.cloud.function.context.FunctionType;
@@ -266,6 +268,26 @@ class TraceFunctionAroundWrapperTests {
 		assertThatAllSpansAreStartedAndStopped();
 	}
 
+	@Test
+	void should_pass_requests_through_when_reactive_flux_function() {
+		FunctionRegistration<ReactiveFluxGreeterFunction> registration = new FunctionRegistration<>(
+				new ReactiveFluxGreeterFunction(), "greeter").type(FunctionType.of(ReactiveFluxGreeterFunction.class));
+		catalog.register(registration);
+		FunctionInvocationWrapper function = catalog.lookup("greeter");
+		List<Long> requests = new ArrayList<>();
+		Flux<Message<String>> input = Flux.just("a", "b", "c").map(s -> MessageBuilder.withPayload(s).build())
+				.doOnRequest(requests::add);
+
+		StepVerifier.create((Flux<Message<?>>) wrapper.apply(input, function), 1)
+				.expectNextMatches(m -> "A".equals(m.getPayload())).thenRequest(2)
+				.expectNextMatches(m -> "B".equals(m.getPayload())).expectNextMatches(m -> "C".equals(m.getPayload()))
+				.verifyComplete();
+
+		assertThat(requests).containsExactly(1L, 2L);
+		assertThat(tracer.spans).hasSize(9);
+		assertThatAllSpansAreStartedAndStopped();
+	}
+
 	@Test
 	void should_trace_when_reactive_flux_function_returns_mono() {
 		FunctionRegistration<ReactiveFluxToMonoFunction> registration = new FunctionRegistration<>(
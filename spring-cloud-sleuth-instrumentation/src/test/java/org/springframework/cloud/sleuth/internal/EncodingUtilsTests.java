@@ -16,6 +16,8 @@
 
 package org.springframework.cloud.sleuth.internal;
 
+import java.nio.charset.StandardCharsets;
+
 import org.assertj.core.api.BDDAssertions;
 import org.junit.jupiter.api.Test;
 
@@ -40,4 +42,40 @@ class EncodingUtilsTests {
 		BDDAssertions.then(fromLong).isEqualTo("596e1787feb110407c6239a5ad0a4287");
 	}
 
+	@Test
+	void should_decode_ids_into_the_given_array() {
+		long[] ids = new long[2];
+
+		BDDAssertions.then(EncodingUtils.idFromBase16String("596e1787feb110407c6239a5ad0a4287", ids)).isTrue();
+		BDDAssertions.then(ids).containsExactly(0x596e1787feb11040L, 0x7c6239a5ad0a4287L);
+
+		BDDAssertions.then(EncodingUtils.idFromBase16String("7c6239a5ad0a4287", ids)).isTrue();
+		BDDAssertions.then(ids).containsExactly(0L, 0x7c6239a5ad0a4287L);
+	}
+
+	@Test
+	void should_reject_invalid_characters() {
+		long[] ids = new long[2];
+
+		BDDAssertions.then(EncodingUtils.idFromBase16String("7c6239a5ad0a428G", ids)).isFalse();
+		BDDAssertions.then(ids).containsExactly(0L, 0L);
+		// uppercase and non ASCII characters aren't valid either
+		BDDAssertions.then(EncodingUtils.longFromBase16String("7C6239A5AD0A4287", 0, ids, 1)).isFalse();
+		BDDAssertions.then(EncodingUtils.longFromBase16String("7c6239a5ad0a428\u0130", 0, ids, 1)).isFalse();
+		BDDAssertions.then(EncodingUtils.longFromBase16String("7c6239a5", 0, ids, 1)).isFalse();
+		BDDAssertions.thenThrownBy(() -> EncodingUtils.longFromBase16String("7c6239a5ad0a428G"))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void should_encode_ids_into_reusable_arrays() {
+		char[] chars = new char[32];
+		byte[] bytes = new byte[32];
+
+		BDDAssertions.then(EncodingUtils.idToBase16(0x596e1787feb11040L, 0x7c6239a5ad0a4287L, chars, 0)).isEqualTo(32);
+		BDDAssertions.then(new String(chars)).isEqualTo("596e1787feb110407c6239a5ad0a4287");
+		BDDAssertions.then(EncodingUtils.idToBase16(0L, 0x1L, bytes, 0)).isEqualTo(16);
+		BDDAssertions.then(new String(bytes, 0, 16, StandardCharsets.US_ASCII)).isEqualTo("0000000000000001");
+	}
+
 }
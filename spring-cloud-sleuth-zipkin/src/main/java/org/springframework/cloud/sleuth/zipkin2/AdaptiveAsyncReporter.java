@@ -0,0 +1,352 @@
+/*
+ * Copyright 2013-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.zipkin2;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import zipkin2.Span;
+import zipkin2.codec.BytesEncoder;
+import zipkin2.reporter.AsyncReporter;
+import zipkin2.reporter.Reporter;
+import zipkin2.reporter.ReporterMetrics;
+import zipkin2.reporter.Sender;
+
+/**
+ * {@link Reporter} that sends spans in batches like {@link AsyncReporter}, but adapts
+ * the batch size and the flush interval to the observed load instead of using static
+ * settings.
+ * <ul>
+ * <li>A batch is sent as soon as enough spans are queued. The batch size grows while
+ * sending a batch takes less than the target latency and no spans are dropped, and is
+ * halved when spans get dropped. It
+ * never exceeds the number of spans arriving within the longest flush interval, so a
+ * burst after a quiet period is sent promptly.</li>
+ * <li>Queued spans that don't fill a batch are sent after the flush interval, which
+ * follows the latency of the sender: there's no point in sending more often than the
+ * sender completes requests, and at low load spans don't wait longer than that.</li>
+ * </ul>
+ * The maximum number of queued spans is still bounded, and the queue is reported to the
+ * given {@link ReporterMetrics} as usual.
+ *
+ * @author Marcin Grzejszczak
+ * @since 3.1.11
+ */
+public class AdaptiveAsyncReporter implements Reporter<Span>, Flushable, Closeable {
+
+	private static final Log log = LogFactory.getLog(AdaptiveAsyncReporter.class);
+
+	static final int MIN_BATCH_SIZE = 10;
+
+	/**
+	 * Weight of the latest sample in the moving averages.
+	 */
+	private static final double ALPHA = 0.3;
+
+	private final AsyncReporter<Span> delegate;
+
+	private final QueueTrackingReporterMetrics metrics;
+
+	private final long minFlushIntervalNanos;
+
+	private final long maxFlushIntervalNanos;
+
+	private final long targetSendLatencyNanos;
+
+	private final int maxBatchSize;
+
+	private final LongAdder arrivedSpans = new LongAdder();
+
+	private final AtomicInteger pendingSpans = new AtomicInteger();
+
+	private final Object signal = new Object();
+
+	/**
+	 * Whether the flusher was signalled that a batch is full since the last flush.
+	 */
+	private final AtomicBoolean signalled = new AtomicBoolean();
+
+	private final Thread flusher;
+
+	private volatile boolean closed;
+
+	private volatile int batchSize = MIN_BATCH_SIZE;
+
+	private volatile long flushIntervalNanos;
+
+	private volatile double arrivalRate;
+
+	private volatile double sendLatencyNanos;
+
+	private long droppedSpans;
+
+	/**
+	 * @param sender sender of the batches
+	 * @param encoder span encoder
+	 * @param metrics metrics of the reporter
+	 * @param queuedMaxSpans maximum number of queued spans
+	 * @param minFlushIntervalMillis shortest interval between flushes
+	 * @param maxFlushIntervalMillis longest interval between flushes
+	 * @param targetSendLatencyMillis time sending a batch may take, up to which the batch
+	 * size grows
+	 */
+	public AdaptiveAsyncReporter(Sender sender, BytesEncoder<Span> encoder, ReporterMetrics metrics,
+			int queuedMaxSpans, long minFlushIntervalMillis, long maxFlushIntervalMillis,
+			long targetSendLatencyMillis) {
+		this(sender, encoder, metrics, queuedMaxSpans, minFlushIntervalMillis, maxFlushIntervalMillis,
+				targetSendLatencyMillis, true);
+	}
+
+	AdaptiveAsyncReporter(Sender sender, BytesEncoder<Span> encoder, ReporterMetrics metrics, int queuedMaxSpans,
+			long minFlushIntervalMillis, long maxFlushIntervalMillis, long targetSendLatencyMillis,
+			boolean startFlusher) {
+		this.metrics = new QueueTrackingReporterMetrics(metrics);
+		// no message timeout - flushing is driven by this reporter
+		this.delegate = AsyncReporter.builder(sender).queuedMaxSpans(queuedMaxSpans)
+				.messageTimeout(0, TimeUnit.MILLISECONDS).metrics(this.metrics).build(encoder);
+		this.minFlushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(minFlushIntervalMillis);
+		this.maxFlushIntervalNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(maxFlushIntervalMillis),
+				this.minFlushIntervalNanos);
+		this.targetSendLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetSendLatencyMillis);
+		this.maxBatchSize = Math.max(queuedMaxSpans / 2, MIN_BATCH_SIZE);
+		this.flushIntervalNanos = this.minFlushIntervalNanos;
+		this.flusher = new Thread(this::flushLoop, "AdaptiveAsyncReporter{" + sender + "}");
+		this.flusher.setDaemon(true);
+		if (startFlusher) {
+			this.flusher.start();
+		}
+	}
+
+	@Override
+	public void report(Span span) {
+		this.delegate.report(span);
+		this.arrivedSpans.increment();
+		// only the span that fills the batch wakes up the flusher
+		if (this.pendingSpans.incrementAndGet() >= this.batchSize && this.signalled.compareAndSet(false, true)) {
+			synchronized (this.signal) {
+				this.signal.notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Sends all queued spans.
+	 */
+	@Override
+	public void flush() {
+		long previous = Long.MAX_VALUE;
+		long queued;
+		// stop when a flush doesn't make progress, e.g. because the sender is closed
+		while ((queued = this.metrics.queuedSpans.get()) > 0 && queued < previous) {
+			this.delegate.flush();
+			previous = queued;
+		}
+	}
+
+	@Override
+	public void close() {
+		this.closed = true;
+		synchronized (this.signal) {
+			this.signal.notifyAll();
+		}
+		try {
+			this.flusher.join(TimeUnit.NANOSECONDS.toMillis(this.maxFlushIntervalNanos) + 1);
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+		this.delegate.close();
+	}
+
+	private void flushLoop() {
+		long lastAdapted = System.nanoTime();
+		while (!this.closed && !Thread.currentThread().isInterrupted()) {
+			awaitBatch();
+			long flushes = 0;
+			long start = System.nanoTime();
+			try {
+				do {
+					this.delegate.flush();
+					flushes++;
+				}
+				while (!this.closed && this.metrics.queuedSpans.get() >= this.batchSize);
+			}
+			catch (RuntimeException ex) {
+				if (log.isDebugEnabled()) {
+					log.debug("Failed to flush spans", ex);
+				}
+			}
+			long now = System.nanoTime();
+			this.pendingSpans.set(this.metrics.queuedSpans.get());
+			// the flusher checks the pending spans before it waits, so no signal is lost
+			this.signalled.set(false);
+			adapt(now - lastAdapted, this.arrivedSpans.sumThenReset(), this.metrics.droppedSpans.get(),
+					(now - start) / Math.max(flushes, 1L));
+			lastAdapted = now;
+		}
+	}
+
+	private void awaitBatch() {
+		long deadline = System.nanoTime() + this.flushIntervalNanos;
+		synchronized (this.signal) {
+			long remaining;
+			while (!this.closed && this.pendingSpans.get() < this.batchSize
+					&& (remaining = deadline - System.nanoTime()) > 0) {
+				try {
+					TimeUnit.NANOSECONDS.timedWait(this.signal, remaining);
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Recalculates the batch size and the flush interval.
+	 * @param elapsedNanos time since the last recalculation
+	 * @param arrivedSpans number of spans reported since the last recalculation
+	 * @param droppedSpans total number of dropped spans
+	 * @param sendLatencyNanos average time it took to send a batch
+	 */
+	void adapt(long elapsedNanos, long arrivedSpans, long droppedSpans, long sendLatencyNanos) {
+		double rate = arrivedSpans * (double) TimeUnit.SECONDS.toNanos(1) / Math.max(elapsedNanos, 1L);
+		double arrivalRate = this.arrivalRate;
+		this.arrivalRate = arrivalRate == 0.0 ? rate : arrivalRate + ALPHA * (rate - arrivalRate);
+		double latency = this.sendLatencyNanos;
+		latency = latency == 0.0 ? sendLatencyNanos : latency + ALPHA * (sendLatencyNanos - latency);
+		this.sendLatencyNanos = latency;
+		boolean dropped = droppedSpans > this.droppedSpans;
+		this.droppedSpans = droppedSpans;
+		int batchSize = this.batchSize;
+		if (dropped) {
+			batchSize = batchSize / 2;
+		}
+		else if (latency < this.targetSendLatencyNanos) {
+			batchSize = batchSize + Math.max(batchSize / 4, 1);
+		}
+		double arrivingWithinMaxInterval = this.arrivalRate * this.maxFlushIntervalNanos
+				/ TimeUnit.SECONDS.toNanos(1);
+		batchSize = (int) Math.min(batchSize, arrivingWithinMaxInterval);
+		this.batchSize = Math.max(Math.min(batchSize, this.maxBatchSize), MIN_BATCH_SIZE);
+		long interval = dropped ? this.minFlushIntervalNanos : (long) (2 * latency);
+		this.flushIntervalNanos = Math.max(Math.min(interval, this.maxFlushIntervalNanos), this.minFlushIntervalNanos);
+	}
+
+	/**
+	 * @return number of queued spans after which a batch is sent
+	 */
+	public int getBatchSize() {
+		return this.batchSize;
+	}
+
+	/**
+	 * @return time in millis after which queued spans are sent even if they don't fill a
+	 * batch
+	 */
+	public double getFlushIntervalMillis() {
+		return this.flushIntervalNanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+	}
+
+	/**
+	 * @return average number of spans reported per second
+	 */
+	public double getArrivalRate() {
+		return this.arrivalRate;
+	}
+
+	/**
+	 * @return average time in millis it takes to send a batch
+	 */
+	public double getSendLatencyMillis() {
+		return this.sendLatencyNanos / TimeUnit.MILLISECONDS.toNanos(1);
+	}
+
+	@Override
+	public String toString() {
+		return "AdaptiveAsyncReporter{" + this.delegate + "}";
+	}
+
+	/**
+	 * Tracks the queue of the {@link AsyncReporter}.
+	 */
+	private static final class QueueTrackingReporterMetrics implements ReporterMetrics {
+
+		private final ReporterMetrics delegate;
+
+		final AtomicInteger queuedSpans = new AtomicInteger();
+
+		final AtomicLong droppedSpans = new AtomicLong();
+
+		private QueueTrackingReporterMetrics(ReporterMetrics delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public void incrementMessages() {
+			this.delegate.incrementMessages();
+		}
+
+		@Override
+		public void incrementMessagesDropped(Throwable cause) {
+			this.delegate.incrementMessagesDropped(cause);
+		}
+
+		@Override
+		public void incrementSpans(int quantity) {
+			this.queuedSpans.addAndGet(quantity);
+			this.delegate.incrementSpans(quantity);
+		}
+
+		@Override
+		public void incrementSpanBytes(int quantity) {
+			this.delegate.incrementSpanBytes(quantity);
+		}
+
+		@Override
+		public void incrementMessageBytes(int quantity) {
+			this.delegate.incrementMessageBytes(quantity);
+		}
+
+		@Override
+		public void incrementSpansDropped(int quantity) {
+			this.droppedSpans.addAndGet(quantity);
+			this.delegate.incrementSpansDropped(quantity);
+		}
+
+		@Override
+		public void updateQueuedSpans(int update) {
+			this.queuedSpans.set(update);
+			this.delegate.updateQueuedSpans(update);
+		}
+
+		@Override
+		public void updateQueuedBytes(int update) {
+			this.delegate.updateQueuedBytes(update);
+		}
+
+	}
+
+}
@@ -57,6 +57,21 @@ public class CachingZipkinUrlExtractor implements ZipkinUrlExtractor {
 		return noOpZipkinLoadBalancer(zipkinProperties).instance();
 	}
 
+	@Override
+	public void requestStarted(URI zipkinUrl) {
+		this.zipkinLoadBalancer.requestStarted(zipkinUrl);
+	}
+
+	@Override
+	public void requestCompleted(URI zipkinUrl, long durationNanos, Throwable error) {
+		this.zipkinLoadBalancer.requestCompleted(zipkinUrl, durationNanos, error);
+	}
+
+	@Override
+	public boolean isHealthAware() {
+		return this.zipkinLoadBalancer instanceof HealthAwareZipkinLoadBalancer;
+	}
+
 	StaticInstanceZipkinLoadBalancer noOpZipkinLoadBalancer(ZipkinProperties zipkinProperties) {
 		return new StaticInstanceZipkinLoadBalancer(zipkinProperties);
 	}
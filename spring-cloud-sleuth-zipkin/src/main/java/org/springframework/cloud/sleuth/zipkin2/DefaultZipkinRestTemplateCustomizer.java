@@ -20,6 +20,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.zip.GZIPOutputStream;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpRequest;
 import org.springframework.http.client.ClientHttpRequestExecution;
 import org.springframework.http.client.ClientHttpRequestInterceptor;
@@ -28,7 +29,9 @@ import org.springframework.web.client.RestTemplate;
 
 /**
  * Default {@link ZipkinRestTemplateCustomizer} that provides the GZip compression if
- * {@link ZipkinProperties#getCompression()} is enabled.
+ * {@link ZipkinProperties#getCompression()} is enabled and the sender doesn't compress
+ * spans itself (a {@link RestTemplateSender} with compression enabled gzips them while
+ * writing the request body, which an interceptor would buffer instead).
  *
  * @author Marcin Grzejszczak
  * @since 1.1.0
@@ -37,13 +40,26 @@ public class DefaultZipkinRestTemplateCustomizer implements ZipkinRestTemplateCu
 
 	private final ZipkinProperties zipkinProperties;
 
+	private final boolean compressedBySender;
+
 	public DefaultZipkinRestTemplateCustomizer(ZipkinProperties zipkinProperties) {
+		this(zipkinProperties, false);
+	}
+
+	/**
+	 * @param zipkinProperties zipkin properties
+	 * @param compressedBySender whether the sender using the {@link RestTemplate} gzips
+	 * the spans itself, in which case no compressing interceptor is added
+	 * @since 3.1.11
+	 */
+	public DefaultZipkinRestTemplateCustomizer(ZipkinProperties zipkinProperties, boolean compressedBySender) {
 		this.zipkinProperties = zipkinProperties;
+		this.compressedBySender = compressedBySender;
 	}
 
 	@Override
 	public RestTemplate customizeTemplate(RestTemplate restTemplate) {
-		if (this.zipkinProperties.getCompression().isEnabled()) {
+		if (this.zipkinProperties.getCompression().isEnabled() && !this.compressedBySender) {
 			restTemplate.getInterceptors().add(0, new GZipInterceptor());
 		}
 		return restTemplate;
@@ -53,6 +69,10 @@ public class DefaultZipkinRestTemplateCustomizer implements ZipkinRestTemplateCu
 
 		public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
 				throws IOException {
+			if (request.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)) {
+				// already compressed by the sender
+				return execution.execute(request, body);
+			}
 			request.getHeaders().add("Content-Encoding", "gzip");
 			ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
 			try (GZIPOutputStream compressor = new GZIPOutputStream(gzipped)) {
@@ -0,0 +1,459 @@
+/*
+ * Copyright 2013-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.zipkin2;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * First in, first out store of encoded span batches backed by memory-mapped segment
+ * files. Batches are appended to the newest segment; when it's full a new one is
+ * created. When the spool exceeds its disk budget the oldest segment is deleted. Segment
+ * files that are found in the directory on startup are read back, so spooled batches
+ * survive a restart. The directory is locked while the spool is open, so it can't be
+ * shared by two processes.
+ *
+ * A segment starts with a header holding the offset of the oldest batch that wasn't
+ * removed yet, so batches that were replayed before a restart aren't replayed again. Each
+ * batch is written as a record: the length of the record, the number of spans and then
+ * each span prefixed with its length. The length of the record is written last, so a
+ * partially written record is never read back.
+ *
+ * The buffer of a segment is unmapped when the segment is deleted, since the space of a
+ * deleted file that is still mapped is only freed once the buffer is garbage collected.
+ *
+ * @author Marcin Grzejszczak
+ * @since 3.1.11
+ */
+final class DiskSpool implements Closeable {
+
+	private static final Log log = LogFactory.getLog(DiskSpool.class);
+
+	private static final String SEGMENT_PREFIX = "spans-";
+
+	private static final String SEGMENT_SUFFIX = ".spool";
+
+	private static final String LOCK_FILE = "spool.lock";
+
+	private static final Consumer<MappedByteBuffer> UNMAPPER = unmapper();
+
+	private final Deque<Segment> segments = new ArrayDeque<>();
+
+	private final Path directory;
+
+	private final int segmentSize;
+
+	private final long maxSize;
+
+	private final FileChannel lockChannel;
+
+	private long nextSegmentId;
+
+	private long droppedSpans;
+
+	private boolean closed;
+
+	/**
+	 * @param directory directory in which segments are stored
+	 * @param segmentSize size of a single segment in bytes
+	 * @param maxSize maximum size of all segments in bytes
+	 * @throws IOException when the directory or existing segments can't be read or the
+	 * directory is used by another spool
+	 */
+	DiskSpool(Path directory, int segmentSize, long maxSize) throws IOException {
+		this.directory = directory;
+		this.segmentSize = Math.max(segmentSize, Segment.HEADER_SIZE);
+		this.maxSize = Math.max(maxSize, this.segmentSize);
+		Files.createDirectories(directory);
+		this.lockChannel = lock(directory);
+		try {
+			recover();
+		}
+		catch (IOException | RuntimeException ex) {
+			this.lockChannel.close();
+			throw ex;
+		}
+	}
+
+	private static FileChannel lock(Path directory) throws IOException {
+		FileChannel channel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE);
+		FileLock lock;
+		try {
+			lock = channel.tryLock();
+		}
+		catch (OverlappingFileLockException ex) {
+			lock = null;
+		}
+		if (lock == null) {
+			channel.close();
+			throw new IOException("Span spool directory [" + directory + "] is already in use");
+		}
+		return channel;
+	}
+
+	/**
+	 * {@link MappedByteBuffer} has no public API to unmap it, so the JDK internal cleaner
+	 * is called: {@code Unsafe.invokeCleaner} on Java 9+, the buffer's cleaner on Java 8.
+	 * When neither is accessible, buffers are unmapped once they're garbage collected.
+	 */
+	private static Consumer<MappedByteBuffer> unmapper() {
+		try {
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			try {
+				Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+				Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+				theUnsafe.setAccessible(true);
+				Object unsafe = theUnsafe.get(null);
+				return buffer -> unmap(() -> invokeCleaner.invoke(unsafe, buffer));
+			}
+			catch (NoSuchMethodException ex) {
+				Method cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+				Method clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+				return buffer -> unmap(() -> clean.invoke(cleaner.invoke(buffer)));
+			}
+		}
+		catch (ReflectiveOperationException | RuntimeException ex) {
+			if (log.isDebugEnabled()) {
+				log.debug("Can't unmap span spool segments, their space will be freed once they're collected", ex);
+			}
+			return buffer -> {
+			};
+		}
+	}
+
+	private static void unmap(Unmapper unmapper) {
+		try {
+			unmapper.unmap();
+		}
+		catch (ReflectiveOperationException | RuntimeException ex) {
+			if (log.isDebugEnabled()) {
+				log.debug("Failed to unmap a span spool segment", ex);
+			}
+		}
+	}
+
+	private void recover() throws IOException {
+		TreeMap<Long, Path> existing = new TreeMap<>();
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(this.directory,
+				SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+			for (Path file : files) {
+				String name = file.getFileName().toString();
+				try {
+					existing.put(Long.parseLong(
+							name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())), file);
+				}
+				catch (NumberFormatException ex) {
+					// not a segment
+				}
+			}
+		}
+		for (Path file : existing.values()) {
+			Segment segment = Segment.recover(file);
+			if (segment.isConsumed()) {
+				segment.delete();
+			}
+			else {
+				this.segments.addLast(segment);
+			}
+		}
+		this.nextSegmentId = existing.isEmpty() ? 0 : existing.lastKey() + 1;
+		if (!this.segments.isEmpty() && log.isInfoEnabled()) {
+			log.info("Recovered [" + this.segments.size() + "] span spool segments from [" + this.directory + "]");
+		}
+	}
+
+	/**
+	 * @param spans encoded spans
+	 * @return {@code false} when the batch is larger than a segment
+	 * @throws IOException when a new segment can't be created
+	 */
+	synchronized boolean append(List<byte[]> spans) throws IOException {
+		int recordSize = Segment.recordSize(spans);
+		if (this.closed || recordSize > this.segmentSize - Segment.HEADER_SIZE) {
+			return false;
+		}
+		Segment tail = this.segments.peekLast();
+		if (tail == null || tail.sealed || !tail.hasRoom(recordSize)) {
+			if (tail != null) {
+				tail.seal();
+			}
+			tail = Segment.create(this.directory.resolve(SEGMENT_PREFIX + this.nextSegmentId++ + SEGMENT_SUFFIX),
+					this.segmentSize);
+			this.segments.addLast(tail);
+		}
+		tail.write(spans, recordSize);
+		while (this.segments.size() * (long) this.segmentSize > this.maxSize) {
+			Segment oldest = this.segments.pollFirst();
+			this.droppedSpans += oldest.remainingSpans();
+			oldest.delete();
+		}
+		return true;
+	}
+
+	/**
+	 * @return the oldest batch or {@code null} if the spool is empty
+	 */
+	synchronized Batch peek() {
+		if (this.closed) {
+			return null;
+		}
+		for (Segment head = this.segments.peekFirst(); head != null; head = this.segments.peekFirst()) {
+			Batch batch = head.peek();
+			if (batch != null) {
+				return batch;
+			}
+			if (head == this.segments.peekLast() && !head.sealed) {
+				return null;
+			}
+			this.segments.pollFirst();
+			head.delete();
+		}
+		return null;
+	}
+
+	/**
+	 * Removes a batch returned by {@link #peek()}, unless it was removed already or it was
+	 * deleted to stay within the disk budget in the meantime.
+	 * @param batch batch to remove
+	 */
+	synchronized void remove(Batch batch) {
+		if (!this.closed) {
+			batch.segment.skip(batch.position);
+		}
+	}
+
+	synchronized boolean isEmpty() {
+		return peek() == null;
+	}
+
+	/**
+	 * @return number of spans that were deleted to stay within the disk budget
+	 */
+	synchronized long getDroppedSpans() {
+		return this.droppedSpans;
+	}
+
+	@Override
+	public synchronized void close() {
+		if (this.closed) {
+			return;
+		}
+		this.closed = true;
+		for (Segment segment : this.segments) {
+			segment.seal();
+			segment.unmap();
+		}
+		try {
+			// closing the channel releases the lock
+			this.lockChannel.close();
+		}
+		catch (IOException ex) {
+			if (log.isWarnEnabled()) {
+				log.warn("Failed to unlock span spool directory [" + this.directory + "]", ex);
+			}
+		}
+	}
+
+	/**
+	 * Batch of spans read from the spool.
+	 */
+	static final class Batch {
+
+		final List<byte[]> spans;
+
+		private final Segment segment;
+
+		private final int position;
+
+		private Batch(List<byte[]> spans, Segment segment, int position) {
+			this.spans = spans;
+			this.segment = segment;
+			this.position = position;
+		}
+
+	}
+
+	private interface Unmapper {
+
+		void unmap() throws ReflectiveOperationException;
+
+	}
+
+	private static final class Segment {
+
+		/**
+		 * Size of the header holding the read offset.
+		 */
+		static final int HEADER_SIZE = 4;
+
+		private final Path file;
+
+		private final MappedByteBuffer buffer;
+
+		private int readPosition = HEADER_SIZE;
+
+		private int writePosition = HEADER_SIZE;
+
+		boolean sealed;
+
+		private boolean unmapped;
+
+		private Segment(Path file, MappedByteBuffer buffer) {
+			this.file = file;
+			this.buffer = buffer;
+		}
+
+		static Segment create(Path file, int size) throws IOException {
+			return new Segment(file, map(file, size));
+		}
+
+		static Segment recover(Path file) throws IOException {
+			Segment segment = new Segment(file, map(file, (int) Files.size(file)));
+			int capacity = segment.buffer.capacity();
+			int readOffset = capacity >= HEADER_SIZE ? segment.buffer.getInt(0) : HEADER_SIZE;
+			int position = HEADER_SIZE;
+			int length;
+			while (position + 4 <= capacity && (length = segment.buffer.getInt(position)) > 0
+					&& position + 4 + length <= capacity) {
+				if (position < readOffset) {
+					// only record boundaries are trusted
+					segment.readPosition = position + 4 + length;
+				}
+				position += 4 + length;
+			}
+			segment.writePosition = position;
+			segment.readPosition = Math.min(segment.readPosition, position);
+			segment.sealed = true;
+			return segment;
+		}
+
+		private static MappedByteBuffer map(Path file, int size) throws IOException {
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+					StandardOpenOption.WRITE)) {
+				return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+			}
+		}
+
+		static int recordSize(List<byte[]> spans) {
+			int size = 4 + 4;
+			for (byte[] span : spans) {
+				size += 4 + span.length;
+			}
+			return size;
+		}
+
+		boolean hasRoom(int recordSize) {
+			return this.writePosition + recordSize <= this.buffer.capacity();
+		}
+
+		void write(List<byte[]> spans, int recordSize) {
+			ByteBuffer record = this.buffer.duplicate();
+			record.position(this.writePosition + 4);
+			record.putInt(spans.size());
+			for (byte[] span : spans) {
+				record.putInt(span.length);
+				record.put(span);
+			}
+			// committing the record
+			this.buffer.putInt(this.writePosition, recordSize - 4);
+			this.writePosition += recordSize;
+		}
+
+		Batch peek() {
+			if (this.readPosition >= this.writePosition) {
+				return null;
+			}
+			ByteBuffer record = this.buffer.duplicate();
+			record.position(this.readPosition + 4);
+			int count = record.getInt();
+			List<byte[]> spans = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				byte[] span = new byte[record.getInt()];
+				record.get(span);
+				spans.add(span);
+			}
+			return new Batch(spans, this, this.readPosition);
+		}
+
+		void skip(int position) {
+			if (!this.unmapped && this.readPosition == position && position < this.writePosition) {
+				this.readPosition += 4 + this.buffer.getInt(this.readPosition);
+				this.buffer.putInt(0, this.readPosition);
+			}
+		}
+
+		boolean isConsumed() {
+			return this.readPosition >= this.writePosition;
+		}
+
+		long remainingSpans() {
+			long spans = 0;
+			for (int position = this.readPosition; position < this.writePosition; position += 4
+					+ this.buffer.getInt(position)) {
+				spans += this.buffer.getInt(position + 4);
+			}
+			return spans;
+		}
+
+		void seal() {
+			this.sealed = true;
+			this.buffer.force();
+		}
+
+		void unmap() {
+			if (!this.unmapped) {
+				this.unmapped = true;
+				UNMAPPER.accept(this.buffer);
+			}
+		}
+
+		void delete() {
+			unmap();
+			try {
+				Files.deleteIfExists(this.file);
+			}
+			catch (IOException ex) {
+				if (log.isWarnEnabled()) {
+					log.warn("Failed to delete span spool segment [" + this.file + "]", ex);
+				}
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2013-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.zipkin2;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import zipkin2.codec.Encoding;
+import zipkin2.reporter.BytesMessageEncoder;
+
+/**
+ * A batch of encoded spans that is written to its destination together with the list
+ * framing of the encoding, without concatenating the spans into an intermediate array
+ * first.
+ *
+ * @author Marcin Grzejszczak
+ * @since 3.1.11
+ */
+final class EncodedSpansMessage {
+
+	private final Encoding encoding;
+
+	private final List<byte[]> spans;
+
+	EncodedSpansMessage(Encoding encoding, List<byte[]> spans) {
+		this.encoding = encoding;
+		this.spans = spans;
+	}
+
+	/**
+	 * @return number of spans in the message
+	 */
+	int spanCount() {
+		return this.spans.size();
+	}
+
+	/**
+	 * @return size of the message in bytes
+	 */
+	int sizeInBytes() {
+		return this.encoding.listSizeInBytes(this.spans);
+	}
+
+	/**
+	 * Writes the message. The stream is neither flushed nor closed.
+	 * @param out destination of the message
+	 * @throws IOException when writing fails
+	 */
+	void writeTo(OutputStream out) throws IOException {
+		// proto3 encoding of ListOfSpan is simply a repeated span entry
+		boolean json = this.encoding != Encoding.PROTO3;
+		if (json) {
+			out.write('[');
+		}
+		for (int i = 0; i < this.spans.size(); i++) {
+			if (json && i > 0) {
+				out.write(',');
+			}
+			out.write(this.spans.get(i));
+		}
+		if (json) {
+			out.write(']');
+		}
+	}
+
+	/**
+	 * @return the message as a single array, for clients that can't stream it
+	 */
+	byte[] toByteArray() {
+		return BytesMessageEncoder.forEncoding(this.encoding).encode(this.spans);
+	}
+
+}
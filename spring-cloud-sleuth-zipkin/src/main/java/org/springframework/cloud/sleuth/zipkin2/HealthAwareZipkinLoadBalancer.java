@@ -0,0 +1,282 @@
+/*
+ * Copyright 2013-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.zipkin2;
+
+import java.io.Closeable;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * {@link ZipkinLoadBalancer} that keeps a pool of Zipkin instances and picks the least
+ * loaded one. The pool is resolved upfront and refreshed in the background, so picking
+ * an instance doesn't require a lookup. For each instance the number of requests in
+ * flight and an exponentially weighted moving average of the request latency and of the
+ * error rate are tracked. Two random instances are compared and the one with the lower
+ * latency times the number of requests in flight plus one, penalized by its error rate,
+ * is picked (power of two choices). The averages of an instance decay while it gets no
+ * requests, so that an instance that was slow once gets probed again. An instance whose
+ * request failed (e.g. because it timed out) is skipped until a backoff period elapses,
+ * unless no other instance is available.
+ *
+ * @author Marcin Grzejszczak
+ * @since 3.1.11
+ */
+public class HealthAwareZipkinLoadBalancer implements ZipkinLoadBalancer, Closeable {
+
+	private static final Log log = LogFactory.getLog(HealthAwareZipkinLoadBalancer.class);
+
+	/**
+	 * Weight of the latest sample in the moving averages.
+	 */
+	private static final double ALPHA = 0.2;
+
+	/**
+	 * An instance failing every request scores as if it was that many times slower.
+	 */
+	private static final double ERROR_PENALTY = 10.0;
+
+	/**
+	 * Time after which the averages of an instance without samples are halved.
+	 */
+	private static final double IDLE_HALF_LIFE_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+	private static final Instance[] NO_INSTANCES = new Instance[0];
+
+	private final Supplier<List<URI>> instancesSupplier;
+
+	private final URI fallback;
+
+	private final long failureBackoffNanos;
+
+	private final LongSupplier nanoClock;
+
+	private final ScheduledExecutorService refresher;
+
+	private volatile Instance[] instances = NO_INSTANCES;
+
+	/**
+	 * @param instancesSupplier provides the current Zipkin instances
+	 * @param fallback instance used when there are no known instances
+	 * @param refreshIntervalMillis interval between refreshes of the instances
+	 * @param failureBackoffMillis time for which a failed instance is skipped
+	 */
+	public HealthAwareZipkinLoadBalancer(Supplier<List<URI>> instancesSupplier, URI fallback,
+			long refreshIntervalMillis, long failureBackoffMillis) {
+		this(instancesSupplier, fallback, refreshIntervalMillis, failureBackoffMillis, System::nanoTime);
+	}
+
+	HealthAwareZipkinLoadBalancer(Supplier<List<URI>> instancesSupplier, URI fallback, long refreshIntervalMillis,
+			long failureBackoffMillis, LongSupplier nanoClock) {
+		this.instancesSupplier = instancesSupplier;
+		this.fallback = fallback;
+		this.failureBackoffNanos = TimeUnit.MILLISECONDS.toNanos(failureBackoffMillis);
+		this.nanoClock = nanoClock;
+		refresh();
+		if (refreshIntervalMillis > 0) {
+			this.refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "zipkin-instances-refresher");
+				thread.setDaemon(true);
+				return thread;
+			});
+			this.refresher.scheduleWithFixedDelay(this::refresh, refreshIntervalMillis, refreshIntervalMillis,
+					TimeUnit.MILLISECONDS);
+		}
+		else {
+			this.refresher = null;
+		}
+	}
+
+	@Override
+	public URI instance() {
+		Instance[] instances = this.instances;
+		if (instances.length == 0) {
+			return this.fallback;
+		}
+		long now = this.nanoClock.getAsLong();
+		int available = 0;
+		Instance leastRecentlyFailed = null;
+		for (Instance instance : instances) {
+			if (instance.isAvailable(now)) {
+				available++;
+			}
+			else if (leastRecentlyFailed == null || instance.retryAtNanos - leastRecentlyFailed.retryAtNanos < 0) {
+				leastRecentlyFailed = instance;
+			}
+		}
+		if (available == 0) {
+			return leastRecentlyFailed.uri;
+		}
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int first = random.nextInt(available);
+		Instance candidate = available(instances, first, now);
+		if (available == 1 || candidate == null) {
+			return candidate != null ? candidate.uri : instances[0].uri;
+		}
+		int second = random.nextInt(available - 1);
+		Instance other = available(instances, second < first ? second : second + 1, now);
+		if (other != null && other.score(now) < candidate.score(now)) {
+			return other.uri;
+		}
+		return candidate.uri;
+	}
+
+	/**
+	 * @return the available instance with the given index among the available ones or
+	 * {@code null} if instances became unavailable in the meantime
+	 */
+	private static Instance available(Instance[] instances, int index, long now) {
+		for (Instance instance : instances) {
+			if (instance.isAvailable(now) && index-- == 0) {
+				return instance;
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public void requestStarted(URI instance) {
+		Instance candidate = find(instance);
+		if (candidate != null) {
+			candidate.inFlight.incrementAndGet();
+		}
+	}
+
+	@Override
+	public void requestCompleted(URI instance, long durationNanos, Throwable error) {
+		Instance candidate = find(instance);
+		if (candidate != null) {
+			candidate.inFlight.updateAndGet(inFlight -> Math.max(inFlight - 1, 0));
+			candidate.record(durationNanos, error != null, this.nanoClock.getAsLong(), this.failureBackoffNanos);
+		}
+	}
+
+	private Instance find(URI uri) {
+		for (Instance candidate : this.instances) {
+			if (candidate.uri.equals(uri)) {
+				return candidate;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Resolves the instances again. Statistics of instances that are still present are
+	 * retained.
+	 */
+	void refresh() {
+		List<URI> uris;
+		try {
+			uris = this.instancesSupplier.get();
+		}
+		catch (RuntimeException ex) {
+			if (log.isWarnEnabled()) {
+				log.warn("Failed to resolve Zipkin instances, will keep using the previously resolved ones", ex);
+			}
+			return;
+		}
+		if (uris == null) {
+			return;
+		}
+		long now = this.nanoClock.getAsLong();
+		Map<URI, Instance> current = new HashMap<>();
+		for (Instance instance : this.instances) {
+			current.put(instance.uri, instance);
+		}
+		Instance[] refreshed = new Instance[uris.size()];
+		for (int i = 0; i < refreshed.length; i++) {
+			URI uri = uris.get(i);
+			Instance instance = current.get(uri);
+			refreshed[i] = instance != null ? instance : new Instance(uri, now);
+		}
+		this.instances = refreshed;
+		if (log.isDebugEnabled()) {
+			log.debug("Resolved [" + refreshed.length + "] Zipkin instances");
+		}
+	}
+
+	@Override
+	public void close() {
+		if (this.refresher != null) {
+			this.refresher.shutdownNow();
+		}
+	}
+
+	private static final class Instance {
+
+		final URI uri;
+
+		final AtomicInteger inFlight = new AtomicInteger();
+
+		volatile double latencyNanos;
+
+		volatile double errorRate;
+
+		volatile long lastSampleNanos;
+
+		volatile long retryAtNanos;
+
+		Instance(URI uri, long now) {
+			this.uri = uri;
+			this.retryAtNanos = now;
+			this.lastSampleNanos = now;
+		}
+
+		boolean isAvailable(long now) {
+			return now - this.retryAtNanos >= 0;
+		}
+
+		/**
+		 * Instances without samples score best, so that they get tried.
+		 */
+		double score(long now) {
+			double decay = decay(now);
+			return (this.latencyNanos * decay + 1.0) * (this.inFlight.get() + 1)
+					* (1.0 + ERROR_PENALTY * this.errorRate * decay);
+		}
+
+		private double decay(long now) {
+			long idleNanos = now - this.lastSampleNanos;
+			return idleNanos <= 0 ? 1.0 : Math.pow(0.5, idleNanos / IDLE_HALF_LIFE_NANOS);
+		}
+
+		synchronized void record(long durationNanos, boolean failed, long now, long backoffNanos) {
+			double decay = decay(now);
+			double latency = this.latencyNanos * decay;
+			this.latencyNanos = latency == 0.0 ? durationNanos : latency + ALPHA * (durationNanos - latency);
+			double errorRate = this.errorRate * decay;
+			this.errorRate = errorRate + ALPHA * ((failed ? 1.0 : 0.0) - errorRate);
+			this.lastSampleNanos = now;
+			if (failed) {
+				this.retryAtNanos = now + backoffNanos;
+			}
+		}
+
+	}
+
+}
@@ -26,7 +26,6 @@ import zipkin2.CheckResult;
 import zipkin2.Span;
 import zipkin2.codec.BytesEncoder;
 import zipkin2.codec.Encoding;
-import zipkin2.reporter.BytesMessageEncoder;
 import zipkin2.reporter.Sender;
 
 import org.springframework.http.MediaType;
@@ -48,8 +47,6 @@ abstract class HttpSender extends Sender {
 
 	final MediaType mediaType;
 
-	final BytesMessageEncoder messageEncoder;
-
 	/**
 	 * close is typically called from a different thread.
 	 */
@@ -76,7 +73,6 @@ abstract class HttpSender extends Sender {
 		else {
 			throw new UnsupportedOperationException("Unsupported encoding: " + this.encoding.name());
 		}
-		this.messageEncoder = BytesMessageEncoder.forEncoding(this.encoding);
 	}
 
 	private String buildUrlWithCustomPathIfNecessary(final String baseUrl, final String customApiPath,
@@ -111,7 +107,15 @@ abstract class HttpSender extends Sender {
 		if (this.closeCalled) {
 			throw new IllegalStateException("close");
 		}
-		return new HttpPostCall(this.messageEncoder.encode(encodedSpans));
+		return postCall(new EncodedSpansMessage(this.encoding, encodedSpans));
+	}
+
+	/**
+	 * @param message encoded spans
+	 * @return call that sends the message to Zipkin
+	 */
+	Call<Void> postCall(EncodedSpansMessage message) {
+		return new HttpPostCall(message);
 	}
 
 	/**
@@ -137,11 +141,15 @@ abstract class HttpSender extends Sender {
 		this.sender.call(this.url, this.mediaType, json);
 	}
 
+	void post(EncodedSpansMessage message) {
+		this.sender.call(this.url, this.mediaType, message);
+	}
+
 	class HttpPostCall extends Call.Base<Void> {
 
-		private final byte[] message;
+		private final EncodedSpansMessage message;
 
-		HttpPostCall(byte[] message) {
+		HttpPostCall(EncodedSpansMessage message) {
 			this.message = message;
 		}
 
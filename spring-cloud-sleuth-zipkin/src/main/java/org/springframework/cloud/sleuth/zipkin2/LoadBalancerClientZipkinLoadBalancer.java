@@ -34,6 +34,8 @@ public class LoadBalancerClientZipkinLoadBalancer implements ZipkinLoadBalancer
 
 	private final ZipkinProperties zipkinProperties;
 
+	private volatile ParsedBaseUrl parsedBaseUrl;
+
 	public LoadBalancerClientZipkinLoadBalancer(LoadBalancerClient loadBalancerClient,
 			ZipkinProperties zipkinProperties) {
 		this.loadBalancerClient = loadBalancerClient;
@@ -42,15 +44,40 @@ public class LoadBalancerClientZipkinLoadBalancer implements ZipkinLoadBalancer
 
 	@Override
 	public URI instance() {
+		ParsedBaseUrl baseUrl = parsedBaseUrl();
 		if (this.loadBalancerClient != null) {
-			URI uri = URI.create(this.zipkinProperties.getBaseUrl());
-			String host = uri.getHost();
-			ServiceInstance instance = this.loadBalancerClient.choose(host);
+			ServiceInstance instance = this.loadBalancerClient.choose(baseUrl.uri.getHost());
 			if (instance != null) {
 				return instance.getUri();
 			}
 		}
-		return URI.create(this.zipkinProperties.getBaseUrl());
+		return baseUrl.uri;
+	}
+
+	/**
+	 * The base URL is parsed again only when the property changes.
+	 */
+	private ParsedBaseUrl parsedBaseUrl() {
+		String baseUrl = this.zipkinProperties.getBaseUrl();
+		ParsedBaseUrl parsed = this.parsedBaseUrl;
+		if (parsed == null || !parsed.baseUrl.equals(baseUrl)) {
+			parsed = new ParsedBaseUrl(baseUrl);
+			this.parsedBaseUrl = parsed;
+		}
+		return parsed;
+	}
+
+	private static final class ParsedBaseUrl {
+
+		final String baseUrl;
+
+		final URI uri;
+
+		ParsedBaseUrl(String baseUrl) {
+			this.baseUrl = baseUrl;
+			this.uri = URI.create(baseUrl);
+		}
+
 	}
 
 }
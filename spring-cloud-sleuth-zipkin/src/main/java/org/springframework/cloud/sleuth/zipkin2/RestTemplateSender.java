@@ -16,7 +16,9 @@
 
 package org.springframework.cloud.sleuth.zipkin2;
 
+import java.io.IOException;
 import java.net.URI;
+import java.util.zip.GZIPOutputStream;
 
 import zipkin2.Span;
 import zipkin2.codec.BytesEncoder;
@@ -26,10 +28,14 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.RequestEntity;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.client.RestTemplate;
 
 /**
- * {@link Sender} that uses {@link RestTemplate} to send spans to Zipkin.
+ * {@link Sender} that uses {@link RestTemplate} to send spans to Zipkin. Spans are
+ * written straight to the request body (gzipped on the fly if compression is enabled),
+ * so no intermediate copies of the message are made.
  *
  * @since 3.0.0
  */
@@ -41,7 +47,22 @@ public class RestTemplateSender extends HttpSender {
 	}
 
 	public RestTemplateSender(RestTemplate restTemplate, String baseUrl, String apiPath, BytesEncoder<Span> encoder) {
-		super((url, mediaType, bytes) -> post(url, mediaType, bytes, restTemplate), baseUrl, apiPath, encoder);
+		this(restTemplate, baseUrl, apiPath, encoder, false);
+	}
+
+	/**
+	 * Creates a new instance of {@link RestTemplateSender}.
+	 * @param restTemplate rest template
+	 * @param baseUrl base url
+	 * @param apiPath api path
+	 * @param encoder encoder
+	 * @param compressionEnabled whether spans should be gzipped while they're written to
+	 * the request body
+	 * @since 3.1.11
+	 */
+	public RestTemplateSender(RestTemplate restTemplate, String baseUrl, String apiPath, BytesEncoder<Span> encoder,
+			boolean compressionEnabled) {
+		super(new RestTemplateHttpClientSender(restTemplate, compressionEnabled), baseUrl, apiPath, encoder);
 	}
 
 	private static void post(String url, MediaType mediaType, byte[] json, RestTemplate restTemplate) {
@@ -51,9 +72,53 @@ public class RestTemplateSender extends HttpSender {
 		restTemplate.exchange(requestEntity, String.class);
 	}
 
+	private static void post(String url, MediaType mediaType, EncodedSpansMessage message, RestTemplate restTemplate,
+			boolean compressionEnabled) {
+		restTemplate.execute(URI.create(url), HttpMethod.POST,
+				request -> writeBody(request, mediaType, message, compressionEnabled), null);
+	}
+
+	private static void writeBody(ClientHttpRequest request, MediaType mediaType, EncodedSpansMessage message,
+			boolean compressionEnabled) throws IOException {
+		HttpHeaders headers = request.getHeaders();
+		headers.setContentType(mediaType);
+		if (!compressionEnabled) {
+			headers.setContentLength(message.sizeInBytes());
+			message.writeTo(request.getBody());
+			return;
+		}
+		headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+		try (GZIPOutputStream compressor = new GZIPOutputStream(StreamUtils.nonClosing(request.getBody()))) {
+			message.writeTo(compressor);
+		}
+	}
+
 	@Override
 	public String toString() {
 		return "RestTemplateSender{" + url + "}";
 	}
 
+	private static final class RestTemplateHttpClientSender implements ZipkinHttpClientSender {
+
+		private final RestTemplate restTemplate;
+
+		private final boolean compressionEnabled;
+
+		private RestTemplateHttpClientSender(RestTemplate restTemplate, boolean compressionEnabled) {
+			this.restTemplate = restTemplate;
+			this.compressionEnabled = compressionEnabled;
+		}
+
+		@Override
+		public void call(String url, MediaType mediaType, byte[] payload) {
+			post(url, mediaType, payload, this.restTemplate);
+		}
+
+		@Override
+		public void call(String url, MediaType mediaType, EncodedSpansMessage message) {
+			post(url, mediaType, message, this.restTemplate, this.compressionEnabled);
+		}
+
+	}
+
 }
@@ -0,0 +1,271 @@
+/*
+ * Copyright 2013-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.zipkin2;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import zipkin2.Call;
+import zipkin2.Callback;
+import zipkin2.CheckResult;
+import zipkin2.codec.Encoding;
+import zipkin2.reporter.ClosedSenderException;
+import zipkin2.reporter.Sender;
+
+/**
+ * {@link Sender} that spools span batches to disk when the delegate fails to send them
+ * (e.g. because Zipkin is down) and replays them once sending succeeds again. Batches are
+ * stored in memory-mapped segment files that are rotated when full; the oldest segments
+ * are deleted when the spool exceeds its disk budget. Replaying is rate limited to a
+ * given number of batches per second, so a recovering collector isn't flooded.
+ *
+ * A batch that could be spooled is reported as sent, so the reporter doesn't count it
+ * as dropped.
+ *
+ * @author Marcin Grzejszczak
+ * @since 3.1.11
+ */
+public class SpoolingSender extends Sender {
+
+	private static final Log log = LogFactory.getLog(SpoolingSender.class);
+
+	private final Sender delegate;
+
+	private final DiskSpool spool;
+
+	private final ScheduledExecutorService replayer;
+
+	private final AtomicBoolean replaying = new AtomicBoolean();
+
+	private volatile boolean closeCalled;
+
+	/**
+	 * @param delegate sender to which the batches are sent
+	 * @param directory directory in which the spooled batches are stored
+	 * @param segmentSize size of a single spool file in bytes
+	 * @param maxSize maximum size of all spool files in bytes
+	 * @param replayRate maximum number of spooled batches replayed per second
+	 */
+	public SpoolingSender(Sender delegate, Path directory, int segmentSize, long maxSize, int replayRate) {
+		this.delegate = delegate;
+		try {
+			this.spool = new DiskSpool(directory, segmentSize, maxSize);
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException("Failed to open the span spool in [" + directory + "]", ex);
+		}
+		this.replayer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "zipkin-spool-replayer");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long replayIntervalMicros = TimeUnit.SECONDS.toMicros(1) / Math.max(replayRate, 1);
+		this.replayer.scheduleWithFixedDelay(this::replay, replayIntervalMicros, replayIntervalMicros,
+				TimeUnit.MICROSECONDS);
+	}
+
+	@Override
+	public Encoding encoding() {
+		return this.delegate.encoding();
+	}
+
+	@Override
+	public int messageMaxBytes() {
+		return this.delegate.messageMaxBytes();
+	}
+
+	@Override
+	public int messageSizeInBytes(List<byte[]> encodedSpans) {
+		return this.delegate.messageSizeInBytes(encodedSpans);
+	}
+
+	@Override
+	public Call<Void> sendSpans(List<byte[]> encodedSpans) {
+		if (this.closeCalled) {
+			throw new ClosedSenderException();
+		}
+		return new SpoolingCall(encodedSpans);
+	}
+
+	@Override
+	public CheckResult check() {
+		return this.delegate.check();
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.closeCalled = true;
+		this.replayer.shutdownNow();
+		this.spool.close();
+		this.delegate.close();
+	}
+
+	/**
+	 * Sends the oldest spooled batch. It's removed from the spool only once the delegate
+	 * reports that it was sent, since a call of an asynchronous sender (e.g.
+	 * {@link WebClientSender}) may fail after it returned. Only one batch is replayed at
+	 * a time.
+	 */
+	void replay() {
+		if (!this.replaying.compareAndSet(false, true)) {
+			return;
+		}
+		DiskSpool.Batch batch = this.spool.peek();
+		if (batch == null) {
+			this.replaying.set(false);
+			return;
+		}
+		try {
+			this.delegate.sendSpans(batch.spans).enqueue(new Callback<Void>() {
+				@Override
+				public void onSuccess(Void value) {
+					SpoolingSender.this.spool.remove(batch);
+					SpoolingSender.this.replaying.set(false);
+				}
+
+				@Override
+				public void onError(Throwable t) {
+					replayFailed(t);
+				}
+			});
+		}
+		catch (RuntimeException ex) {
+			replayFailed(ex);
+		}
+	}
+
+	private void replayFailed(Throwable error) {
+		this.replaying.set(false);
+		if (log.isDebugEnabled()) {
+			log.debug("Failed to replay spooled spans, will retry", error);
+		}
+	}
+
+	/**
+	 * @return {@code true} if the spool has no batches left to replay
+	 */
+	public boolean isSpoolEmpty() {
+		return this.spool.isEmpty();
+	}
+
+	/**
+	 * @return number of spooled spans that were deleted to stay within the disk budget
+	 */
+	public long getDroppedSpans() {
+		return this.spool.getDroppedSpans();
+	}
+
+	@Override
+	public String toString() {
+		return "SpoolingSender{" + this.delegate + "}";
+	}
+
+	private boolean spool(List<byte[]> spans, Throwable error) {
+		try {
+			if (this.spool.append(spans)) {
+				if (log.isDebugEnabled()) {
+					log.debug("Failed to send [" + spans.size() + "] spans, spooled them to disk", error);
+				}
+				return true;
+			}
+		}
+		catch (IOException | RuntimeException ex) {
+			error.addSuppressed(ex);
+		}
+		return false;
+	}
+
+	class SpoolingCall extends Call.Base<Void> {
+
+		private final List<byte[]> spans;
+
+		SpoolingCall(List<byte[]> spans) {
+			this.spans = spans;
+		}
+
+		/**
+		 * Waits for the result of the delegate's call, since the spans have to be spooled
+		 * when it fails. Executing an asynchronous {@link WebClientSender} call would only
+		 * dispatch the request, so such a call is awaited explicitly. It still waits for a
+		 * free in-flight request slot, which pushes back on the reporter.
+		 */
+		@Override
+		protected Void doExecute() throws IOException {
+			try {
+				Call<Void> call = SpoolingSender.this.delegate.sendSpans(this.spans);
+				if (call instanceof WebClientSender.AsyncHttpPostCall) {
+					((WebClientSender.AsyncHttpPostCall) call).executeAndAwait();
+				}
+				else {
+					call.execute();
+				}
+			}
+			catch (IOException | RuntimeException ex) {
+				if (!spool(this.spans, ex)) {
+					throw ex;
+				}
+			}
+			return null;
+		}
+
+		@Override
+		protected void doEnqueue(Callback<Void> callback) {
+			Call<Void> call;
+			try {
+				call = SpoolingSender.this.delegate.sendSpans(this.spans);
+			}
+			catch (RuntimeException ex) {
+				onError(callback, ex);
+				return;
+			}
+			call.enqueue(new Callback<Void>() {
+				@Override
+				public void onSuccess(Void value) {
+					callback.onSuccess(value);
+				}
+
+				@Override
+				public void onError(Throwable t) {
+					SpoolingCall.this.onError(callback, t);
+				}
+			});
+		}
+
+		private void onError(Callback<Void> callback, Throwable error) {
+			if (spool(this.spans, error)) {
+				callback.onSuccess(null);
+			}
+			else {
+				callback.onError(error);
+			}
+		}
+
+		@Override
+		public Call<Void> clone() {
+			return new SpoolingCall(this.spans);
+		}
+
+	}
+
+}
@@ -16,28 +16,66 @@
 
 package org.springframework.cloud.sleuth.zipkin2;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URI;
 import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import reactor.core.publisher.Mono;
+import zipkin2.Call;
+import zipkin2.Callback;
 import zipkin2.Span;
 import zipkin2.codec.BytesEncoder;
+import zipkin2.reporter.ReporterMetrics;
 import zipkin2.reporter.Sender;
 
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.reactive.ClientHttpRequest;
+import org.springframework.web.reactive.function.BodyInserter;
+import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
 
 /**
  * {@link Sender} that uses {@link WebClient} to send spans to Zipkin.
+ * <p>
+ * By default each message is sent synchronously, blocking the calling thread until
+ * Zipkin responds. When a maximum number of in-flight requests is set, messages are sent
+ * asynchronously instead: {@link Call#execute()} returns as soon as the request has been
+ * dispatched and only blocks, for at most the check timeout, when that many requests are
+ * already in flight, which pushes back on the reporter. Since the reporter has moved on by
+ * the time the response arrives, failures of executed calls are counted as dropped in the
+ * {@link #setReporterMetrics(ReporterMetrics) reporter metrics}. {@link Call#enqueue}
+ * never blocks: it fails when no request slot is free and completes its callback from the
+ * response.
  *
  * @since 3.1.0
  */
 public class WebClientSender extends HttpSender {
 
+	private static final Log log = LogFactory.getLog(WebClientSender.class);
+
 	private static final long DEFAULT_CHECK_TIMEOUT = 1_000L;
 
+	private final Function<Mono<ResponseEntity<Void>>, Mono<ResponseEntity<Void>>> wrapperFunction;
+
+	private final WebClient webClient;
+
+	private final long checkTimeout;
+
+	private final int maxInFlightRequests;
+
+	private final Semaphore inFlightRequests;
+
+	private volatile ReporterMetrics reporterMetrics = ReporterMetrics.NOOP_METRICS;
+
 	/**
 	 * Use
 	 * {@link WebClientSender#WebClientSender(WebClient, String, String, BytesEncoder, long)}.
@@ -63,8 +101,7 @@ public class WebClientSender extends HttpSender {
 	 */
 	public WebClientSender(WebClient webClient, String baseUrl, String apiPath, BytesEncoder<Span> encoder,
 			long checkTimeout) {
-		super((url, mediaType, bytes) -> post(null, url, mediaType, bytes, webClient, checkTimeout).block(), baseUrl,
-				apiPath, encoder);
+		this(null, webClient, baseUrl, apiPath, encoder, checkTimeout);
 	}
 
 	/**
@@ -79,19 +116,115 @@ public class WebClientSender extends HttpSender {
 	 */
 	public WebClientSender(Function<Mono<ResponseEntity<Void>>, Mono<ResponseEntity<Void>>> wrapperFunction,
 			WebClient webClient, String baseUrl, String apiPath, BytesEncoder<Span> encoder, long checkTimeout) {
-		super((url, mediaType, bytes) -> post(wrapperFunction, url, mediaType, bytes, webClient, checkTimeout).block(),
-				baseUrl, apiPath, encoder);
+		this(wrapperFunction, webClient, baseUrl, apiPath, encoder, checkTimeout, 0);
+	}
+
+	/**
+	 * Creates a new instance of {@link WebClientSender}.
+	 * @param webClient web client
+	 * @param wrapperFunction function that will be run on onErrorResume. Send in null to
+	 * get default behavior.
+	 * @param baseUrl base url
+	 * @param apiPath api path
+	 * @param encoder encoder
+	 * @param checkTimeout check timeout
+	 * @param maxInFlightRequests maximum number of requests sent concurrently. If greater
+	 * than {@code 0} messages are sent asynchronously, otherwise each message blocks the
+	 * calling thread until it's sent.
+	 * @since 3.1.11
+	 */
+	public WebClientSender(Function<Mono<ResponseEntity<Void>>, Mono<ResponseEntity<Void>>> wrapperFunction,
+			WebClient webClient, String baseUrl, String apiPath, BytesEncoder<Span> encoder, long checkTimeout,
+			int maxInFlightRequests) {
+		super(new WebClientHttpClientSender(wrapperFunction, webClient, checkTimeout), baseUrl, apiPath, encoder);
+		this.wrapperFunction = wrapperFunction;
+		this.webClient = webClient;
+		this.checkTimeout = checkTimeout;
+		this.maxInFlightRequests = Math.max(maxInFlightRequests, 0);
+		this.inFlightRequests = new Semaphore(this.maxInFlightRequests);
 	}
 
 	private static Mono<ResponseEntity<Void>> post(
 			Function<Mono<ResponseEntity<Void>>, Mono<ResponseEntity<Void>>> wrapperFunction, String url,
 			MediaType mediaType, byte[] json, WebClient webClient, long checkTimeout) {
+		return post(wrapperFunction, url, mediaType, BodyInserters.fromValue(json), webClient, checkTimeout);
+	}
+
+	private static Mono<ResponseEntity<Void>> post(
+			Function<Mono<ResponseEntity<Void>>, Mono<ResponseEntity<Void>>> wrapperFunction, String url,
+			MediaType mediaType, EncodedSpansMessage message, WebClient webClient, long checkTimeout) {
+		return post(wrapperFunction, url, mediaType, body(message), webClient, checkTimeout);
+	}
+
+	private static Mono<ResponseEntity<Void>> post(
+			Function<Mono<ResponseEntity<Void>>, Mono<ResponseEntity<Void>>> wrapperFunction, String url,
+			MediaType mediaType, BodyInserter<?, ? super ClientHttpRequest> body, WebClient webClient,
+			long checkTimeout) {
 		if (wrapperFunction == null) {
 			wrapperFunction = (response) -> response;
 		}
 
 		return wrapperFunction.apply(webClient.post().uri(URI.create(url)).accept(mediaType).contentType(mediaType)
-				.bodyValue(json).retrieve().toBodilessEntity().timeout(Duration.ofMillis(checkTimeout)));
+				.body(body).retrieve().toBodilessEntity().timeout(Duration.ofMillis(checkTimeout)));
+	}
+
+	/**
+	 * Writes the spans into a single buffer allocated by the HTTP client (pooled in case
+	 * of Reactor Netty), which is released by the client once it's been sent. The headers
+	 * are read-only once the body is being written, so the content length is set first.
+	 */
+	private static BodyInserter<EncodedSpansMessage, ClientHttpRequest> body(EncodedSpansMessage message) {
+		return (request, context) -> {
+			request.getHeaders().setContentLength(message.sizeInBytes());
+			return request.writeWith(Mono.fromCallable(() -> {
+				DataBuffer buffer = request.bufferFactory().allocateBuffer(message.sizeInBytes());
+				try (OutputStream out = buffer.asOutputStream()) {
+					message.writeTo(out);
+				}
+				catch (IOException | RuntimeException ex) {
+					DataBufferUtils.release(buffer);
+					throw ex;
+				}
+				return buffer;
+			}));
+		};
+	}
+
+	/**
+	 * @param reporterMetrics metrics of the reporter using this sender, to which the spans
+	 * of asynchronously executed calls that failed are reported as dropped
+	 * @since 3.1.11
+	 */
+	public void setReporterMetrics(ReporterMetrics reporterMetrics) {
+		this.reporterMetrics = reporterMetrics;
+	}
+
+	@Override
+	Call<Void> postCall(EncodedSpansMessage message) {
+		if (this.maxInFlightRequests == 0) {
+			return super.postCall(message);
+		}
+		return new AsyncHttpPostCall(message);
+	}
+
+	/**
+	 * Waits for the in-flight requests to complete, for at most the check timeout.
+	 */
+	@Override
+	public void close() {
+		super.close();
+		if (this.maxInFlightRequests == 0) {
+			return;
+		}
+		try {
+			if (this.inFlightRequests.tryAcquire(this.maxInFlightRequests, this.checkTimeout,
+					TimeUnit.MILLISECONDS)) {
+				this.inFlightRequests.release(this.maxInFlightRequests);
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
 	}
 
 	@Override
@@ -99,4 +232,145 @@ public class WebClientSender extends HttpSender {
 		return "WebClientSender{" + url + "}";
 	}
 
+	/**
+	 * Sends the message without waiting for the response. Only waits for a free
+	 * in-flight request slot.
+	 */
+	class AsyncHttpPostCall extends Call.Base<Void> {
+
+		private final EncodedSpansMessage message;
+
+		AsyncHttpPostCall(EncodedSpansMessage message) {
+			this.message = message;
+		}
+
+		@Override
+		protected Void doExecute() {
+			acquire();
+			send(null);
+			return null;
+		}
+
+		/**
+		 * Sends the message and waits for the response, for callers that have to know
+		 * whether the spans were sent (e.g. {@link SpoolingSender}). Waits for a free
+		 * in-flight request slot like {@link #execute()}.
+		 */
+		void executeAndAwait() {
+			acquire();
+			try {
+				post(WebClientSender.this.wrapperFunction, url, mediaType, this.message,
+						WebClientSender.this.webClient, WebClientSender.this.checkTimeout).block();
+			}
+			finally {
+				WebClientSender.this.inFlightRequests.release();
+			}
+		}
+
+		private void acquire() {
+			boolean acquired;
+			try {
+				acquired = WebClientSender.this.inFlightRequests.tryAcquire(WebClientSender.this.checkTimeout,
+						TimeUnit.MILLISECONDS);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while waiting to send spans", ex);
+			}
+			if (!acquired) {
+				throw tooManyInFlightRequests();
+			}
+		}
+
+		@Override
+		protected void doEnqueue(Callback<Void> callback) {
+			if (!WebClientSender.this.inFlightRequests.tryAcquire()) {
+				callback.onError(tooManyInFlightRequests());
+				return;
+			}
+			try {
+				send(callback);
+			}
+			catch (RuntimeException | Error e) {
+				callback.onError(e);
+			}
+		}
+
+		private IllegalStateException tooManyInFlightRequests() {
+			return new IllegalStateException(
+					"[" + WebClientSender.this.maxInFlightRequests + "] requests to Zipkin are already in flight");
+		}
+
+		/**
+		 * Sends the message. The caller must have acquired an in-flight request slot.
+		 */
+		private void send(Callback<Void> callback) {
+			try {
+				post(WebClientSender.this.wrapperFunction, url, mediaType, this.message,
+						WebClientSender.this.webClient, WebClientSender.this.checkTimeout)
+								.doFinally(signal -> WebClientSender.this.inFlightRequests.release())
+								.subscribe(response -> {
+								}, error -> onError(callback, error), () -> onSuccess(callback));
+			}
+			catch (RuntimeException | Error ex) {
+				WebClientSender.this.inFlightRequests.release();
+				throw ex;
+			}
+		}
+
+		private void onSuccess(Callback<Void> callback) {
+			if (callback != null) {
+				callback.onSuccess(null);
+			}
+		}
+
+		private void onError(Callback<Void> callback, Throwable error) {
+			if (callback != null) {
+				callback.onError(error);
+				return;
+			}
+			// the reporter didn't wait for the response, so it can't count the spans itself
+			ReporterMetrics metrics = WebClientSender.this.reporterMetrics;
+			metrics.incrementMessagesDropped(error);
+			metrics.incrementSpansDropped(this.message.spanCount());
+			if (log.isWarnEnabled()) {
+				log.warn("Failed to send [" + this.message.spanCount() + "] spans to Zipkin at [" + url + "]", error);
+			}
+		}
+
+		@Override
+		public Call<Void> clone() {
+			return new AsyncHttpPostCall(this.message);
+		}
+
+	}
+
+	private static final class WebClientHttpClientSender implements ZipkinHttpClientSender {
+
+		private final Function<Mono<ResponseEntity<Void>>, Mono<ResponseEntity<Void>>> wrapperFunction;
+
+		private final WebClient webClient;
+
+		private final long checkTimeout;
+
+		private WebClientHttpClientSender(
+				Function<Mono<ResponseEntity<Void>>, Mono<ResponseEntity<Void>>> wrapperFunction, WebClient webClient,
+				long checkTimeout) {
+			this.wrapperFunction = wrapperFunction;
+			this.webClient = webClient;
+			this.checkTimeout = checkTimeout;
+		}
+
+		@Override
+		public void call(String url, MediaType mediaType, byte[] payload) {
+			post(this.wrapperFunction, url, mediaType, payload, this.webClient, this.checkTimeout).block();
+		}
+
+		@Override
+		public void call(String url, MediaType mediaType, EncodedSpansMessage message) {
+			post(this.wrapperFunction, url, mediaType, message, this.webClient, this.checkTimeout).block();
+		}
+
+	}
+
 }
@@ -34,4 +34,17 @@ interface ZipkinHttpClientSender {
 	 */
 	void call(String url, MediaType mediaType, byte[] payload);
 
+	/**
+	 * Sends a batch of spans to Zipkin via an HTTP Client. Clients that can stream the
+	 * request body should override this method, so that the spans are written without
+	 * being copied into a single array first.
+	 * @param url Zipkin URL
+	 * @param mediaType HTTP message media type
+	 * @param message spans to send
+	 * @since 3.1.11
+	 */
+	default void call(String url, MediaType mediaType, EncodedSpansMessage message) {
+		call(url, mediaType, message.toByteArray());
+	}
+
 }
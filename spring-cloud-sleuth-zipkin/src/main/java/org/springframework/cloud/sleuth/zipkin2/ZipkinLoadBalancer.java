@@ -32,4 +32,28 @@ public interface ZipkinLoadBalancer {
 	 */
 	URI instance();
 
+	/**
+	 * Called right before a request is sent to an instance returned by
+	 * {@link #instance()}. Allows the load balancer to track the requests in flight. Each
+	 * call is followed by a call to {@link #requestCompleted(URI, long, Throwable)}.
+	 * @param instance instance the request is sent to
+	 * @since 3.1.11
+	 */
+	default void requestStarted(URI instance) {
+
+	}
+
+	/**
+	 * Called when a request sent to an instance returned by {@link #instance()} has
+	 * completed. Allows the load balancer to take the health of the instances into
+	 * account.
+	 * @param instance instance the request was sent to
+	 * @param durationNanos duration of the request in nanoseconds
+	 * @param error error the request failed with or {@code null} if it succeeded
+	 * @since 3.1.11
+	 */
+	default void requestCompleted(URI instance, long durationNanos, Throwable error) {
+
+	}
+
 }
@@ -80,6 +80,14 @@ public class ZipkinProperties {
 
 	private Locator locator = new Locator();
 
+	private WebClient webClient = new WebClient();
+
+	private Pool pool = new Pool();
+
+	private Spool spool = new Spool();
+
+	private Adaptive adaptive = new Adaptive();
+
 	/**
 	 * Maximum backlog of spans reported vs sent.
 	 */
@@ -93,6 +101,38 @@ public class ZipkinProperties {
 		this.locator = locator;
 	}
 
+	public WebClient getWebClient() {
+		return this.webClient;
+	}
+
+	public void setWebClient(WebClient webClient) {
+		this.webClient = webClient;
+	}
+
+	public Pool getPool() {
+		return this.pool;
+	}
+
+	public void setPool(Pool pool) {
+		this.pool = pool;
+	}
+
+	public Spool getSpool() {
+		return this.spool;
+	}
+
+	public void setSpool(Spool spool) {
+		this.spool = spool;
+	}
+
+	public Adaptive getAdaptive() {
+		return this.adaptive;
+	}
+
+	public void setAdaptive(Adaptive adaptive) {
+		this.adaptive = adaptive;
+	}
+
 	public String getBaseUrl() {
 		return this.baseUrl;
 	}
@@ -210,6 +250,204 @@ public class ZipkinProperties {
 
 	}
 
+	/**
+	 * Configuration of spooling spans to disk when they can't be sent to Zipkin.
+	 */
+	public static class Spool {
+
+		/**
+		 * Enables spooling spans to disk when sending them to Zipkin fails. Spooled spans
+		 * are sent again once Zipkin is available.
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * Directory in which spooled spans are stored. Defaults to a directory named after
+		 * the application in a zipkin-spool directory in the temporary directory. It can't
+		 * be shared by running applications.
+		 */
+		private String directory;
+
+		/**
+		 * Size in bytes of a single spool file.
+		 */
+		private int segmentSize = 8 * 1024 * 1024;
+
+		/**
+		 * Maximum size in bytes of all spool files. When exceeded, the oldest spooled
+		 * spans are deleted.
+		 */
+		private long maxSize = 256L * 1024 * 1024;
+
+		/**
+		 * Maximum number of spooled messages sent to Zipkin per second.
+		 */
+		private int replayRate = 10;
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public String getDirectory() {
+			return this.directory;
+		}
+
+		public void setDirectory(String directory) {
+			this.directory = directory;
+		}
+
+		public int getSegmentSize() {
+			return this.segmentSize;
+		}
+
+		public void setSegmentSize(int segmentSize) {
+			this.segmentSize = segmentSize;
+		}
+
+		public long getMaxSize() {
+			return this.maxSize;
+		}
+
+		public void setMaxSize(long maxSize) {
+			this.maxSize = maxSize;
+		}
+
+		public int getReplayRate() {
+			return this.replayRate;
+		}
+
+		public void setReplayRate(int replayRate) {
+			this.replayRate = replayRate;
+		}
+
+	}
+
+	/**
+	 * Configuration of adapting the batching of spans to the observed load.
+	 */
+	public static class Adaptive {
+
+		/**
+		 * Enables adapting the batch size and the flush interval to the arrival rate of
+		 * spans, the latency of the sender and the number of dropped spans. The
+		 * queued-max-spans property bounds the queue and the message-timeout property
+		 * bounds the flush interval.
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * Shortest interval in millis between sending spans to Zipkin.
+		 */
+		private long minMessageTimeout = 50;
+
+		/**
+		 * Time in millis sending spans to Zipkin may take. The number of spans sent at
+		 * once grows while sending them takes less.
+		 */
+		private long targetSendLatency = 100;
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public long getMinMessageTimeout() {
+			return this.minMessageTimeout;
+		}
+
+		public void setMinMessageTimeout(long minMessageTimeout) {
+			this.minMessageTimeout = minMessageTimeout;
+		}
+
+		public long getTargetSendLatency() {
+			return this.targetSendLatency;
+		}
+
+		public void setTargetSendLatency(long targetSendLatency) {
+			this.targetSendLatency = targetSendLatency;
+		}
+
+	}
+
+	/**
+	 * Configuration of load balancing over a pool of Zipkin instances found in service
+	 * discovery.
+	 */
+	public static class Pool {
+
+		/**
+		 * Enables picking the least loaded healthy Zipkin instance from all instances
+		 * registered in service discovery instead of delegating to the load balancer
+		 * client.
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * Interval in millis between refreshes of the Zipkin instances.
+		 */
+		private long refreshInterval = 30_000;
+
+		/**
+		 * Time in millis for which a Zipkin instance is skipped after a failed request.
+		 */
+		private long failureBackoff = 5_000;
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public long getRefreshInterval() {
+			return this.refreshInterval;
+		}
+
+		public void setRefreshInterval(long refreshInterval) {
+			this.refreshInterval = refreshInterval;
+		}
+
+		public long getFailureBackoff() {
+			return this.failureBackoff;
+		}
+
+		public void setFailureBackoff(long failureBackoff) {
+			this.failureBackoff = failureBackoff;
+		}
+
+	}
+
+	/**
+	 * Configuration of the WebClient based sender.
+	 */
+	public static class WebClient {
+
+		/**
+		 * Maximum number of concurrent requests sending spans to Zipkin. When greater
+		 * than 0, spans are sent asynchronously and the reporter only waits, for at most
+		 * the check timeout, when that many requests are in flight. When 0, the reporter
+		 * waits for each request to complete.
+		 */
+		private int maxInFlightRequests = 0;
+
+		public int getMaxInFlightRequests() {
+			return this.maxInFlightRequests;
+		}
+
+		public void setMaxInFlightRequests(int maxInFlightRequests) {
+			this.maxInFlightRequests = maxInFlightRequests;
+		}
+
+	}
+
 	/**
 	 * Configuration related to locating of the host name from service discovery. This
 	 * property is NOT related to finding Zipkin via Service Disovery. To do so use the
@@ -26,6 +26,7 @@ import org.springframework.http.HttpMethod;
 import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.ResponseExtractor;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
@@ -56,6 +57,8 @@ public class ZipkinRestTemplateWrapper extends RestTemplate {
 		SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
 		factory.setReadTimeout(zipkinProperties.getCheckTimeout());
 		factory.setConnectTimeout(zipkinProperties.getCheckTimeout());
+		// senders write spans straight to the request body, don't buffer them again
+		factory.setBufferRequestBody(false);
 		return factory;
 	}
 
@@ -63,11 +66,42 @@ public class ZipkinRestTemplateWrapper extends RestTemplate {
 	protected <T> T doExecute(URI originalUrl, HttpMethod method, RequestCallback requestCallback,
 			ResponseExtractor<T> responseExtractor) throws RestClientException {
 		URI uri = this.extractor.zipkinUrl(this.zipkinProperties);
+		try {
+			return execute(uri, originalUrl, method, requestCallback, responseExtractor);
+		}
+		catch (ResourceAccessException ex) {
+			if (!this.extractor.isHealthAware()) {
+				throw ex;
+			}
+			// the instance is down or too slow - fail over once if another one is picked
+			URI failover = this.extractor.zipkinUrl(this.zipkinProperties);
+			if (failover.equals(uri)) {
+				throw ex;
+			}
+			if (log.isDebugEnabled()) {
+				log.debug("Failed to send spans to [" + uri + "], will retry with [" + failover + "]");
+			}
+			return execute(failover, originalUrl, method, requestCallback, responseExtractor);
+		}
+	}
+
+	private <T> T execute(URI uri, URI originalUrl, HttpMethod method, RequestCallback requestCallback,
+			ResponseExtractor<T> responseExtractor) {
 		URI newUri = resolvedZipkinUri(originalUrl, uri);
-		return super.doExecute(newUri, method, requestCallback, responseExtractor);
+		this.extractor.requestStarted(uri);
+		long start = System.nanoTime();
+		try {
+			T result = super.doExecute(newUri, method, requestCallback, responseExtractor);
+			this.extractor.requestCompleted(uri, System.nanoTime() - start, null);
+			return result;
+		}
+		catch (RuntimeException ex) {
+			this.extractor.requestCompleted(uri, System.nanoTime() - start, ex);
+			throw ex;
+		}
 	}
 
-	private URI resolvedZipkinUri(URI originalUrl, URI resolvedZipkinUri) {
+	static URI resolvedZipkinUri(URI originalUrl, URI resolvedZipkinUri) {
 		try {
 			return new URI(resolvedZipkinUri.getScheme(), resolvedZipkinUri.getUserInfo(), resolvedZipkinUri.getHost(),
 					resolvedZipkinUri.getPort(), originalUrl.getPath(), originalUrl.getQuery(),
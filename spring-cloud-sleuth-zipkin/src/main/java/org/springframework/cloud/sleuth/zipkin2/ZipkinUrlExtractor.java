@@ -29,4 +29,36 @@ public interface ZipkinUrlExtractor {
 
 	URI zipkinUrl(ZipkinProperties zipkinProperties);
 
+	/**
+	 * Called right before a request is sent to an URL returned by
+	 * {@link #zipkinUrl(ZipkinProperties)}.
+	 * @param zipkinUrl URL the request is sent to
+	 * @since 3.1.11
+	 */
+	default void requestStarted(URI zipkinUrl) {
+
+	}
+
+	/**
+	 * Called when a request sent to an URL returned by
+	 * {@link #zipkinUrl(ZipkinProperties)} has completed.
+	 * @param zipkinUrl URL the request was sent to
+	 * @param durationNanos duration of the request in nanoseconds
+	 * @param error error the request failed with or {@code null} if it succeeded
+	 * @since 3.1.11
+	 */
+	default void requestCompleted(URI zipkinUrl, long durationNanos, Throwable error) {
+
+	}
+
+	/**
+	 * @return {@code true} if the URLs are picked based on the outcome of the requests
+	 * reported to {@link #requestCompleted(URI, long, Throwable)}, in which case a
+	 * request that failed to reach Zipkin can be retried against another URL
+	 * @since 3.1.11
+	 */
+	default boolean isHealthAware() {
+		return false;
+	}
+
 }
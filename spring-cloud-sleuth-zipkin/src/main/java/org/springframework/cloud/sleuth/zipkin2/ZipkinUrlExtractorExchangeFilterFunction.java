@@ -0,0 +1,68 @@
+/*
+ * Copyright 2013-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.zipkin2;
+
+import java.net.URI;
+import java.util.concurrent.TimeoutException;
+
+import reactor.core.publisher.Mono;
+
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+
+/**
+ * {@link ExchangeFilterFunction} that sends each request to the URL picked by a
+ * {@link ZipkinUrlExtractor} and reports the outcome of the request back to it. The
+ * reactive counterpart of {@link ZipkinRestTemplateWrapper}, which allows a
+ * {@link HealthAwareZipkinLoadBalancer} to track the health of the instances.
+ *
+ * @author Marcin Grzejszczak
+ * @since 3.1.11
+ */
+public class ZipkinUrlExtractorExchangeFilterFunction implements ExchangeFilterFunction {
+
+	private final ZipkinProperties zipkinProperties;
+
+	private final ZipkinUrlExtractor extractor;
+
+	public ZipkinUrlExtractorExchangeFilterFunction(ZipkinProperties zipkinProperties, ZipkinUrlExtractor extractor) {
+		this.zipkinProperties = zipkinProperties;
+		this.extractor = extractor;
+	}
+
+	@Override
+	public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+		return Mono.defer(() -> {
+			URI uri = this.extractor.zipkinUrl(this.zipkinProperties);
+			ClientRequest resolved = ClientRequest.from(request)
+					.url(ZipkinRestTemplateWrapper.resolvedZipkinUri(request.url(), uri)).build();
+			this.extractor.requestStarted(uri);
+			long start = System.nanoTime();
+			return next.exchange(resolved).doOnSuccess(response -> {
+				// same as the RestTemplate, which fails on error responses
+				Throwable error = response != null && response.rawStatusCode() >= 400
+						? new IllegalStateException("Zipkin responded with [" + response.rawStatusCode() + "]") : null;
+				this.extractor.requestCompleted(uri, System.nanoTime() - start, error);
+			}).doOnError(error -> this.extractor.requestCompleted(uri, System.nanoTime() - start, error))
+					.doOnCancel(() -> this.extractor.requestCompleted(uri, System.nanoTime() - start,
+							new TimeoutException("Request to Zipkin was cancelled, e.g. because it timed out")));
+		});
+	}
+
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2013-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.zipkin2;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import zipkin2.reporter.InMemoryReporterMetrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static zipkin2.codec.SpanBytesEncoder.JSON_V2;
+
+class AdaptiveAsyncReporterTests {
+
+	static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	SpoolingSenderTests.FakeSender sender = new SpoolingSenderTests.FakeSender();
+
+	InMemoryReporterMetrics metrics = new InMemoryReporterMetrics();
+
+	AdaptiveAsyncReporter reporter = new AdaptiveAsyncReporter(this.sender, JSON_V2, this.metrics, 1000, 10L, 1000L,
+			100L, false);
+
+	@AfterEach
+	void close() {
+		this.reporter.close();
+	}
+
+	@Test
+	void should_grow_batch_size_while_sender_keeps_up() {
+		for (int i = 0; i < 20; i++) {
+			this.reporter.adapt(SECOND, 1_000L, 0L, TimeUnit.MILLISECONDS.toNanos(1));
+		}
+
+		assertThat(this.reporter.getBatchSize()).isGreaterThan(AdaptiveAsyncReporter.MIN_BATCH_SIZE);
+		assertThat(this.reporter.getArrivalRate()).isEqualTo(1_000.0);
+	}
+
+	@Test
+	void should_not_grow_batch_size_while_sender_is_slower_than_the_target_latency() {
+		for (int i = 0; i < 20; i++) {
+			this.reporter.adapt(SECOND, 1_000L, 0L, TimeUnit.MILLISECONDS.toNanos(200));
+		}
+
+		assertThat(this.reporter.getBatchSize()).isEqualTo(AdaptiveAsyncReporter.MIN_BATCH_SIZE);
+	}
+
+	@Test
+	void should_halve_batch_size_and_flush_sooner_when_spans_get_dropped() {
+		for (int i = 0; i < 20; i++) {
+			this.reporter.adapt(SECOND, 1_000L, 0L, TimeUnit.MILLISECONDS.toNanos(1));
+		}
+		int batchSize = this.reporter.getBatchSize();
+
+		this.reporter.adapt(SECOND, 1_000L, 5L, TimeUnit.MILLISECONDS.toNanos(100));
+
+		assertThat(this.reporter.getBatchSize()).isEqualTo(batchSize / 2);
+		assertThat(this.reporter.getFlushIntervalMillis()).isEqualTo(10.0);
+	}
+
+	@Test
+	void should_not_wait_for_more_spans_than_arrive_within_the_longest_interval() {
+		for (int i = 0; i < 20; i++) {
+			this.reporter.adapt(SECOND, 1_000L, 0L, TimeUnit.MILLISECONDS.toNanos(1));
+		}
+
+		for (int i = 0; i < 20; i++) {
+			this.reporter.adapt(SECOND, 0L, 0L, TimeUnit.MILLISECONDS.toNanos(1));
+		}
+
+		assertThat(this.reporter.getBatchSize()).isEqualTo(AdaptiveAsyncReporter.MIN_BATCH_SIZE);
+	}
+
+	@Test
+	void should_follow_sender_latency_with_flush_interval() {
+		this.reporter.adapt(SECOND, 1_000L, 0L, TimeUnit.MILLISECONDS.toNanos(200));
+
+		assertThat(this.reporter.getFlushIntervalMillis()).isEqualTo(400.0);
+		assertThat(this.reporter.getSendLatencyMillis()).isEqualTo(200.0);
+
+		this.reporter.adapt(SECOND, 1_000L, 0L, TimeUnit.SECONDS.toNanos(10));
+
+		assertThat(this.reporter.getFlushIntervalMillis()).isEqualTo(1_000.0);
+	}
+
+	@Test
+	void should_send_queued_spans_in_the_background() {
+		AdaptiveAsyncReporter reporter = new AdaptiveAsyncReporter(this.sender, JSON_V2, this.metrics, 1000, 10L,
+				1000L, 100L);
+
+		for (int i = 0; i < 5; i++) {
+			reporter.report(AbstractSenderTest.SPAN);
+		}
+
+		await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(this.metrics.spans()).isEqualTo(5));
+		await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(this.sender.sent).isNotEmpty());
+		reporter.close();
+	}
+
+	@Test
+	void should_send_all_queued_spans_on_flush() {
+		for (int i = 0; i < 50; i++) {
+			this.reporter.report(AbstractSenderTest.SPAN);
+		}
+
+		this.reporter.flush();
+
+		assertThat(this.metrics.queuedSpans()).isZero();
+		assertThat(this.sender.sent).isNotEmpty();
+	}
+
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2013-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.zipkin2;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HealthAwareZipkinLoadBalancerTests {
+
+	static final URI FALLBACK = URI.create("http://zipkin:9411");
+
+	static final URI FIRST = URI.create("http://10.0.0.1:9411");
+
+	static final URI SECOND = URI.create("http://10.0.0.2:9411");
+
+	AtomicLong clock = new AtomicLong(1_000L);
+
+	AtomicReference<List<URI>> instances = new AtomicReference<>(Arrays.asList(FIRST, SECOND));
+
+	HealthAwareZipkinLoadBalancer loadBalancer = new HealthAwareZipkinLoadBalancer(this.instances::get, FALLBACK, 0L,
+			1_000L, this.clock::get);
+
+	@Test
+	void should_return_fallback_when_there_are_no_instances() {
+		this.instances.set(Collections.emptyList());
+		this.loadBalancer.refresh();
+
+		assertThat(this.loadBalancer.instance()).isEqualTo(FALLBACK);
+	}
+
+	@Test
+	void should_spread_requests_over_instances_without_samples() {
+		Set<URI> picked = new HashSet<>();
+		for (int i = 0; i < 100; i++) {
+			picked.add(this.loadBalancer.instance());
+		}
+
+		assertThat(picked).containsExactlyInAnyOrder(FIRST, SECOND);
+	}
+
+	@Test
+	void should_prefer_the_faster_instance() {
+		this.loadBalancer.requestCompleted(FIRST, TimeUnit.MILLISECONDS.toNanos(500), null);
+		this.loadBalancer.requestCompleted(SECOND, TimeUnit.MILLISECONDS.toNanos(5), null);
+
+		for (int i = 0; i < 20; i++) {
+			assertThat(this.loadBalancer.instance()).isEqualTo(SECOND);
+		}
+	}
+
+	@Test
+	void should_take_requests_in_flight_into_account() {
+		this.loadBalancer.requestCompleted(FIRST, TimeUnit.MILLISECONDS.toNanos(5), null);
+		this.loadBalancer.requestCompleted(SECOND, TimeUnit.MILLISECONDS.toNanos(10), null);
+		for (int i = 0; i < 3; i++) {
+			this.loadBalancer.requestStarted(FIRST);
+		}
+
+		for (int i = 0; i < 20; i++) {
+			assertThat(this.loadBalancer.instance()).isEqualTo(SECOND);
+		}
+
+		for (int i = 0; i < 3; i++) {
+			this.loadBalancer.requestCompleted(FIRST, TimeUnit.MILLISECONDS.toNanos(5), null);
+		}
+
+		assertThat(this.loadBalancer.instance()).isEqualTo(FIRST);
+	}
+
+	@Test
+	void should_probe_an_idle_slow_instance_again() {
+		this.loadBalancer.requestCompleted(FIRST, TimeUnit.MILLISECONDS.toNanos(5), null);
+		this.loadBalancer.requestCompleted(SECOND, TimeUnit.MILLISECONDS.toNanos(500), null);
+		assertThat(this.loadBalancer.instance()).isEqualTo(FIRST);
+
+		this.clock.addAndGet(TimeUnit.MINUTES.toNanos(2));
+		this.loadBalancer.requestCompleted(FIRST, TimeUnit.MILLISECONDS.toNanos(5), null);
+
+		assertThat(this.loadBalancer.instance()).isEqualTo(SECOND);
+	}
+
+	@Test
+	void should_skip_failed_instance_until_backoff_elapses() {
+		this.loadBalancer.requestCompleted(FIRST, TimeUnit.MILLISECONDS.toNanos(5), null);
+		this.loadBalancer.requestCompleted(SECOND, TimeUnit.MILLISECONDS.toNanos(5), null);
+		this.loadBalancer.requestCompleted(FIRST, TimeUnit.MILLISECONDS.toNanos(5), new IllegalStateException());
+
+		for (int i = 0; i < 20; i++) {
+			assertThat(this.loadBalancer.instance()).isEqualTo(SECOND);
+		}
+
+		this.clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1_001));
+		this.loadBalancer.requestCompleted(SECOND, TimeUnit.SECONDS.toNanos(10), null);
+
+		assertThat(this.loadBalancer.instance()).isEqualTo(FIRST);
+	}
+
+	@Test
+	void should_pick_the_least_recently_failed_instance_when_all_failed() {
+		this.loadBalancer.requestCompleted(FIRST, 1L, new IllegalStateException());
+		this.clock.addAndGet(10L);
+		this.loadBalancer.requestCompleted(SECOND, 1L, new IllegalStateException());
+
+		assertThat(this.loadBalancer.instance()).isEqualTo(FIRST);
+	}
+
+	@Test
+	void should_retain_statistics_of_known_instances_on_refresh() {
+		URI third = URI.create("http://10.0.0.3:9411");
+		this.loadBalancer.requestCompleted(FIRST, 1L, new IllegalStateException());
+		this.instances.set(new ArrayList<>(Arrays.asList(FIRST, third)));
+
+		this.loadBalancer.refresh();
+
+		for (int i = 0; i < 20; i++) {
+			assertThat(this.loadBalancer.instance()).isEqualTo(third);
+		}
+	}
+
+	@Test
+	void should_keep_previous_instances_when_resolution_fails() {
+		HealthAwareZipkinLoadBalancer loadBalancer = new HealthAwareZipkinLoadBalancer(() -> {
+			if (this.instances.get() == null) {
+				throw new IllegalStateException("discovery is down");
+			}
+			return this.instances.get();
+		}, FALLBACK, 0L, 1_000L, this.clock::get);
+		this.instances.set(null);
+
+		loadBalancer.refresh();
+
+		assertThat(loadBalancer.instance()).isIn(FIRST, SECOND);
+	}
+
+}
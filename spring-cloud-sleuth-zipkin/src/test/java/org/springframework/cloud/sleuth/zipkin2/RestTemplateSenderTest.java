@@ -16,12 +16,23 @@
 
 package org.springframework.cloud.sleuth.zipkin2;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.Test;
 import zipkin2.reporter.Sender;
 
 import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.client.RestTemplate;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static zipkin2.codec.SpanBytesEncoder.JSON_V2;
 import static zipkin2.codec.SpanBytesEncoder.PROTO3;
 
@@ -58,6 +69,39 @@ class RestTemplateSenderTest extends AbstractSenderTest {
 		return "RestTemplateSender{" + this.endpoint + mockedApiPath + "}";
 	}
 
+	@Test
+	void should_gzip_spans_while_writing_them_when_compression_is_enabled() throws Exception {
+		this.server.enqueue(new MockResponse());
+		Sender sender = new RestTemplateSender(new RestTemplate(clientHttpRequestFactory()), this.endpoint, null,
+				JSON_V2, true);
+
+		sender.sendSpans(Collections.singletonList(JSON_V2.encode(SPAN))).execute();
+
+		RecordedRequest request = this.server.takeRequest();
+		assertThat(request.getHeader("Content-Encoding")).isEqualTo("gzip");
+		assertThat(gunzip(request)).isEqualTo("[" + new String(JSON_V2.encode(SPAN), "UTF-8") + "]");
+	}
+
+	@Test
+	void should_send_spans_with_content_length_when_compression_is_disabled() throws Exception {
+		this.server.enqueue(new MockResponse());
+		SimpleClientHttpRequestFactory factory = (SimpleClientHttpRequestFactory) clientHttpRequestFactory();
+		factory.setBufferRequestBody(false);
+		Sender sender = new RestTemplateSender(new RestTemplate(factory), this.endpoint, null, JSON_V2);
+
+		sender.sendSpans(Collections.singletonList(JSON_V2.encode(SPAN))).execute();
+
+		RecordedRequest request = this.server.takeRequest();
+		assertThat(request.getHeader("Content-Length")).isEqualTo(String.valueOf(JSON_V2.encode(SPAN).length + 2));
+		assertThat(request.getBody().readUtf8()).isEqualTo("[" + new String(JSON_V2.encode(SPAN), "UTF-8") + "]");
+	}
+
+	private static String gunzip(RecordedRequest request) throws IOException {
+		try (InputStream in = new GZIPInputStream(request.getBody().inputStream())) {
+			return StreamUtils.copyToString(in, StandardCharsets.UTF_8);
+		}
+	}
+
 	private ClientHttpRequestFactory clientHttpRequestFactory() {
 		SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
 		factory.setReadTimeout(DEFAULT_CHECK_TIMEOUT);
@@ -0,0 +1,350 @@
+/*
+ * Copyright 2013-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.zipkin2;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import zipkin2.Call;
+import zipkin2.Callback;
+import zipkin2.codec.Encoding;
+import zipkin2.reporter.Sender;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SpoolingSenderTests {
+
+	@TempDir
+	Path directory;
+
+	FakeSender delegate = new FakeSender();
+
+	@Test
+	void should_pass_spans_to_delegate_when_it_succeeds() throws IOException {
+		SpoolingSender sender = new SpoolingSender(this.delegate, this.directory, 1024, 4096, 1);
+
+		sender.sendSpans(spans("a", "b")).execute();
+
+		assertThat(this.delegate.sent).hasSize(1);
+		assertThat(sender.isSpoolEmpty()).isTrue();
+		sender.close();
+	}
+
+	@Test
+	void should_spool_spans_when_delegate_fails_and_replay_them_once_it_recovers() throws IOException {
+		SpoolingSender sender = new SpoolingSender(this.delegate, this.directory, 1024, 4096, 1);
+		this.delegate.failing = true;
+
+		sender.sendSpans(spans("a", "b")).execute();
+		sender.sendSpans(spans("c")).execute();
+		sender.replay();
+
+		assertThat(this.delegate.sent).isEmpty();
+		assertThat(sender.isSpoolEmpty()).isFalse();
+
+		this.delegate.failing = false;
+		sender.replay();
+		sender.replay();
+
+		assertThat(this.delegate.sent).containsExactly("a,b", "c");
+		assertThat(sender.isSpoolEmpty()).isTrue();
+		sender.close();
+	}
+
+	@Test
+	void should_spool_spans_when_enqueued_call_fails() throws IOException {
+		SpoolingSender sender = new SpoolingSender(this.delegate, this.directory, 1024, 4096, 1);
+		this.delegate.failing = true;
+		boolean[] succeeded = new boolean[1];
+
+		sender.sendSpans(spans("a")).enqueue(new Callback<Void>() {
+			@Override
+			public void onSuccess(Void value) {
+				succeeded[0] = true;
+			}
+
+			@Override
+			public void onError(Throwable t) {
+			}
+		});
+
+		assertThat(succeeded[0]).isTrue();
+		assertThat(sender.isSpoolEmpty()).isFalse();
+		sender.close();
+	}
+
+	@Test
+	void should_spool_spans_when_enqueued_call_fails_after_enqueue_returned() throws Exception {
+		SpoolingSender sender = new SpoolingSender(this.delegate, this.directory, 1024, 4096, 1);
+		this.delegate.failing = true;
+		this.delegate.async = true;
+
+		sender.sendSpans(spans("a")).enqueue(new Callback<Void>() {
+			@Override
+			public void onSuccess(Void value) {
+			}
+
+			@Override
+			public void onError(Throwable t) {
+			}
+		});
+
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+		while (sender.isSpoolEmpty() && System.nanoTime() < deadline) {
+			Thread.sleep(10L);
+		}
+		assertThat(sender.isSpoolEmpty()).isFalse();
+		sender.close();
+	}
+
+	@Test
+	void should_keep_replayed_spans_until_the_delegate_reports_that_they_were_sent() throws Exception {
+		SpoolingSender sender = new SpoolingSender(this.delegate, this.directory, 1024, 4096, 1);
+		this.delegate.failing = true;
+		sender.sendSpans(spans("a")).execute();
+		this.delegate.async = true;
+
+		sender.replay();
+
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+		while (this.delegate.attempts.get() < 2 && System.nanoTime() < deadline) {
+			Thread.sleep(10L);
+		}
+		assertThat(this.delegate.attempts.get()).isGreaterThanOrEqualTo(2);
+		assertThat(sender.isSpoolEmpty()).isFalse();
+
+		this.delegate.failing = false;
+		deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+		while (!sender.isSpoolEmpty() && System.nanoTime() < deadline) {
+			sender.replay();
+			Thread.sleep(10L);
+		}
+		assertThat(this.delegate.sent).containsExactly("a");
+		assertThat(sender.isSpoolEmpty()).isTrue();
+		sender.close();
+	}
+
+	@Test
+	void should_not_remove_another_batch_when_the_peeked_one_was_deleted() throws IOException {
+		// each record takes 4 + 4 + 4 + 1 bytes, so two of them fit into a segment
+		DiskSpool spool = new DiskSpool(this.directory, 30, 60);
+		spool.append(spans("a"));
+		DiskSpool.Batch batch = spool.peek();
+		for (String span : Arrays.asList("b", "c", "d", "e")) {
+			spool.append(spans(span));
+		}
+
+		spool.remove(batch);
+
+		assertThat(drain(spool)).containsExactly("c", "d", "e");
+		spool.close();
+	}
+
+	@Test
+	void should_fail_when_spans_do_not_fit_into_a_segment() throws IOException {
+		SpoolingSender sender = new SpoolingSender(this.delegate, this.directory, 16, 4096, 1);
+		this.delegate.failing = true;
+
+		assertThatThrownBy(() -> sender.sendSpans(spans("a very long span")).execute())
+				.isInstanceOf(IOException.class);
+		sender.close();
+	}
+
+	@Test
+	void should_rotate_segments_and_drop_the_oldest_ones_when_over_budget() throws IOException {
+		// each record takes 4 + 4 + 4 + 1 bytes, so two of them fit into a segment
+		DiskSpool spool = new DiskSpool(this.directory, 30, 60);
+
+		for (String span : Arrays.asList("a", "b", "c", "d", "e")) {
+			spool.append(spans(span));
+		}
+
+		assertThat(spool.getDroppedSpans()).isEqualTo(2L);
+		assertThat(drain(spool)).containsExactly("c", "d", "e");
+		spool.close();
+	}
+
+	@Test
+	void should_recover_spooled_spans_after_restart() throws IOException {
+		DiskSpool spool = new DiskSpool(this.directory, 30, 300);
+		for (String span : Arrays.asList("a", "b", "c")) {
+			spool.append(spans(span));
+		}
+		spool.close();
+
+		DiskSpool recovered = new DiskSpool(this.directory, 30, 300);
+		recovered.append(spans("d"));
+
+		assertThat(drain(recovered)).containsExactly("a", "b", "c", "d");
+		recovered.close();
+	}
+
+	@Test
+	void should_not_replay_removed_spans_after_restart() throws IOException {
+		DiskSpool spool = new DiskSpool(this.directory, 30, 300);
+		for (String span : Arrays.asList("a", "b", "c")) {
+			spool.append(spans(span));
+		}
+		spool.remove(spool.peek());
+		spool.remove(spool.peek());
+		spool.close();
+
+		DiskSpool recovered = new DiskSpool(this.directory, 30, 300);
+
+		assertThat(drain(recovered)).containsExactly("c");
+		recovered.close();
+
+		DiskSpool drained = new DiskSpool(this.directory, 30, 300);
+
+		assertThat(drain(drained)).isEmpty();
+		drained.close();
+	}
+
+	@Test
+	void should_not_share_the_directory_with_another_spool() throws IOException {
+		DiskSpool spool = new DiskSpool(this.directory, 30, 300);
+
+		assertThatThrownBy(() -> new DiskSpool(this.directory, 30, 300)).isInstanceOf(IOException.class)
+				.hasMessageContaining("already in use");
+
+		spool.close();
+		new DiskSpool(this.directory, 30, 300).close();
+	}
+
+	private static List<String> drain(DiskSpool spool) {
+		List<String> spans = new CopyOnWriteArrayList<>();
+		for (DiskSpool.Batch batch = spool.peek(); batch != null; batch = spool.peek()) {
+			spans.add(join(batch.spans));
+			spool.remove(batch);
+		}
+		return spans;
+	}
+
+	private static List<byte[]> spans(String... spans) {
+		return Arrays.asList(Arrays.stream(spans).map(span -> span.getBytes(StandardCharsets.UTF_8))
+				.toArray(byte[][]::new));
+	}
+
+	private static String join(List<byte[]> spans) {
+		StringBuilder builder = new StringBuilder();
+		for (byte[] span : spans) {
+			if (builder.length() > 0) {
+				builder.append(',');
+			}
+			builder.append(new String(span, StandardCharsets.UTF_8));
+		}
+		return builder.toString();
+	}
+
+	static class FakeSender extends Sender {
+
+		final List<String> sent = new CopyOnWriteArrayList<>();
+
+		final AtomicInteger attempts = new AtomicInteger();
+
+		volatile boolean failing;
+
+		/**
+		 * Sends spans from another thread, after the call returned, like an asynchronous
+		 * sender.
+		 */
+		volatile boolean async;
+
+		@Override
+		public Encoding encoding() {
+			return Encoding.JSON;
+		}
+
+		@Override
+		public int messageMaxBytes() {
+			return 1024;
+		}
+
+		@Override
+		public int messageSizeInBytes(List<byte[]> encodedSpans) {
+			return Encoding.JSON.listSizeInBytes(encodedSpans);
+		}
+
+		@Override
+		public Call<Void> sendSpans(List<byte[]> encodedSpans) {
+			return new Call.Base<Void>() {
+				@Override
+				protected Void doExecute() throws IOException {
+					if (FakeSender.this.async) {
+						// only dispatches the request
+						new Thread(() -> {
+							try {
+								send(encodedSpans);
+							}
+							catch (IOException ex) {
+								// nobody is notified
+							}
+						}).start();
+					}
+					else {
+						send(encodedSpans);
+					}
+					return null;
+				}
+
+				@Override
+				protected void doEnqueue(Callback<Void> callback) {
+					if (FakeSender.this.async) {
+						new Thread(() -> complete(callback)).start();
+					}
+					else {
+						complete(callback);
+					}
+				}
+
+				private void complete(Callback<Void> callback) {
+					try {
+						send(encodedSpans);
+						callback.onSuccess(null);
+					}
+					catch (IOException ex) {
+						callback.onError(ex);
+					}
+				}
+
+				@Override
+				public Call<Void> clone() {
+					return sendSpans(encodedSpans);
+				}
+			};
+		}
+
+		private void send(List<byte[]> encodedSpans) throws IOException {
+			this.attempts.incrementAndGet();
+			if (this.failing) {
+				throw new IOException("Zipkin is down");
+			}
+			this.sent.add(join(encodedSpans));
+		}
+
+	}
+
+}
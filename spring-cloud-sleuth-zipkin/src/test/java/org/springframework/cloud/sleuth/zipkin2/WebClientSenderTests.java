@@ -17,16 +17,26 @@
 package org.springframework.cloud.sleuth.zipkin2;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import reactor.core.publisher.Mono;
+import zipkin2.Callback;
 import zipkin2.CheckResult;
+import zipkin2.reporter.InMemoryReporterMetrics;
 import zipkin2.reporter.Sender;
 
 import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static zipkin2.codec.SpanBytesEncoder.JSON_V2;
 import static zipkin2.codec.SpanBytesEncoder.PROTO3;
 
@@ -34,6 +44,9 @@ class WebClientSenderTests extends AbstractSenderTest {
 
 	public static final int DEFAULT_CHECK_TIMEOUT = 1_000;
 
+	@TempDir
+	Path spoolDirectory;
+
 	@Override
 	Sender jsonSender() {
 		return new WebClientSender(WebClient.builder().clientConnector(new ReactorClientHttpConnector()).build(),
@@ -76,4 +89,148 @@ class WebClientSenderTests extends AbstractSenderTest {
 		assertThat(result.ok()).isTrue();
 	}
 
+	@Test
+	void sendsSpansWithContentLength() throws Exception {
+		this.server.enqueue(new MockResponse());
+
+		send(SPAN).execute();
+
+		RecordedRequest request = this.server.takeRequest(1, TimeUnit.SECONDS);
+		assertThat(request.getHeader("Content-Length")).isEqualTo(String.valueOf(JSON_V2.encode(SPAN).length + 2));
+		assertThat(request.getBody().readUtf8()).isEqualTo("[" + new String(JSON_V2.encode(SPAN), "UTF-8") + "]");
+	}
+
+	@Test
+	void asyncExecuteDoesNotWaitForTheResponse() throws Exception {
+		this.server.enqueue(new MockResponse().setBodyDelay(2, TimeUnit.SECONDS));
+		this.sender = asyncSender(1);
+
+		long start = System.nanoTime();
+		send(SPAN).execute();
+
+		assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1_000L);
+		RecordedRequest request = this.server.takeRequest(1, TimeUnit.SECONDS);
+		assertThat(request).isNotNull();
+		assertThat(request.getBody().readUtf8()).isEqualTo("[" + new String(JSON_V2.encode(SPAN), "UTF-8") + "]");
+	}
+
+	@Test
+	void asyncEnqueueCompletesViaCallback() throws Exception {
+		this.server.enqueue(new MockResponse());
+		this.server.enqueue(new MockResponse().setResponseCode(500));
+		this.sender = asyncSender(2);
+
+		CompletableFuture<Void> success = new CompletableFuture<>();
+		send(SPAN).enqueue(callback(success));
+		success.get(1, TimeUnit.SECONDS);
+
+		CompletableFuture<Void> failure = new CompletableFuture<>();
+		send(SPAN).enqueue(callback(failure));
+		assertThat(failure).failsWithin(1, TimeUnit.SECONDS);
+	}
+
+	@Test
+	void asyncSenderBoundsInFlightRequests() throws Exception {
+		this.server.enqueue(new MockResponse().setBodyDelay(500, TimeUnit.MILLISECONDS));
+		this.server.enqueue(new MockResponse());
+		this.sender = asyncSender(1);
+
+		send(SPAN).execute();
+		long start = System.nanoTime();
+		// waits for the first request to complete
+		send(SPAN).execute();
+
+		assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThanOrEqualTo(400L);
+		assertThat(this.server.takeRequest(1, TimeUnit.SECONDS)).isNotNull();
+		assertThat(this.server.takeRequest(1, TimeUnit.SECONDS)).isNotNull();
+	}
+
+	@Test
+	void asyncExecuteReportsFailedSpansAsDropped() throws Exception {
+		this.server.enqueue(new MockResponse().setResponseCode(500));
+		WebClientSender sender = asyncSender(1);
+		InMemoryReporterMetrics metrics = new InMemoryReporterMetrics();
+		sender.setReporterMetrics(metrics);
+		this.sender = sender;
+
+		send(SPAN, SPAN).execute();
+
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+		while (metrics.spansDropped() == 0 && System.nanoTime() < deadline) {
+			Thread.sleep(10L);
+		}
+		assertThat(metrics.spansDropped()).isEqualTo(2L);
+		assertThat(metrics.messagesDropped()).isEqualTo(1L);
+	}
+
+	@Test
+	void asyncEnqueueFailsFastWhenTooManyRequestsAreInFlight() throws Exception {
+		this.server.enqueue(new MockResponse().setBodyDelay(2, TimeUnit.SECONDS));
+		this.sender = asyncSender(1);
+
+		send(SPAN).execute();
+		CompletableFuture<Void> rejected = new CompletableFuture<>();
+		long start = System.nanoTime();
+		send(SPAN).enqueue(callback(rejected));
+
+		assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(500L);
+		assertThat(rejected).isCompletedExceptionally();
+	}
+
+	@Test
+	void asyncExecuteFailsWhenNoRequestCompletesWithinTheCheckTimeout() throws Exception {
+		this.server.enqueue(new MockResponse().setBodyDelay(3, TimeUnit.SECONDS));
+		this.sender = asyncSender(1);
+
+		send(SPAN).execute();
+
+		assertThatThrownBy(() -> send(SPAN).execute()).isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("in flight");
+	}
+
+	@Test
+	void spoolingSenderWaitsForAFreeSlotInsteadOfSpooling() throws Exception {
+		this.server.enqueue(new MockResponse().setBodyDelay(500, TimeUnit.MILLISECONDS));
+		this.server.enqueue(new MockResponse());
+		SpoolingSender sender = new SpoolingSender(asyncSender(1), this.spoolDirectory, 4096, 8192, 1);
+
+		sender.sendSpans(Collections.singletonList(JSON_V2.encode(SPAN))).execute();
+		sender.sendSpans(Collections.singletonList(JSON_V2.encode(SPAN))).execute();
+
+		assertThat(this.server.getRequestCount()).isEqualTo(2);
+		assertThat(sender.isSpoolEmpty()).isTrue();
+		sender.close();
+	}
+
+	@Test
+	void spoolingSenderSpoolsSpansOfAFailedAsyncRequest() throws Exception {
+		this.server.enqueue(new MockResponse().setResponseCode(500));
+		SpoolingSender sender = new SpoolingSender(asyncSender(1), this.spoolDirectory, 4096, 8192, 1);
+
+		sender.sendSpans(Collections.singletonList(JSON_V2.encode(SPAN))).execute();
+
+		assertThat(sender.isSpoolEmpty()).isFalse();
+		sender.close();
+	}
+
+	private WebClientSender asyncSender(int maxInFlightRequests) {
+		return new WebClientSender(null,
+				WebClient.builder().clientConnector(new ReactorClientHttpConnector()).build(), this.endpoint, null,
+				JSON_V2, DEFAULT_CHECK_TIMEOUT, maxInFlightRequests);
+	}
+
+	private static Callback<Void> callback(CompletableFuture<Void> future) {
+		return new Callback<Void>() {
+			@Override
+			public void onSuccess(Void value) {
+				future.complete(value);
+			}
+
+			@Override
+			public void onError(Throwable t) {
+				future.completeExceptionally(t);
+			}
+		};
+	}
+
 }
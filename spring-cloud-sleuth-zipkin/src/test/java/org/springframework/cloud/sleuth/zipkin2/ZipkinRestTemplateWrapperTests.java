@@ -0,0 +1,114 @@
+/*
+ * Copyright 2013-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.zipkin2;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.web.client.ResourceAccessException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ZipkinRestTemplateWrapperTests {
+
+	MockWebServer server = new MockWebServer();
+
+	// nothing listens on port 1
+	URI down = URI.create("http://localhost:1");
+
+	ZipkinProperties zipkinProperties = new ZipkinProperties();
+
+	@AfterEach
+	void close() throws IOException {
+		this.server.close();
+	}
+
+	@Test
+	void should_retry_failed_request_against_another_instance_when_health_aware() {
+		this.server.enqueue(new MockResponse());
+		RecordingExtractor extractor = new RecordingExtractor(true, this.down, this.server.url("/").uri());
+
+		new ZipkinRestTemplateWrapper(this.zipkinProperties, extractor).postForEntity("http://zipkin/api/v2/spans",
+				"[]", Void.class);
+
+		assertThat(this.server.getRequestCount()).isEqualTo(1);
+		assertThat(extractor.failed).containsExactly(true, false);
+		assertThat(extractor.started).containsExactly(this.down, this.server.url("/").uri());
+	}
+
+	@Test
+	void should_not_retry_failed_request_when_not_health_aware() {
+		this.server.enqueue(new MockResponse());
+		RecordingExtractor extractor = new RecordingExtractor(false, this.down, this.server.url("/").uri());
+
+		assertThatThrownBy(() -> new ZipkinRestTemplateWrapper(this.zipkinProperties, extractor)
+				.postForEntity("http://zipkin/api/v2/spans", "[]", Void.class))
+						.isInstanceOf(ResourceAccessException.class);
+
+		assertThat(this.server.getRequestCount()).isZero();
+		assertThat(extractor.failed).containsExactly(true);
+		assertThat(extractor.started).containsExactly(this.down);
+	}
+
+	static class RecordingExtractor implements ZipkinUrlExtractor {
+
+		final boolean healthAware;
+
+		final URI[] urls;
+
+		final List<URI> started = new ArrayList<>();
+
+		final List<Boolean> failed = new ArrayList<>();
+
+		int picked;
+
+		RecordingExtractor(boolean healthAware, URI... urls) {
+			this.healthAware = healthAware;
+			this.urls = urls;
+		}
+
+		@Override
+		public URI zipkinUrl(ZipkinProperties zipkinProperties) {
+			return this.urls[Math.min(this.picked++, this.urls.length - 1)];
+		}
+
+		@Override
+		public void requestStarted(URI zipkinUrl) {
+			this.started.add(zipkinUrl);
+		}
+
+		@Override
+		public void requestCompleted(URI zipkinUrl, long durationNanos, Throwable error) {
+			this.failed.add(error != null);
+		}
+
+		@Override
+		public boolean isHealthAware() {
+			return this.healthAware;
+		}
+
+	}
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2013-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.zipkin2;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cloud.sleuth.zipkin2.ZipkinRestTemplateWrapperTests.RecordingExtractor;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ZipkinUrlExtractorExchangeFilterFunctionTests {
+
+	MockWebServer server = new MockWebServer();
+
+	@AfterEach
+	void close() throws IOException {
+		this.server.close();
+	}
+
+	@Test
+	void should_send_requests_to_the_picked_instance_and_report_their_outcome() throws Exception {
+		this.server.enqueue(new MockResponse());
+		this.server.enqueue(new MockResponse().setResponseCode(503));
+		RecordingExtractor extractor = new RecordingExtractor(true, this.server.url("/").uri());
+		WebClient webClient = WebClient.builder()
+				.filter(new ZipkinUrlExtractorExchangeFilterFunction(new ZipkinProperties(), extractor)).build();
+
+		webClient.post().uri("http://zipkin/api/v2/spans").bodyValue("[]").exchangeToMono(response -> response
+				.releaseBody()).block();
+		webClient.post().uri("http://zipkin/api/v2/spans").bodyValue("[]").exchangeToMono(response -> response
+				.releaseBody()).block();
+
+		RecordedRequest request = this.server.takeRequest(1, TimeUnit.SECONDS);
+		assertThat(request.getPath()).isEqualTo("/api/v2/spans");
+		assertThat(extractor.failed).containsExactly(false, true);
+	}
+
+}
@@ -16,7 +16,7 @@
 
 package org.springframework.cloud.sleuth.autoconfig.actuate;
 
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.List;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -107,8 +107,8 @@ public abstract class TraceSleuthActuatorAutoConfigurationIntegrationTests {
 				containsString("\"name\":\"third\"")));
 	}
 
-	protected ConcurrentLinkedQueue<FinishedSpan> bufferedSpans() {
-		return this.bufferingSpanReporter.spans;
+	protected List<FinishedSpan> bufferedSpans() {
+		return this.bufferingSpanReporter.getFinishedSpans();
 	}
 
 	@Configuration(proxyBeanMethods = false)
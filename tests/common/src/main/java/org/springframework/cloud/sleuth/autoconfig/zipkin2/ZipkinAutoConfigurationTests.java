@@ -17,6 +17,8 @@
 package org.springframework.cloud.sleuth.autoconfig.zipkin2;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -55,10 +57,12 @@ import org.springframework.boot.test.context.FilteredClassLoader;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.runner.ApplicationContextRunner;
 import org.springframework.cloud.sleuth.Tracer;
+import org.springframework.cloud.sleuth.zipkin2.SpoolingSender;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.assertj.core.api.BDDAssertions.then;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -226,6 +230,23 @@ public abstract class ZipkinAutoConfigurationTests {
 				});
 	}
 
+	@Test
+	public void should_close_the_spooling_sender_with_the_context() throws IOException {
+		Path directory = Files.createTempDirectory("zipkin-spool");
+		Sender sender = mock(Sender.class);
+
+		zipkinRunner().withPropertyValues("spring.zipkin.base-url=" + this.server.url("/").toString(),
+				"spring.zipkin.spool.enabled=true", "spring.zipkin.spool.directory=" + directory).run(context -> {
+					then(context.getBean(ZipkinAutoConfiguration.SPOOLING_SENDER_BEAN_NAME))
+							.isInstanceOf(SpoolingSender.class);
+					// the spool directory is locked while the spooling sender is open
+					assertThatThrownBy(() -> new SpoolingSender(sender, directory, 1024, 4096, 1))
+							.isInstanceOf(IllegalStateException.class);
+				});
+
+		new SpoolingSender(sender, directory, 1024, 4096, 1).close();
+	}
+
 	@Test
 	public void checkResult_onTime() throws ExecutionException, InterruptedException {
 		Sender sender = mock(Sender.class);
@@ -21,6 +21,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
@@ -33,6 +34,7 @@ import org.junit.jupiter.api.Test;
 
 import org.springframework.boot.test.context.assertj.AssertableApplicationContext;
 import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.cloud.sleuth.Span;
 import org.springframework.cloud.sleuth.Tracer;
 import org.springframework.cloud.sleuth.exporter.FinishedSpan;
 import org.springframework.cloud.sleuth.test.TestSpanHandler;
@@ -619,6 +621,129 @@ abstract class TraceListenerStrategyTests {
 		});
 	}
 
+	@Test
+	void testShouldAggregateExecutionsOfTheSameQuery() {
+		parentContextRunner().withPropertyValues("spring.sleuth.jdbc.aggregate-queries: true").run(context -> {
+			DataSource dataSource = context.getBean(DataSource.class);
+			TestSpanHandler spanReporter = context.getBean(TestSpanHandler.class);
+
+			Connection connection = dataSource.getConnection();
+			for (int i = 0; i < 3; i++) {
+				PreparedStatement statement = connection.prepareStatement("SELECT NOW() UNION ALL select NOW()");
+				ResultSet resultSet = statement.executeQuery();
+				resultSet.next();
+				resultSet.next();
+				resultSet.close();
+				statement.close();
+			}
+			connection.close();
+
+			assertThat(spanReporter.reportedSpans()).hasSize(4);
+			FinishedSpan connectionSpan = spanReporter.reportedSpans().get(3);
+			FinishedSpan aggregatedSpan = spanReporter.reportedSpans().get(2);
+			FinishedSpan resultSetSpan = spanReporter.reportedSpans().get(1);
+			FinishedSpan statementSpan = spanReporter.reportedSpans().get(0);
+			assertThat(connectionSpan.getName()).isEqualTo("connection");
+			assertThat(statementSpan.getName()).isEqualTo("select");
+			assertThat(statementSpan.getTags()).doesNotContainKey("jdbc.query.count");
+			assertThat(resultSetSpan.getName()).isEqualTo("result-set");
+			assertThat(aggregatedSpan.getName()).isEqualTo("select");
+			assertThat(aggregatedSpan.getTags()).containsEntry(SPAN_SQL_QUERY_TAG_NAME,
+					"SELECT NOW() UNION ALL select NOW()");
+			assertThat(aggregatedSpan.getTags()).containsEntry("jdbc.query.count", "2");
+			assertThat(aggregatedSpan.getTags()).containsKeys("jdbc.query.min-time", "jdbc.query.max-time",
+					"jdbc.query.total-time");
+			if (isP6Spy(context)) {
+				assertThat(aggregatedSpan.getTags()).containsEntry(SPAN_ROW_COUNT_TAG_NAME, "4");
+			}
+			assertThat(context.getBean(Tracer.class).currentSpan()).isNull();
+		});
+	}
+
+	@Test
+	void testShouldNotAggregateQueryExecutedOnce() {
+		parentContextRunner().withPropertyValues("spring.sleuth.jdbc.includes: query",
+				"spring.sleuth.jdbc.aggregate-queries: true").run(context -> {
+					DataSource dataSource = context.getBean(DataSource.class);
+					TestSpanHandler spanReporter = context.getBean(TestSpanHandler.class);
+
+					Connection connection = dataSource.getConnection();
+					Statement statement = connection.createStatement();
+					statement.executeQuery("select 1 FROM dual").close();
+					statement.close();
+
+					assertThat(spanReporter.reportedSpans()).hasSize(1);
+					FinishedSpan statementSpan = spanReporter.reportedSpans().get(0);
+					assertThat(statementSpan.getName()).isEqualTo("select");
+					assertThat(statementSpan.getTags()).doesNotContainKey("jdbc.query.count");
+					connection.close();
+					assertThat(spanReporter.reportedSpans()).hasSize(1);
+					assertThat(context.getBean(Tracer.class).currentSpan()).isNull();
+				});
+	}
+
+	@Test
+	void testShouldFinishAggregatedQuerySpanWhenQueryIsExecutedWithinAnotherParentSpan() {
+		parentContextRunner().withPropertyValues("spring.sleuth.jdbc.includes: query",
+				"spring.sleuth.jdbc.aggregate-queries: true").run(context -> {
+					DataSource dataSource = context.getBean(DataSource.class);
+					TestSpanHandler spanReporter = context.getBean(TestSpanHandler.class);
+					Tracer tracer = context.getBean(Tracer.class);
+
+					Connection connection = dataSource.getConnection();
+					Span first = tracer.nextSpan().name("first").start();
+					try (Tracer.SpanInScope ws = tracer.withSpan(first)) {
+						for (int i = 0; i < 3; i++) {
+							Statement statement = connection.createStatement();
+							statement.executeQuery("select 1 FROM dual").close();
+							statement.close();
+						}
+					}
+					first.end();
+					Span second = tracer.nextSpan().name("second").start();
+					try (Tracer.SpanInScope ws = tracer.withSpan(second)) {
+						Statement statement = connection.createStatement();
+						statement.executeQuery("select 2 FROM dual").close();
+						statement.close();
+					}
+					second.end();
+
+					assertThat(spanReporter.reportedSpans()).hasSize(5);
+					List<FinishedSpan> aggregatedSpans = spanReporter.reportedSpans().stream()
+							.filter(span -> span.getTags().containsKey("jdbc.query.count"))
+							.collect(Collectors.toList());
+					assertThat(aggregatedSpans).hasSize(1);
+					FinishedSpan aggregatedSpan = aggregatedSpans.get(0);
+					assertThat(aggregatedSpan.getTags()).containsEntry(SPAN_SQL_QUERY_TAG_NAME, "select 1 FROM dual");
+					assertThat(aggregatedSpan.getTags()).containsEntry("jdbc.query.count", "2");
+					assertThat(aggregatedSpan.getParentId()).isEqualTo(first.context().spanId());
+					connection.close();
+					assertThat(spanReporter.reportedSpans()).hasSize(5);
+					assertThat(tracer.currentSpan()).isNull();
+				});
+	}
+
+	@Test
+	void testShouldNotCreateQuerySpansWhenQuerySpanRatioIsZero() {
+		parentContextRunner().withPropertyValues("spring.sleuth.jdbc.query-span-ratio: 0").run(context -> {
+			DataSource dataSource = context.getBean(DataSource.class);
+			TestSpanHandler spanReporter = context.getBean(TestSpanHandler.class);
+
+			Connection connection = dataSource.getConnection();
+			Statement statement = connection.createStatement();
+			ResultSet resultSet = statement.executeQuery("select 1 FROM dual");
+			resultSet.next();
+			resultSet.close();
+			statement.close();
+			connection.close();
+
+			assertThat(spanReporter.reportedSpans()).hasSize(1);
+			FinishedSpan connectionSpan = spanReporter.reportedSpans().get(0);
+			assertThat(connectionSpan.getName()).isEqualTo("connection");
+			assertThat(context.getBean(Tracer.class).currentSpan()).isNull();
+		});
+	}
+
 	@Test
 	void testShouldNotOverrideExceptionWhenConnectionWasClosedBeforeExecutingQuery() {
 		parentContextRunner().run(context -> {
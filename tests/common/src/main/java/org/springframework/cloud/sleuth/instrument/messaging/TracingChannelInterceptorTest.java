@@ -155,6 +155,35 @@ public abstract class TracingChannelInterceptorTest implements TestTracingAwareS
 		assertThat((Map) this.channel.receive().getHeaders().get(NATIVE_HEADERS)).containsOnlyKeys("b3");
 	}
 
+	@Test
+	public void injectsProducerSpan_withoutCopyingHeaders() {
+		((TracingChannelInterceptor) this.interceptor).setCopyHeaders(false);
+		this.channel.addInterceptor(producerSideOnly(this.interceptor));
+
+		this.channel.send(MessageBuilder.withPayload("foo").setHeader("foo", "bar").build());
+
+		Message<?> received = this.channel.receive();
+		assertThat(received.getHeaders()).containsKeys("b3", "foo", MessageHeaders.ID, MessageHeaders.TIMESTAMP);
+		assertThat((Map) received.getHeaders().get(NATIVE_HEADERS)).containsOnlyKeys("b3");
+		assertThat(this.spans).hasSize(1).extracting(FinishedSpan::getKind).containsExactly(Span.Kind.PRODUCER);
+	}
+
+	@Test
+	public void integrated_sendAndSubscriber_withoutCopyingHeaders() {
+		((TracingChannelInterceptor) this.interceptor).setCopyHeaders(false);
+		ExecutorSubscribableChannel channel = new ExecutorSubscribableChannel();
+		channel.addInterceptor(this.interceptor);
+		List<Message<?>> messages = new ArrayList<>();
+		channel.subscribe(messages::add);
+
+		channel.send(MessageBuilder.withPayload("foo").setHeader("foo", "bar").build());
+
+		assertThat(messages.get(0).getHeaders()).containsKey("foo").doesNotContainKeys("b3");
+		assertThat(this.spans).extracting(FinishedSpan::getKind).containsExactly(Span.Kind.CONSUMER, null,
+				Span.Kind.PRODUCER);
+		assertThat(this.spans.get(0).getTraceId()).isEqualTo(this.spans.get(2).getTraceId());
+	}
+
 	/**
 	 * We have to inject headers on a polling receive as any future processor will come
 	 * later.
@@ -191,6 +220,20 @@ public abstract class TracingChannelInterceptorTest implements TestTracingAwareS
 		assertThat(this.spans).extracting(FinishedSpan::getKind).containsExactly(Span.Kind.CONSUMER, null);
 	}
 
+	@Test
+	public void subscriber_doesNotCopyMessageWithoutTraceIds() {
+		ExecutorSubscribableChannel channel = new ExecutorSubscribableChannel();
+		channel.addInterceptor(executorSideOnly(this.interceptor));
+		List<Message<?>> messages = new ArrayList<>();
+		channel.subscribe(messages::add);
+		Message<String> message = MessageBuilder.withPayload("foo").build();
+
+		channel.send(message);
+
+		assertThat(messages.get(0)).isSameAs(message);
+		assertThat(this.spans).extracting(FinishedSpan::getKind).containsExactly(Span.Kind.CONSUMER, null);
+	}
+
 	/**
 	 * The subscriber consumes a message then synchronously processes it. Since we only
 	 * inject trace IDs on unprocessed messages, we remove IDs to prevent accidental
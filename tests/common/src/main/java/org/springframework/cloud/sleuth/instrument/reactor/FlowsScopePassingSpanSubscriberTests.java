@@ -16,8 +16,10 @@
 
 package org.springframework.cloud.sleuth.instrument.reactor;
 
+import java.time.Duration;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
@@ -40,6 +42,7 @@ import reactor.core.Scannable;
 import reactor.core.publisher.Hooks;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
+import reactor.util.context.Context;
 
 import org.springframework.cloud.sleuth.CurrentTraceContext;
 import org.springframework.cloud.sleuth.TraceContext;
@@ -212,6 +215,46 @@ public abstract class FlowsScopePassingSpanSubscriberTests {
 		}
 	}
 
+	@Test
+	public void should_restore_the_trace_context_of_the_reactor_context_on_scheduled_threads() {
+		springContext.registerBean(CurrentTraceContext.class, this::currentTraceContext);
+		springContext.registerBean(Tracer.class, () -> Mockito.mock(Tracer.class));
+		springContext.refresh();
+		Hooks.onLastOperator(HOOK_KEY, ReactorSleuth.traceContextOperator(springContext));
+		Schedulers.onScheduleHook(HOOK_KEY, ReactorSleuth.traceContextOnScheduleHook(springContext));
+		AtomicReference<TraceContext> scheduled = new AtomicReference<>();
+
+		// e.g. subscribed on an event loop, which has no trace context in thread locals
+		Mono.just(1).hide().publishOn(Schedulers.single())
+				.doOnNext(i -> scheduled.set(currentTraceContext().context()))
+				.contextWrite(Context.of(TraceContext.class, context())).block(Duration.ofSeconds(5));
+
+		then(scheduled.get()).isNotNull();
+		then(scheduled.get().spanId()).isEqualTo(context().spanId());
+		then(currentTraceContext().context()).isNull();
+		then(Mono.fromCallable(() -> currentTraceContext().context() == null).subscribeOn(Schedulers.single())
+				.block(Duration.ofSeconds(5))).as("context is cleared once the scheduled work is done").isTrue();
+	}
+
+	@Test
+	public void should_restore_the_trace_context_of_the_subscribing_thread_on_scheduled_threads() {
+		springContext.registerBean(CurrentTraceContext.class, this::currentTraceContext);
+		springContext.registerBean(Tracer.class, () -> Mockito.mock(Tracer.class));
+		springContext.refresh();
+		Hooks.onLastOperator(HOOK_KEY, ReactorSleuth.traceContextOperator(springContext));
+		Schedulers.onScheduleHook(HOOK_KEY, ReactorSleuth.traceContextOnScheduleHook(springContext));
+		AtomicReference<TraceContext> scheduled = new AtomicReference<>();
+
+		Mono<Integer> mono = Mono.just(1).hide().subscribeOn(Schedulers.single()).publishOn(Schedulers.parallel())
+				.doOnNext(i -> scheduled.set(currentTraceContext().context()));
+		try (CurrentTraceContext.Scope ws = currentTraceContext().newScope(context())) {
+			mono.block(Duration.ofSeconds(5));
+		}
+
+		then(scheduled.get()).isNotNull();
+		then(scheduled.get().spanId()).isEqualTo(context().spanId());
+	}
+
 	private static Stream<Arguments> should_not_double_wrap_async_publisher_Args() {
 		return Stream.of(
 				// async source is hidden by Mono.defer()
@@ -18,8 +18,12 @@ package org.springframework.cloud.sleuth.instrument.reactor;
 
 import java.util.Objects;
 import java.util.Queue;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.assertj.core.api.Assertions;
 import org.assertj.core.presentation.StandardRepresentation;
@@ -244,4 +248,113 @@ public abstract class QueueWrapperTests {
 		Assertions.assertThat(currentTraceContext().context()).isNull();
 	}
 
+	@Test
+	void checkContextIsStoredOnlyWhenItChanges() {
+		springContext.registerBean(CurrentTraceContext.class, this::currentTraceContext);
+		springContext.refresh();
+
+		Queue<Object> delegate = Queues.get(128).get();
+		final Queue queue = traceQueue(this.springContext, delegate);
+
+		TraceContext context;
+		try (CurrentTraceContext.Scope ws = currentTraceContext().newScope(context())) {
+			context = currentTraceContext().context();
+			queue.offer(1);
+			queue.offer(2);
+		}
+		queue.offer(3);
+		try (CurrentTraceContext.Scope ws = currentTraceContext().newScope(context())) {
+			queue.offer(4);
+		}
+
+		Assertions.assertThat(delegate).filteredOn(o -> o instanceof TraceContextQueue.Envelope).hasSize(3);
+		Assertions.assertThat(queue.poll()).isEqualTo(1);
+		Assertions.assertThat(currentTraceContext().context()).isNotNull().isEqualTo(context);
+		Assertions.assertThat(queue.poll()).isEqualTo(2);
+		Assertions.assertThat(currentTraceContext().context()).isNotNull().isEqualTo(context);
+		currentTraceContext().maybeScope(null);
+		Assertions.assertThat(queue.poll()).isEqualTo(3);
+		Assertions.assertThat(currentTraceContext().context()).isNull();
+		Assertions.assertThat(queue.poll()).isEqualTo(4);
+		Assertions.assertThat(currentTraceContext().context()).isNotNull().isEqualTo(context);
+
+		Assertions.assertThat(queue.poll()).isNull();
+		Assertions.assertThat(currentTraceContext().context()).isNull();
+	}
+
+	@Test
+	void checkContextIsLookedUpOnlyOnceWithinARun() {
+		CountingCurrentTraceContext currentTraceContext = new CountingCurrentTraceContext(currentTraceContext());
+		springContext.registerBean(CurrentTraceContext.class, () -> currentTraceContext);
+		springContext.refresh();
+
+		final Queue queue = traceQueue(this.springContext, Queues.get(128).get());
+
+		TraceContext context;
+		try (CurrentTraceContext.Scope ws = currentTraceContext.newScope(context())) {
+			context = currentTraceContext.context();
+			for (int i = 0; i < 5; i++) {
+				queue.offer(i);
+			}
+		}
+		currentTraceContext.lookups.set(0);
+
+		for (int i = 0; i < 5; i++) {
+			Assertions.assertThat(queue.poll()).isEqualTo(i);
+		}
+
+		Assertions.assertThat(currentTraceContext.lookups).hasValue(1);
+		Assertions.assertThat(currentTraceContext.context()).isNotNull().isEqualTo(context);
+		Assertions.assertThat(queue.poll()).isNull();
+		Assertions.assertThat(currentTraceContext.context()).isNull();
+	}
+
+	static final class CountingCurrentTraceContext implements CurrentTraceContext {
+
+		final AtomicInteger lookups = new AtomicInteger();
+
+		private final CurrentTraceContext delegate;
+
+		CountingCurrentTraceContext(CurrentTraceContext delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public TraceContext context() {
+			this.lookups.incrementAndGet();
+			return this.delegate.context();
+		}
+
+		@Override
+		public Scope newScope(TraceContext context) {
+			return this.delegate.newScope(context);
+		}
+
+		@Override
+		public Scope maybeScope(TraceContext context) {
+			return this.delegate.maybeScope(context);
+		}
+
+		@Override
+		public <C> Callable<C> wrap(Callable<C> task) {
+			return this.delegate.wrap(task);
+		}
+
+		@Override
+		public Runnable wrap(Runnable task) {
+			return this.delegate.wrap(task);
+		}
+
+		@Override
+		public Executor wrap(Executor delegate) {
+			return this.delegate.wrap(delegate);
+		}
+
+		@Override
+		public ExecutorService wrap(ExecutorService delegate) {
+			return this.delegate.wrap(delegate);
+		}
+
+	}
+
 }